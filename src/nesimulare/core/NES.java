@@ -26,10 +26,17 @@ package nesimulare.core;
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.prefs.Preferences;
 import nesimulare.gui.*;
 import nesimulare.core.audio.APU;
+import nesimulare.core.audio.OutputFilter;
+import nesimulare.core.audio.WavRecorder;
 import nesimulare.core.boards.Board;
 import nesimulare.core.cpu.CPU;
+import nesimulare.core.debug.CycleProfiler;
+import nesimulare.core.debug.Debugger;
+import nesimulare.core.debug.HostProfiler;
+import nesimulare.core.debug.TraceLogger;
 import nesimulare.core.input.Controllers;
 import nesimulare.core.input.Joypad;
 import nesimulare.core.memory.CPUMemory;
@@ -55,6 +62,7 @@ public class NES extends Thread {
     public GUIImpl gui = new GUIImpl(this);
     public ROMLoader loader;
     public AudioInterface audio;
+    public volatile WavRecorder recorder;
     private final ReentrantLock lock = new ReentrantLock();
     public int sampleRate;
 
@@ -66,6 +74,18 @@ public class NES extends Thread {
     public boolean frameAdvance = false;
     private String curRomPath, curRomName;
     public static boolean LOGGING = false;
+    public static final String TRACE_FILE = "cputrace.bin";
+    public static final String TRACE_RING_FILE = "cputrace-ring.bin";
+    private TraceLogger tracer;
+    public final Debugger debugger = new Debugger(this);
+    private CycleProfiler profiler;
+    private boolean profiling = false;
+    private HostProfiler hostProfiler;
+    private volatile HostProfiler requestedHostProfiler;
+    private volatile boolean hostProfilerPending = false;
+    private volatile HostProfiler lastHostProfiler;
+    private volatile boolean pipelinedRendering = false;
+    private volatile boolean namco163Mixing = false;
     public static final boolean INTERIM = true;
 
     /**
@@ -105,6 +125,15 @@ public class NES extends Thread {
         cpu.initialize();
 
         setupPlayback();
+        debugger.attach();
+        
+        if (profiler != null) {
+            //Symbols of the previous ROM are of no use
+            profiler = new CycleProfiler(this);
+        }
+        
+        //New components pick up the host profiler on emulation thread
+        hostProfilerPending = true;
     }
 
     /**
@@ -129,13 +158,14 @@ public class NES extends Thread {
         hardResetRequest = true;
         framecount = 0;
         runEmulation = false;
+        frameLimiter.wake();
     }
 
     /**
      * Performs a hard reset (turning console off and after about 30 minutes turning it back on).
      */
     private synchronized void _hardReset() {
-        generatePalette();
+        ppu.stopPipeline();
         cpuram.hardReset();
         ppuram.hardReset();
         frameLimiter.hardReset();
@@ -152,12 +182,14 @@ public class NES extends Thread {
         softResetRequest = true;
         framecount = 0;
         runEmulation = false;
+        frameLimiter.wake();
     }
 
     /**
      * Performs a soft reset (pressing Reset button on a console).
      */
     private synchronized void _softReset() {
+        ppu.stopPipeline();
         board.softReset();
         apu.softReset();
         cpu.softReset();
@@ -175,22 +207,34 @@ public class NES extends Thread {
         lock.lock();
         try {
             while (coreEnabled) {
+                if (debugger.isSwapPending()) {
+                    debugger.swapMemories();
+                }
+                
+                if (profiling && profiler.isResetPending()) {
+                    profiler.applyReset();
+                }
+                
+                if (hostProfilerPending) {
+                    applyHostProfiler();
+                }
+
                 if (runEmulation) {
+                    cpu.cycle();
+                    
+                    if (profiling) {
+                        profiler.record();
+                    }
+
                     if (LOGGING) {
-                        try {
-                            cpu.fw.write(cpu.getCPUState().toTraceEvent() + " CYC:" + ppu.hclock + " SL:" + ppu.vclock + "\n");
-
-                            if (cpu.getCPUState().stepCounter == 0) {
-                                cpu.fw.flush();
-                            }
-                        } catch (IOException ioe) {
-                            messageBox("Cannot write to debug log: " + ioe.getMessage());
-                        } finally {
-                            System.err.println(cpu.getCPUState().toTraceEvent() + " " + ppu.hclock + " " + ppu.vclock);
+                        if (tracer == null) {
+                            startTrace();
                         }
+                        
+                        tracer.record(cpu, framecount, ppu.vclock, ppu.hclock);
+                    } else if (tracer != null) {
+                        stopTrace();
                     }
-
-                    cpu.cycle();
                 } else {
                     if (frameLimiter != null) {
                         frameLimiter.sleepFixed();
@@ -209,9 +253,15 @@ public class NES extends Thread {
                     if (audio != null) {
                         audio.pause();
                     }
+                    
+                    if (hostProfiler != null) {
+                        //Time while paused doesn't belong to any frame
+                        hostProfiler.start();
+                    }
                 }
             }
         } finally {
+            ppu.stopPipeline();
             lock.unlock();
         }
     }
@@ -261,6 +311,11 @@ public class NES extends Thread {
      */
     public void setRegion(nesimulare.core.Region.System region) {
         this.region = region;
+        
+        if (audio != null) {
+            audio.setFilter(OutputFilter.Preset.select(region));
+        }
+        
         hardReset();
     }
 
@@ -271,16 +326,34 @@ public class NES extends Thread {
      * @param gui       GUI, which will be using rendered audio and video
      */
     public void finishFrame(GUIInterface gui) {
-        gui.setFrame(ppu.screen);
+        final HostProfiler host = hostProfiler;
+        final HostProfiler.Subsystem previous = (host != null) ? host.enter(HostProfiler.Subsystem.PRESENTATION) : null;
+        
+        if (!ppu.isPipelined()) {
+            gui.setFrame(ppu.screen, ppu.getPalette());
+        }
+        
+        if (profiling) {
+            profiler.endFrame();
+        }
 
         if (audio != null) {
             audio.resume();
             apu.finishFrame();
         }
+        
+        if (host != null) {
+            host.enter(HostProfiler.Subsystem.FRAME_LIMITER);
+        }
 
         if (frameLimiter != null) {
             frameLimiter.sleep();
         }
+        
+        if (host != null) {
+            host.leave(previous);
+            host.endFrame();
+        }
 
         if ((framecount & 2047) == 0) {
             saveSRAM(true);
@@ -294,6 +367,128 @@ public class NES extends Thread {
         }
     }
 
+    /**
+     * Presents a frame drawn on the rendering thread.
+     * 
+     * @param frame     Frame with 256x240 9-bit pixels
+     */
+    public void presentFrame(final short[] frame) {
+        gui.setFrame(frame, ppu.getPalette());
+    }
+    
+    /**
+     * Enables or disables drawing frames on a separate thread. 
+     * The change takes effect at the start of the next frame.
+     * 
+     * @param enabled       True: PPU output is drawn on a separate thread, 
+     *                      if the board allows it
+     */
+    public void setPipelinedRendering(final boolean enabled) {
+        pipelinedRendering = enabled;
+    }
+    
+    /**
+     * Checks if drawing frames on a separate thread is enabled.
+     * 
+     * @return          True if frames should be drawn on a separate thread
+     */
+    public boolean isPipelinedRendering() {
+        return pipelinedRendering;
+    }
+
+    /**
+     * Chooses how channels of Namco 163 are output. The change takes effect 
+     * at the next rendered span of expansion audio.
+     * 
+     * @param enabled       True: channels are mixed together
+     *                      False: channels are multiplexed as on hardware
+     */
+    public void setNamco163Mixing(final boolean enabled) {
+        namco163Mixing = enabled;
+        
+        if (board != null) {
+            board.updateSoundOptions();
+        }
+    }
+    
+    /**
+     * Checks if channels of Namco 163 are mixed together.
+     * 
+     * @return          True if channels should be mixed together
+     */
+    public boolean isNamco163Mixing() {
+        return namco163Mixing;
+    }
+
+    /**
+     * Returns the cycle profiler of a loaded ROM.
+     * 
+     * @return          Cycle profiler or null if no ROM is loaded
+     */
+    public CycleProfiler getProfiler() {
+        if (profiler == null && cpu != null && board != null) {
+            profiler = new CycleProfiler(this);
+        }
+        
+        return profiler;
+    }
+    
+    /**
+     * Starts or stops the cycle profiler. Starting clears statistics, but keeps loaded symbols.
+     * 
+     * @param enabled       True if profiler should be started
+     */
+    public void setProfiling(final boolean enabled) {
+        if (enabled && getProfiler() != null) {
+            profiler.reset();
+            profiling = true;
+        } else {
+            profiling = false;
+        }
+    }
+
+    /**
+     * Starts or stops the host profiler, which shows time taken by each subsystem of the emulator.
+     * Starting clears previous results. The change takes effect before the next instruction.
+     * 
+     * @param enabled       True if profiler should be started
+     */
+    public void setHostProfiling(final boolean enabled) {
+        final HostProfiler host = enabled ? new HostProfiler() : null;
+        requestedHostProfiler = host;
+        hostProfilerPending = true;
+        
+        if (host != null) {
+            lastHostProfiler = host;
+        }
+    }
+    
+    /**
+     * Passes the host profiler requested by {@link #setHostProfiling(boolean)} to components. 
+     * Called only from emulation thread between two instructions.
+     */
+    private void applyHostProfiler() {
+        hostProfilerPending = false;
+        hostProfiler = requestedHostProfiler;
+        
+        if (hostProfiler != null) {
+            hostProfiler.start();
+        }
+        
+        cpu.setHostProfiler(hostProfiler);
+        ppu.setHostProfiler(hostProfiler);
+        apu.setHostProfiler(hostProfiler);
+    }
+    
+    /**
+     * Returns the host profiler.
+     * 
+     * @return          The last started host profiler or null if it has never been started
+     */
+    public HostProfiler getHostProfiler() {
+        return lastHostProfiler;
+    }
+
     /**
      * Displays a message box with a message.
      * 
@@ -304,9 +499,94 @@ public class NES extends Thread {
     }
 
     /**
-     * Generates an internal palette for the PPU.
+     * Starts recording a CPU trace. Trace options are read from preferences.
+     */
+    private void startTrace() {
+        final Preferences prefs = PrefsSingleton.get();
+        
+        tracer = new TraceLogger(prefs.getInt("traceBufferSize", 1 << 20));
+        tracer.setPCRange(prefs.getInt("tracePCMin", 0x0000), prefs.getInt("tracePCMax", 0xFFFF));
+        tracer.setScanlineRange(prefs.getInt("traceScanlineMin", -1), prefs.getInt("traceScanlineMax", 0x7FFF));
+        tracer.setFrameRange(prefs.getLong("traceFrameMin", 0), prefs.getLong("traceFrameMax", Long.MAX_VALUE));
+        
+        if (prefs.getBoolean("traceSpill", false)) {
+            try {
+                tracer.setSpillFile(TRACE_FILE);
+            } catch (IOException ioe) {
+                messageBox("Cannot create trace file: " + ioe.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Stops recording a CPU trace and writes it to a file.
+     * If spilling failed, records recorded afterwards are written to a separate file,
+     * so the spilled part of the trace is kept.
+     * The trace can be turned into text with TraceDecoder.
+     */
+    private void stopTrace() {
+        try {
+            if (tracer.hasSpilled()) {
+                tracer.save(TRACE_RING_FILE);
+                messageBox("Trace file was cut short, later instructions were saved to " + TRACE_RING_FILE);
+            } else if (!tracer.isSpilling()) {
+                tracer.save(TRACE_FILE);
+            }
+            
+            tracer.close();
+        } catch (IOException ioe) {
+            messageBox("Cannot write trace file: " + ioe.getMessage());
+        }
+        
+        tracer = null;
+    }
+    
+    /**
+     * Starts recording audio into a WAV file. A recording in progress is stopped first.
+     * 
+     * @param filename          Filename of a WAV file
+     * @throws IOException      If the file cannot be created or the previous recording cannot be completed
+     */
+    public void startRecording(final String filename) throws IOException {
+        stopRecording();
+        
+        final float volume = (float) (PrefsSingleton.get().getInt("outputvol", 13107) / 16384.);
+        recorder = new WavRecorder(filename, sampleRate, OutputFilter.Preset.select(region), volume);
+    }
+    
+    /**
+     * Stops recording audio and completes the WAV file.
+     * 
+     * @return                  Stopped recorder or null if audio hasn't been recorded
+     * @throws IOException      If the file cannot be written
+     */
+    public WavRecorder stopRecording() throws IOException {
+        final WavRecorder wav = recorder;
+        
+        if (wav != null) {
+            recorder = null;
+            wav.close();
+        }
+        
+        return wav;
+    }
+    
+    /**
+     * Sets up an internal palette for the PPU.
+     * If a palette file was chosen, it is loaded instead of a generated palette.
      */
     public void generatePalette() {
+        final String paletteFile = PrefsSingleton.get().get("paletteFile", "");
+        
+        if (!paletteFile.isEmpty() && Tools.exists(paletteFile)) {
+            try {
+                ppu.setupPalette(PaletteGenerator.loadPalette(paletteFile));
+                return;
+            } catch (IOException ioe) {
+                messageBox("Could not load palette: " + ioe.getMessage());
+            }
+        }
+        
         ppu.setupPalette(PaletteGenerator.generattePalette());
     }
 
@@ -319,6 +599,7 @@ public class NES extends Thread {
         runEmulation = false;
         coreEnabled = false;
         interrupt();
+        frameLimiter.wake();
 
         while (lock.isLocked()) {
             try {
@@ -420,5 +701,14 @@ public class NES extends Thread {
 
         audio = new Audio(this, sampleRate);
         apu.setupPlayback();
+        
+        if (recorder != null && recorder.sampleRate != sampleRate) {
+            try {
+                stopRecording();
+                messageBox("Audio recording has been stopped, because the sample rate has changed.");
+            } catch (IOException ioe) {
+                messageBox("Could not write audio recording: " + ioe.getMessage());
+            }
+        }
     }
 }
\ No newline at end of file
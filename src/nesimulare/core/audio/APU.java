@@ -24,9 +24,11 @@
 package nesimulare.core.audio;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import nesimulare.core.NES;
 import nesimulare.core.ProcessorBase;
 import nesimulare.core.cpu.CPU;
+import nesimulare.core.debug.HostProfiler;
 import nesimulare.gui.Tools;
 
 /**
@@ -84,7 +86,22 @@ public class APU extends ProcessorBase {
     private int sampleCycles = 0;
     private int samplePeriod = 3125;
     private int sampleSingle = 77;
-    private int lpaccum = 0, dckiller = 0;
+    private int sampleCount = 0;
+    private int lastOutput = 0;
+    private BlipBuffer blip = new BlipBuffer(2048);
+    private int[] samples = new int[2048];
+    
+    /**
+     * Maximum number of CPU cycles of expansion audio rendered at once.
+     */
+    private static final int EXPANSION_SPAN = 1024;
+    private final int[] expansionBuffer = new int[EXPANSION_SPAN];
+    private int lastExpansionOutput = 0;
+    private int tick = 0;               //CPU cycles since the reference point
+    private int renderedTick = 0;       //CPU cycles of expansion audio rendered since the reference point
+    private int refSample = 0;          //Output sample at the reference point
+    private int refCycles = 0;          //Position between output samples at the reference point
+    private HostProfiler hostProfiler;  //Times rendered spans of expansion audio
     private final int[] tnd_lookup, square_lookup;
 
     /**
@@ -169,8 +186,11 @@ public class APU extends ProcessorBase {
         noise.hardReset();
         dmc.hardReset();
         
-        lpaccum = 0; 
-        dckiller = 0;
+        sampleCount = 0;
+        lastOutput = 0;
+        lastExpansionOutput = 0;
+        blip.clear();
+        resetReference();
 
         if (expansionSound) {
             for (ExpansionSoundChip esc : expnSndChip) {
@@ -217,6 +237,15 @@ public class APU extends ProcessorBase {
         expansionSound = true;
     }
 
+    /**
+     * Sets a host profiler timing expansion audio. Called only from emulation thread.
+     * 
+     * @param profiler      Host profiler or null to stop profiling
+     */
+    public void setHostProfiler(final HostProfiler profiler) {
+        hostProfiler = profiler;
+    }
+
     /**
      * Returns a value read from a given register.
      * 
@@ -438,6 +467,8 @@ public class APU extends ProcessorBase {
         noise.quarterFrame();
 
         if (expansionSound) {
+            renderExpansion();
+            
             for (ExpansionSoundChip esc : expnSndChip) {
                 esc.quarterFrame();
             }
@@ -537,6 +568,8 @@ public class APU extends ProcessorBase {
                     currentSequencer = 0;
                 }
             }
+            
+            checkQuiescence();
         }
 
         clockChannels();
@@ -544,22 +577,56 @@ public class APU extends ProcessorBase {
         super.cycle(cycles);
     }
 
+    /**
+     * Performs a given number of CPU cycles in a row.
+     *
+     * @param count         Number of CPU cycles
+     * @param cycles        Number of machine cycles in a CPU cycle
+     */
+    public void advance(final int count, final int cycles) {
+        for (int i = 0; i < count; i++) {
+            cycle(cycles);
+        }
+    }
+
+    /**
+     * Returns a number of CPU cycles, which can be performed before
+     * the frame sequencer or DMC may request an interrupt or DMA.
+     *
+     * @return      Number of CPU cycles
+     */
+    public int cyclesBeforeInterrupt() {
+        if (dmc.getStatus()) {
+            return 0;
+        } else if (!sequencerMode && frameIRQEnabled) {
+            return apuCycles - 1;
+        }
+
+        return Integer.MAX_VALUE;
+    }
+
     /**
      * Performs an individual machine cycle.
      */
     @Override
     public void cycle() {
-        pulse1.cycle(region.singleCycle);
-        pulse2.cycle(region.singleCycle);
-        triangle.cycle(region.singleCycle);
-        noise.cycle(region.singleCycle);
-        dmc.cycle(region.singleCycle);
-
-        if (expansionSound) {
-            for (ExpansionSoundChip esc : expnSndChip) {
-                esc.cycle(region.singleCycle);
-            }
-        }
+        pulse1.clock(region.singleCycle);
+        pulse2.clock(region.singleCycle);
+        triangle.clock(region.singleCycle);
+        noise.clock(region.singleCycle);
+        dmc.clock(region.singleCycle);
+    }
+    
+    /**
+     * Lets channels which went silent be skipped until their registers are written again.
+     * Frame sequencer keeps clocking envelopes and counters of skipped channels.
+     */
+    private void checkQuiescence() {
+        pulse1.checkQuiescence();
+        pulse2.checkQuiescence();
+        triangle.checkQuiescence();
+        noise.checkQuiescence();
+        dmc.checkQuiescence();
     }
 
     /**
@@ -572,9 +639,11 @@ public class APU extends ProcessorBase {
         noise.clockChannel(clockLength);
         dmc.clockChannel(clockLength);
 
-        if (expansionSound) {
+        if (expansionSound && clockLength) {
+            //Expansion audio is already rendered up to now by halfFrame(),
+            //chips clock their channels without length clocking while rendering
             for (ExpansionSoundChip esc : expnSndChip) {
-                esc.clockChannel(clockLength);
+                esc.clockChannel(true);
             }
         }
 
@@ -592,6 +661,8 @@ public class APU extends ProcessorBase {
      * Sets up an audio playback depending on a sample rate selected in general options.
      */
     public void setupPlayback() {
+        renderExpansion();
+        
         samplePeriod = system.master;
         sampleSingle = system.cpu * nes.sampleRate;
         
@@ -600,24 +671,175 @@ public class APU extends ProcessorBase {
         
         samplePeriod = sample[0];
         sampleSingle = sample[1];
+        sampleCycles = 0;
+        
+        //Room for two frames, in case a frame gets longer than usual
+        final int capacity = nes.sampleRate / 25;
+        
+        if (capacity != blip.getCapacity()) {
+            blip = new BlipBuffer(capacity);
+            samples = new int[capacity];
+            sampleCount = 0;
+            lastOutput = 0;
+            lastExpansionOutput = 0;
+        }
+        
+        resetReference();
+    }
+    
+    /**
+     * Adjusts the number of samples generated per emulated second.
+     * 
+     * @param ratio     Multiplier of a sample rate selected in general options
+     */
+    public void setPlaybackRate(final double ratio) {
+        renderExpansion();
+        
+        //Unreduced period gives enough precision for small adjustments
+        sampleCycles = (int) ((long) sampleCycles * system.master / samplePeriod);
+        samplePeriod = system.master;
+        sampleSingle = (int) Math.round((double) system.cpu * nes.sampleRate * ratio);
+        resetReference();
+    }
+    
+    /**
+     * Makes the current position the reference point, which expansion audio is rendered from.
+     */
+    private void resetReference() {
+        tick = 0;
+        renderedTick = 0;
+        refSample = sampleCount;
+        refCycles = sampleCycles;
+    }
+    
+    /**
+     * Renders expansion audio up to the current CPU cycle and records its changes
+     * in the band-limited buffer. Has to be called before any write that changes
+     * the state of an expansion sound chip.
+     */
+    public void renderExpansion() {
+        if (!expansionSound || renderedTick == tick) {
+            return;
+        }
+        
+        final HostProfiler host = hostProfiler;
+        final HostProfiler.Subsystem previous = (host != null) ? host.enter(HostProfiler.Subsystem.EXPANSION_AUDIO) : null;
+        final int count = tick - renderedTick;
+        boolean silent = true;
+        
+        for (int i = 0; i < expnSndChip.size(); i++) {
+            final ExpansionSoundChip chip = expnSndChip.get(i);
+            
+            if (chip.isQuiescent()) {
+                chip.skip(count);
+            } else {
+                if (silent) {
+                    Arrays.fill(expansionBuffer, 0, count, 0);
+                    silent = false;
+                }
+                
+                chip.render(expansionBuffer, 0, count);
+            }
+        }
+        
+        if (silent) {
+            if (lastExpansionOutput == 0) {
+                //Nothing to mix, all chips are quiescent and silent
+                renderedTick = tick;
+                
+                if (host != null) {
+                    host.leave(previous);
+                }
+                
+                return;
+            }
+            
+            Arrays.fill(expansionBuffer, 0, count, 0);
+        }
+        
+        //Position of the first rendered cycle, in the same units as sampleCycles
+        long position = (long) refSample * samplePeriod + refCycles + (long) (renderedTick + 1) * sampleSingle;
+        
+        for (int i = 0; i < count; i++) {
+            final int output = expansionBuffer[i];
+            
+            if (output != lastExpansionOutput) {
+                final int sample = (int) (position / samplePeriod);
+                final int phase = (int) (position % samplePeriod * BlipBuffer.PHASES / samplePeriod);
+                
+                blip.addDelta(sample, phase, output - lastExpansionOutput);
+                lastExpansionOutput = output;
+            }
+            
+            position += sampleSingle;
+        }
+        
+        renderedTick = tick;
+        
+        if (host != null) {
+            host.leave(previous);
+        }
     }
     
     /**
      * Updates an audio playback depending on a sample rate selected in general options.
+     * Changes of the mixed output are recorded in a band-limited buffer together
+     * with their position between two output samples.
      */
     private void updatePlayback() {
         sampleCycles += sampleSingle;
+        tick++;
         
         if (sampleCycles >= samplePeriod) {
             sampleCycles -= samplePeriod;
-            nes.audio.outputSample(lowpass_filter(highpass_filter(outputSample())));
+            sampleCount++;
+            
+            if (sampleCount == blip.getCapacity()) {
+                flushSamples();
+            }
+        }
+        
+        final int output = outputSample();
+        
+        if (output != lastOutput) {
+            final int phase = (int) ((long) sampleCycles * BlipBuffer.PHASES / samplePeriod);
+            blip.addDelta(sampleCount, phase, output - lastOutput);
+            lastOutput = output;
+        }
+        
+        if (tick - renderedTick == EXPANSION_SPAN) {
+            renderExpansion();
+        }
+    }
+    
+    /**
+     * Integrates all complete samples from the band-limited buffer and sends them to an audio renderer.
+     * Samples are unfiltered, the audio renderer applies output filters on its own thread.
+     * Samples are also passed to a WAV recorder if audio is being recorded.
+     */
+    private void flushSamples() {
+        renderExpansion();
+        blip.readSamples(samples, sampleCount);
+        
+        for (int i = 0; i < sampleCount; i++) {
+            nes.audio.outputSample(samples[i]);
         }
+        
+        final WavRecorder recorder = nes.recorder;
+        
+        if (recorder != null) {
+            recorder.write(samples, sampleCount);
+        }
+        
+        sampleCount = 0;
+        resetReference();
     }
     
     /**
-     * Generates an audio sample for use with an audio renderer.
+     * Mixes current outputs of 2A03 channels.
+     * Expansion audio is mixed separately by {@link #renderExpansion()}.
      * 
-     * @return      Audio sample for use with an audio renderer.
+     * @return      Mixed output of all channels
      */
     private int outputSample() {
         int vol;
@@ -625,48 +847,17 @@ public class APU extends ProcessorBase {
         vol += tnd_lookup[3 * triangle.getOutput() + 2 * noise.getOutput() + dmc.getOutput()];
         
         if (expansionSound) {
-            vol *= 0.8;
-            
-            for (ExpansionSoundChip c : expnSndChip) {
-                vol += c.getOutput();
-            }
+            vol = vol * 4 / 5;
         }
 
         return vol;
     }
 
-    /**
-     * Applies high-pass filtering to the audio sample.
-     * 
-     * @param sample        Audio sample before high-pass filtering
-     * @return              Audio sample after high-pass filtering
-     */
-    private int highpass_filter(int sample) {
-        //for killing the dc in the signal
-        sample += dckiller;
-        dckiller -= sample >> 8;//the actual high pass part
-        dckiller += (sample > 0 ? -1 : 1);//guarantees the signal decays to exactly zero
-        
-        return sample;
-    }
-
-    /**
-     * Applies low-pass filtering to the audio sample.
-     * 
-     * @param sample        Audio sample before high-pass filtering
-     * @return              Audio sample after high-pass filtering
-     */
-    private int lowpass_filter(int sample) {
-        sample += lpaccum;
-        lpaccum -= sample * 0.9;
-        
-        return lpaccum;
-    }
-
     /**
      * Renders audio after completing a frame.
      */
     public void finishFrame() {
+        flushSamples();
         nes.audio.flushFrame(nes.frameLimiter.enabled);
     }
 }
\ No newline at end of file
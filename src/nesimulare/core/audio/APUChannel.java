@@ -42,6 +42,7 @@ public class APUChannel extends ProcessorBase {
     protected int lengthCounter, lengthCounterReload = 0;
     protected boolean lenctrLoop, lenctrHalt = false, lenctrHaltRequest = false, lengthCounterReloading, lenctrReloadRequest = false;
     protected int frequency;
+    protected boolean quiescent = false;
 
     /**
      * Constructor for this class. Connects an emulated region with a given channel.
@@ -76,6 +77,8 @@ public class APUChannel extends ProcessorBase {
      */
     @Override
     public void hardReset() {
+        wake();
+        
         lenctrHalt = false;
         lenctrHaltRequest = false;
         lengthCounter = 0;
@@ -89,6 +92,8 @@ public class APUChannel extends ProcessorBase {
      */
     @Override
     public void softReset() {
+        wake();
+        
         lengthCounterReloading = false;
         lengthCounter = 0;
     }
@@ -127,10 +132,84 @@ public class APUChannel extends ProcessorBase {
      * @param status Channel status
      */
     public void setStatus(boolean status) {
+        wake();
         lengthCounterReloading = status;
 
         if (!lengthCounterReloading) {
             lengthCounter = 0;
         }
     }
+    
+    /**
+     * Checks if clocking the timer has no effect until one of registers is written.
+     * 
+     * @return      True: Channel can be skipped
+     *              False: Channel has to be clocked
+     */
+    protected boolean isQuiescent() {
+        return false;
+    }
+    
+    /**
+     * Re-evaluates whether the channel can be skipped.
+     * Called after events which can silence a channel, such as frame sequencer clocks.
+     */
+    public final void checkQuiescence() {
+        catchUp();
+        quiescent = isQuiescent();
+    }
+    
+    /**
+     * Makes sure the channel is clocked again. Has to be called before any change
+     * of channel state, so that skipped cycles are accounted for with the old state.
+     */
+    protected final void wake() {
+        catchUp();
+        quiescent = false;
+    }
+    
+    /**
+     * Performs a given number of machine cycles, unless the channel is quiescent.
+     * In that case only elapsed time is recorded.
+     * 
+     * @param cycles        Number of machine cycles.
+     */
+    public final void clock(int cycles) {
+        if (quiescent) {
+            region.cycles -= cycles;
+        } else {
+            cycle(cycles);
+        }
+    }
+    
+    /**
+     * Sets the number of machine cycles between two timer clocks.
+     * 
+     * @param cycles        Number of machine cycles
+     */
+    protected final void setTimer(int cycles) {
+        catchUp();
+        region.singleCycle = cycles;
+    }
+    
+    /**
+     * Brings the timer up to date after the channel has been skipped,
+     * as if it was clocked all along.
+     */
+    private void catchUp() {
+        if (region.cycles < 0) {
+            final int steps = (region.cycles + 1) / -region.singleCycle + 1;
+            region.cycles += steps * region.singleCycle;
+            skip(steps);
+        }
+    }
+    
+    /**
+     * Applies effects of timer clocks, which have been skipped while the channel was quiescent.
+     * 
+     * @param steps         Number of skipped timer clocks
+     */
+    protected void skip(int steps) {
+        //Nothing to see here, move along
+    }
 }
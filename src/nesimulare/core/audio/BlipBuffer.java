@@ -0,0 +1,145 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2013-2014 Parseus.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package nesimulare.core.audio;
+
+import java.util.Arrays;
+
+/**
+ * Band-limited synthesis buffer.
+ *
+ * Instead of point-sampling the mixed output, changes in amplitude are recorded
+ * as deltas at their exact position between two output samples. Each delta is
+ * spread over a few neighbouring samples with a windowed sinc kernel, and
+ * the buffer is integrated into output samples once per frame.
+ * This way the output is free of aliasing, and work is only done when the
+ * amplitude actually changes.
+ *
+ * @author Parseus
+ */
+public class BlipBuffer {
+    /**
+     * Number of samples each delta is spread over.
+     */
+    public static final int WIDTH = 16;
+
+    /**
+     * Number of sub-sample positions a delta can be placed at.
+     */
+    public static final int PHASES = 32;
+
+    private static final int KERNEL_BITS = 12;
+    private static final double CUTOFF = 0.9;
+    private static final int[][] kernel = new int[PHASES][WIDTH];
+
+    static {
+        for (int phase = 0; phase < PHASES; phase++) {
+            final double[] taps = new double[WIDTH];
+            double sum = 0;
+
+            for (int i = 0; i < WIDTH; i++) {
+                //Distance from the step, which is placed between taps WIDTH / 2 - 1 and WIDTH / 2
+                final double x = i - (WIDTH / 2 - 1) - (double) phase / PHASES;
+                final double window = 0.42 + 0.5 * Math.cos(2 * Math.PI * x / WIDTH) + 0.08 * Math.cos(4 * Math.PI * x / WIDTH);
+                final double sinc = (x == 0) ? 1.0 : Math.sin(Math.PI * CUTOFF * x) / (Math.PI * CUTOFF * x);
+
+                taps[i] = sinc * window;
+                sum += taps[i];
+            }
+
+            int total = 0;
+
+            for (int i = 0; i < WIDTH; i++) {
+                kernel[phase][i] = (int) Math.round(taps[i] / sum * (1 << KERNEL_BITS));
+                total += kernel[phase][i];
+            }
+
+            //Rounding error goes into the center tap, so a step always settles to its exact height
+            kernel[phase][WIDTH / 2 - 1] += (1 << KERNEL_BITS) - total;
+        }
+    }
+
+    private final int[] buffer;
+    private final int capacity;
+    private int integrator = 0;
+
+    /**
+     * Constructor for this class.
+     *
+     * @param capacity      Maximum number of samples between two reads
+     */
+    public BlipBuffer(final int capacity) {
+        this.capacity = capacity;
+        buffer = new int[capacity + WIDTH];
+    }
+
+    /**
+     * Returns the maximum number of samples between two reads.
+     *
+     * @return      Maximum number of samples between two reads
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Clears all pending deltas and resets the output level to zero.
+     */
+    public void clear() {
+        Arrays.fill(buffer, 0);
+        integrator = 0;
+    }
+
+    /**
+     * Records an amplitude change.
+     *
+     * @param sample        Index of the output sample preceding the change
+     * @param phase         Position of the change between two samples (0 - PHASES-1)
+     * @param delta         Amplitude change
+     */
+    public void addDelta(final int sample, final int phase, final int delta) {
+        final int[] taps = kernel[phase];
+
+        for (int i = 0; i < WIDTH; i++) {
+            buffer[sample + i] += taps[i] * delta;
+        }
+    }
+
+    /**
+     * Integrates a given number of samples and removes them from the buffer.
+     * Deltas which still affect following samples are kept.
+     *
+     * @param output        Array to store samples to
+     * @param count         Number of samples to read
+     */
+    public void readSamples(final int[] output, final int count) {
+        for (int i = 0; i < count; i++) {
+            integrator += buffer[i];
+            output[i] = integrator >> KERNEL_BITS;
+        }
+
+        System.arraycopy(buffer, count, buffer, 0, WIDTH);
+        Arrays.fill(buffer, WIDTH, WIDTH + count, 0);
+    }
+}
@@ -116,6 +116,8 @@ public class DMCChannel extends APUChannel {
      * @param data Written data
      */
     public void write(final int register, final int data) {
+        wake();
+        
         switch (register) {
             /**
              * $4010 
@@ -130,7 +132,7 @@ public class DMCChannel extends APUChannel {
                     apu.cpu.interrupt(CPU.InterruptTypes.DMC, false);
                 }
 
-                region.singleCycle = getCycles(dpcmFrequency[data & 0xF]);
+                setTimer(getCycles(dpcmFrequency[data & 0xF]));
                 break;
 
             /**
@@ -179,6 +181,8 @@ public class DMCChannel extends APUChannel {
      */
     @Override
     public void setStatus(boolean status) {
+        wake();
+        
         if (status) {
             if (dmaSize == 0) {
                 dmaSize = sampleLength;
@@ -243,10 +247,33 @@ public class DMCChannel extends APUChannel {
         }
     }
 
+    /**
+     * Checks if clocking the timer has no effect until one of registers is written.
+     * With no sample playing and an empty buffer, only the bit counter keeps running.
+     * 
+     * @return      True: Channel can be skipped
+     *              False: Channel has to be clocked
+     */
+    @Override
+    protected boolean isQuiescent() {
+        return dmaSize == 0 && !fullBuffer && !dmaEnabled;
+    }
+    
+    /**
+     * Advances the bit counter by timer clocks skipped while the channel was silent.
+     * 
+     * @param steps         Number of skipped timer clocks
+     */
+    @Override
+    protected void skip(int steps) {
+        outbits = (((outbits - 1 - steps) % 8) + 8) % 8 + 1;
+    }
+    
     /**
      * Fetches sample data for DMC channel.
      */
     public void fetch() {
+        wake();
         buffer = apu.cpu.read(dmaAddress);
         fullBuffer = true;
         rdyRise = true;
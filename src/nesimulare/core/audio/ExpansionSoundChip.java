@@ -30,13 +30,6 @@ package nesimulare.core.audio;
  * @author Parseus
  */
 public interface ExpansionSoundChip {
-    /**
-     * Generates an audio sample for use with an audio renderer.
-     *
-     * @return Audio sample for use with an audio renderer.
-     */
-    int getOutput();
-    
     /**
      * Performs a hard reset (turning console off and after about 30 minutes turning it back on).
      */
@@ -64,9 +57,30 @@ public interface ExpansionSoundChip {
     void clockChannel(boolean clockingLength);
     
     /**
-     * Performs a given number of machine cycles.
+     * Renders the output of the chip for a span of CPU cycles.
+     * Output is added to a buffer, one value per CPU cycle, so several chips
+     * can be mixed into the same buffer. Chips are rendered up to the current
+     * cycle before every write to their registers.
+     * 
+     * @param buffer        Buffer to add the output to
+     * @param fromCycle     Index of the first CPU cycle to render
+     * @param toCycle       Index after the last CPU cycle to render
+     */
+    void render(int[] buffer, int fromCycle, int toCycle);
+    
+    /**
+     * Checks if the chip is silent and stays silent until one of its registers is written.
+     * Quiescent chips are not rendered, the APU only calls {@link #skip(int)} instead.
+     * 
+     * @return      True: Chip can be skipped
+     *              False: Chip has to be rendered
+     */
+    boolean isQuiescent();
+    
+    /**
+     * Advances a quiescent chip by a span of CPU cycles without rendering its output.
      * 
-     * @param cycles        Number of machine cycles.
+     * @param cycles        Number of CPU cycles
      */
-    void cycle(int cycles);
+    void skip(int cycles);
 }
\ No newline at end of file
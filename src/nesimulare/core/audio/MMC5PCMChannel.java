@@ -73,6 +73,16 @@ public class MMC5PCMChannel extends APUChannel {
         //Override a method in order not to clock length counter which doesn't exist on a PCM channel
     }
     
+    /**
+     * PCM channel has no timer, its output only changes on writes.
+     * 
+     * @return      Always true
+     */
+    @Override
+    protected boolean isQuiescent() {
+        return true;
+    }
+    
     /**
      * Writes data to a given register
      *
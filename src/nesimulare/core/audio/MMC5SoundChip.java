@@ -38,6 +38,7 @@ public class MMC5SoundChip implements ExpansionSoundChip {
 
     public MMC5PulseChannel pulse1, pulse2;
     public MMC5PCMChannel pcm;
+    private final int tickCycles;
 
     /**
      * Constructor for this class. Connects an emulated region with a given channel.
@@ -45,6 +46,7 @@ public class MMC5SoundChip implements ExpansionSoundChip {
      * @param system Emulated region
      */
     public MMC5SoundChip(Region.System system) {
+        tickCycles = system.cpu;
         pulse1 = new MMC5PulseChannel(system);
         pulse2 = new MMC5PulseChannel(system);
         pcm = new MMC5PCMChannel(system);
@@ -138,7 +140,6 @@ public class MMC5SoundChip implements ExpansionSoundChip {
      *
      * @return Audio sample for use with an audio renderer.
      */
-    @Override
     public int getOutput() {
         int output = pulse1.getOutput();
         output += pulse2.getOutput();
@@ -154,6 +155,10 @@ public class MMC5SoundChip implements ExpansionSoundChip {
     public void quarterFrame() {
         pulse1.quarterFrame();
         pulse2.quarterFrame();
+        
+        pulse1.checkQuiescence();
+        pulse2.checkQuiescence();
+        pcm.checkQuiescence();
     }
 
     /**
@@ -177,14 +182,45 @@ public class MMC5SoundChip implements ExpansionSoundChip {
     }
 
     /**
-     * Performs a given number of machine cycles.
+     * Renders the output of the chip for a span of CPU cycles.
+     * 
+     * @param buffer        Buffer to add the output to
+     * @param fromCycle     Index of the first CPU cycle to render
+     * @param toCycle       Index after the last CPU cycle to render
+     */
+    @Override
+    public void render(int[] buffer, int fromCycle, int toCycle) {
+        for (int i = fromCycle; i < toCycle; i++) {
+            //Length clocks come from the APU frame sequencer through clockChannel(true)
+            clockChannel(false);
+            pulse1.clock(tickCycles);
+            pulse2.clock(tickCycles);
+            pcm.clock(tickCycles);
+            
+            buffer[i] += getOutput();
+        }
+    }
+
+    /**
+     * Checks if both pulse wave channels are silent and PCM channel outputs nothing.
+     * 
+     * @return      True: Chip can be skipped
+     *              False: Chip has to be rendered
+     */
+    @Override
+    public boolean isQuiescent() {
+        return pulse1.quiescent && pulse2.quiescent && pcm.getOutput() == 0;
+    }
+
+    /**
+     * Advances timers of silent channels.
      * 
-     * @param cycles        Number of machine cycles.
+     * @param cycles        Number of CPU cycles
      */
     @Override
-    public void cycle(int cycles) {
-        pulse1.cycle(cycles);
-        pulse2.cycle(cycles);
-        pcm.cycle(cycles);
+    public void skip(int cycles) {
+        pulse1.clock(cycles * tickCycles);
+        pulse2.clock(cycles * tickCycles);
+        pcm.clock(cycles * tickCycles);
     }
 }
\ No newline at end of file
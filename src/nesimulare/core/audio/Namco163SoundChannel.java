@@ -24,23 +24,25 @@
 package nesimulare.core.audio;
 
 import nesimulare.core.Region;
-import nesimulare.gui.Tools;
 
 /**
  * Emulates a wavetable channel that is a part of Namco 163 sound chip.
+ * 
+ * Samples of the waveform are decoded from sound RAM into a cache, which is
+ * rebuilt only after the waveform itself (its address, its length or sound RAM
+ * it covers) has changed.
  *
  * @author Parseus
  */
 public class Namco163SoundChannel extends APUChannel {
     private final Namco163SoundChip soundChip;
-    private int linearVolume = 0;
-    private int output = 0;
-    private int step = 0;
+    private final int waveform[] = new int[256];
+    private int phase = 0;
+    private int volume = 0;
     private int waveformAddress = 0;
     private int waveformLength = 256;
-    private int waveformBuffer[] = new int[256];
-    public boolean enabled = false;
-    private boolean freeze = true;
+    private boolean dirty = true;
+    protected int output = 0;
     
     /**
      * Constructor for this class. Connects an emulated region with a given channel.
@@ -61,128 +63,126 @@ public class Namco163SoundChannel extends APUChannel {
     public void hardReset() {
         super.hardReset();
         
-        linearVolume = 0;
-        output = 0;
-        step = 0;
+        frequency = 0;
+        phase = 0;
+        volume = 0;
         waveformAddress = 0;
         waveformLength = 256;
-        waveformBuffer = new int[256];
-        enabled = false;
-        freeze = true;
-    }
-    
-    /**
-     * Given data, sets a low byte of frequency.
-     * 
-     * @param data Given data
-     */
-    protected void lowFrequency(int data) {
-        frequency = (frequency & 0x03FF00) | data;
-        updateFrequency();
+        dirty = true;
+        output = 0;
     }
     
     /**
-     * Given data, sets a mid byte of frequency.
-     * 
-     * @param data Given data
+     * Performs a soft reset (pressing Reset button on a console).
      */
-    protected void midFrequency(int data) {
-        frequency = (frequency & 0x0300FF) | (data << 8);
-        updateFrequency();
+    @Override
+    public void softReset() {
+        super.softReset();
+        
+        hardReset();
     }
     
     /**
-     * Given data, sets a high byte of frequency.
-     * Also sets up a waveform buffer.
+     * Writes to one of 8 channel registers.
      * 
-     * @param data Given data
+     * @param register      Register number (0-7)
+     * @param data          Register data
      */
-    protected void highFrequency(int data) {
-        frequency = (frequency & 0x00FFFF) | ((data & 0x3) << 16);
-        updateFrequency();
-        waveformLength = (64 - ((data >> 2) & 0x3F)) << 2;
-        setupWaveformBuffer();
+    protected void write(int register, int data) {
+        switch (register) {
+            case 0: frequency = (frequency & 0x3FF00) | data; break;
+            case 1: phase = (phase & 0xFFFF00) | data; break;
+            case 2: frequency = (frequency & 0x300FF) | (data << 8); break;
+            case 3: phase = (phase & 0xFF00FF) | (data << 8); break;
+            case 4: 
+                frequency = (frequency & 0x0FFFF) | ((data & 0x3) << 16);
+                
+                if (waveformLength != 256 - (data & 0xFC)) {
+                    waveformLength = 256 - (data & 0xFC);
+                    dirty = true;
+                }
+                break;
+            case 5: phase = (phase & 0x00FFFF) | (data << 16); break;
+            case 6: 
+                if (waveformAddress != data) {
+                    waveformAddress = data;
+                    dirty = true;
+                }
+                break;
+            case 7: volume = data & 0xF; break;
+            default: break;
+        }
     }
     
     /**
-     * Sets address of a waveform.
+     * Reads back one of phase bytes, which the chip keeps in sound RAM.
      * 
-     * @param data 
+     * @param register      Register number (1, 3 or 5)
+     * @return              Current phase byte
      */
-    protected void waveAddress(int data) {
-        waveformAddress = data;
-        setupWaveformBuffer();
+    protected int readPhase(int register) {
+        return (phase >> ((register >> 1) << 3)) & 0xFF;
     }
     
     /**
-     * Sets linear volume.
+     * Invalidates cached waveform if a given sample lies within it.
      * 
-     * @param data 
+     * @param sample        Index of a 4-bit sample in sound RAM
      */
-    protected void setVolume(int data) {
-        linearVolume = data & 0xF;
+    protected void invalidate(int sample) {
+        if (((sample - waveformAddress) & 0xFF) < waveformLength) {
+            dirty = true;
+        }
     }
     
     /**
-     * Performs an individual machine cycle.
+     * Performs a single update of the channel: advances phase and fetches a new sample.
      */
     @Override
     public void cycle() {
-        if (freeze) {
-            return;
+        if (dirty) {
+            setupWaveform();
         }
         
-        if (waveformBuffer.length <= waveformLength) {
-            step = (step + 1) & (waveformLength - 1);
-            output = (waveformBuffer[step] * linearVolume) & 0xFF;
+        phase += frequency;
+        
+        if (phase >= (waveformLength << 16)) {
+            phase %= (waveformLength << 16);
         }
+        
+        output = waveform[phase >> 16] * volume;
     }
     
     /**
-     * Generates an audio sample for use with an audio renderer.
-     *
-     * @return Audio sample for use with an audio renderer.
+     * Checks if the channel is muted and its last output is silent.
+     * 
+     * @return      True: Channel is silent
+     *              False: Channel is audible
      */
-    public int getOutput() {
-        if (enabled) {
-            return output;
-        }
-        
-        return 0;
+    protected boolean isSilent() {
+        return volume == 0 && output == 0;
     }
     
     /**
-     * Updates a single cycle timing based on frequency.
+     * Advances phase of a muted channel by a number of updates without fetching samples.
+     * 
+     * @param steps     Number of updates
      */
-    private void updateFrequency() {
-        freeze = (frequency == 0);
-        
-        if (frequency > 0) {
-            region.singleCycle = system.cpu * (0xF0000 / frequency);
-        }
+    protected void advance(int steps) {
+        phase = (int) ((phase + (long) frequency * steps) % (waveformLength << 16));
     }
     
     /**
-     * Sets up a waveform buffer.
+     * Decodes the waveform from sound RAM.
      */
-    private void setupWaveformBuffer() {
-        waveformBuffer = new int[waveformLength];
-        int raddress = waveformAddress >> 1;
-        int sampleAddress = 0;
-        boolean highLow = Tools.getbit(waveformAddress, 0);
+    private void setupWaveform() {
+        final int[] ram = soundChip.exram;
         
-        while (sampleAddress < waveformLength) {
-            final int sample = highLow ? ((soundChip.exram[raddress] & 0xF0) >> 4) : (soundChip.exram[raddress] & 0xF);
-            waveformBuffer[sampleAddress] = sample & 0xFF;
-            
-            if (highLow) {
-                raddress++;
-            }
-                
-            sampleAddress++;    
-            highLow ^= true;    
+        for (int i = 0; i < waveformLength; i++) {
+            final int address = (waveformAddress + i) & 0xFF;
+            waveform[i] = (ram[address >> 1] >> ((address & 1) << 2)) & 0xF;
         }
-            
-        step = 0;
+        
+        dirty = false;
     }
-}
\ No newline at end of file
+}
@@ -23,6 +23,7 @@
  */
 package nesimulare.core.audio;
 
+import java.util.Arrays;
 import nesimulare.core.Region;
 import nesimulare.gui.Tools;
 
@@ -31,15 +32,30 @@ import nesimulare.gui.Tools;
  * Only a few games use them all, though (when more channels are enabled,
  * clocking slows down because the sound chip has to cycle through channels
  * in order to clock them.
+ * 
+ * The chip updates one channel every 15 CPU cycles and outputs only that channel
+ * until the next one is updated. With 8 channels enabled this multiplexing switches
+ * at about 15 kHz, which is within the audible range and passes through 
+ * the band-limited buffer, so multiplexed output goes through a lowpass filter.
+ * Channels can also be mixed together instead.
  * @see Namco163SoundChannel
  *
  * @author Parseus
  */
 public class Namco163SoundChip implements ExpansionSoundChip {
+    private static final int SLOT_CYCLES = 15;
+    
     private final Namco163SoundChannel channels[];
     public int exram[] = new int[128];
-    private int lpaccum = 0;
-    private int channelIndex = 0;
+    private int deltas[] = new int[0];
+    private int slot = 0;
+    private int slotClock = 0;
+    private int level = 0;
+    private int pendingDelta = 0;
+    private int pendingCycles = 0;
+    private int lowpass = 0;            //Filtered multiplexed output, 4 fractional bits
+    private boolean mixing = false;
+    private volatile boolean mixingRequested = false;
     public int enabledChannels = 0;
     private int soundRegister = 0;
 
@@ -50,85 +66,57 @@ public class Namco163SoundChip implements ExpansionSoundChip {
      */
     public Namco163SoundChip(Region.System system) {
         channels = new Namco163SoundChannel[8];
-        exram = new int[128];
-        channelIndex = 0;
-        enabledChannels = 0;
-        lpaccum = 0;
-        soundRegister = 0;
         
         for (int i = 0; i < 8; i++) {
             channels[i] = new Namco163SoundChannel(system, this);
         }
+        
+        hardReset();
     }
     
     /**
-     * Reads a register from a given adress
+     * Reads sound RAM at the current address.
      * 
      * @param address       Address to read a register from
      * @return              Current sound register
      */
     public int readData(int address) {
-        final int value = exram[soundRegister & 0x7F];
+        final int register = soundRegister & 0x7F;
+        int value = exram[register];
         
-        if (Tools.getbit(soundRegister, 7)) {
-            soundRegister = (((soundRegister + 1) & 0x7F) | 0x80) & 0xFF;
+        if (register >= 0x40 && (register & 0x1) == 1 && (register & 0x7) != 7) {
+            value = channels[(register - 0x40) >> 3].readPhase(register & 0x7);
         }
         
+        autoIncrement();
+        
         return value;
     }
     
     /**
-     * Writes data to a given register.
+     * Writes data to sound RAM at the current address.
      * 
      * @param register      Register to write data to
      * @param data          Register data
      */
     public void writeData(int register, int data) {
-        if (soundRegister >= 0x40) {
-            switch (soundRegister & 0x7F) {
-                case 0x40: channels[0].lowFrequency(data); break;
-                case 0x42: channels[0].midFrequency(data); break;
-                case 0x44: channels[0].highFrequency(data); break;
-                case 0x46: channels[0].waveAddress(data); break;
-                case 0x47: channels[0].setVolume(data); break;
-                case 0x48: channels[1].lowFrequency(data); break;
-                case 0x4A: channels[1].midFrequency(data); break;
-                case 0x4C: channels[1].highFrequency(data); break;
-                case 0x4E: channels[1].waveAddress(data); break;
-                case 0x4F: channels[1].setVolume(data); break;
-                case 0x50: channels[2].lowFrequency(data); break;
-                case 0x52: channels[2].midFrequency(data); break;
-                case 0x54: channels[2].highFrequency(data); break;
-                case 0x56: channels[2].waveAddress(data); break;
-                case 0x57: channels[2].setVolume(data); break;
-                case 0x58: channels[3].lowFrequency(data); break;
-                case 0x5A: channels[3].midFrequency(data); break;
-                case 0x5C: channels[3].highFrequency(data); break;
-                case 0x5E: channels[3].waveAddress(data); break;
-                case 0x5F: channels[3].setVolume(data); break;
-                case 0x60: channels[4].lowFrequency(data); break;
-                case 0x62: channels[4].midFrequency(data); break;
-                case 0x64: channels[4].highFrequency(data); break;
-                case 0x66: channels[4].waveAddress(data); break;
-                case 0x67: channels[4].setVolume(data); break;
-                case 0x68: channels[5].lowFrequency(data); break;
-                case 0x6A: channels[5].midFrequency(data); break;
-                case 0x6C: channels[5].highFrequency(data); break;
-                case 0x6E: channels[5].waveAddress(data); break;
-                case 0x6F: channels[5].setVolume(data); break;
-                case 0x70: channels[6].lowFrequency(data); break;
-                case 0x72: channels[6].midFrequency(data); break;
-                case 0x74: channels[6].highFrequency(data); break;
-                case 0x76: channels[6].waveAddress(data); break;
-                case 0x77: channels[6].setVolume(data); break;
-                case 0x78: channels[7].lowFrequency(data); break;
-                case 0x7A: channels[7].midFrequency(data); break;
-                case 0x7C: channels[7].highFrequency(data); break;
-                case 0x7E: channels[7].waveAddress(data); break;
-                case 0x7F: channels[7].setVolume(data); enableChannels(data); break;
-                default: break;
-           }
+        final int address = soundRegister & 0x7F;
+        exram[address] = data;
+        
+        for (int i = 0; i < 8; i++) {
+            channels[i].invalidate(address << 1);
+            channels[i].invalidate((address << 1) | 1);
+        }
+        
+        if (address >= 0x40) {
+            channels[(address - 0x40) >> 3].write(address & 0x7, data);
+            
+            if (address == 0x7F) {
+                enableChannels(data);
+            }
         }
+        
+        autoIncrement();
     }
     
     /**
@@ -140,50 +128,72 @@ public class Namco163SoundChip implements ExpansionSoundChip {
         soundRegister = data;
     }
     
+    /**
+     * Increments sound RAM address if auto-increment is enabled.
+     */
+    private void autoIncrement() {
+        if (Tools.getbit(soundRegister, 7)) {
+            soundRegister = ((soundRegister + 1) & 0x7F) | 0x80;
+        }
+    }
+    
     /**
      * Enables a selected amount of channels based on given data.
      * 
      * @param data Given data which are used to enable channels
      */
     private void enableChannels(int data) {
-        enabledChannels = ((data & 0x70) >> 4);
-        channelIndex = 0;
-        int enabledTemp = enabledChannels + 1;
-        
-        for (int i = 7; i >= 0; i--) {
-            if (enabledTemp > 0) {
-                channels[i].enabled = true;
-                enabledTemp--;
-            } else {
-                break;
+        if (enabledChannels != ((data & 0x70) >> 4)) {
+            enabledChannels = ((data & 0x70) >> 4);
+            
+            if (slot > enabledChannels) {
+                slot = 0;
+                slotClock = 0;
             }
+            
+            resetLevel();
         }
     }
     
     /**
-     * Generates an audio sample for use with an audio renderer.
-     *
-     * @return Audio sample for use with an audio renderer.
+     * Chooses between mixing channels together and hardware-like multiplexed output.
+     * Can be called from any thread, the change is applied at the next rendered span.
+     * 
+     * @param enabled       True: channels are mixed together
+     *                      False: only the channel being updated is output
      */
-    @Override
-    public int getOutput() {
-        int output = 0;
-        
-        int enabledTemp = enabledChannels + 1;
+    public void setMixing(final boolean enabled) {
+        mixingRequested = enabled;
+    }
+    
+    /**
+     * Recalculates the output level after the way channels are mixed has changed.
+     */
+    private void resetLevel() {
+        mixing = mixingRequested;
+        pendingDelta = 0;
+        pendingCycles = 0;
+        level = 0;
         
-        for (int i = 7; i >= 0; i--) {
-            if (enabledTemp > 0) {
-                enabledTemp--;
-                output += channels[i].getOutput();
-            } else {
-                break;
+        if (mixing) {
+            for (int i = 0; i <= enabledChannels; i++) {
+                level += weigh(channels[7 - i].output);
             }
+        } else if (slotClock > 0) {
+            level = channels[7 - slot].output;
+            pendingDelta = level;
+            pendingCycles = SLOT_CYCLES - slotClock;
         }
-        
-        output += lpaccum;
-        lpaccum -= output * (1 / 16.);
-        
-        return lpaccum << 2;
+    }
+    
+    /**
+     * Scales output of a single channel when channels are mixed together.
+     * 
+     * @param output        Output of a channel
+     * @return              Scaled output
+     */
+    private int weigh(int output) {
+        return output / (enabledChannels + 1);
     }
 
     /**
@@ -196,9 +206,12 @@ public class Namco163SoundChip implements ExpansionSoundChip {
         }
         
         exram = new int[128];
-        channelIndex = 0;
         enabledChannels = 0;
         soundRegister = 0;
+        slot = 0;
+        slotClock = 0;
+        lowpass = 0;
+        resetLevel();
     }
 
     /**
@@ -211,9 +224,11 @@ public class Namco163SoundChip implements ExpansionSoundChip {
         }
         
         exram = new int[128];
-        channelIndex = 0;
         enabledChannels = 0;
         soundRegister = 0;
+        slot = 0;
+        slotClock = 0;
+        resetLevel();
     }
 
     /**
@@ -242,12 +257,142 @@ public class Namco163SoundChip implements ExpansionSoundChip {
     }
 
     /**
-     * Performs a given number of machine cycles.
+     * Renders the output of the chip for a span of CPU cycles.
+     * 
+     * Every enabled channel is synthesized separately: it only records a change
+     * of output at cycles it gets updated on, and the changes are summed up 
+     * in a single pass at the end. Multiplexed output is also filtered in that pass
+     * by a one-pole lowpass with a time constant of 16 CPU cycles.
+     * 
+     * @param buffer        Buffer to add the output to
+     * @param fromCycle     Index of the first CPU cycle to render
+     * @param toCycle       Index after the last CPU cycle to render
+     */
+    @Override
+    public void render(int[] buffer, int fromCycle, int toCycle) {
+        final int count = toCycle - fromCycle;
+        final int slots = enabledChannels + 1;
+        final int period = SLOT_CYCLES * slots;
+        
+        if (mixing != mixingRequested) {
+            resetLevel();
+        }
+        
+        if (deltas.length < count) {
+            deltas = new int[buffer.length];
+        }
+        
+        Arrays.fill(deltas, 0, count, 0);
+        
+        if (pendingDelta != 0) {
+            if (pendingCycles < count) {
+                deltas[pendingCycles] -= pendingDelta;
+                pendingDelta = 0;
+            } else {
+                pendingCycles -= count;
+            }
+        }
+        
+        for (int i = 0; i < slots; i++) {
+            final Namco163SoundChannel channel = channels[7 - i];
+            
+            for (int cycle = firstUpdate(i); cycle < count; cycle += period) {
+                final int previous = channel.output;
+                channel.cycle();
+                
+                if (mixing) {
+                    deltas[cycle] += weigh(channel.output) - weigh(previous);
+                } else {
+                    deltas[cycle] += channel.output;
+                    
+                    if (cycle + SLOT_CYCLES < count) {
+                        deltas[cycle + SLOT_CYCLES] -= channel.output;
+                    } else {
+                        pendingDelta = channel.output;
+                        pendingCycles = cycle + SLOT_CYCLES - count;
+                    }
+                }
+            }
+        }
+        
+        advanceSlots(count);
+        
+        if (mixing) {
+            for (int i = 0; i < count; i++) {
+                level += deltas[i];
+                buffer[fromCycle + i] += level << 2;
+            }
+        } else {
+            for (int i = 0; i < count; i++) {
+                level += deltas[i];
+                lowpass += level - (lowpass >> 4);
+                buffer[fromCycle + i] += (lowpass >> 4) << 2;
+            }
+        }
+    }
+    
+    /**
+     * Gets the number of CPU cycles until a given channel is updated next time.
+     * 
+     * @param index         Index of a channel in update order (0 is channel 7)
+     * @return              Number of CPU cycles, 0 if the channel is updated on the current cycle
+     */
+    private int firstUpdate(int index) {
+        final int slots = enabledChannels + 1;
+        final int cycle = ((index - slot + slots) % slots) * SLOT_CYCLES - slotClock;
+        
+        return (cycle < 0) ? cycle + SLOT_CYCLES * slots : cycle;
+    }
+    
+    /**
+     * Moves the update schedule by a given number of CPU cycles.
+     * 
+     * @param cycles        Number of CPU cycles
+     */
+    private void advanceSlots(int cycles) {
+        slotClock += cycles;
+        slot = (slot + slotClock / SLOT_CYCLES) % (enabledChannels + 1);
+        slotClock %= SLOT_CYCLES;
+    }
+
+    /**
+     * Checks if all enabled channels are muted and nothing is being output.
      * 
-     * @param cycles        Number of machine cycles.
+     * @return      True: Chip can be skipped
+     *              False: Chip has to be rendered
      */
     @Override
-    public void cycle(int cycles) {
-        channels[7 - (channelIndex = ((channelIndex + 1) & enabledChannels))].cycle(cycles);
+    public boolean isQuiescent() {
+        if (level != 0 || pendingDelta != 0 || (!mixing && (lowpass >> 4) != 0)) {
+            return false;
+        }
+        
+        for (int i = 0; i <= enabledChannels; i++) {
+            if (!channels[7 - i].isSilent()) {
+                return false;
+            }
+        }
+        
+        return true;
+    }
+
+    /**
+     * Advances phases of muted channels.
+     * 
+     * @param cycles        Number of CPU cycles
+     */
+    @Override
+    public void skip(int cycles) {
+        final int period = SLOT_CYCLES * (enabledChannels + 1);
+        
+        for (int i = 0; i <= enabledChannels; i++) {
+            final int cycle = firstUpdate(i);
+            
+            if (cycle < cycles) {
+                channels[7 - i].advance((cycles - 1 - cycle) / period + 1);
+            }
+        }
+        
+        advanceSlots(cycles);
     }
-}
\ No newline at end of file
+}
@@ -80,6 +80,8 @@ public class NoiseChannel extends APUChannel {
      * @param data Written data
      */
     public void write(final int register, final int data) {
+        wake();
+        
         switch (register) {
             /**
              * $400C
@@ -101,7 +103,7 @@ public class NoiseChannel extends APUChannel {
              * Mode flag (M), noise period (P)
              */
             case 2:
-                region.singleCycle = getCycles(noiseFrequency[data & 0xF]);
+                setTimer(getCycles(noiseFrequency[data & 0xF]));
                 modeFlag = Tools.getbit(data, 7);
                 break;
             
@@ -133,6 +135,30 @@ public class NoiseChannel extends APUChannel {
         }
     }
     
+    /**
+     * Checks if clocking the timer has no effect until one of registers is written.
+     * Silent channel only needs clocking after its length counter has been reloaded.
+     * 
+     * @return      True: Channel can be skipped
+     *              False: Channel has to be clocked
+     */
+    @Override
+    protected boolean isQuiescent() {
+        return lengthCounter == 0 && !lenctrReloadRequest;
+    }
+    
+    /**
+     * Advances the shift register by timer clocks skipped while the channel was silent.
+     * 
+     * @param steps         Number of skipped timer clocks
+     */
+    @Override
+    protected void skip(int steps) {
+        for (int i = 0; i < steps; i++) {
+            cycle();
+        }
+    }
+    
     /**
      * Clocks envelope.
      */
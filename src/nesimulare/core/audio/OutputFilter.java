@@ -0,0 +1,171 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2013-2014 Parseus.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package nesimulare.core.audio;
+
+import nesimulare.core.Region;
+import nesimulare.gui.PrefsSingleton;
+
+/**
+ * Emulates analog filters between the audio output of a console and a TV.
+ * 
+ * Each stage is a first-order RC filter in fixed point. Samples are kept with
+ * 16 fractional bits between stages, so chaining stages doesn't add rounding noise.
+ * 
+ * Filters are applied to blocks of samples on audio output thread.
+ *
+ * @author Parseus
+ */
+public class OutputFilter {
+    private static final int SHIFT = 16;
+    private static final long ONE = 1L << SHIFT;
+    
+    /**
+     * Filter chains of different consoles.
+     */
+    public enum Preset {
+        /**
+         * NES: high-pass filters at 90 Hz and 440 Hz, low-pass filter at 14 kHz.
+         */
+        NES(new double[] { 90, 440 }, new double[] { 14000 }),
+        
+        /**
+         * Famicom: high-pass filter at 37 Hz, low-pass filter at 14 kHz.
+         */
+        FAMICOM(new double[] { 37 }, new double[] { 14000 }),
+        
+        /**
+         * Only removes DC offset from the signal.
+         */
+        NONE(new double[] { 5 }, new double[0]);
+        
+        private final double[] highpass;
+        private final double[] lowpass;
+        
+        private Preset(final double[] highpass, final double[] lowpass) {
+            this.highpass = highpass;
+            this.lowpass = lowpass;
+        }
+        
+        /**
+         * Selects a filter chain set in preferences, or the one of a typical console
+         * of a given region: Famicom for Dendy, NES otherwise.
+         * 
+         * @param system        Emulated region
+         * @return              Filter chain
+         */
+        public static Preset select(final Region.System system) {
+            switch (PrefsSingleton.get().get("audioFilter", "Automatic")) {
+                case "NES":
+                    return NES;
+                case "Famicom":
+                    return FAMICOM;
+                case "None":
+                    return NONE;
+                default:
+                    return (system == Region.DENDY) ? FAMICOM : NES;
+            }
+        }
+    }
+    
+    public final Preset preset;
+    private final int[] highpassFactor;
+    private final long[] highpassInput;
+    private final long[] highpassOutput;
+    private final int[] lowpassFactor;
+    private final long[] lowpassOutput;
+    
+    /**
+     * Constructor for this class.
+     * 
+     * @param preset        Filter chain
+     * @param sampleRate    Sample rate of filtered audio
+     */
+    public OutputFilter(final Preset preset, final int sampleRate) {
+        this.preset = preset;
+        
+        final double dt = 1.0 / sampleRate;
+        
+        highpassFactor = new int[preset.highpass.length];
+        highpassInput = new long[preset.highpass.length];
+        highpassOutput = new long[preset.highpass.length];
+        
+        for (int i = 0; i < highpassFactor.length; i++) {
+            final double rc = 1 / (2 * Math.PI * preset.highpass[i]);
+            highpassFactor[i] = (int) Math.round(ONE * rc / (rc + dt));
+        }
+        
+        lowpassFactor = new int[preset.lowpass.length];
+        lowpassOutput = new long[preset.lowpass.length];
+        
+        for (int i = 0; i < lowpassFactor.length; i++) {
+            final double rc = 1 / (2 * Math.PI * Math.min(preset.lowpass[i], sampleRate * 0.45));
+            lowpassFactor[i] = (int) Math.round(ONE * dt / (rc + dt));
+        }
+    }
+    
+    /**
+     * Filters a block of samples in place.
+     * 
+     * @param samples       Samples to filter
+     * @param count         Number of samples
+     */
+    public void process(final int[] samples, final int count) {
+        final int highpassStages = highpassFactor.length;
+        final int lowpassStages = lowpassFactor.length;
+        
+        for (int i = 0; i < count; i++) {
+            long sample = (long) samples[i] << SHIFT;
+            
+            for (int j = 0; j < highpassStages; j++) {
+                //y[n] = a * (y[n - 1] + x[n] - x[n - 1])
+                final long output = (highpassFactor[j] * (highpassOutput[j] + sample - highpassInput[j])) >> SHIFT;
+                highpassInput[j] = sample;
+                highpassOutput[j] = output;
+                sample = output;
+            }
+            
+            for (int j = 0; j < lowpassStages; j++) {
+                //y[n] = y[n - 1] + a * (x[n] - y[n - 1])
+                lowpassOutput[j] += (lowpassFactor[j] * (sample - lowpassOutput[j])) >> SHIFT;
+                sample = lowpassOutput[j];
+            }
+            
+            samples[i] = (int) ((sample + (ONE >> 1)) >> SHIFT);
+        }
+    }
+    
+    /**
+     * Clears the state of all stages.
+     */
+    public void reset() {
+        for (int i = 0; i < highpassFactor.length; i++) {
+            highpassInput[i] = 0;
+            highpassOutput[i] = 0;
+        }
+        
+        for (int i = 0; i < lowpassFactor.length; i++) {
+            lowpassOutput[i] = 0;
+        }
+    }
+}
@@ -93,6 +93,8 @@ public class PulseChannel extends APUChannel {
      * @param data Written data
      */
     public void write(final int register, final int data) {
+        wake();
+        
         switch (register) {
             /**
              * $4000/$4004
@@ -232,7 +234,19 @@ public class PulseChannel extends APUChannel {
      * Updates a single cycle timing based on frequency.
      */
     private void updateFrequency() {
-        region.singleCycle = getCycles(frequency + 1);
+        setTimer(getCycles(frequency + 1));
+    }
+    
+    /**
+     * Checks if clocking the timer has no effect until one of registers is written.
+     * Silent channel only needs clocking after its length counter has been reloaded.
+     * 
+     * @return      True: Channel can be skipped
+     *              False: Channel has to be clocked
+     */
+    @Override
+    protected boolean isQuiescent() {
+        return lengthCounter == 0 && !lenctrReloadRequest;
     }
     
     /**
@@ -37,6 +37,7 @@ import nesimulare.core.Region;
 public class Sunsoft5BSoundChip implements ExpansionSoundChip {
     //TODO: Emulate envelope and noise generators.
     public Sunsoft5BSquareChannel square0, square1, square2;
+    private final int tickCycles;
     
     /**
      * Constructor for this class. Connects an emulated region with a given channel.
@@ -44,6 +45,7 @@ public class Sunsoft5BSoundChip implements ExpansionSoundChip {
      * @param system Emulated region
      */
     public Sunsoft5BSoundChip(Region.System system) {
+        tickCycles = system.cpu;
         square0 = new Sunsoft5BSquareChannel(system);
         square1 = new Sunsoft5BSquareChannel(system);
         square2 = new Sunsoft5BSquareChannel(system);
@@ -54,7 +56,6 @@ public class Sunsoft5BSoundChip implements ExpansionSoundChip {
      *
      * @return Audio sample for use with an audio renderer.
      */
-    @Override
     public int getOutput() {
         int output = square0.getOutput();
         output += square1.getOutput();
@@ -84,11 +85,13 @@ public class Sunsoft5BSoundChip implements ExpansionSoundChip {
     }
 
     /**
-     * Clocks envelopes.
+     * Lets channels, which have been disabled or muted, be skipped.
      */
     @Override
     public void quarterFrame() {
-        //Nothing to see here, move along
+        square0.checkQuiescence();
+        square1.checkQuiescence();
+        square2.checkQuiescence();
     }
 
     /**
@@ -108,14 +111,43 @@ public class Sunsoft5BSoundChip implements ExpansionSoundChip {
     }
 
     /**
-     * Performs a given number of machine cycles.
+     * Renders the output of the chip for a span of CPU cycles.
+     * 
+     * @param buffer        Buffer to add the output to
+     * @param fromCycle     Index of the first CPU cycle to render
+     * @param toCycle       Index after the last CPU cycle to render
+     */
+    @Override
+    public void render(int[] buffer, int fromCycle, int toCycle) {
+        for (int i = fromCycle; i < toCycle; i++) {
+            square0.clock(tickCycles);
+            square1.clock(tickCycles);
+            square2.clock(tickCycles);
+            
+            buffer[i] += getOutput();
+        }
+    }
+
+    /**
+     * Checks if all channels are disabled or muted.
      * 
-     * @param cycles        Number of machine cycles.
+     * @return      True: Chip can be skipped
+     *              False: Chip has to be rendered
      */
     @Override
-    public void cycle(int cycles) {
-        square0.cycle(cycles);
-        square1.cycle(cycles);
-        square2.cycle(cycles);
-    }   
+    public boolean isQuiescent() {
+        return square0.quiescent && square1.quiescent && square2.quiescent;
+    }
+
+    /**
+     * Advances timers of silent channels.
+     * 
+     * @param cycles        Number of CPU cycles
+     */
+    @Override
+    public void skip(int cycles) {
+        square0.clock(cycles * tickCycles);
+        square1.clock(cycles * tickCycles);
+        square2.clock(cycles * tickCycles);
+    }
 }
\ No newline at end of file
@@ -37,7 +37,7 @@ public class Sunsoft5BSquareChannel extends APUChannel {
     private int dutyCycle = 0;
     private int volume = 0;
     private int output = 0;
-    public boolean disabled = false;
+    private boolean disabled = false;
     
     /**
      * Constructor for this class. Connects an emulated region with a given channel.
@@ -62,6 +62,8 @@ public class Sunsoft5BSquareChannel extends APUChannel {
     
     
     public void write(final int register, final int data) {
+        wake();
+        
         switch (register) {
             
             /**
@@ -111,7 +113,41 @@ public class Sunsoft5BSquareChannel extends APUChannel {
      * Updates a single cycle timing based on frequency.
      */
     private void updateFrequency() {
-        region.singleCycle = (frequency + 1) * system.cpu;
+        setTimer((frequency + 1) * system.cpu);
+    }
+    
+    /**
+     * Enables or disables the channel.
+     * 
+     * @param disabled      True: Channel is disabled
+     *                      False: Channel is enabled
+     */
+    public void setDisabled(boolean disabled) {
+        wake();
+        
+        this.disabled = disabled;
+    }
+    
+    /**
+     * Checks if clocking the timer has no effect until one of registers is written.
+     * 
+     * @return      True: Channel can be skipped
+     *              False: Channel has to be clocked
+     */
+    @Override
+    protected boolean isQuiescent() {
+        return disabled || (volume == 0 && output == 0);
+    }
+    
+    /**
+     * Advances the duty cycle by timer clocks skipped while the channel was silent.
+     * 
+     * @param steps         Number of skipped timer clocks
+     */
+    @Override
+    protected void skip(int steps) {
+        dutyCycle = (dutyCycle + steps) & 0x1F;
+        output = (dutyCycle <= 15) ? volume : 0;
     }
     
     /**
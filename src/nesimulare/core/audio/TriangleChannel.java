@@ -89,6 +89,8 @@ public class TriangleChannel extends APUChannel {
      * @param data Written data
      */
     public void write(final int register, final int data) {
+        wake();
+        
         switch (register) {
             /**
              * $4008
@@ -177,7 +179,19 @@ public class TriangleChannel extends APUChannel {
             timer = 1;
         }
         
-        region.singleCycle = getCycles(timer);
+        setTimer(getCycles(timer));
+    }
+    
+    /**
+     * Checks if clocking the timer has no effect until one of registers is written.
+     * Sequencer is stopped when either length counter or linear counter is 0.
+     * 
+     * @return      True: Channel can be skipped
+     *              False: Channel has to be clocked
+     */
+    @Override
+    protected boolean isQuiescent() {
+        return (lengthCounter == 0 && !lenctrReloadRequest) || linearCounter == 0;
     }
     
     /**
@@ -71,6 +71,8 @@ public class VRC6PulseSoundChannel extends APUChannel {
      * @param data Written data
      */
     public void write(final int register, final int data) {
+        wake();
+        
         switch (register) {
             /**
              * $9000/$A000
@@ -150,7 +152,28 @@ public class VRC6PulseSoundChannel extends APUChannel {
      * Updates a single cycle timing based on frequency.
      */
     private void updateFrequency() {
-        region.singleCycle = getCycles(frequency + 1);
+        setTimer(getCycles(frequency + 1));
+    }
+    
+    /**
+     * Checks if clocking the timer has no effect until one of registers is written.
+     * 
+     * @return      True: Channel can be skipped
+     *              False: Channel has to be clocked
+     */
+    @Override
+    protected boolean isQuiescent() {
+        return !enabled;
+    }
+    
+    /**
+     * Applies timer clocks skipped while the channel was disabled.
+     * 
+     * @param steps         Number of skipped timer clocks
+     */
+    @Override
+    protected void skip(int steps) {
+        output = 0;
     }
     
     /**
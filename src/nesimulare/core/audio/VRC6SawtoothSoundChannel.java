@@ -68,6 +68,8 @@ public class VRC6SawtoothSoundChannel extends APUChannel {
      * @param data Written data
      */
     public void write(final int register, final int data) {
+        wake();
+        
         switch (register) {
             /**
              * $B000
@@ -143,7 +145,35 @@ public class VRC6SawtoothSoundChannel extends APUChannel {
      * Updates a single cycle timing based on frequency.
      */
     private void updateFrequency() {
-        region.singleCycle = (frequency + 1) * system.cpu;
+        setTimer((frequency + 1) * system.cpu);
+    }
+    
+    /**
+     * Checks if clocking the timer has no effect until one of registers is written.
+     * 
+     * @return      True: Channel can be skipped
+     *              False: Channel has to be clocked
+     */
+    @Override
+    protected boolean isQuiescent() {
+        return !enabled;
+    }
+    
+    /**
+     * Advances the accumulator by timer clocks skipped while the channel was disabled.
+     * Accumulator is cleared every 7 clocks, so only the last few of them matter.
+     * 
+     * @param steps         Number of skipped timer clocks
+     */
+    @Override
+    protected void skip(int steps) {
+        if (steps >= 14) {
+            steps = 7 + steps % 7;
+        }
+        
+        for (int i = 0; i < steps; i++) {
+            cycle();
+        }
     }
     
     /**
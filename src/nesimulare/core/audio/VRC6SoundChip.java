@@ -36,6 +36,7 @@ import nesimulare.core.Region;
 public class VRC6SoundChip implements ExpansionSoundChip {
     public VRC6PulseSoundChannel pulse1, pulse2;
     public VRC6SawtoothSoundChannel sawtooth;
+    private final int tickCycles;
     
     /**
      * Constructor for this class. Connects an emulated region with a given channel.
@@ -43,6 +44,7 @@ public class VRC6SoundChip implements ExpansionSoundChip {
      * @param system Emulated region
      */
     public VRC6SoundChip(Region.System system) {
+        tickCycles = system.cpu;
         pulse1 = new VRC6PulseSoundChannel(system);
         pulse2 = new VRC6PulseSoundChannel(system);
         sawtooth = new VRC6SawtoothSoundChannel(system);
@@ -53,7 +55,6 @@ public class VRC6SoundChip implements ExpansionSoundChip {
      *
      * @return Audio sample for use with an audio renderer.
      */
-    @Override
     public int getOutput() {
         int output = 384 * pulse1.getOutput();
         output += pulse2.getOutput();
@@ -83,11 +84,13 @@ public class VRC6SoundChip implements ExpansionSoundChip {
     }
 
     /**
-     * Clocks envelopes for both pulse wave channels.
+     * Lets channels, which have been disabled, be skipped.
      */
     @Override
     public void quarterFrame() {
-        //Nothing to see here, move along
+        pulse1.checkQuiescence();
+        pulse2.checkQuiescence();
+        sawtooth.checkQuiescence();
     }
 
     /**
@@ -108,14 +111,43 @@ public class VRC6SoundChip implements ExpansionSoundChip {
     }
 
     /**
-     * Performs a given number of machine cycles.
+     * Renders the output of the chip for a span of CPU cycles.
+     * 
+     * @param buffer        Buffer to add the output to
+     * @param fromCycle     Index of the first CPU cycle to render
+     * @param toCycle       Index after the last CPU cycle to render
+     */
+    @Override
+    public void render(int[] buffer, int fromCycle, int toCycle) {
+        for (int i = fromCycle; i < toCycle; i++) {
+            pulse1.clock(tickCycles);
+            pulse2.clock(tickCycles);
+            sawtooth.clock(tickCycles);
+            
+            buffer[i] += getOutput();
+        }
+    }
+
+    /**
+     * Checks if all channels are disabled.
+     * 
+     * @return      True: Chip can be skipped
+     *              False: Chip has to be rendered
+     */
+    @Override
+    public boolean isQuiescent() {
+        return pulse1.quiescent && pulse2.quiescent && sawtooth.quiescent;
+    }
+
+    /**
+     * Advances timers of disabled channels.
      * 
-     * @param cycles        Number of machine cycles.
+     * @param cycles        Number of CPU cycles
      */
     @Override
-    public void cycle(int cycles) {
-        pulse1.cycle(cycles);
-        pulse2.cycle(cycles);
-        sawtooth.cycle(cycles);
+    public void skip(int cycles) {
+        pulse1.clock(cycles * tickCycles);
+        pulse2.clock(cycles * tickCycles);
+        sawtooth.clock(cycles * tickCycles);
     }
 }
\ No newline at end of file
@@ -24,6 +24,7 @@
 package nesimulare.core.audio;
 
 import java.util.Arrays;
+import nesimulare.core.Region;
 import nesimulare.gui.Tools;
 
 /**
@@ -82,14 +83,32 @@ public class VRC7SoundChip implements ExpansionSoundChip {
         CUTOFF, ATTACK, DECAY, SUSTAIN, SUSTRELEASE, RELEASE;
     }
     
-    private final adsr[] modenv_state = new adsr[6], carenv_state = new adsr[6];
+    /**
+     * Envelope counters are 16.16 fixed point attenuation, from 0 (loudest) to 511 (silent).
+     */
+    private final static int ENV_SHIFT = 16;
+    private final static int zerovol = 511 << ENV_SHIFT;
+    private final static int maxvol = 0;
+    
+    /**
+     * Number of envelope steps done per channel step. Envelope rates were tuned with this many steps.
+     */
+    private final static int ENV_STEPS = 6;
+    
+    /**
+     * Phase counters are fixed point with 9 fractional bits, 1024 units for a full sine.
+     */
+    private final static int PHASE_SHIFT = 9;
+    private final static int PHASE_MASK = (1024 << PHASE_SHIFT) - 1;
+    
+    private final adsr[] env_state = new adsr[12];
+    private final int[] env_vol = new int[12];
     private final int[] vol = new int[6], freq = new int[6],
             octave = new int[6], instrument = new int[6],
-            mod = new int[6],
+            mod = new int[6], phase = new int[6],
             oldmodout = new int[6], out = new int[6];
-    private final boolean[] key = new boolean[6], sust = new boolean[6];
+    private final boolean[] key = new boolean[6], sust = new boolean[6], active = new boolean[6];
     private int fmctr = 0, amctr = 0; //free running counter for indices
-    private final double[] wave = new double[6], modenv_vol = new double[6], carenv_vol = new double[6];
     private final int[][] instdata = { //instrument parameters
         {00, 00, 00, 00, 00, 00, 00, 00}, //user tone register
         //here's the latest one from rainwarrior aug.2012
@@ -110,30 +129,50 @@ public class VRC7SoundChip implements ExpansionSoundChip {
         {0x21, 0x62, 0x0D, 0x00, 0xB1, 0xA0, 0x54, 0x17}
     };
     
-    private static int[] logsin, exp, am;
-    private final static double[] multbl = {0.5, 1, 2, 3, 4, 5,
-        6, 7, 8, 9, 10, 10, 12, 12, 15, 15}, vib = genvibtbl();
+    //Per-channel parameters derived from the instrument and registers, rebuilt on register writes
+    private final int[] phaseStep = new int[6], modMult = new int[6], carMult = new int[6],
+            fbShift = new int[6], modLevel = new int[6], carLevel = new int[6];
+    private final boolean[] modRectify = new boolean[6], carRectify = new boolean[6],
+            modVib = new boolean[6], carVib = new boolean[6], modAM = new boolean[6], carAM = new boolean[6];
+    
+    //Per-operator envelope parameters (modulator: 2 * ch, carrier: 2 * ch + 1), rebuilt on register writes
+    private final int[] attackFactor = new int[12], decayRate = new int[12],
+            releaseRate = new int[12], sustainLevel = new int[12];
+    private final boolean[] sustainOn = new boolean[12];
+    
+    private static final int[] logsin = genlogsintbl(), exp = genexptbl(), am = genamtbl(), vib = genvibtbl();
+    
+    /**
+     * Frequency multipliers, doubled to keep them integer.
+     */
+    private final static int[] multbl = {1, 2, 4, 6, 8, 10,
+        12, 14, 16, 18, 20, 20, 24, 24, 30, 30};
     private final static int[] keyscaletbl = {0, 1536, 2048, 2368, 2560,
         2752, 2880, 3008, 3072, 3200, 3264, 3328, 3392, 3456, 3520, 3584
     };
     
-    final private static int zerovol = 511;
-    final private static int maxvol = 0;
     static final double pi = Math.PI;
+    private final int stepPeriod, tickCycles;
+    private int clock = 0;
     private int lpaccum = 0;
     private int ch = 0;
-    private int s; // sign flag
 
     /**
      * Constructor for this class.
+     * 
+     * @param system        Emulated region
      */
-    public VRC7SoundChip() {
-        Arrays.fill(modenv_vol, 511);
-        Arrays.fill(modenv_state, adsr.CUTOFF);
-        Arrays.fill(carenv_state, adsr.CUTOFF);
-        logsin = genlogsintbl();
-        exp = genexptbl();
-        am = genamtbl();
+    public VRC7SoundChip(Region.System system) {
+        //Each channel is updated once every 36 CPU cycles, one channel every 6 CPU cycles
+        stepPeriod = 6 * system.cpu;
+        tickCycles = system.cpu;
+        
+        Arrays.fill(env_vol, zerovol);
+        Arrays.fill(env_state, adsr.CUTOFF);
+        
+        for (int i = 0; i < 6; i++) {
+            updateChannel(i);
+        }
     }
     
     /**
@@ -142,7 +181,7 @@ public class VRC7SoundChip implements ExpansionSoundChip {
     @Override
     public void hardReset() { 
         lpaccum = 0;
-        s = 0;
+        clock = 0;
         ch = 0;
     }
 
@@ -181,16 +220,16 @@ public class VRC7SoundChip implements ExpansionSoundChip {
     /**
      * Generates a lookup table for vibrato.
      * 
-     * @return Lookup table for vibrato
+     * @return Lookup table for vibrato, in 1/512 units of phase
      */
-    private static double[] genvibtbl() {
+    private static int[] genvibtbl() {
         final double l = 1789773 / 6.;
         final double f = 6.4;
         final int depth = 10;
-        double[] tbl = new double[(int) Math.ceil(l / f)];
+        int[] tbl = new int[(int) Math.ceil(l / f)];
         
         for (int x = 0; x < tbl.length; ++x) {
-            tbl[x] = (depth * tri(2 * pi * f * x / l));
+            tbl[x] = (int) Math.round(depth * tri(2 * pi * f * x / l) * (1 << PHASE_SHIFT));
         }
         
         return tbl;
@@ -280,6 +319,12 @@ public class VRC7SoundChip implements ExpansionSoundChip {
             case 7: // SSSS RRRR	 Carrier sustain (S), release (R)
                 //parameters for instrument 0
                 instdata[0][register & 7] = data;
+                
+                for (int i = 0; i < 6; i++) {
+                    if (instrument[i] == 0) {
+                        updateChannel(i);
+                    }
+                }
                 break;
             case 0x10:
             case 0x11:
@@ -289,6 +334,7 @@ public class VRC7SoundChip implements ExpansionSoundChip {
             case 0x15: //frequency registers for ch. 0-5
                 final int n = register - 0x10;
                 freq[n] = (freq[n] & 0xf00) | data;
+                updateChannel(n);
                 break;
             case 0x20:
             case 0x21:
@@ -305,11 +351,13 @@ public class VRC7SoundChip implements ExpansionSoundChip {
                 freq[m] = (freq[m] & 0xff) | ((data & 1) << 8);
                 if (Tools.getbit(data, 4) && !key[m]) {
                     //when note is keyed on
-                    carenv_state[m] = adsr.CUTOFF;
-                    modenv_state[m] = adsr.CUTOFF;
+                    env_state[2 * m] = adsr.CUTOFF;
+                    env_state[2 * m + 1] = adsr.CUTOFF;
                 }
                 key[m] = Tools.getbit(data, 4);
                 sust[m] = Tools.getbit(data, 5);
+                active[m] = true;
+                updateChannel(m);
                 break;
             case 0x30:
             case 0x31:
@@ -320,152 +368,244 @@ public class VRC7SoundChip implements ExpansionSoundChip {
                 final int j = register - 0x30;
                 vol[j] = data & 0xf;
                 instrument[j] = (data >> 4) & 0xf;
+                updateChannel(j);
                 break;
             default:
                 break;
         }
     }
+    
+    /**
+     * Rebuilds parameters of a given channel derived from its instrument, frequency and volume.
+     * 
+     * @param ch        Channel number
+     */
+    private void updateChannel(final int ch) {
+        final int[] inst = instdata[instrument[ch]];
+        
+        phaseStep[ch] = freq[ch] << octave[ch];
+        
+        int keyscale = keyscaletbl[freq[ch] >> 5] - 512 * (7 - octave[ch]);
+
+        if (keyscale < 0) {
+            keyscale = 0;
+        }
+
+        final int modks = inst[2] >> 6;
+        final int carks = inst[3] >> 6;
+        
+        modLevel[ch] = (inst[2] & 0x3f) * 32 + ((modks == 0) ? 0 : (keyscale >> (3 - modks)));
+        carLevel[ch] = vol[ch] * 128 + ((carks == 0) ? 0 : (keyscale >> (3 - carks)));
+        modMult[ch] = multbl[inst[0] & 0xf];
+        carMult[ch] = multbl[inst[1] & 0xf];
+        fbShift[ch] = 6 + (~inst[3] & 7);
+        modRectify[ch] = Tools.getbit(inst[3], 3);
+        carRectify[ch] = Tools.getbit(inst[3], 4);
+        modVib[ch] = Tools.getbit(inst[0], 6);
+        carVib[ch] = Tools.getbit(inst[1], 6);
+        modAM[ch] = Tools.getbit(inst[0], 7);
+        carAM[ch] = Tools.getbit(inst[1], 7);
+        
+        for (int carrier = 0; carrier < 2; carrier++) {
+            final int op = 2 * ch + carrier;
+            final int ksr = Tools.getbit(inst[carrier], 4) ? octave[ch] << 1 : octave[ch] >> 1;
+            
+            //Attack is exponential: (vol + 17) shrinks by (1 - rate / 272) every envelope step
+            final double attack = Math.max(0, Math.pow(1 - attack_tbl[(inst[4 + carrier] >> 4) * 4 + ksr] / 272, ENV_STEPS));
+            
+            attackFactor[op] = (int) Math.round(attack * (1 << ENV_SHIFT));
+            decayRate[op] = (int) Math.round(decay_tbl[(inst[4 + carrier] & 0xf) * 4 + ksr] * ENV_STEPS * (1 << ENV_SHIFT));
+            releaseRate[op] = (int) Math.round(decay_tbl[(inst[6 + carrier] & 0xf) * 4 + ksr] * ENV_STEPS * (1 << ENV_SHIFT));
+            sustainLevel[op] = ((inst[6 + carrier] >> 4) * 32) << ENV_SHIFT;
+            sustainOn[op] = Tools.getbit(inst[carrier], 5);
+        }
+    }
 
     /**
-     * Performs a given number of machine cycles.
+     * Renders the output of the chip for a span of CPU cycles.
+     * Output only changes when a channel is updated, so it is filled in runs.
      * 
-     * @param cycles        Number of machine cycles.
+     * @param buffer        Buffer to add the output to
+     * @param fromCycle     Index of the first CPU cycle to render
+     * @param toCycle       Index after the last CPU cycle to render
      */
     @Override
-    public final void cycle(int cycles) {
+    public void render(int[] buffer, int fromCycle, int toCycle) {
         //chip runs at 3.58 mhz, but this operates at 1.789
         //because i do the modulator and carrier in a single cycle
         //as opposed to doing them alternate cycles like the real one
         //actual chip on the nes runs at 3.6 mhz with a separate cycle
-        for (int i = 0; i < cycles; ++i) {
-            ch = ++ch % (6 * 6);
+        int i = fromCycle;
+        
+        while (i < toCycle) {
+            //CPU cycles until the next channel update, including the cycle of the update
+            final int untilStep = (stepPeriod - clock + tickCycles - 1) / tickCycles;
+            final int run = Math.min(untilStep - 1, toCycle - i);
             
-            if (ch < 6) {
-                wave[ch] += (1 / (256. * 2.)) * (freq[ch] << (octave[ch]));
-                //Tuned this with audacity so it's definitely ok this time.
-                final int[] inst = instdata[instrument[ch]];
-                
-                //envelopes
-                for (int fi = 0; fi < 6; ++fi) {
-                    setenvelope(inst, modenv_state, modenv_vol, ch, false);
-                    setenvelope(inst, carenv_state, carenv_vol, ch, true);
-                }
-                
-                int keyscale = keyscaletbl[freq[ch] >> 5] - 512 * (7 - octave[ch]);
-                
-                if (keyscale < 0) {
-                    keyscale = 0;
-                }
-                
-                int modks = inst[2] >> 6;
-                modks = (modks == 0) ? 0 : (keyscale >> (3 - modks));
-                int carks = (inst[3] >> 6);
-                carks = (carks == 0) ? 0 : (keyscale >> (3 - carks));
-                final int fb = (~inst[3] & 7);
-                
-                //now the operator cells
-                //invaluable info: http://gendev.spritesmind.net/forum/viewtopic.php?t=386
-                int mod_f = (int) ((wave[ch]
-                        + ((mod[ch] + oldmodout[ch]) >> (6 + fb)))
-                        * multbl[inst[0] & 0xf]//modulator base freq and multiplier
-                        + (Tools.getbit(inst[0], 6) ? vib[fmctr] * (1 << octave[ch]) : 0))//modulator vibrato
-                        ;
-
-                mod[ch] = operator(mod_f,
-                        (int) ((inst[2] & 0x3f) * 32//modulator vol
-                        + (((int) modenv_vol[ch]) << 2)
-                        + modks //key scaling
-                        + (Tools.getbit(inst[0], 7) ? am[amctr] : 0)),
-                        Tools.getbit(inst[3], 3))//modulator rectify
-                        << 2;
-                out[ch] = operator((mod[ch] + oldmodout[ch]) / 2
-                        + (int) ((Tools.getbit(inst[1], 6) ? vib[fmctr] * (freq[ch] << octave[ch]) / 512. : 0)//carrier vibrato
-                        + wave[ch] * multbl[inst[1] & 0xf]//carrier freq multiplier
-                        ),
-                        (int) (vol[ch] * 128
-                        + (Tools.getbit(inst[1], 7) ? am[amctr] : 0)
-                        + carks//key scaling
-                        + (((int) carenv_vol[ch]) << 2)//carrier volume
-                        ),
-                        Tools.getbit(inst[3], 4))//carrier rectify
-                        << 3;
-                
-                wave[ch] %= 1024;
-                oldmodout[ch] = mod[ch];
-                
-                outputSample();
-                fmctr = ++fmctr % vib.length;
-                amctr = ++amctr % am.length;
+            for (int end = i + run; i < end; i++) {
+                buffer[i] += lpaccum;
+            }
+            
+            clock += run * tickCycles;
+            
+            if (i == toCycle) {
+                break;
+            }
+            
+            clock += tickCycles - stepPeriod;
+            
+            if (active[ch]) {
+                step(ch);
             }
+            
+            outputSample();
+            
+            if (++fmctr == vib.length) {
+                fmctr = 0;
+            }
+            
+            if (++amctr == am.length) {
+                amctr = 0;
+            }
+            
+            if (++ch == 6) {
+                ch = 0;
+            }
+            
+            buffer[i++] += lpaccum;
         }
     }
-
+    
     /**
-     * Sets an operator waveform.
+     * Checks if all channels are released and fully decayed.
      * 
-     * @param phase     Current phase
-     * @param gain      Cuurent gain
-     * @param rectify   True: Sine
-     *                  False: Half-wave rectified sine (sine values less than 0 are clipped to 0)
-     * @return 
+     * @return      True: Chip can be skipped
+     *              False: Chip has to be rendered
      */
-    private int operator(final int phase, final int gain, final boolean rectify) {
-        return exp((logsin(phase, rectify) + gain));
+    @Override
+    public boolean isQuiescent() {
+        return lpaccum == 0 && !active[0] && !active[1] && !active[2] && !active[3] && !active[4] && !active[5];
     }
 
     /**
-     * Computes an exponential function.
+     * Advances channel and modulation counters of a silent chip.
      * 
-     * @param val       Function paramater
-     * @return          Computed value
+     * @param cycles        Number of CPU cycles
      */
-    private int exp(int val) {
-        if (val > (1 << 13) - 1) {
-            val = (1 << 13) - 1;
+    @Override
+    public void skip(int cycles) {
+        clock += cycles * tickCycles;
+        
+        final int steps = clock / stepPeriod;
+        clock %= stepPeriod;
+        
+        fmctr = (fmctr + steps) % vib.length;
+        amctr = (amctr + steps) % am.length;
+        ch = (ch + steps) % 6;
+    }
+    
+    /**
+     * Advances envelopes and operators of a given channel.
+     * 
+     * @param ch        Channel number
+     */
+    private void step(final int ch) {
+        final int modOp = 2 * ch;
+        final int carOp = modOp + 1;
+        
+        phase[ch] = (phase[ch] + phaseStep[ch]) & PHASE_MASK;
+        
+        //envelopes
+        setenvelope(ch, modOp);
+        setenvelope(ch, carOp);
+        
+        if (!key[ch] && env_vol[modOp] == zerovol && env_vol[carOp] == zerovol) {
+            //Released and fully decayed, nothing changes until the channel is keyed on again
+            active[ch] = false;
+            mod[ch] = 0;
+            oldmodout[ch] = 0;
+            out[ch] = 0;
+            return;
         }
-
-        final int mantissa = exp[(-val & 0xff)];
-        final int exponent = (-val) >> 8;
-        final int b = ((mantissa + 1024) >> (-exponent)) * s;
-
-        return b;
+        
+        //now the operator cells
+        //invaluable info: http://gendev.spritesmind.net/forum/viewtopic.php?t=386
+        final int feedback = (mod[ch] + oldmodout[ch]) >> fbShift[ch];
+        int mod_f = (((phase[ch] + (feedback << PHASE_SHIFT)) >> 1) * modMult[ch]) >> PHASE_SHIFT;//modulator base freq and multiplier
+        
+        if (modVib[ch]) {
+            mod_f += (vib[fmctr] << octave[ch]) >> PHASE_SHIFT;//modulator vibrato
+        }
+        
+        mod[ch] = operator(mod_f,
+                modLevel[ch] //modulator vol and key scaling
+                + ((env_vol[modOp] >> ENV_SHIFT) << 2)
+                + (modAM[ch] ? am[amctr] : 0),
+                modRectify[ch])//modulator rectify
+                << 2;
+        
+        int car_f = (mod[ch] + oldmodout[ch]) / 2
+                + (((phase[ch] >> 1) * carMult[ch]) >> PHASE_SHIFT);//carrier freq multiplier
+        
+        if (carVib[ch]) {
+            car_f += (vib[fmctr] * phaseStep[ch]) >> (2 * PHASE_SHIFT);//carrier vibrato
+        }
+        
+        out[ch] = operator(car_f,
+                carLevel[ch] //carrier volume and key scaling
+                + (carAM[ch] ? am[amctr] : 0)
+                + ((env_vol[carOp] >> ENV_SHIFT) << 2),//carrier envelope
+                carRectify[ch])//carrier rectify
+                << 3;
+        
+        oldmodout[ch] = mod[ch];
     }
 
     /**
-     * Returns a value from a logarithm sine lookup table.
+     * Computes an operator output.
+     * The sign bypasses the exponential table, like on real hardware, where it goes directly to the DAC.
      * 
-     * @param x             Function paramter
-     * @param rectify       True: Sine
-     *                      False: Half-wave rectified sine (sine values less than 0 are clipped to 0)
-     * @return              Value from a logarithm sine lookup table
+     * @param phase     Current phase
+     * @param gain      Current attenuation
+     * @param rectify   True: Half-wave rectified sine (sine values less than 0 are clipped to 0)
+     *                  False: Sine
+     * @return          Operator output
      */
-    private int logsin(final int x, final boolean rectify) {
-        //s stores sign, in actual hw the sign bypasses everything else and
-        //goes directly to the dac.
-        switch ((x >> 8) & 3) {
-            case 0:
-                s = 1;
-                return logsin[(x & 0xff)];
-            case 1:
-                s = 1;
-                return logsin[255 - (x & 0xff)];
-            case 2:
-                s = rectify ? 0 : -1;
-                return logsin[(x & 0xff)];
-            case 3:
-            default:
-                s = rectify ? 0 : -1;
-                return logsin[255 - (x & 0xff)];
+    private static int operator(final int phase, final int gain, final boolean rectify) {
+        int val = (((phase & 0x100) == 0) ? logsin[phase & 0xff] : logsin[255 - (phase & 0xff)]) + gain;
+        
+        if (val > (1 << 13) - 1) {
+            val = (1 << 13) - 1;
         }
+        
+        final int shift = -((-val) >> 8);
+        
+        if (shift > 10) {
+            //Mantissa has 11 bits, anything shifted further is silent
+            return 0;
+        }
+        
+        final int result = (exp[-val & 0xff] + 1024) >> shift;
+        
+        if ((phase & 0x200) == 0) {
+            return result;
+        }
+        
+        return rectify ? 0 : -result;
     }
 
     /**
      * Generates an audio sample and passes it through a low-pass filter.
      */
     private void outputSample() {
-        int sample = (out[0] + out[1] + out[2] + out[3] + out[4] + out[5]);
-        sample += lpaccum;
+        final int mix = (out[0] + out[1] + out[2] + out[3] + out[4] + out[5]);
+        final int sample = mix + lpaccum;
         lpaccum -= sample >> 2;
+        
+        if (mix == 0 && lpaccum > 0 && lpaccum < 4) {
+            //Filter gets stuck slightly above zero in silence, let the chip become quiescent
+            lpaccum = 0;
+        }
     }
 
     /**
@@ -473,104 +613,98 @@ public class VRC7SoundChip implements ExpansionSoundChip {
      *
      * @return Audio sample for use with an audio renderer.
      */
-    @Override
     public int getOutput() {
         return lpaccum;
     }
 
     /**
-     * Sets an envelope for a given channel.
+     * Advances an envelope of a given operator.
+     * One call covers ENV_STEPS envelope steps of the original tuning.
      * 
-     * @param instrument        Current instrument
-     * @param state             Current state
-     * @param vol               Channel volume
-     * @param ch                Channel number
-     * @param isCarrier         True:  Generates an envelope with a carrier
-     *                          False: Generates an envelope with a modulator
+     * @param ch        Channel number
+     * @param op        Operator number (modulator: 2 * ch, carrier: 2 * ch + 1)
      */
-    private void setenvelope(final int[] instrument, final adsr[] state, final double[] vol, final int ch, final boolean isCarrier) {
+    private void setenvelope(final int ch, final int op) {
         //from docs on the OPL3: envelope starts at 511 and counts down to zero (no attenuation)
-        switch (state[ch]) {
+        int vol = env_vol[op];
+        
+        switch (env_state[op]) {
             default:
             case CUTOFF:
-                if (vol[ch] < zerovol) {
-                    vol[ch] += 2; //the programmer's manual suggests that sound has to
+                if (vol < zerovol) {
+                    vol += (2 * ENV_STEPS) << ENV_SHIFT; //the programmer's manual suggests that sound has to
                     //decay back to zero volume when keyed on, but other references don't say this
                 } else {
-                    vol[ch] = zerovol;
+                    vol = zerovol;
                     
                     if (key[ch]) {
-                        state[ch] = adsr.ATTACK;
-                        wave[ch] = 0;
+                        env_state[op] = adsr.ATTACK;
+                        phase[ch] = 0;
                     }
                 }
                 break;
             case ATTACK:
-                if (vol[ch] > maxvol + 0.01) {
-                    vol[ch] -= ((vol[ch] + 17) / 272) * attack_tbl[
-                            (instrument[(isCarrier ? 5 : 4)] >> 4) * 4
-                            + (Tools.getbit(instrument[(isCarrier ? 1 : 0)], 4) ? octave[ch] << 1 : octave[ch] >> 1)];
+                if (vol > maxvol + 655) {
+                    final long offset = 17L << ENV_SHIFT;
+                    vol = (int) ((((vol + offset) * attackFactor[op]) >> ENV_SHIFT) - offset);
                 } else {
-                    state[ch] = adsr.DECAY;
+                    env_state[op] = adsr.DECAY;
                 }
                 
                 if (!key[ch]) {
-                    state[ch] = adsr.RELEASE;
+                    env_state[op] = adsr.RELEASE;
                 }
                 break;
             case DECAY:
-                if (vol[ch] < ((instrument[(isCarrier ? 7 : 6)] >> 4)) * 32) {
-                    vol[ch] += decay_tbl[
-                            (instrument[(isCarrier ? 5 : 4)] & 0xf) * 4
-                            + (Tools.getbit(instrument[(isCarrier ? 1 : 0)], 4) ? octave[ch] << 1 : octave[ch] >> 1)];
+                if (vol < sustainLevel[op]) {
+                    vol += decayRate[op];
                 } else {
-                    state[ch] = adsr.RELEASE;
+                    env_state[op] = adsr.RELEASE;
                 }
                 
                 if (!key[ch]) {
-                    state[ch] = adsr.RELEASE;
+                    env_state[op] = adsr.RELEASE;
                 }
                 break;
             case RELEASE:
                 //release at std rate if key is off
-                if (!key[ch] && vol[ch] < zerovol) {
+                if (!key[ch] && vol < zerovol) {
                     if (sust[ch]) {
-                        vol[ch] += 0.001;
+                        vol += 66 * ENV_STEPS; //0.001
                     } else {
-                        vol[ch] += .005;
+                        vol += 328 * ENV_STEPS; //0.005
                     }
-                } else if (vol[ch] < zerovol) {
-                    if (Tools.getbit(instrument[isCarrier ? 1 : 0], 5)) {
+                } else if (vol < zerovol) {
+                    if (sustainOn[op]) {
                         //sustain on, don't decay until keyed
                         if (!key[ch]) {
-                            state[ch] = adsr.SUSTRELEASE;
+                            env_state[op] = adsr.SUSTRELEASE;
                         }
                     } else {
                         //decay immediately
-                        vol[ch] += decay_tbl[(instrument[(isCarrier ? 7 : 6)] & 0xf) * 4
-                                + (Tools.getbit(instrument[(isCarrier ? 1 : 0)], 4) ? octave[ch] << 1 : octave[ch] >> 1)];
+                        vol += releaseRate[op];
                     }
-
                 }
                 break;
             case SUSTRELEASE:
-                if (vol[ch] < zerovol) {
+                if (vol < zerovol) {
                     if (sust[ch]) {
-                        vol[ch] += 0.0001;
+                        vol += 7 * ENV_STEPS; //0.0001
                     } else {
-                        vol[ch] += decay_tbl[(instrument[(isCarrier ? 7 : 6)] & 0xf) * 4
-                                + (Tools.getbit(instrument[(isCarrier ? 1 : 0)], 4) ? octave[ch] << 1 : octave[ch] >> 1)];
+                        vol += releaseRate[op];
                     }
                 }
                 break;
         }
         
-        if (vol[ch] < maxvol) {
-            vol[ch] = maxvol;
+        if (vol < maxvol) {
+            vol = maxvol;
         }
         
-        if (vol[ch] > zerovol) {
-            vol[ch] = zerovol;
+        if (vol > zerovol) {
+            vol = zerovol;
         }
+        
+        env_vol[op] = vol;
     }
-}
\ No newline at end of file
+}
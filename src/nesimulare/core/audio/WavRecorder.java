@@ -0,0 +1,336 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2013-2014 Parseus.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package nesimulare.core.audio;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class recording mixed audio samples into a 16-bit mono PCM WAV file.
+ * 
+ * The emulation thread only copies samples into blocks taken from a fixed pool
+ * and queues them, so it never waits for a disk. A background thread filters blocks,
+ * converts them to 16-bit samples and writes them through a large direct buffer.
+ * If the pool runs dry, because the disk cannot keep up, samples are dropped and counted.
+ * Sizes in the RIFF header are filled in when the recording is closed.
+ *
+ * @author Parseus
+ */
+public class WavRecorder implements Runnable {
+    private static final int HEADER_SIZE = 44;
+    private static final int BLOCK_SIZE = 4096;         //Samples per queued block
+    private static final int BLOCKS = 128;              //About 12 seconds at 44100 Hz
+    private static final int BUFFER_SIZE = 1 << 20;     //Bytes written to a file at once
+    private static final long MAX_DATA_SIZE = 0xFFFFFFFFL - (HEADER_SIZE - 8);
+    
+    /**
+     * Block of samples passed from the emulation thread to the writer thread.
+     */
+    private static final class Block {
+        final int[] samples = new int[BLOCK_SIZE];
+        int count;
+    }
+    
+    public final String filename;
+    public final int sampleRate;
+    private final ArrayBlockingQueue<Block> filled = new ArrayBlockingQueue<>(BLOCKS);
+    private final ArrayBlockingQueue<Block> free = new ArrayBlockingQueue<>(BLOCKS);
+    private final OutputFilter filter;
+    private final float volume;
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final Thread thread;
+    
+    private Block current;
+    private boolean closed = false;
+    private volatile boolean closing = false;
+    private volatile long written = 0;      //Samples written to the file
+    private volatile long dropped = 0;      //Samples lost because the writer fell behind
+    private volatile IOException error;
+    
+    /**
+     * Constructor for this class. Creates a WAV file and starts the writer thread.
+     * 
+     * @param filename          Filename of a WAV file
+     * @param sampleRate        Sample rate of recorded audio
+     * @param preset            Filter chain applied to recorded samples
+     * @param volume            Multiplier applied to filtered samples
+     * @throws IOException      If the file cannot be created
+     */
+    public WavRecorder(final String filename, final int sampleRate, final OutputFilter.Preset preset,
+            final float volume) throws IOException {
+        this.filename = filename;
+        this.sampleRate = sampleRate;
+        this.volume = volume;
+        filter = new OutputFilter(preset, sampleRate);
+        
+        file = new RandomAccessFile(filename, "rw");
+        file.setLength(0);
+        channel = file.getChannel();
+        writeHeader(0);
+        channel.position(HEADER_SIZE);
+        
+        for (int i = 0; i < BLOCKS; i++) {
+            free.offer(new Block());
+        }
+        
+        thread = new Thread(this, "WAV recorder");
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+    
+    /**
+     * Queues mixed samples for recording. Never blocks: samples which don't fit
+     * into free blocks are dropped and counted.
+     * 
+     * @param samples       Mixed audio samples
+     * @param count         Number of samples
+     */
+    public synchronized void write(final int[] samples, final int count) {
+        if (closed) {
+            return;
+        }
+        
+        int offset = 0;
+        
+        while (offset < count) {
+            if (current == null) {
+                current = free.poll();
+                
+                if (current == null) {
+                    dropped += count - offset;
+                    return;
+                }
+            }
+            
+            final int length = Math.min(count - offset, BLOCK_SIZE - current.count);
+            System.arraycopy(samples, offset, current.samples, current.count, length);
+            current.count += length;
+            offset += length;
+            
+            if (current.count == BLOCK_SIZE) {
+                //Can't fail, the queue holds all blocks of the pool
+                filled.offer(current);
+                current = null;
+            }
+        }
+    }
+    
+    /**
+     * Stops recording, waits until all queued samples are written and completes the RIFF header.
+     * 
+     * @throws IOException      If writing the file failed at any point
+     */
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            
+            closed = true;
+            
+            if (current != null && current.count > 0) {
+                filled.offer(current);
+            }
+            
+            current = null;
+        }
+        
+        closing = true;
+        
+        try {
+            thread.join();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+        
+        if (error != null) {
+            throw error;
+        }
+    }
+    
+    /**
+     * Writes queued blocks until the recording is closed.
+     */
+    @Override
+    public void run() {
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        
+        try {
+            while (true) {
+                final Block block;
+                
+                try {
+                    block = filled.poll(100, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException ie) {
+                    continue;
+                }
+                
+                if (block == null) {
+                    //The last block is queued before closing is set
+                    if (closing && filled.isEmpty()) {
+                        break;
+                    }
+                    
+                    continue;
+                }
+                
+                if (error == null) {
+                    encode(block, buffer);
+                }
+                
+                block.count = 0;
+                free.offer(block);
+            }
+            
+            if (error == null) {
+                drain(buffer);
+                writeHeader(written * 2);
+            }
+        } catch (IOException ioe) {
+            error = ioe;
+        } finally {
+            try {
+                file.close();
+            } catch (IOException ioe) {
+                if (error == null) {
+                    error = ioe;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Filters a block of samples and puts them into the buffer as 16-bit samples.
+     * Full buffer is written to the file.
+     * 
+     * @param block         Block of mixed samples
+     * @param buffer        Buffer of samples to be written
+     */
+    private void encode(final Block block, final ByteBuffer buffer) {
+        final int[] samples = block.samples;
+        filter.process(samples, block.count);
+        
+        try {
+            for (int i = 0; i < block.count; i++) {
+                if (!buffer.hasRemaining()) {
+                    drain(buffer);
+                }
+                
+                int sample = (int) (samples[i] * volume);
+                
+                if (sample < -32768) {
+                    sample = -32768;
+                } else if (sample > 32767) {
+                    sample = 32767;
+                }
+                
+                buffer.putShort((short) sample);
+            }
+        } catch (IOException ioe) {
+            //Keep taking blocks, so the emulation thread doesn't start dropping samples
+            error = ioe;
+        }
+    }
+    
+    /**
+     * Writes contents of the buffer to the file.
+     * 
+     * @param buffer            Buffer of samples
+     * @throws IOException      If writing fails
+     */
+    private void drain(final ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        written += buffer.remaining() / 2;
+        
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        
+        buffer.clear();
+    }
+    
+    /**
+     * Writes the RIFF header at the beginning of the file.
+     * 
+     * @param dataSize          Size of sample data in bytes
+     * @throws IOException      If writing fails
+     */
+    private void writeHeader(final long dataSize) throws IOException {
+        //Larger files are still written, but their header can only describe the first 4 GB
+        final int size = (int) Math.min(dataSize, MAX_DATA_SIZE);
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        
+        header.putInt(0x46464952);                  //"RIFF"
+        header.putInt(size + HEADER_SIZE - 8);
+        header.putInt(0x45564157);                  //"WAVE"
+        header.putInt(0x20746D66);                  //"fmt "
+        header.putInt(16);                          //Size of format chunk
+        header.putShort((short) 1);                 //PCM
+        header.putShort((short) 1);                 //Mono
+        header.putInt(sampleRate);
+        header.putInt(sampleRate * 2);              //Bytes per second
+        header.putShort((short) 2);                 //Bytes per sample frame
+        header.putShort((short) 16);                //Bits per sample
+        header.putInt(0x61746164);                  //"data"
+        header.putInt(size);
+        header.flip();
+        
+        while (header.hasRemaining()) {
+            channel.write(header, header.position());
+        }
+    }
+    
+    /**
+     * Returns the length of audio written to the file so far.
+     * 
+     * @return      Length in seconds
+     */
+    public double getSeconds() {
+        return (double) written / sampleRate;
+    }
+    
+    /**
+     * Returns the number of samples which have been dropped, because the file couldn't be written fast enough.
+     * 
+     * @return      Number of dropped samples
+     */
+    public long getDroppedSamples() {
+        return dropped;
+    }
+    
+    /**
+     * Returns an error which stopped writing the file.
+     * 
+     * @return      Error or null if the file has been written without problems
+     */
+    public IOException getError() {
+        return error;
+    }
+}
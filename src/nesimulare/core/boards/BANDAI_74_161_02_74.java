@@ -107,4 +107,9 @@ public class BANDAI_74_161_02_74 extends Board {
             }
         }
     }
+    
+    @Override
+    public boolean canRenderAhead() {
+        return false;
+    }
 }
\ No newline at end of file
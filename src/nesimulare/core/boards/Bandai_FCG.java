@@ -206,6 +206,11 @@ public class Bandai_FCG extends Board {
         }
     }
     
+    @Override
+    public boolean isCountingCPUCycles() {
+        return irqEnabled;
+    }
+    
     /**
      * Returns save data on EEPROM.
      * 
@@ -299,6 +299,86 @@ public class Board {
         return sram[address - 0x6000];
     }
     
+    /**
+     * Returns an offset within PRG-ROM currently mapped at a given address.
+     * Boards reading PRG-ROM on their own have to override it as well.
+     * 
+     * @param address       Address within the range $8000-$FFFF
+     * @return              Offset within PRG-ROM
+     */
+    public int getPRGOffset(final int address) {
+        return decodePRGAddress(address) & prgmask;
+    }
+    
+    /**
+     * Returns a size of PRG-ROM.
+     * 
+     * @return      Size of PRG-ROM in bytes
+     */
+    public int getPRGSize() {
+        return prg.length;
+    }
+    
+    /**
+     * Returns an offset within CHR memory currently mapped at a given address.
+     * Boards reading CHR on their own have to override it as well.
+     * 
+     * @param address       Address within the range $0000-$1FFF
+     * @return              Offset within CHR memory or -1 if the address is mapped 
+     *                      to memory other than CHR, e.g. separate CHR-RAM
+     */
+    public int getCHROffset(final int address) {
+        return decodeCHRAddress(address) & chrmask;
+    }
+    
+    /**
+     * Returns a size of CHR memory.
+     * 
+     * @return      Size of CHR memory in bytes
+     */
+    public int getCHRSize() {
+        return chr.length;
+    }
+    
+    /**
+     * Returns a copy of CHR memory.
+     * 
+     * @return      CHR-ROM (or CHR-RAM)
+     */
+    public int[] getCHR() {
+        return chr.clone();
+    }
+    
+    /**
+     * Checks if CHR memory can be written to.
+     * 
+     * @return      True: PCB contains CHR-RAM
+     */
+    public boolean hasCHRRAM() {
+        return haschrram;
+    }
+    
+    /**
+     * Reads data from a given address within the range $8000-$FFFF without any side effects.
+     * Used by debugging tools.
+     * 
+     * @param address       Address to read data from
+     * @return              Read data
+     */
+    public int peekPRG(final int address) {
+        return prg[getPRGOffset(address)];
+    }
+    
+    /**
+     * Checks if reading PRG-ROM has side effects, e.g. switches banks.
+     * CPU won't skip wait loops on such boards.
+     * 
+     * @return      True if reading PRG-ROM has side effects
+     */
+    public boolean hasPRGReadSideEffects() {
+        return false;
+    }
+    
     /**
      * Reads data from a given address within the range $8000-$FFFF.
      * 
@@ -399,7 +479,18 @@ public class Board {
     public void clockCPUCycle() {
         //Placeholder
     }
-    
+
+    /**
+     * Checks if an IRQ counter clocked every CPU cycle is running,
+     * so IRQ may be requested on any CPU cycle.
+     *
+     * @return      True: IRQ counter is running
+     *              False: Board has no such counter or it's stopped
+     */
+    public boolean isCountingCPUCycles() {
+        return false;
+    }
+
     /**
      * Clocks IRQ every PPU cycle.
      */
@@ -414,6 +505,36 @@ public class Board {
         //Placeholder
     }
     
+    /**
+     * Checks if board has to be clocked on every PPU cycle and scanline tick,
+     * even when rendering is disabled.
+     * 
+     * @return      True: Board needs per-dot callbacks from the PPU
+     *              False: PPU can advance in bulk while rendering is disabled
+     */
+    public boolean isClockedPerDot() {
+        return false;
+    }
+    
+    /**
+     * Checks if frames can be drawn ahead on another thread. This needs every 
+     * pattern table read to be decoded by CHR banks alone and rendering fetches 
+     * not to be passed to the board.
+     * 
+     * @return      True: Board uses plain CHR banks and PPU address lines are not watched
+     *              False: Board decodes CHR on its own or watches rendering fetches
+     */
+    public boolean canRenderAhead() {
+        return !isClockedPerDot();
+    }
+    
+    /**
+     * Passes audio options of the emulation core to an expansion sound chip of the board.
+     */
+    public void updateSoundOptions() {
+        //Placeholder
+    }
+    
     /**
      * Updates PPU on a given address while rising A12 address line.
      * 
@@ -148,6 +148,7 @@ public class ExROM extends Board {
                  * $5015: Status
                  */
                 case 0x5015:
+                    nes.apu.renderExpansion();
                     return soundChip.getStatus();
 
                 /**
@@ -209,6 +210,7 @@ public class ExROM extends Board {
             case 0x5010:
             case 0x5011:
             case 0x5015:
+                nes.apu.renderExpansion();
                 soundChip.write(address, data);
                 break;
 
@@ -705,6 +707,26 @@ public class ExROM extends Board {
         }
     }
 
+    /**
+     * Returns an offset within CHR memory currently mapped at a given address.
+     * Background fetches use ExRAM tiles or background banks like readCHR().
+     * 
+     * @param address       Address within the range $0000-$1FFF
+     * @return              Offset within CHR memory
+     */
+    @Override
+    public int getCHROffset(final int address) {
+        if (nes.ppu.isBackgroundFetching()) {
+            if (exramMode == 1) {
+                return (((nes.ppuram.nmt[2][lastAccessedVRAM] & 0x3F) << 12) | (address & 0x0FFF)) & chrmask;
+            } else if (nes.ppu.isOAMSize()) {
+                return ((address & 0x03FF) | chrBackgroundPage[address >> 10 & 0x07]) & chrmask;
+            }
+        }
+        
+        return super.getCHROffset(address);
+    }
+
     /**
      * Writes PPU data to a given address within the range $0000-$1FFF.
      * 
@@ -800,6 +822,11 @@ public class ExROM extends Board {
         }
     }
 
+    @Override
+    public boolean isClockedPerDot() {
+        return true;
+    }
+
     /**
      * Switches a 1 kB background CHR bank at a given address.
      *
@@ -151,4 +151,9 @@ public class FxROM extends Board {
             super.switch4kCHRbank(register[3], 0x1000);
         }
     }
+    
+    @Override
+    public boolean canRenderAhead() {
+        return false;
+    }
 }
\ No newline at end of file
@@ -71,6 +71,17 @@ public class IREM_74_161_161_21_138 extends Board {
             return chrram[address - 0x800];
         }
     }
+    
+    /**
+     * Returns an offset within CHR-ROM currently mapped at a given address.
+     * 
+     * @param address       Address within the range $0000-$1FFF
+     * @return              Offset within CHR-ROM or -1 if CHR-RAM is mapped at the address
+     */
+    @Override
+    public int getCHROffset(final int address) {
+        return (address < 0x800) ? super.getCHROffset(address) : -1;
+    }
   
     /**
      * Writes PPU data to a given address within the range $0000-$1FFF.
@@ -86,4 +97,9 @@ public class IREM_74_161_161_21_138 extends Board {
             chrram[address - 0x800] = data;
         }
     }
+    
+    @Override
+    public boolean canRenderAhead() {
+        return false;
+    }
 }
\ No newline at end of file
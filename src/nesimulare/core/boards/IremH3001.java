@@ -136,4 +136,9 @@ public class IremH3001 extends Board {
             }
         }
     }
+    
+    @Override
+    public boolean isCountingCPUCycles() {
+        return irqEnabled;
+    }
 }
\ No newline at end of file
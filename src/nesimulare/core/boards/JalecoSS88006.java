@@ -270,4 +270,9 @@ public class JalecoSS88006 extends Board {
             }
         }
     }
+    
+    @Override
+    public boolean isCountingCPUCycles() {
+        return irqEnabled;
+    }
 }
\ No newline at end of file
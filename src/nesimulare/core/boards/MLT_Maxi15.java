@@ -64,6 +64,16 @@ public class MLT_Maxi15 extends Board {
         register = new int[2];
     }
     
+    /**
+     * Checks if reading PRG-ROM has side effects, e.g. switches banks.
+     * 
+     * @return      True, as reading some addresses switches banks
+     */
+    @Override
+    public boolean hasPRGReadSideEffects() {
+        return true;
+    }
+    
     /**
      * Reads data from a given address within the range $8000-$FFFF.
      * 
@@ -86,6 +96,21 @@ public class MLT_Maxi15 extends Board {
         
         return super.readPRG(address);
     }
+    
+    /**
+     * Returns an offset within PRG-ROM currently mapped at a given address.
+     * 
+     * @param address       Address within the range $8000-$FFFF
+     * @return              Offset within PRG-ROM
+     */
+    @Override
+    public int getPRGOffset(final int address) {
+        if ((address >= 0xFF80 && address <= 0xFF9F) || (address >= 0xFFE8 && address <= 0xFFF7)) {
+            return 0x6000 + address - 0xE000;
+        }
+        
+        return super.getPRGOffset(address);
+    }
 
     /**
      * Writes data to a given address within the range $8000-$FFFF.
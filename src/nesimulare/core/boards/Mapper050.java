@@ -108,4 +108,9 @@ public class Mapper050 extends Board {
             }
         }
     }
+    
+    @Override
+    public boolean isCountingCPUCycles() {
+        return irqEnabled;
+    }
 }
\ No newline at end of file
@@ -151,4 +151,9 @@ public class Mapper091 extends Board {
     public void clockPPUCycle() {
         irqTimer++;
     }
+    
+    @Override
+    public boolean isClockedPerDot() {
+        return true;
+    }
 }
\ No newline at end of file
@@ -99,4 +99,9 @@ public class Mapper142 extends Board {
             nes.cpu.interrupt(CPU.InterruptTypes.BOARD, true);
         }
     }
+    
+    @Override
+    public boolean isCountingCPUCycles() {
+        return irqEnabled;
+    }
 }
\ No newline at end of file
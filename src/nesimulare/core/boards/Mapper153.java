@@ -125,4 +125,9 @@ public class Mapper153 extends Board {
             }
         }
     }
+    
+    @Override
+    public boolean isCountingCPUCycles() {
+        return irqEnabled;
+    }
 }
\ No newline at end of file
@@ -154,6 +154,11 @@ public class Mapper159 extends Board {
         }
     }
     
+    @Override
+    public boolean isCountingCPUCycles() {
+        return irqEnabled;
+    }
+    
     @Override
     public int[] getSRAM() {
         return eeprom.rom;
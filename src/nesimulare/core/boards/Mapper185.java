@@ -51,10 +51,20 @@ public class Mapper185 extends Board {
         }
     }
     
+    @Override
+    public int getCHROffset(final int address) {
+        return chrDisable ? -1 : super.getCHROffset(address);
+    }
+    
     @Override
     public void writePRG(int address, int data) {
         super.switch8kCHRbank(data);
         
         chrDisable = ((data & 0xF) > 0) && (data != 0x13);
     }
+    
+    @Override
+    public boolean canRenderAhead() {
+        return false;
+    }
 }
\ No newline at end of file
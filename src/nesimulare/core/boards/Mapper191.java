@@ -55,6 +55,13 @@ public class Mapper191 extends TxROM {
         }
     }
     
+    @Override
+    public int getCHROffset(final int address) {
+        final int offset = decodeCHRAddress(address);
+        
+        return (offset < chr.length) ? offset & chrmask : -1;
+    }
+    
     @Override
     public void writeCHR(int address, int data) {
         final int chrLength = chr.length;
@@ -128,4 +128,9 @@ public class Mapper207 extends Board {
                 break;
         }
     }
+    
+    @Override
+    public boolean canRenderAhead() {
+        return false;
+    }
 }
\ No newline at end of file
@@ -189,4 +189,9 @@ public class NES_EVENT extends Board {
             }
         }
     }
+    
+    @Override
+    public boolean isCountingCPUCycles() {
+        return !irqControl;
+    }
 }
\ No newline at end of file
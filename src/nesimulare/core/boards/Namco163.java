@@ -51,6 +51,14 @@ public class Namco163 extends Board {
         
         soundChip = new Namco163SoundChip(nes.region);
         nes.apu.addExpansionSoundChip(soundChip);
+        updateSoundOptions();
+    }
+    
+    @Override
+    public void updateSoundOptions() {
+        if (soundChip != null) {
+            soundChip.setMixing(nes.isNamco163Mixing());
+        }
     }
     
     @Override
@@ -77,6 +85,7 @@ public class Namco163 extends Board {
     public int readEXP(int address) {
         switch (address) {
             case 0x4800:
+                nes.apu.renderExpansion();
                 return soundChip.readData(address);
             case 0x5000:
                 return (irqCounter & 0x00FF);
@@ -91,6 +100,7 @@ public class Namco163 extends Board {
     public void writeEXP(int address, int data) {
         switch (address) {
             case 0x4800:
+                nes.apu.renderExpansion();
                 soundChip.writeData(address, data);
                 break;
             case 0x5000:
@@ -208,6 +218,13 @@ public class Namco163 extends Board {
         }
     }
     
+    @Override
+    public int getCHROffset(final int address) {
+        final int offset = decodeCHRAddress(address);
+        
+        return (offset < chr.length) ? offset : -1;
+    }
+    
     @Override
     public void writeCHR(int address, int data) {
         final int addr = decodeCHRAddress(address);
@@ -243,4 +260,14 @@ public class Namco163 extends Board {
             }
         }
     }
+    
+    @Override
+    public boolean isCountingCPUCycles() {
+        return irqEnabled;
+    }
+    
+    @Override
+    public boolean canRenderAhead() {
+        return false;
+    }
 }
\ No newline at end of file
@@ -119,4 +119,9 @@ public class Namco3425 extends Board {
         super.switch1kCHRbank(chrRegister[4], 0x1800);
         super.switch1kCHRbank(chrRegister[5], 0x1C00);
     }
+    
+    @Override
+    public boolean canRenderAhead() {
+        return false;
+    }
 }
\ No newline at end of file
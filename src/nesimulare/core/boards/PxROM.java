@@ -122,4 +122,9 @@ public class PxROM extends Board {
             super.switch4kCHRbank(register[3], 0x1000);
         }
     }
+    
+    @Override
+    public boolean canRenderAhead() {
+        return false;
+    }
 }
\ No newline at end of file
@@ -101,4 +101,9 @@ public class Sunsoft4 extends Board {
     public void writeNametable(int address, int data) {
         nes.ppuram.nmt[nes.ppuram.nmtBank[(address >> 10) & 3]][address & 0x03FF] = data;
     }
+    
+    @Override
+    public boolean canRenderAhead() {
+        return false;
+    }
 }
\ No newline at end of file
@@ -175,6 +175,8 @@ public class Sunsoft_FME7 extends Board {
                 soundRegister = (data & 0xF);
                 break;
             case 0xE000:
+                nes.apu.renderExpansion();
+                
                 switch (soundRegister) {    //TODO: Emulate noise and envelope generators that are not used in any NES game
                     case 0x0:
                         soundChip.square0.write(0, data);
@@ -195,9 +197,9 @@ public class Sunsoft_FME7 extends Board {
                         soundChip.square2.write(1, data);
                         break;
                     case 0x7:
-                        soundChip.square0.disabled = Tools.getbit(data, 0);
-                        soundChip.square1.disabled = Tools.getbit(data, 1);
-                        soundChip.square2.disabled = Tools.getbit(data, 2);
+                        soundChip.square0.setDisabled(Tools.getbit(data, 0));
+                        soundChip.square1.setDisabled(Tools.getbit(data, 1));
+                        soundChip.square2.setDisabled(Tools.getbit(data, 2));
                         break;
                     case 0x8:
                         soundChip.square0.write(2, data);
@@ -231,4 +233,9 @@ public class Sunsoft_FME7 extends Board {
             }
         }
     }
+    
+    @Override
+    public boolean isCountingCPUCycles() {
+        return irqCounterEnabled && irqEnabled;
+    }
 }
\ No newline at end of file
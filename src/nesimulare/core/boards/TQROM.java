@@ -98,6 +98,13 @@ public class TQROM extends TxROM {
         }
     }
     
+    @Override
+    public int getCHROffset(final int address) {
+        final int page = chrpage[address >> 10 & 0x07];
+        
+        return (page < chr.length) ? ((address & 0x03FF) | page) & chrmask : -1;
+    }
+    
     @Override
     public void writeCHR(int address, int data) {
         final int chrLength = chr.length;
@@ -148,6 +148,11 @@ public class Taito_TC0190FMC extends Board {
         }
     }
     
+    @Override
+    public boolean isClockedPerDot() {
+        return pal16r4;
+    }
+    
     @Override
     public void updateAddressLines(int address) {
         if (pal16r4) {
@@ -181,11 +181,21 @@ public class Tengen_800032 extends Board{
         }
     }
     
+    @Override
+    public boolean isCountingCPUCycles() {
+        return irqMode;
+    }
+    
     @Override
     public void clockPPUCycle() {
         timer++;
     }
     
+    @Override
+    public boolean isClockedPerDot() {
+        return true;
+    }
+    
     private void clockIRQ() {
         if (irqClear) {
             irqCounter = (irqReload + 1) & 0xFF;
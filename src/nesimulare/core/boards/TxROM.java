@@ -179,6 +179,11 @@ public class TxROM extends Board{
         irqTimer++;
     }
     
+    @Override
+    public boolean isClockedPerDot() {
+        return true;
+    }
+    
     protected void setupPRG() {
         if (prgMode) {
             super.switch8kPRGbank(prgRegister[2], 0x8000);
@@ -65,6 +65,11 @@ public class VRC6 extends Board {
     
     @Override
     public void writePRG(int address, int data) {
+        if (address >= 0x9000 && address < 0xC000) {
+            //Sound registers
+            nes.apu.renderExpansion();
+        }
+        
         switch (address) {
             case 0x8000: case 0x8001: case 0x8002: case 0x8003:
                 super.switch16kPRGbank(data, 0x8000);
@@ -259,4 +264,9 @@ public class VRC6 extends Board {
             }
         }
     }
+    
+    @Override
+    public boolean isCountingCPUCycles() {
+        return irqEnabled;
+    }
 }
\ No newline at end of file
@@ -47,13 +47,13 @@ public class VRC7 extends Board {
         super(prg, chr, trainer, haschrram);
     }
     
-//    @Override
-//    public void initialize() {
-//        super.initialize();
-//        
-//        soundChip = new VRC7SoundChip();
-//        nes.apu.addExpansionSoundChip(soundChip);
-//    }
+    @Override
+    public void initialize() {
+        super.initialize();
+        
+        soundChip = new VRC7SoundChip(nes.region);
+        nes.apu.addExpansionSoundChip(soundChip);
+    }
     
     @Override
     public void hardReset() {
@@ -76,10 +76,11 @@ public class VRC7 extends Board {
                 break;
                 
             case 0x9010:
-                //soundRegister = data;
+                soundRegister = data;
                 break;
             case 0x9030:
-                //soundChip.write(soundRegister, data);
+                nes.apu.renderExpansion();
+                soundChip.write(soundRegister, data);
                 break;
                 
             case 0xA000:
@@ -175,4 +176,9 @@ public class VRC7 extends Board {
             }
         }
     }
+    
+    @Override
+    public boolean isCountingCPUCycles() {
+        return irqEnabled;
+    }
 }
\ No newline at end of file
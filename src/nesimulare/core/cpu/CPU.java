@@ -24,17 +24,20 @@
 
 package nesimulare.core.cpu;
 
-import java.io.File;
-import java.io.FileWriter;
-import java.io.IOException;
 import nesimulare.core.NES;
 import nesimulare.core.ProcessorBase;
+import nesimulare.core.debug.Disassembler;
+import nesimulare.core.debug.HostProfiler;
+import nesimulare.core.debug.TraceLogger;
 import nesimulare.core.memory.CPUMemory;
 import nesimulare.gui.Tools;
 
 /**
  * Emulates the CPU component of Ricoh 2A03.
  * 
+ * execute() and the opcode handlers are generated from tools/opcodes.def.
+ * Edit that file and run "ant generate-opcodes" instead of changing them here.
+ * 
  * @author Parseus
  */
 public class CPU extends ProcessorBase implements Opcodes {
@@ -61,28 +64,30 @@ public class CPU extends ProcessorBase implements Opcodes {
     private static final int IRQ_VECTOR_H = 0xffff;
 
     /* Logging (for debugging) */
-    public FileWriter fw; //debug log writer
+    private int tracedInterrupt; //Interrupt serviced since the last traced instruction (debugging only)
 
     /* DMA types */
     public enum DMATypes { DMA, OAM };
     
     /* Interrupts */
     public enum InterruptTypes {
-        PPU(0), APU(1), DMC(2), BOARD(4);
+        PPU(0x8), APU(0x1), DMC(0x2), BOARD(0x4);
         
-        public final int irq;
+        public final int line;
         
-        InterruptTypes(final int irq) {
-            this.irq = irq;
+        InterruptTypes(final int line) {
+            this.line = line;
         }   
     }
     
-    /* Interrupt requests */
-    private boolean interruptRequest;
-    private int irqRequestFlags;
+    /* Interrupt lines */
+    private static final int IRQ_LINES = 0x7;
+    private static final int NMI_LINE = 0x8;
     
-    /* NMI */
-    private boolean nmi;
+    /* Interrupt requests */
+    private boolean interruptRequest;   //Result of the last interrupt polling
+    private boolean interruptPending;   //Updated whenever interrupt lines or the interrupt disable flag change
+    private int interruptLines;
     
     /* The Memory */
     public CPUMemory ram;
@@ -90,14 +95,13 @@ public class CPU extends ProcessorBase implements Opcodes {
     /* The CPU state */
     private static final CPUState state = new CPUState();
 
-    /* Scratch space for addressing mode and effective address
-     * calculations */
-    private static AddressMode irAddressMode; // Addresing mode of the instruction
+    /* Scratch space for effective address calculations */
     private static int effectiveAddress;
 
     /* Internal scratch space */
     private int lo = 0, hi = 0;  // Used in address calculation
     private int tmp; // Temporary storage
+    private int fetched; // Bytes fetched at the PC, the last one in the low byte (debugging only)
 
     /* Last readnand write by CPU */
     public static int lastRead;
@@ -107,6 +111,20 @@ public class CPU extends ProcessorBase implements Opcodes {
     private int dmcDMACycles = 0;
     private int oamDMACycles = 0;
     
+    /* Idle loop skipping */
+    private final IdleLoop idleLoop = new IdleLoop();
+    private boolean fetchingDMC = false;
+    
+    /* Cycle counters (profiling) */
+    private long cycles = 0L;
+    private long dmaCycles = 0L;
+    private long interrupts = 0L;
+    private long nmis = 0L;
+    private int interruptCycles = 0;   //Length of the last serviced interrupt
+    
+    /* Host profiling */
+    private HostProfiler hostProfiler = null;
+    
     /**
      * Binds CPU to the emulation core.
      * 
@@ -118,14 +136,6 @@ public class CPU extends ProcessorBase implements Opcodes {
         region.singleCycle = system.cpu;
         
         this.nes = nes;
-        
-        if (NES.LOGGING) {
-            try {
-                fw = new FileWriter(new File("cpulog.txt"));
-            } catch (IOException ioe) {
-                nes.messageBox("Logging error: " + ioe.getMessage());
-            }
-        }
     }
     
     /**
@@ -153,15 +163,39 @@ public class CPU extends ProcessorBase implements Opcodes {
         return ram;
     }
 
+    /**
+     * Checks if the current read fetches a DMC sample.
+     * 
+     * @return          True if DMC is reading memory
+     */
+    public boolean isFetchingDMC() {
+        return fetchingDMC;
+    }
+
     /**
      * Synchronizes CPU with APU and PPU (and optionally with MMC).
      */
     private void dispatch() {
+        cycles++;
+        
+        if (idleLoop.recording) {
+            idleLoop.recordCycle();
+        }
+        
         nes.apu.cycle(region.singleCycle);
         nes.ppu.cycle(region.singleCycle);
         nes.board.clockCPUCycle();
     }
     
+    /**
+     * Sets a host profiler timing skipped idle loops. Called only from emulation thread.
+     * 
+     * @param profiler      Host profiler or null to stop profiling
+     */
+    public void setHostProfiler(final HostProfiler profiler) {
+        hostProfiler = profiler;
+    }
+    
     /**
      * Check DMC and OAM DMA at the given address
      * 
@@ -169,6 +203,7 @@ public class CPU extends ProcessorBase implements Opcodes {
      */
     private void checkDmcOamDma(int address) {
         if (dmcDMACycles > 0) {
+            final long start = cycles;
             int _dmcDMACycles = dmcDMACycles - 1;
             dmcDMACycles = 0;
             
@@ -191,10 +226,14 @@ public class CPU extends ProcessorBase implements Opcodes {
                 }
             }
             
+            fetchingDMC = true;
             nes.apu.dmcFetch();
+            fetchingDMC = false;
+            dmaCycles += cycles - start;
         }
         
         if (oamDMACycles > 0) {
+            final long start = cycles;
             int _oamDMACycles = oamDMACycles - 1;
             oamDMACycles = 0;
             
@@ -218,6 +257,7 @@ public class CPU extends ProcessorBase implements Opcodes {
             }
             
             nes.ppu.oamTransfer();
+            dmaCycles += cycles - start;
         }
     }
 
@@ -259,11 +299,19 @@ public class CPU extends ProcessorBase implements Opcodes {
      * @return              Read value from a given address
      */
     public int read(final int address) {
+        if (idleLoop.recording && (dmcDMACycles > 0 || oamDMACycles > 0)) {
+            idleLoop.reject();
+        }
+        
         checkDmcOamDma(address);
         dispatch();
         
         lastRead = ram.read(address);
         
+        if (idleLoop.recording) {
+            idleLoop.recordRead(address, lastRead);
+        }
+        
         return lastRead;
     }
     
@@ -274,6 +322,10 @@ public class CPU extends ProcessorBase implements Opcodes {
      * @param data          Value written to a given address
      */
     public void write(final int address, final int data) {
+        if (idleLoop.recording) {
+            idleLoop.reject();
+        }
+        
         checkRDY();
         dispatch();
         
@@ -309,9 +361,11 @@ public class CPU extends ProcessorBase implements Opcodes {
         state.stepCounter = 0L;
 
         // Reset interrupt requests.
-        nmi = false;
         interruptRequest = false;
-        irqRequestFlags = 0;
+        interruptLines = 0;
+        updateInterruptPending();
+        
+        idleLoop.interrupt();
     }
     
     /**
@@ -319,7 +373,8 @@ public class CPU extends ProcessorBase implements Opcodes {
      */
     @Override
     public void softReset() {
-        state.irqDisableFlag = true;
+        idleLoop.interrupt();
+        setIrqDisableFlag();
         state.sp = (state.sp - 3) & 0xFF;
         state.pc = address(ram.read(RST_VECTOR_L), ram.read(RST_VECTOR_H));
     }
@@ -329,1015 +384,4431 @@ public class CPU extends ProcessorBase implements Opcodes {
      */
     @Override
     public void cycle() {
+        if (idleLoop.replaying) {
+            if (ram == nes.cpuram) {
+                replayIdleLoop();
+                return;
+            }
+            
+            //Replayed loops bypass memory, so they must not run while debugger watches it
+            idleLoop.interrupt();
+        }
+        
         // Store the address from which the IR was read (for debugging)
         state.lastPc = state.pc;
 
         // Fetch memory location for this instruction.
-        state.ir = read(state.pc);
-        incrementPC();
-        irAddressMode = instructionModes[state.ir];
+        state.ir = fetch();
 
         // Increment step counter
         state.stepCounter++;
 
-        // Get the data from the effective address (if any)
+        // Fetch operands and execute
         effectiveAddress = 0;
+        execute();
+        
+        //Interrupts stuff
+        if (interruptRequest) {
+            idleLoop.interrupt();
+            serviceInterrupt();
+        } else {
+            detectIdleLoop();
+        }
+    }
 
-        switch (irAddressMode) {
-            case ABS_A:     // Absolute
-                state.args[0] = read(state.pc);
-                incrementPC();
-                state.args[1] = read(state.pc);
-                incrementPC();
-                effectiveAddress = address(state.args[0], state.args[1]);
-                break;
-            case ABS_LC:    // Absolute with an additional read
-                state.args[0] = read(state.pc);
-                incrementPC();
+    /**
+     * Looks for wait loops, which only read WRAM or PRG-ROM until an interrupt occurs.
+     * Recording starts after a backward branch or jump within PRG-ROM.
+     */
+    private void detectIdleLoop() {
+        if (idleLoop.recording) {
+            if (state.ir == 0x28 || state.ir == 0x40 || state.ir == 0x58 || state.ir == 0x78) {
+                //Interrupt disable flag changes in the middle of these instructions
+                idleLoop.reject();
+            } else if (idleLoop.recordInstruction(state, effectiveAddress, tmp, lo, hi, fetched) && state.pc == idleLoop.target) {
+                idleLoop.close(state);
+            }
+        } else if (state.pc <= state.lastPc && state.pc >= 0x8000 && state.pc != idleLoop.rejectedTarget
+                && (state.ir == 0x4C || (state.ir & 0x1F) == 0x10) && !nes.board.hasPRGReadSideEffects() && ram == nes.cpuram) {
+            idleLoop.start(state);
+        }
+    }
+    
+    /**
+     * Replays a single instruction of an idle loop.
+     * Every recorded bus cycle is still clocked and checked for DMA, 
+     * and interrupts are polled at the same cycles as while executing the instruction.
+     */
+    private void replayIdleLoop() {
+        final int position = idleLoop.position;
+        
+        if (position == 0) {
+            skipIdleIterations();
+        }
+        
+        final int end = idleLoop.firstEvent[position + 1];
+        
+        for (int i = idleLoop.firstEvent[position]; i < end; i++) {
+            final int event = idleLoop.events[i];
+            
+            if (event == IdleLoop.POLL) {
                 checkInterrupts();
-                state.args[1] = read(state.pc);
-                incrementPC();
-                effectiveAddress = address(state.args[0], state.args[1]);
-                break;      
-            case ABX_R:     // Absolute,X (dummy read - on carry)
-                state.args[0] = read(state.pc);
-                incrementPC();
-                state.args[1] = read(state.pc);
-                incrementPC();
-                
-                state.args[0] = (state.args[0] + state.x) & 0xff;
-                
-                if (state.args[0] < state.x) {
-                    read(address(state.args[0], state.args[1]));
-                    state.args[1] = (state.args[1] + 1) & 0xff;
-                }
+            } else if (event == 0) {
+                dispatch();
+            } else {
+                checkDmcOamDma(event & 0xFFFF);
+                dispatch();
+                lastRead = idleLoop.values[i];
+            }
+        }
+        
+        IdleLoop.copy(idleLoop.states[position], state);
+        effectiveAddress = idleLoop.temporaries[position][0];
+        tmp = idleLoop.temporaries[position][1];
+        lo = idleLoop.temporaries[position][2];
+        hi = idleLoop.temporaries[position][3];
+        fetched = idleLoop.temporaries[position][4];
+        state.stepCounter++;
+        idleLoop.position = (position + 1 == idleLoop.instructions) ? 0 : position + 1;
+        
+        if (interruptRequest) {
+            idleLoop.interrupt();
+            serviceInterrupt();
+        }
+    }
 
-                effectiveAddress = address(state.args[0], state.args[1]);
-                break;
-            case ABX_W:     // Absolute,X (dummy read - always)
-                state.args[0] = read(state.pc);
-                incrementPC();
-                state.args[1] = read(state.pc);
-                incrementPC();
-                
-                state.args[0] = (state.args[0] + state.x) & 0xff;
-                
-                read(address(state.args[0], state.args[1]));
-                
-                if (state.args[0] < state.x) {
-                    state.args[1] = (state.args[1] + 1) & 0xff;
-                }
+    /**
+     * Skips whole iterations of an idle loop, which end before APU, PPU or board 
+     * may request an interrupt or DMA. Skipped cycles are performed in bulk,
+     * so PPU with rendering disabled only counts them.
+     */
+    private void skipIdleIterations() {
+        if (interruptPending || dmcDMACycles > 0 || oamDMACycles > 0 || NES.LOGGING || nes.board.isCountingCPUCycles()) {
+            return;
+        }
+        
+        final int horizon = Math.min(nes.apu.cyclesBeforeInterrupt(), nes.ppu.cyclesBeforeEvent(region.singleCycle));
+        final int iterations = horizon / idleLoop.cycles;
+        
+        if (iterations > 0) {
+            final int count = iterations * idleLoop.cycles;
+            
+            cycles += count;
+            state.stepCounter += iterations * idleLoop.instructions;
+            
+            final HostProfiler host = hostProfiler;
+            final HostProfiler.Subsystem previous = (host != null) ? host.enter(HostProfiler.Subsystem.APU) : null;
+            
+            nes.apu.advance(count, region.singleCycle);
+            
+            if (host != null) {
+                host.enter(HostProfiler.Subsystem.PPU);
+            }
+            
+            nes.ppu.cycle(count * region.singleCycle);
+            
+            if (host != null) {
+                host.enter(HostProfiler.Subsystem.MAPPER_CPU);
+            }
+            
+            for (int i = 0; i < count; i++) {
+                nes.board.clockCPUCycle();
+            }
+            
+            if (host != null) {
+                host.leave(previous);
+            }
+        }
+    }
 
-                effectiveAddress = address(state.args[0], state.args[1]);
+    /**
+     * Executes the current instruction.
+     * Every opcode has its own handler with the addressing mode built in,
+     * so an instruction is decoded with a single switch on the opcode.
+     */
+    // <editor-fold defaultstate="collapsed" desc="Generated Code: opcode dispatch">
+    private void execute() {
+        switch (state.ir) {
+            case 0x00:
+                opBRK();
                 break;
-            case ABY_R:     // Absolute,Y (dummy read - on carry)
-                state.args[0] = read(state.pc);
-                incrementPC();
-                state.args[1] = read(state.pc);
-                incrementPC();
-                
-                state.args[0] = (state.args[0] + state.y) & 0xff;
-                
-                if (state.args[0] < state.y) {
-                    read(address(state.args[0], state.args[1]));
-                    state.args[1] = (state.args[1] + 1) & 0xff;
-                }
-
-                effectiveAddress = address(state.args[0], state.args[1]);
+            case 0x01:
+                opORA_INX();
                 break;
-            case ABY_W:     // Absolute,Y (dummy read - always)
-                state.args[0] = read(state.pc);
-                incrementPC();
-                state.args[1] = read(state.pc);
-                incrementPC();
-                
-                state.args[0] = (state.args[0] + state.y) & 0xff;
-                
-                read(address(state.args[0], state.args[1]));
-                
-                if (state.args[0] < state.y) {
-                    state.args[1] = (state.args[1] + 1) & 0xff;
-                }
-
-                effectiveAddress = address(state.args[0], state.args[1]);
+            case 0x02:
+                opKIL();
                 break;
-            case IMM_A:     // #Immediate
-            case REL_A:     // Relative
-                state.args[0] = read(state.pc);
-                incrementPC();
+            case 0x03:
+                opSLO_INX();
                 break;
-            case IMP_A:     // Implied
-                read(state.pc);
+            case 0x04:
+                opDOP_ZPG();
                 break;
-            case IMP_LC:    // Implied with an additional check
-                checkInterrupts();
-                read(state.pc);
+            case 0x05:
+                opORA_ZPG();
                 break;
-            case IND_A:     // Indirect (for buggy JMP)
-                state.args[0] = read(state.pc);
-                incrementPC();
-                state.args[1] = read(state.pc);
-                incrementPC();
-                checkInterrupts();
-                effectiveAddress = address(state.args[0], state.args[1]);
+            case 0x06:
+                opASL_ZPG();
                 break;
-            case INX_A:     // (Zero Page,X)
-                tmp = read(state.pc);
-                incrementPC();
-                tmp = (tmp + state.x) & 0xff;
-                
-                dispatch();
-                
-                state.args[0] = read(tmp);
-                tmp = (tmp + 1) & 0xff;
-                state.args[1] = read(tmp);
-                tmp = (tmp + 1) & 0xff;
-                
-                effectiveAddress = address(state.args[0], state.args[1]);
-                break;
-            case INY_R:     // (Zero Page),Y (dummy read - on carry)
-                tmp = read(state.pc);
-                incrementPC();
-                state.args[0] = read(tmp);
-                tmp = (tmp + 1) & 0xff;
-                state.args[1] = read(tmp);
-                tmp = (tmp + 1) & 0xff;
-                
-                state.args[0] = (state.args[0] + state.y) & 0xff;
-                
-                if (state.args[0] < state.y) {
-                    read(address(state.args[0], state.args[1]));
-                    state.args[1] = (state.args[1] + 1) & 0xff;
-                }
-
-                effectiveAddress = address(state.args[0], state.args[1]);
+            case 0x07:
+                opSLO_ZPG();
                 break;
-            case INY_W:     // (Zero Page),Y (dummy read - always)
-                tmp = read(state.pc);
-                incrementPC();
-                state.args[0] = read(tmp);
-                tmp = (tmp + 1) & 0xff;
-                state.args[1] = read(tmp);
-                tmp = (tmp + 1) & 0xff;
-                
-                state.args[0] = (state.args[0] + state.y) & 0xff;
-                
-                read(address(state.args[0], state.args[1]));
-                
-                if (state.args[0] < state.y) {
-                    state.args[1] = (state.args[1] + 1) & 0xff;
-                }
-
-                effectiveAddress = address(state.args[0], state.args[1]);
+            case 0x08:
+                opPHP();
                 break;
-            case ZPG_A:     // Zero Page
-                effectiveAddress = read(state.pc);
-                incrementPC();
+            case 0x09:
+                opORAImm();
                 break;
-            case ZPX_A:     // Zero Page,X
-                effectiveAddress = read(state.pc);
-                incrementPC();
-                read(effectiveAddress);
-                effectiveAddress = (effectiveAddress + state.x) & 0xff;
+            case 0x0A:
+                opASLAcc();
                 break;
-            case ZPY_A:     // Zero Page,Y
-                effectiveAddress = read(state.pc);
-                incrementPC();
-                read(effectiveAddress);
-                effectiveAddress = (effectiveAddress + state.y) & 0xff;
+            case 0x0B:
+                opANCImm();
                 break;
-            default:
+            case 0x0C:
+                opTOP_ABS();
                 break;
-        }
-
-        // Execute
-        switch (state.ir) {
-            case 0x00: // BRK - BReaK - Implied
-                // Push program counter onto the stack
-                stackPush((state.pc >> 8) & 0xff); // PC high byte
-                stackPush(state.pc & 0xff);        // PC low byte
-                // Push status flag register (and bit 4) onto the stack
-                stackPush(state.getStatusFlag() | 0x10);
-                // Set the Interrupt Disabled flag.  RTI will clear it.
-                setIrqDisableFlag();
-                    
-                // Write to debug writer about the interrupt (debugging only)
-                if (NES.LOGGING) {
-                    try {
-                        fw.write("**BREAK INTERRUPT**\n");
-                    } catch (IOException ioe) {
-                        nes.messageBox("Cannot write to debug log: " + ioe.getMessage());
-                    }
-                }
-                
-                // Load interrupt vector address into PC (with possible NMI hijacking)
-                if (nmi) {
-                    nmi = false;
-                    state.pc = address(read(NMI_VECTOR_L), read(NMI_VECTOR_H));
-                } else {
-                    state.pc = address(read(IRQ_VECTOR_L), read(IRQ_VECTOR_H));
-                }
+            case 0x0D:
+                opORA_ABS();
                 break;
-            case 0x08: // PHP - PusH Processor status - Implied
-                // Bit 4 is always set in the stack value.
-                checkInterrupts();
-                stackPush(state.getStatusFlag() | 0x10); 
+            case 0x0E:
+                opASL_ABS();
                 break;
-            case 0x10: // BPL - Branch on PLus - Relative
-                branch(!getNegativeFlag());
+            case 0x0F:
+                opSLO_ABS();
                 break;
-            case 0x18: // CLC - CLear Carry - Implied
-                clearCarryFlag();
+            case 0x10:
+                opBPL();
                 break;
-            case 0x20: // JSR - Jump to SubRoutine - Implied
-                state.pc--;
-                stackPush((state.pc >> 8) & 0xff); // PC high byte
-                stackPush(state.pc & 0xff);        // PC low byte
-                checkInterrupts();
-                dispatch();
-                state.pc = address(state.args[0], state.args[1]);
+            case 0x11:
+                opORA_INY();
                 break;
-            case 0x28: // PLP - PuLl Processor status - Implied
-                dispatch();
-                checkInterrupts();
-                setProcessorStatus(stackPop());
+            case 0x12:
+                opKIL();
                 break;
-            case 0x30: // BMI - Branch on MInus - Relative
-                branch(getNegativeFlag());
+            case 0x13:
+                opSLO_INY();
                 break;
-            case 0x38: // SEC - SEt Carry flag - Implied
-                setCarryFlag();
+            case 0x14:
+                opDOP_ZPX();
                 break;
-            case 0x40: // RTI - ReTurn from Interrupt - Implied
-                dispatch();
-                setProcessorStatus(stackPop());
-                lo = stackPop();
-                checkInterrupts();
-                hi = stackPop();
-                setProgramCounter(address(lo, hi));
+            case 0x15:
+                opORA_ZPX();
                 break;
-            case 0x48: // PHA - PusH Accumulator - Implied
-                checkInterrupts();
-                stackPush(state.a);
+            case 0x16:
+                opASL_ZPX();
                 break;
-            case 0x50: // BVC - Branch on oVerflow Clear - Relative
-                branch(!getOverflowFlag());
+            case 0x17:
+                opSLO_ZPX();
                 break;
-            case 0x58: // CLI - CLear Interrupt - Implied
-                clearIrqDisableFlag();
+            case 0x18:
+                opCLC();
                 break;
-            case 0x60: // RTS - ReTurn from Subroutine - Implied
-                dispatch();
-                lo = stackPop();
-                hi = stackPop();
-                setProgramCounter(address(lo, hi) + 1);
-                checkInterrupts();
-                dispatch();
+            case 0x19:
+                opORA_ABY();
                 break;
-            case 0x68: // PLA - PuLl Accumulator - Implied
-                dispatch();
-                checkInterrupts();
-                state.a = stackPop();
-                setArithmeticFlags(state.a);
+            case 0x1A:
+                opNOP();
                 break;
-            case 0x70: // BVS - Branch on oVerflow Set - Relative
-                branch(getOverflowFlag());
+            case 0x1B:
+                opSLO_ABY();
                 break;
-            case 0x78: // SEI - Set Interrupt - Implied
-                setIrqDisableFlag();
+            case 0x1C:
+                opTOP_ABX();
                 break;
-            case 0x88: // DEY - DEcrement Y - Implied
-                state.y = (state.y - 1) & 0xff;
-                setArithmeticFlags(state.y);
+            case 0x1D:
+                opORA_ABX();
                 break;
-            case 0x8a: // TXA - Transfer X to A - Implied
-                state.a = state.x;
-                setArithmeticFlags(state.a);
+            case 0x1E:
+                opASL_ABX();
                 break;
-            case 0x90: // BCC - Branch on Carry Clear - Relative
-                branch(!getCarryFlag());
+            case 0x1F:
+                opSLO_ABX();
                 break;
-            case 0x98: // TYA - Transfer Y to A - Implied
-                state.a = state.y;
-                setArithmeticFlags(state.a);
+            case 0x20:
+                opJSR();
                 break;
-            case 0x9a: // TXS - Transfer X to Stack pointer - Implied
-                setStackPointer(state.x);
+            case 0x21:
+                opAND_INX();
                 break;
-            case 0xa8: // TAY - Transfer A to Y - Implied
-                state.y = state.a;
-                setArithmeticFlags(state.y);
+            case 0x22:
+                opKIL();
                 break;
-            case 0xaa: // TAX - Transfer A to X - Implied
-                state.x = state.a;
-                setArithmeticFlags(state.x);
+            case 0x23:
+                opRLA_INX();
                 break;
-            case 0xb0: // BCS - Branch on Carry Set - Relative
-                branch(getCarryFlag());
+            case 0x24:
+                opBIT_ZPG();
                 break;
-            case 0xb8: // CLV - CLear oVerflow - Implied
-                clearOverflowFlag();
+            case 0x25:
+                opAND_ZPG();
                 break;
-            case 0xba: // TSX - Transfer Stack pointer to X - Implied
-                state.x = getStackPointer();
-                setArithmeticFlags(state.x);
+            case 0x26:
+                opROL_ZPG();
                 break;
-            case 0xc8: // INY - INcrement Y - Implied
-                state.y = (state.y + 1) & 0xff;
-                setArithmeticFlags(state.y);
+            case 0x27:
+                opRLA_ZPG();
                 break;
-            case 0xca: // DEX - DEcrement X - Implied
-                state.x = (state.x - 1) & 0xff;
-                setArithmeticFlags(state.x);
+            case 0x28:
+                opPLP();
                 break;
-            case 0xd0: // BNE - Branch on Not Equal - Relative
-                branch(!getZeroFlag());
+            case 0x29:
+                opANDImm();
                 break;
-            case 0xd8: // CLD - CLear Decimal - Implied
-                clearDecimalModeFlag();
+            case 0x2A:
+                opROLAcc();
                 break;
-            case 0xe8: // INX - INcrement X - Implied
-                state.x = (state.x + 1) & 0xff;
-                setArithmeticFlags(state.x);
+            case 0x2B:
+                opANCImm();
                 break;
-            case 0x04: case 0x14: case 0x34: case 0x44: case 0x54: case 0x64: case 0x74: //DOP - Double-byte NOP
-                checkInterrupts();
-                dispatch();
+            case 0x2C:
+                opBIT_ABS();
                 break;
-            case 0x80: case 0x82: case 0x89: case 0xC2: case 0xD4: case 0xE2: case 0xF4: //DOP - Double-byte NOP
-                checkInterrupts();
-                dispatch();
+            case 0x2D:
+                opAND_ABS();
                 break;
-            case 0x0C: case 0x1C: case 0x3C: case 0x5C: case 0x7C: case 0xDC: case 0xFC: //TOP - Triple-byte TOP
-                checkInterrupts();
-                dispatch();
+            case 0x2E:
+                opROL_ABS();
                 break;
-            case 0x1A: case 0x3A: case 0x5A: case 0x7A: case 0xDA: case 0xEA: case 0xFA: // NOP - No OPeration
-                // Do nothing.
+            case 0x2F:
+                opRLA_ABS();
                 break;
-            case 0xf0: // BEQ - Branch on EQual - Relative
-                branch(getZeroFlag());
+            case 0x30:
+                opBMI();
                 break;
-            case 0xf8: // SED - SEt Decimal - Implied
-                setDecimalModeFlag();
+            case 0x31:
+                opAND_INY();
                 break;
-
-            /** JMP *****************************************************************/
-            case 0x4c: // JMP - JuMP - Absolute
-                state.pc = address(state.args[0], state.args[1]);
+            case 0x32:
+                opKIL();
                 break;
-            case 0x6c: // JMP - JuMP - Indirect
-                lo = address(state.args[0], state.args[1]); // Address of low byte
-
-                //Indirect adressing modes are not able to fetch 
-                //an adress which crosses the page boundary
-                if (state.args[0] == 0xff) {
-                    hi = address(0x00, state.args[1]);
-                } else {
-                    hi = lo + 1;
-                }
-
-                state.pc = address(read(lo), read(hi));
+            case 0x33:
+                opRLA_INY();
                 break;
-
-
-            /** ORA - Logical Inclusive Or ******************************************/
-            case 0x09: // #Immediate
-                checkInterrupts();
-                state.a |= state.args[0];
-                setArithmeticFlags(state.a);
-                break;
-            case 0x01: // (Zero Page,X)
-            case 0x05: // Zero Page
-            case 0x0d: // Absolute
-            case 0x11: // (Zero Page),Y
-            case 0x15: // Zero Page,X
-            case 0x19: // Absolute,Y
-            case 0x1d: // Absolute,X
-                checkInterrupts();
-                state.a |= read(effectiveAddress);
-                setArithmeticFlags(state.a);
+            case 0x34:
+                opDOP_ZPX();
                 break;
-
-
-            /** ASL - Arithmetic Shift Left *****************************************/
-            case 0x0a: // Accumulator
-                state.a = asl(state.a);
-                setArithmeticFlags(state.a);
+            case 0x35:
+                opAND_ZPX();
                 break;
-            case 0x06: // Zero Page
-            case 0x0e: // Absolute
-            case 0x16: // Zero Page,X
-            case 0x1e: // Absolute,X
-                tmp = read(effectiveAddress);
-                write(effectiveAddress, tmp);
-                tmp = asl(tmp);
-                checkInterrupts();
-                write(effectiveAddress, tmp);
-                setArithmeticFlags(tmp);
+            case 0x36:
+                opROL_ZPX();
                 break;
-
-
-            /** BIT - Bit Test ******************************************************/
-            case 0x24: // Zero Page
-            case 0x2c: // Absolute
-                checkInterrupts();
-                tmp = read(effectiveAddress);
-                setZeroFlag((state.a & tmp) == 0);
-                setNegativeFlag(Tools.getbit(tmp, 7));
-                setOverflowFlag(Tools.getbit(tmp, 6));
+            case 0x37:
+                opRLA_ZPX();
                 break;
+            case 0x38:
+                opSEC();
+                break;
+            case 0x39:
+                opAND_ABY();
+                break;
+            case 0x3A:
+                opNOP();
+                break;
+            case 0x3B:
+                opRLA_ABY();
+                break;
+            case 0x3C:
+                opTOP_ABX();
+                break;
+            case 0x3D:
+                opAND_ABX();
+                break;
+            case 0x3E:
+                opROL_ABX();
+                break;
+            case 0x3F:
+                opRLA_ABX();
+                break;
+            case 0x40:
+                opRTI();
+                break;
+            case 0x41:
+                opEOR_INX();
+                break;
+            case 0x42:
+                opKIL();
+                break;
+            case 0x43:
+                opSRE_INX();
+                break;
+            case 0x44:
+                opDOP_ZPG();
+                break;
+            case 0x45:
+                opEOR_ZPG();
+                break;
+            case 0x46:
+                opLSR_ZPG();
+                break;
+            case 0x47:
+                opSRE_ZPG();
+                break;
+            case 0x48:
+                opPHA();
+                break;
+            case 0x49:
+                opEORImm();
+                break;
+            case 0x4A:
+                opLSRAcc();
+                break;
+            case 0x4B:
+                opALRImm();
+                break;
+            case 0x4C:
+                opJMP();
+                break;
+            case 0x4D:
+                opEOR_ABS();
+                break;
+            case 0x4E:
+                opLSR_ABS();
+                break;
+            case 0x4F:
+                opSRE_ABS();
+                break;
+            case 0x50:
+                opBVC();
+                break;
+            case 0x51:
+                opEOR_INY();
+                break;
+            case 0x52:
+                opKIL();
+                break;
+            case 0x53:
+                opSRE_INY();
+                break;
+            case 0x54:
+                opDOP_ZPX();
+                break;
+            case 0x55:
+                opEOR_ZPX();
+                break;
+            case 0x56:
+                opLSR_ZPX();
+                break;
+            case 0x57:
+                opSRE_ZPX();
+                break;
+            case 0x58:
+                opCLI();
+                break;
+            case 0x59:
+                opEOR_ABY();
+                break;
+            case 0x5A:
+                opNOP();
+                break;
+            case 0x5B:
+                opSRE_ABY();
+                break;
+            case 0x5C:
+                opTOP_ABX();
+                break;
+            case 0x5D:
+                opEOR_ABX();
+                break;
+            case 0x5E:
+                opLSR_ABX();
+                break;
+            case 0x5F:
+                opSRE_ABX();
+                break;
+            case 0x60:
+                opRTS();
+                break;
+            case 0x61:
+                opADC_INX();
+                break;
+            case 0x62:
+                opKIL();
+                break;
+            case 0x63:
+                opRRA_INX();
+                break;
+            case 0x64:
+                opDOP_ZPG();
+                break;
+            case 0x65:
+                opADC_ZPG();
+                break;
+            case 0x66:
+                opROR_ZPG();
+                break;
+            case 0x67:
+                opRRA_ZPG();
+                break;
+            case 0x68:
+                opPLA();
+                break;
+            case 0x69:
+                opADCImm();
+                break;
+            case 0x6A:
+                opRORAcc();
+                break;
+            case 0x6B:
+                opARRImm();
+                break;
+            case 0x6C:
+                opJMPInd();
+                break;
+            case 0x6D:
+                opADC_ABS();
+                break;
+            case 0x6E:
+                opROR_ABS();
+                break;
+            case 0x6F:
+                opRRA_ABS();
+                break;
+            case 0x70:
+                opBVS();
+                break;
+            case 0x71:
+                opADC_INY();
+                break;
+            case 0x72:
+                opKIL();
+                break;
+            case 0x73:
+                opRRA_INY();
+                break;
+            case 0x74:
+                opDOP_ZPX();
+                break;
+            case 0x75:
+                opADC_ZPX();
+                break;
+            case 0x76:
+                opROR_ZPX();
+                break;
+            case 0x77:
+                opRRA_ZPX();
+                break;
+            case 0x78:
+                opSEI();
+                break;
+            case 0x79:
+                opADC_ABY();
+                break;
+            case 0x7A:
+                opNOP();
+                break;
+            case 0x7B:
+                opRRA_ABY();
+                break;
+            case 0x7C:
+                opTOP_ABX();
+                break;
+            case 0x7D:
+                opADC_ABX();
+                break;
+            case 0x7E:
+                opROR_ABX();
+                break;
+            case 0x7F:
+                opRRA_ABX();
+                break;
+            case 0x80:
+                opDOP_IMM();
+                break;
+            case 0x81:
+                opSTA_INX();
+                break;
+            case 0x82:
+                opDOP_IMM();
+                break;
+            case 0x83:
+                opSAX_INX();
+                break;
+            case 0x84:
+                opSTY_ZPG();
+                break;
+            case 0x85:
+                opSTA_ZPG();
+                break;
+            case 0x86:
+                opSTX_ZPG();
+                break;
+            case 0x87:
+                opSAX_ZPG();
+                break;
+            case 0x88:
+                opDEY();
+                break;
+            case 0x89:
+                opDOP_IMM();
+                break;
+            case 0x8A:
+                opTXA();
+                break;
+            case 0x8B:
+                opXAAImm();
+                break;
+            case 0x8C:
+                opSTY_ABS();
+                break;
+            case 0x8D:
+                opSTA_ABS();
+                break;
+            case 0x8E:
+                opSTX_ABS();
+                break;
+            case 0x8F:
+                opSAX_ABS();
+                break;
+            case 0x90:
+                opBCC();
+                break;
+            case 0x91:
+                opSTA_INY();
+                break;
+            case 0x92:
+                opKIL();
+                break;
+            case 0x93:
+                opAHX_INY();
+                break;
+            case 0x94:
+                opSTY_ZPX();
+                break;
+            case 0x95:
+                opSTA_ZPX();
+                break;
+            case 0x96:
+                opSTX_ZPY();
+                break;
+            case 0x97:
+                opSAX_ZPY();
+                break;
+            case 0x98:
+                opTYA();
+                break;
+            case 0x99:
+                opSTA_ABY();
+                break;
+            case 0x9A:
+                opTXS();
+                break;
+            case 0x9B:
+                opTAS();
+                break;
+            case 0x9C:
+                opSHY();
+                break;
+            case 0x9D:
+                opSTA_ABX();
+                break;
+            case 0x9E:
+                opSHX();
+                break;
+            case 0x9F:
+                opAHX_ABY();
+                break;
+            case 0xA0:
+                opLDYImm();
+                break;
+            case 0xA1:
+                opLDA_INX();
+                break;
+            case 0xA2:
+                opLDXImm();
+                break;
+            case 0xA3:
+                opLAX_INX();
+                break;
+            case 0xA4:
+                opLDY_ZPG();
+                break;
+            case 0xA5:
+                opLDA_ZPG();
+                break;
+            case 0xA6:
+                opLDX_ZPG();
+                break;
+            case 0xA7:
+                opLAX_ZPG();
+                break;
+            case 0xA8:
+                opTAY();
+                break;
+            case 0xA9:
+                opLDAImm();
+                break;
+            case 0xAA:
+                opTAX();
+                break;
+            case 0xAB:
+                opLAXImm();
+                break;
+            case 0xAC:
+                opLDY_ABS();
+                break;
+            case 0xAD:
+                opLDA_ABS();
+                break;
+            case 0xAE:
+                opLDX_ABS();
+                break;
+            case 0xAF:
+                opLAX_ABS();
+                break;
+            case 0xB0:
+                opBCS();
+                break;
+            case 0xB1:
+                opLDA_INY();
+                break;
+            case 0xB2:
+                opKIL();
+                break;
+            case 0xB3:
+                opLAX_INY();
+                break;
+            case 0xB4:
+                opLDY_ZPX();
+                break;
+            case 0xB5:
+                opLDA_ZPX();
+                break;
+            case 0xB6:
+                opLDX_ZPY();
+                break;
+            case 0xB7:
+                opLAX_ZPY();
+                break;
+            case 0xB8:
+                opCLV();
+                break;
+            case 0xB9:
+                opLDA_ABY();
+                break;
+            case 0xBA:
+                opTSX();
+                break;
+            case 0xBB:
+                opLAS();
+                break;
+            case 0xBC:
+                opLDY_ABX();
+                break;
+            case 0xBD:
+                opLDA_ABX();
+                break;
+            case 0xBE:
+                opLDX_ABY();
+                break;
+            case 0xBF:
+                opLAX_ABY();
+                break;
+            case 0xC0:
+                opCPYImm();
+                break;
+            case 0xC1:
+                opCMP_INX();
+                break;
+            case 0xC2:
+                opDOP_IMM();
+                break;
+            case 0xC3:
+                opDCP_INX();
+                break;
+            case 0xC4:
+                opCPY_ZPG();
+                break;
+            case 0xC5:
+                opCMP_ZPG();
+                break;
+            case 0xC6:
+                opDEC_ZPG();
+                break;
+            case 0xC7:
+                opDCP_ZPG();
+                break;
+            case 0xC8:
+                opINY();
+                break;
+            case 0xC9:
+                opCMPImm();
+                break;
+            case 0xCA:
+                opDEX();
+                break;
+            case 0xCB:
+                opAXSImm();
+                break;
+            case 0xCC:
+                opCPY_ABS();
+                break;
+            case 0xCD:
+                opCMP_ABS();
+                break;
+            case 0xCE:
+                opDEC_ABS();
+                break;
+            case 0xCF:
+                opDCP_ABS();
+                break;
+            case 0xD0:
+                opBNE();
+                break;
+            case 0xD1:
+                opCMP_INY();
+                break;
+            case 0xD2:
+                opKIL();
+                break;
+            case 0xD3:
+                opDCP_INY();
+                break;
+            case 0xD4:
+                opDOP_ZPX();
+                break;
+            case 0xD5:
+                opCMP_ZPX();
+                break;
+            case 0xD6:
+                opDEC_ZPX();
+                break;
+            case 0xD7:
+                opDCP_ZPX();
+                break;
+            case 0xD8:
+                opCLD();
+                break;
+            case 0xD9:
+                opCMP_ABY();
+                break;
+            case 0xDA:
+                opNOP();
+                break;
+            case 0xDB:
+                opDCP_ABY();
+                break;
+            case 0xDC:
+                opTOP_ABX();
+                break;
+            case 0xDD:
+                opCMP_ABX();
+                break;
+            case 0xDE:
+                opDEC_ABX();
+                break;
+            case 0xDF:
+                opDCP_ABX();
+                break;
+            case 0xE0:
+                opCPXImm();
+                break;
+            case 0xE1:
+                opSBC_INX();
+                break;
+            case 0xE2:
+                opDOP_IMM();
+                break;
+            case 0xE3:
+                opISC_INX();
+                break;
+            case 0xE4:
+                opCPX_ZPG();
+                break;
+            case 0xE5:
+                opSBC_ZPG();
+                break;
+            case 0xE6:
+                opINC_ZPG();
+                break;
+            case 0xE7:
+                opISC_ZPG();
+                break;
+            case 0xE8:
+                opINX();
+                break;
+            case 0xE9:
+                opSBCImm();
+                break;
+            case 0xEA:
+                opNOP();
+                break;
+            case 0xEB:
+                opSBCImm();
+                break;
+            case 0xEC:
+                opCPX_ABS();
+                break;
+            case 0xED:
+                opSBC_ABS();
+                break;
+            case 0xEE:
+                opINC_ABS();
+                break;
+            case 0xEF:
+                opISC_ABS();
+                break;
+            case 0xF0:
+                opBEQ();
+                break;
+            case 0xF1:
+                opSBC_INY();
+                break;
+            case 0xF2:
+                opKIL();
+                break;
+            case 0xF3:
+                opISC_INY();
+                break;
+            case 0xF4:
+                opDOP_ZPX();
+                break;
+            case 0xF5:
+                opSBC_ZPX();
+                break;
+            case 0xF6:
+                opINC_ZPX();
+                break;
+            case 0xF7:
+                opISC_ZPX();
+                break;
+            case 0xF8:
+                opSED();
+                break;
+            case 0xF9:
+                opSBC_ABY();
+                break;
+            case 0xFA:
+                opNOP();
+                break;
+            case 0xFB:
+                opISC_ABY();
+                break;
+            case 0xFC:
+                opTOP_ABX();
+                break;
+            case 0xFD:
+                opSBC_ABX();
+                break;
+            case 0xFE:
+                opINC_ABX();
+                break;
+            case 0xFF:
+                opISC_ABX();
+                break;
+            default:
+                break;
+        }
+    }
+    // </editor-fold>
+
+    /**
+     * Services a pending IRQ or NMI.
+     */
+    private void serviceInterrupt() {
+        final long start = cycles;
+        final boolean oldNMI = (interruptLines & NMI_LINE) != 0;
+        read(state.pc);
+        read(state.pc);
+        stackPush((state.pc >> 8) & 0xff); // PC high byte
+        stackPush(state.pc & 0xff);        // PC low byte
+        stackPush(state.getStatusFlag());      // Status register
+        setIrqDisableFlag();
+        
+        if (oldNMI) {
+            //Disable NMI only if it occured before the 4th cycle
+            acknowledgeNMI();
+        
+            //If NMI is requested, hijack the IRQ request
+            state.pc = address(read(NMI_VECTOR_L), read(NMI_VECTOR_H));
+            tracedInterrupt = TraceLogger.NMI;
+        } else {
+            state.pc = address(read(IRQ_VECTOR_L), read(IRQ_VECTOR_H));
+            tracedInterrupt = TraceLogger.IRQ;
+        }
+        
+        if (oldNMI) {
+            nmis++;
+        }
+        
+        interrupts++;
+        interruptCycles = (int)(cycles - start);
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="Generated Code: opcode handlers">
+    /**
+     * BRK - BReaK - Implied
+     */
+    private void opBRK() {
+        state.args[0] = fetch();
+
+        // Push program counter onto the stack
+        stackPush((state.pc >> 8) & 0xff); // PC high byte
+        stackPush(state.pc & 0xff);        // PC low byte
+        // Push status flag register (and bit 4) onto the stack
+        stackPush(state.getStatusFlag() | 0x10);
+        // Set the Interrupt Disabled flag.  RTI will clear it.
+        setIrqDisableFlag();
+
+        // Mark the interrupt for the trace logger (debugging only)
+        tracedInterrupt = TraceLogger.BRK;
+
+        // Load interrupt vector address into PC (with possible NMI hijacking)
+        if ((interruptLines & NMI_LINE) != 0) {
+            acknowledgeNMI();
+            state.pc = address(read(NMI_VECTOR_L), read(NMI_VECTOR_H));
+        } else {
+            state.pc = address(read(IRQ_VECTOR_L), read(IRQ_VECTOR_H));
+        }
+    }
+
+    /**
+     * ORA - Logical Inclusive Or - (Zero Page,X)
+     */
+    private void opORA_INX() {
+        tmp = fetch();
+        tmp = (tmp + state.x) & 0xff;
+        dispatch();
+        state.args[0] = read(tmp);
+        tmp = (tmp + 1) & 0xff;
+        state.args[1] = read(tmp);
+        tmp = (tmp + 1) & 0xff;
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        checkInterrupts();
+        state.a |= read(effectiveAddress);
+        setArithmeticFlags(state.a);
+    }
+
+    /**
+     * KIL - Jams the CPU - Implied
+     */
+    private void opKIL() {
+        read(state.pc);
+
+        checkInterrupts();
+        dispatch();
+        state.pc--;
+    }
+
+    /**
+     * SLO - ASL + ORA - (Zero Page,X)
+     */
+    private void opSLO_INX() {
+        tmp = fetch();
+        tmp = (tmp + state.x) & 0xff;
+        dispatch();
+        state.args[0] = read(tmp);
+        tmp = (tmp + 1) & 0xff;
+        state.args[1] = read(tmp);
+        tmp = (tmp + 1) & 0xff;
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        tmp = read(effectiveAddress);
+        write(effectiveAddress, tmp);
+        setCarryFlag(Tools.getbit(tmp, 7));
+        tmp = asl(tmp);
+        checkInterrupts();
+        state.a |= tmp;
+        setArithmeticFlags(state.a);
+        write(effectiveAddress, tmp);
+    }
+
+    /**
+     * DOP - Zero Page
+     */
+    private void opDOP_ZPG() {
+        effectiveAddress = fetch();
+
+        checkInterrupts();
+        dispatch();
+    }
+
+    /**
+     * ORA - Logical Inclusive Or - Zero Page
+     */
+    private void opORA_ZPG() {
+        effectiveAddress = fetch();
+
+        checkInterrupts();
+        state.a |= read(effectiveAddress);
+        setArithmeticFlags(state.a);
+    }
+
+    /**
+     * ASL - Arithmetic Shift Left - Zero Page
+     */
+    private void opASL_ZPG() {
+        effectiveAddress = fetch();
+
+        tmp = read(effectiveAddress);
+        write(effectiveAddress, tmp);
+        tmp = asl(tmp);
+        checkInterrupts();
+        write(effectiveAddress, tmp);
+        setArithmeticFlags(tmp);
+    }
+
+    /**
+     * SLO - ASL + ORA - Zero Page
+     */
+    private void opSLO_ZPG() {
+        effectiveAddress = fetch();
+
+        tmp = read(effectiveAddress);
+        write(effectiveAddress, tmp);
+        setCarryFlag(Tools.getbit(tmp, 7));
+        tmp = asl(tmp);
+        checkInterrupts();
+        state.a |= tmp;
+        setArithmeticFlags(state.a);
+        write(effectiveAddress, tmp);
+    }
+
+    /**
+     * PHP - PusH Processor status - Implied
+     */
+    private void opPHP() {
+        read(state.pc);
+
+        // Bit 4 is always set in the stack value.
+        checkInterrupts();
+        stackPush(state.getStatusFlag() | 0x10);
+    }
+
+    /**
+     * ORA - Logical Inclusive Or - #Immediate
+     */
+    private void opORAImm() {
+        state.args[0] = fetch();
+
+        checkInterrupts();
+        state.a |= state.args[0];
+        setArithmeticFlags(state.a);
+    }
+
+    /**
+     * ASL - Arithmetic Shift Left - Accumulator
+     */
+    private void opASLAcc() {
+        checkInterrupts();
+        read(state.pc);
+
+        state.a = asl(state.a);
+        setArithmeticFlags(state.a);
+    }
+
+    /**
+     * ANC - AND byte and set carry - #Immediate
+     */
+    private void opANCImm() {
+        state.args[0] = fetch();
+
+        checkInterrupts();
+        state.a &= state.args[0];
+        setCarryFlag(Tools.getbit(state.a, 7));
+        setArithmeticFlags(state.a);
+    }
+
+    /**
+     * TOP - Absolute
+     */
+    private void opTOP_ABS() {
+        state.args[0] = fetch();
+        state.args[1] = fetch();
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        checkInterrupts();
+        dispatch();
+    }
+
+    /**
+     * ORA - Logical Inclusive Or - Absolute
+     */
+    private void opORA_ABS() {
+        state.args[0] = fetch();
+        state.args[1] = fetch();
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        checkInterrupts();
+        state.a |= read(effectiveAddress);
+        setArithmeticFlags(state.a);
+    }
+
+    /**
+     * ASL - Arithmetic Shift Left - Absolute
+     */
+    private void opASL_ABS() {
+        state.args[0] = fetch();
+        state.args[1] = fetch();
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        tmp = read(effectiveAddress);
+        write(effectiveAddress, tmp);
+        tmp = asl(tmp);
+        checkInterrupts();
+        write(effectiveAddress, tmp);
+        setArithmeticFlags(tmp);
+    }
+
+    /**
+     * SLO - ASL + ORA - Absolute
+     */
+    private void opSLO_ABS() {
+        state.args[0] = fetch();
+        state.args[1] = fetch();
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        tmp = read(effectiveAddress);
+        write(effectiveAddress, tmp);
+        setCarryFlag(Tools.getbit(tmp, 7));
+        tmp = asl(tmp);
+        checkInterrupts();
+        state.a |= tmp;
+        setArithmeticFlags(state.a);
+        write(effectiveAddress, tmp);
+    }
+
+    /**
+     * BPL - Branch on PLus - Relative
+     */
+    private void opBPL() {
+        state.args[0] = fetch();
+
+        branch(!getNegativeFlag());
+    }
+
+    /**
+     * ORA - Logical Inclusive Or - (Zero Page),Y
+     */
+    private void opORA_INY() {
+        tmp = fetch();
+        state.args[0] = read(tmp);
+        tmp = (tmp + 1) & 0xff;
+        state.args[1] = read(tmp);
+        tmp = (tmp + 1) & 0xff;
+        state.args[0] = (state.args[0] + state.y) & 0xff;
+
+        if (state.args[0] < state.y) {
+            read(address(state.args[0], state.args[1]));
+            state.args[1] = (state.args[1] + 1) & 0xff;
+        }
+
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        checkInterrupts();
+        state.a |= read(effectiveAddress);
+        setArithmeticFlags(state.a);
+    }
+
+    /**
+     * SLO - ASL + ORA - (Zero Page),Y
+     */
+    private void opSLO_INY() {
+        tmp = fetch();
+        state.args[0] = read(tmp);
+        tmp = (tmp + 1) & 0xff;
+        state.args[1] = read(tmp);
+        tmp = (tmp + 1) & 0xff;
+        state.args[0] = (state.args[0] + state.y) & 0xff;
+        read(address(state.args[0], state.args[1]));
+
+        if (state.args[0] < state.y) {
+            state.args[1] = (state.args[1] + 1) & 0xff;
+        }
+
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        tmp = read(effectiveAddress);
+        write(effectiveAddress, tmp);
+        setCarryFlag(Tools.getbit(tmp, 7));
+        tmp = asl(tmp);
+        checkInterrupts();
+        state.a |= tmp;
+        setArithmeticFlags(state.a);
+        write(effectiveAddress, tmp);
+    }
+
+    /**
+     * DOP - Zero Page,X
+     */
+    private void opDOP_ZPX() {
+        effectiveAddress = fetch();
+        read(effectiveAddress);
+        effectiveAddress = (effectiveAddress + state.x) & 0xff;
+
+        checkInterrupts();
+        dispatch();
+    }
+
+    /**
+     * ORA - Logical Inclusive Or - Zero Page,X
+     */
+    private void opORA_ZPX() {
+        effectiveAddress = fetch();
+        read(effectiveAddress);
+        effectiveAddress = (effectiveAddress + state.x) & 0xff;
+
+        checkInterrupts();
+        state.a |= read(effectiveAddress);
+        setArithmeticFlags(state.a);
+    }
+
+    /**
+     * ASL - Arithmetic Shift Left - Zero Page,X
+     */
+    private void opASL_ZPX() {
+        effectiveAddress = fetch();
+        read(effectiveAddress);
+        effectiveAddress = (effectiveAddress + state.x) & 0xff;
+
+        tmp = read(effectiveAddress);
+        write(effectiveAddress, tmp);
+        tmp = asl(tmp);
+        checkInterrupts();
+        write(effectiveAddress, tmp);
+        setArithmeticFlags(tmp);
+    }
+
+    /**
+     * SLO - ASL + ORA - Zero Page,X
+     */
+    private void opSLO_ZPX() {
+        effectiveAddress = fetch();
+        read(effectiveAddress);
+        effectiveAddress = (effectiveAddress + state.x) & 0xff;
+
+        tmp = read(effectiveAddress);
+        write(effectiveAddress, tmp);
+        setCarryFlag(Tools.getbit(tmp, 7));
+        tmp = asl(tmp);
+        checkInterrupts();
+        state.a |= tmp;
+        setArithmeticFlags(state.a);
+        write(effectiveAddress, tmp);
+    }
+
+    /**
+     * CLC - CLear Carry - Implied
+     */
+    private void opCLC() {
+        checkInterrupts();
+        read(state.pc);
+
+        clearCarryFlag();
+    }
+
+    /**
+     * ORA - Logical Inclusive Or - Absolute,Y
+     */
+    private void opORA_ABY() {
+        state.args[0] = fetch();
+        state.args[1] = fetch();
+        state.args[0] = (state.args[0] + state.y) & 0xff;
+
+        if (state.args[0] < state.y) {
+            read(address(state.args[0], state.args[1]));
+            state.args[1] = (state.args[1] + 1) & 0xff;
+        }
+
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        checkInterrupts();
+        state.a |= read(effectiveAddress);
+        setArithmeticFlags(state.a);
+    }
+
+    /**
+     * NOP - No OPeration
+     */
+    private void opNOP() {
+        checkInterrupts();
+        read(state.pc);
+
+        // Do nothing.
+    }
+
+    /**
+     * SLO - ASL + ORA - Absolute,Y
+     */
+    private void opSLO_ABY() {
+        state.args[0] = fetch();
+        state.args[1] = fetch();
+        state.args[0] = (state.args[0] + state.y) & 0xff;
+        read(address(state.args[0], state.args[1]));
+
+        if (state.args[0] < state.y) {
+            state.args[1] = (state.args[1] + 1) & 0xff;
+        }
+
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        tmp = read(effectiveAddress);
+        write(effectiveAddress, tmp);
+        setCarryFlag(Tools.getbit(tmp, 7));
+        tmp = asl(tmp);
+        checkInterrupts();
+        state.a |= tmp;
+        setArithmeticFlags(state.a);
+        write(effectiveAddress, tmp);
+    }
+
+    /**
+     * TOP - Absolute,X
+     */
+    private void opTOP_ABX() {
+        state.args[0] = fetch();
+        state.args[1] = fetch();
+        state.args[0] = (state.args[0] + state.x) & 0xff;
+
+        if (state.args[0] < state.x) {
+            read(address(state.args[0], state.args[1]));
+            state.args[1] = (state.args[1] + 1) & 0xff;
+        }
+
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        checkInterrupts();
+        dispatch();
+    }
+
+    /**
+     * ORA - Logical Inclusive Or - Absolute,X
+     */
+    private void opORA_ABX() {
+        state.args[0] = fetch();
+        state.args[1] = fetch();
+        state.args[0] = (state.args[0] + state.x) & 0xff;
+
+        if (state.args[0] < state.x) {
+            read(address(state.args[0], state.args[1]));
+            state.args[1] = (state.args[1] + 1) & 0xff;
+        }
+
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        checkInterrupts();
+        state.a |= read(effectiveAddress);
+        setArithmeticFlags(state.a);
+    }
+
+    /**
+     * ASL - Arithmetic Shift Left - Absolute,X
+     */
+    private void opASL_ABX() {
+        state.args[0] = fetch();
+        state.args[1] = fetch();
+        state.args[0] = (state.args[0] + state.x) & 0xff;
+        read(address(state.args[0], state.args[1]));
+
+        if (state.args[0] < state.x) {
+            state.args[1] = (state.args[1] + 1) & 0xff;
+        }
+
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        tmp = read(effectiveAddress);
+        write(effectiveAddress, tmp);
+        tmp = asl(tmp);
+        checkInterrupts();
+        write(effectiveAddress, tmp);
+        setArithmeticFlags(tmp);
+    }
+
+    /**
+     * SLO - ASL + ORA - Absolute,X
+     */
+    private void opSLO_ABX() {
+        state.args[0] = fetch();
+        state.args[1] = fetch();
+        state.args[0] = (state.args[0] + state.x) & 0xff;
+        read(address(state.args[0], state.args[1]));
+
+        if (state.args[0] < state.x) {
+            state.args[1] = (state.args[1] + 1) & 0xff;
+        }
+
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        tmp = read(effectiveAddress);
+        write(effectiveAddress, tmp);
+        setCarryFlag(Tools.getbit(tmp, 7));
+        tmp = asl(tmp);
+        checkInterrupts();
+        state.a |= tmp;
+        setArithmeticFlags(state.a);
+        write(effectiveAddress, tmp);
+    }
+
+    /**
+     * JSR - Jump to SubRoutine - Implied
+     */
+    private void opJSR() {
+        state.args[0] = fetch();
+        state.args[1] = fetch();
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        state.pc--;
+        stackPush((state.pc >> 8) & 0xff); // PC high byte
+        stackPush(state.pc & 0xff);        // PC low byte
+        checkInterrupts();
+        dispatch();
+        state.pc = address(state.args[0], state.args[1]);
+    }
+
+    /**
+     * AND - Logical AND - (Zero Page,X)
+     */
+    private void opAND_INX() {
+        tmp = fetch();
+        tmp = (tmp + state.x) & 0xff;
+        dispatch();
+        state.args[0] = read(tmp);
+        tmp = (tmp + 1) & 0xff;
+        state.args[1] = read(tmp);
+        tmp = (tmp + 1) & 0xff;
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        checkInterrupts();
+        state.a &= read(effectiveAddress);
+        setArithmeticFlags(state.a);
+    }
+
+    /**
+     * RLA - AND + ROL - (Zero Page,X)
+     */
+    private void opRLA_INX() {
+        tmp = fetch();
+        tmp = (tmp + state.x) & 0xff;
+        dispatch();
+        state.args[0] = read(tmp);
+        tmp = (tmp + 1) & 0xff;
+        state.args[1] = read(tmp);
+        tmp = (tmp + 1) & 0xff;
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        tmp = read(effectiveAddress);
+        write(effectiveAddress, tmp);
+        final boolean carry = Tools.getbit(tmp, 7);
+        tmp = rol(tmp);
+        setCarryFlag(carry);
+        checkInterrupts();
+        state.a &= tmp;
+        setArithmeticFlags(state.a);
+        write(effectiveAddress, tmp);
+    }
+
+    /**
+     * BIT - Bit Test - Zero Page
+     */
+    private void opBIT_ZPG() {
+        effectiveAddress = fetch();
+
+        checkInterrupts();
+        tmp = read(effectiveAddress);
+        setZeroFlag((state.a & tmp) == 0);
+        setNegativeFlag(Tools.getbit(tmp, 7));
+        setOverflowFlag(Tools.getbit(tmp, 6));
+    }
+
+    /**
+     * AND - Logical AND - Zero Page
+     */
+    private void opAND_ZPG() {
+        effectiveAddress = fetch();
+
+        checkInterrupts();
+        state.a &= read(effectiveAddress);
+        setArithmeticFlags(state.a);
+    }
+
+    /**
+     * ROL - Rotate Left - Zero Page
+     */
+    private void opROL_ZPG() {
+        effectiveAddress = fetch();
+
+        tmp = read(effectiveAddress);
+        write(effectiveAddress, tmp);
+        tmp = rol(tmp);
+        checkInterrupts();
+        write(effectiveAddress, tmp);
+        setArithmeticFlags(tmp);
+    }
+
+    /**
+     * RLA - AND + ROL - Zero Page
+     */
+    private void opRLA_ZPG() {
+        effectiveAddress = fetch();
+
+        tmp = read(effectiveAddress);
+        write(effectiveAddress, tmp);
+        final boolean carry = Tools.getbit(tmp, 7);
+        tmp = rol(tmp);
+        setCarryFlag(carry);
+        checkInterrupts();
+        state.a &= tmp;
+        setArithmeticFlags(state.a);
+        write(effectiveAddress, tmp);
+    }
+
+    /**
+     * PLP - PuLl Processor status - Implied
+     */
+    private void opPLP() {
+        read(state.pc);
+
+        dispatch();
+        checkInterrupts();
+        setProcessorStatus(stackPop());
+    }
+
+    /**
+     * AND - Logical AND - #Immediate
+     */
+    private void opANDImm() {
+        state.args[0] = fetch();
+
+        checkInterrupts();
+        state.a &= state.args[0];
+        setArithmeticFlags(state.a);
+    }
+
+    /**
+     * ROL - Rotate Left - Accumulator
+     */
+    private void opROLAcc() {
+        checkInterrupts();
+        read(state.pc);
+
+        state.a = rol(state.a);
+        setArithmeticFlags(state.a);
+    }
+
+    /**
+     * BIT - Bit Test - Absolute
+     */
+    private void opBIT_ABS() {
+        state.args[0] = fetch();
+        state.args[1] = fetch();
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        checkInterrupts();
+        tmp = read(effectiveAddress);
+        setZeroFlag((state.a & tmp) == 0);
+        setNegativeFlag(Tools.getbit(tmp, 7));
+        setOverflowFlag(Tools.getbit(tmp, 6));
+    }
+
+    /**
+     * AND - Logical AND - Absolute
+     */
+    private void opAND_ABS() {
+        state.args[0] = fetch();
+        state.args[1] = fetch();
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        checkInterrupts();
+        state.a &= read(effectiveAddress);
+        setArithmeticFlags(state.a);
+    }
+
+    /**
+     * ROL - Rotate Left - Absolute
+     */
+    private void opROL_ABS() {
+        state.args[0] = fetch();
+        state.args[1] = fetch();
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        tmp = read(effectiveAddress);
+        write(effectiveAddress, tmp);
+        tmp = rol(tmp);
+        checkInterrupts();
+        write(effectiveAddress, tmp);
+        setArithmeticFlags(tmp);
+    }
+
+    /**
+     * RLA - AND + ROL - Absolute
+     */
+    private void opRLA_ABS() {
+        state.args[0] = fetch();
+        state.args[1] = fetch();
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        tmp = read(effectiveAddress);
+        write(effectiveAddress, tmp);
+        final boolean carry = Tools.getbit(tmp, 7);
+        tmp = rol(tmp);
+        setCarryFlag(carry);
+        checkInterrupts();
+        state.a &= tmp;
+        setArithmeticFlags(state.a);
+        write(effectiveAddress, tmp);
+    }
+
+    /**
+     * BMI - Branch on MInus - Relative
+     */
+    private void opBMI() {
+        state.args[0] = fetch();
+
+        branch(getNegativeFlag());
+    }
+
+    /**
+     * AND - Logical AND - (Zero Page),Y
+     */
+    private void opAND_INY() {
+        tmp = fetch();
+        state.args[0] = read(tmp);
+        tmp = (tmp + 1) & 0xff;
+        state.args[1] = read(tmp);
+        tmp = (tmp + 1) & 0xff;
+        state.args[0] = (state.args[0] + state.y) & 0xff;
+
+        if (state.args[0] < state.y) {
+            read(address(state.args[0], state.args[1]));
+            state.args[1] = (state.args[1] + 1) & 0xff;
+        }
+
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        checkInterrupts();
+        state.a &= read(effectiveAddress);
+        setArithmeticFlags(state.a);
+    }
+
+    /**
+     * RLA - AND + ROL - (Zero Page),Y
+     */
+    private void opRLA_INY() {
+        tmp = fetch();
+        state.args[0] = read(tmp);
+        tmp = (tmp + 1) & 0xff;
+        state.args[1] = read(tmp);
+        tmp = (tmp + 1) & 0xff;
+        state.args[0] = (state.args[0] + state.y) & 0xff;
+        read(address(state.args[0], state.args[1]));
+
+        if (state.args[0] < state.y) {
+            state.args[1] = (state.args[1] + 1) & 0xff;
+        }
+
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        tmp = read(effectiveAddress);
+        write(effectiveAddress, tmp);
+        final boolean carry = Tools.getbit(tmp, 7);
+        tmp = rol(tmp);
+        setCarryFlag(carry);
+        checkInterrupts();
+        state.a &= tmp;
+        setArithmeticFlags(state.a);
+        write(effectiveAddress, tmp);
+    }
+
+    /**
+     * AND - Logical AND - Zero Page,X
+     */
+    private void opAND_ZPX() {
+        effectiveAddress = fetch();
+        read(effectiveAddress);
+        effectiveAddress = (effectiveAddress + state.x) & 0xff;
+
+        checkInterrupts();
+        state.a &= read(effectiveAddress);
+        setArithmeticFlags(state.a);
+    }
+
+    /**
+     * ROL - Rotate Left - Zero Page,X
+     */
+    private void opROL_ZPX() {
+        effectiveAddress = fetch();
+        read(effectiveAddress);
+        effectiveAddress = (effectiveAddress + state.x) & 0xff;
+
+        tmp = read(effectiveAddress);
+        write(effectiveAddress, tmp);
+        tmp = rol(tmp);
+        checkInterrupts();
+        write(effectiveAddress, tmp);
+        setArithmeticFlags(tmp);
+    }
+
+    /**
+     * RLA - AND + ROL - Zero Page,X
+     */
+    private void opRLA_ZPX() {
+        effectiveAddress = fetch();
+        read(effectiveAddress);
+        effectiveAddress = (effectiveAddress + state.x) & 0xff;
+
+        tmp = read(effectiveAddress);
+        write(effectiveAddress, tmp);
+        final boolean carry = Tools.getbit(tmp, 7);
+        tmp = rol(tmp);
+        setCarryFlag(carry);
+        checkInterrupts();
+        state.a &= tmp;
+        setArithmeticFlags(state.a);
+        write(effectiveAddress, tmp);
+    }
+
+    /**
+     * SEC - SEt Carry flag - Implied
+     */
+    private void opSEC() {
+        checkInterrupts();
+        read(state.pc);
+
+        setCarryFlag();
+    }
+
+    /**
+     * AND - Logical AND - Absolute,Y
+     */
+    private void opAND_ABY() {
+        state.args[0] = fetch();
+        state.args[1] = fetch();
+        state.args[0] = (state.args[0] + state.y) & 0xff;
+
+        if (state.args[0] < state.y) {
+            read(address(state.args[0], state.args[1]));
+            state.args[1] = (state.args[1] + 1) & 0xff;
+        }
+
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        checkInterrupts();
+        state.a &= read(effectiveAddress);
+        setArithmeticFlags(state.a);
+    }
+
+    /**
+     * RLA - AND + ROL - Absolute,Y
+     */
+    private void opRLA_ABY() {
+        state.args[0] = fetch();
+        state.args[1] = fetch();
+        state.args[0] = (state.args[0] + state.y) & 0xff;
+        read(address(state.args[0], state.args[1]));
+
+        if (state.args[0] < state.y) {
+            state.args[1] = (state.args[1] + 1) & 0xff;
+        }
+
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        tmp = read(effectiveAddress);
+        write(effectiveAddress, tmp);
+        final boolean carry = Tools.getbit(tmp, 7);
+        tmp = rol(tmp);
+        setCarryFlag(carry);
+        checkInterrupts();
+        state.a &= tmp;
+        setArithmeticFlags(state.a);
+        write(effectiveAddress, tmp);
+    }
+
+    /**
+     * AND - Logical AND - Absolute,X
+     */
+    private void opAND_ABX() {
+        state.args[0] = fetch();
+        state.args[1] = fetch();
+        state.args[0] = (state.args[0] + state.x) & 0xff;
+
+        if (state.args[0] < state.x) {
+            read(address(state.args[0], state.args[1]));
+            state.args[1] = (state.args[1] + 1) & 0xff;
+        }
+
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        checkInterrupts();
+        state.a &= read(effectiveAddress);
+        setArithmeticFlags(state.a);
+    }
+
+    /**
+     * ROL - Rotate Left - Absolute,X
+     */
+    private void opROL_ABX() {
+        state.args[0] = fetch();
+        state.args[1] = fetch();
+        state.args[0] = (state.args[0] + state.x) & 0xff;
+        read(address(state.args[0], state.args[1]));
+
+        if (state.args[0] < state.x) {
+            state.args[1] = (state.args[1] + 1) & 0xff;
+        }
+
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        tmp = read(effectiveAddress);
+        write(effectiveAddress, tmp);
+        tmp = rol(tmp);
+        checkInterrupts();
+        write(effectiveAddress, tmp);
+        setArithmeticFlags(tmp);
+    }
+
+    /**
+     * RLA - AND + ROL - Absolute,X
+     */
+    private void opRLA_ABX() {
+        state.args[0] = fetch();
+        state.args[1] = fetch();
+        state.args[0] = (state.args[0] + state.x) & 0xff;
+        read(address(state.args[0], state.args[1]));
+
+        if (state.args[0] < state.x) {
+            state.args[1] = (state.args[1] + 1) & 0xff;
+        }
+
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        tmp = read(effectiveAddress);
+        write(effectiveAddress, tmp);
+        final boolean carry = Tools.getbit(tmp, 7);
+        tmp = rol(tmp);
+        setCarryFlag(carry);
+        checkInterrupts();
+        state.a &= tmp;
+        setArithmeticFlags(state.a);
+        write(effectiveAddress, tmp);
+    }
+
+    /**
+     * RTI - ReTurn from Interrupt - Implied
+     */
+    private void opRTI() {
+        read(state.pc);
+
+        dispatch();
+        setProcessorStatus(stackPop());
+        lo = stackPop();
+        checkInterrupts();
+        hi = stackPop();
+        setProgramCounter(address(lo, hi));
+    }
+
+    /**
+     * EOR - Exclusive OR - (Zero Page,X)
+     */
+    private void opEOR_INX() {
+        tmp = fetch();
+        tmp = (tmp + state.x) & 0xff;
+        dispatch();
+        state.args[0] = read(tmp);
+        tmp = (tmp + 1) & 0xff;
+        state.args[1] = read(tmp);
+        tmp = (tmp + 1) & 0xff;
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        checkInterrupts();
+        state.a ^= read(effectiveAddress);
+        setArithmeticFlags(state.a);
+    }
+
+    /**
+     * SRE - LSR + EOR - (Zero Page,X)
+     */
+    private void opSRE_INX() {
+        tmp = fetch();
+        tmp = (tmp + state.x) & 0xff;
+        dispatch();
+        state.args[0] = read(tmp);
+        tmp = (tmp + 1) & 0xff;
+        state.args[1] = read(tmp);
+        tmp = (tmp + 1) & 0xff;
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        tmp = read(effectiveAddress);
+        write(effectiveAddress, tmp);
+        tmp = lsr(tmp);
+        checkInterrupts();
+        state.a ^= tmp;
+        write(effectiveAddress, tmp);
+        setArithmeticFlags(state.a);
+    }
+
+    /**
+     * EOR - Exclusive OR - Zero Page
+     */
+    private void opEOR_ZPG() {
+        effectiveAddress = fetch();
+
+        checkInterrupts();
+        state.a ^= read(effectiveAddress);
+        setArithmeticFlags(state.a);
+    }
+
+    /**
+     * LSR - Logical Shift Right - Zero Page
+     */
+    private void opLSR_ZPG() {
+        effectiveAddress = fetch();
+
+        tmp = read(effectiveAddress);
+        write(effectiveAddress, tmp);
+        tmp = lsr(tmp);
+        checkInterrupts();
+        write(effectiveAddress, tmp);
+        setArithmeticFlags(tmp);
+    }
+
+    /**
+     * SRE - LSR + EOR - Zero Page
+     */
+    private void opSRE_ZPG() {
+        effectiveAddress = fetch();
+
+        tmp = read(effectiveAddress);
+        write(effectiveAddress, tmp);
+        tmp = lsr(tmp);
+        checkInterrupts();
+        state.a ^= tmp;
+        write(effectiveAddress, tmp);
+        setArithmeticFlags(state.a);
+    }
+
+    /**
+     * PHA - PusH Accumulator - Implied
+     */
+    private void opPHA() {
+        read(state.pc);
+
+        checkInterrupts();
+        stackPush(state.a);
+    }
+
+    /**
+     * EOR - Exclusive OR - #Immediate
+     */
+    private void opEORImm() {
+        state.args[0] = fetch();
+
+        checkInterrupts();
+        state.a ^= state.args[0];
+        setArithmeticFlags(state.a);
+    }
+
+    /**
+     * LSR - Logical Shift Right - Accumulator
+     */
+    private void opLSRAcc() {
+        checkInterrupts();
+        read(state.pc);
+
+        state.a = lsr(state.a);
+        setArithmeticFlags(state.a);
+    }
+
+    /**
+     * ALR - AND + LSR - #Immediate
+     */
+    private void opALRImm() {
+        state.args[0] = fetch();
+
+        checkInterrupts();
+        state.a &= state.args[0];
+        state.a = lsr(state.a);
+        setArithmeticFlags(state.a);
+    }
+
+    /**
+     * JMP - JuMP - Absolute
+     */
+    private void opJMP() {
+        state.args[0] = fetch();
+        checkInterrupts();
+        state.args[1] = fetch();
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        state.pc = address(state.args[0], state.args[1]);
+    }
+
+    /**
+     * EOR - Exclusive OR - Absolute
+     */
+    private void opEOR_ABS() {
+        state.args[0] = fetch();
+        state.args[1] = fetch();
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        checkInterrupts();
+        state.a ^= read(effectiveAddress);
+        setArithmeticFlags(state.a);
+    }
+
+    /**
+     * LSR - Logical Shift Right - Absolute
+     */
+    private void opLSR_ABS() {
+        state.args[0] = fetch();
+        state.args[1] = fetch();
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        tmp = read(effectiveAddress);
+        write(effectiveAddress, tmp);
+        tmp = lsr(tmp);
+        checkInterrupts();
+        write(effectiveAddress, tmp);
+        setArithmeticFlags(tmp);
+    }
+
+    /**
+     * SRE - LSR + EOR - Absolute
+     */
+    private void opSRE_ABS() {
+        state.args[0] = fetch();
+        state.args[1] = fetch();
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        tmp = read(effectiveAddress);
+        write(effectiveAddress, tmp);
+        tmp = lsr(tmp);
+        checkInterrupts();
+        state.a ^= tmp;
+        write(effectiveAddress, tmp);
+        setArithmeticFlags(state.a);
+    }
+
+    /**
+     * BVC - Branch on oVerflow Clear - Relative
+     */
+    private void opBVC() {
+        state.args[0] = fetch();
+
+        branch(!getOverflowFlag());
+    }
+
+    /**
+     * EOR - Exclusive OR - (Zero Page),Y
+     */
+    private void opEOR_INY() {
+        tmp = fetch();
+        state.args[0] = read(tmp);
+        tmp = (tmp + 1) & 0xff;
+        state.args[1] = read(tmp);
+        tmp = (tmp + 1) & 0xff;
+        state.args[0] = (state.args[0] + state.y) & 0xff;
+
+        if (state.args[0] < state.y) {
+            read(address(state.args[0], state.args[1]));
+            state.args[1] = (state.args[1] + 1) & 0xff;
+        }
+
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        checkInterrupts();
+        state.a ^= read(effectiveAddress);
+        setArithmeticFlags(state.a);
+    }
+
+    /**
+     * SRE - LSR + EOR - (Zero Page),Y
+     */
+    private void opSRE_INY() {
+        tmp = fetch();
+        state.args[0] = read(tmp);
+        tmp = (tmp + 1) & 0xff;
+        state.args[1] = read(tmp);
+        tmp = (tmp + 1) & 0xff;
+        state.args[0] = (state.args[0] + state.y) & 0xff;
+        read(address(state.args[0], state.args[1]));
+
+        if (state.args[0] < state.y) {
+            state.args[1] = (state.args[1] + 1) & 0xff;
+        }
+
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        tmp = read(effectiveAddress);
+        write(effectiveAddress, tmp);
+        tmp = lsr(tmp);
+        checkInterrupts();
+        state.a ^= tmp;
+        write(effectiveAddress, tmp);
+        setArithmeticFlags(state.a);
+    }
+
+    /**
+     * EOR - Exclusive OR - Zero Page,X
+     */
+    private void opEOR_ZPX() {
+        effectiveAddress = fetch();
+        read(effectiveAddress);
+        effectiveAddress = (effectiveAddress + state.x) & 0xff;
+
+        checkInterrupts();
+        state.a ^= read(effectiveAddress);
+        setArithmeticFlags(state.a);
+    }
+
+    /**
+     * LSR - Logical Shift Right - Zero Page,X
+     */
+    private void opLSR_ZPX() {
+        effectiveAddress = fetch();
+        read(effectiveAddress);
+        effectiveAddress = (effectiveAddress + state.x) & 0xff;
+
+        tmp = read(effectiveAddress);
+        write(effectiveAddress, tmp);
+        tmp = lsr(tmp);
+        checkInterrupts();
+        write(effectiveAddress, tmp);
+        setArithmeticFlags(tmp);
+    }
+
+    /**
+     * SRE - LSR + EOR - Zero Page,X
+     */
+    private void opSRE_ZPX() {
+        effectiveAddress = fetch();
+        read(effectiveAddress);
+        effectiveAddress = (effectiveAddress + state.x) & 0xff;
+
+        tmp = read(effectiveAddress);
+        write(effectiveAddress, tmp);
+        tmp = lsr(tmp);
+        checkInterrupts();
+        state.a ^= tmp;
+        write(effectiveAddress, tmp);
+        setArithmeticFlags(state.a);
+    }
+
+    /**
+     * CLI - CLear Interrupt - Implied
+     */
+    private void opCLI() {
+        checkInterrupts();
+        read(state.pc);
+
+        clearIrqDisableFlag();
+    }
+
+    /**
+     * EOR - Exclusive OR - Absolute,Y
+     */
+    private void opEOR_ABY() {
+        state.args[0] = fetch();
+        state.args[1] = fetch();
+        state.args[0] = (state.args[0] + state.y) & 0xff;
+
+        if (state.args[0] < state.y) {
+            read(address(state.args[0], state.args[1]));
+            state.args[1] = (state.args[1] + 1) & 0xff;
+        }
+
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        checkInterrupts();
+        state.a ^= read(effectiveAddress);
+        setArithmeticFlags(state.a);
+    }
+
+    /**
+     * SRE - LSR + EOR - Absolute,Y
+     */
+    private void opSRE_ABY() {
+        state.args[0] = fetch();
+        state.args[1] = fetch();
+        state.args[0] = (state.args[0] + state.y) & 0xff;
+        read(address(state.args[0], state.args[1]));
+
+        if (state.args[0] < state.y) {
+            state.args[1] = (state.args[1] + 1) & 0xff;
+        }
+
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        tmp = read(effectiveAddress);
+        write(effectiveAddress, tmp);
+        tmp = lsr(tmp);
+        checkInterrupts();
+        state.a ^= tmp;
+        write(effectiveAddress, tmp);
+        setArithmeticFlags(state.a);
+    }
+
+    /**
+     * EOR - Exclusive OR - Absolute,X
+     */
+    private void opEOR_ABX() {
+        state.args[0] = fetch();
+        state.args[1] = fetch();
+        state.args[0] = (state.args[0] + state.x) & 0xff;
+
+        if (state.args[0] < state.x) {
+            read(address(state.args[0], state.args[1]));
+            state.args[1] = (state.args[1] + 1) & 0xff;
+        }
+
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        checkInterrupts();
+        state.a ^= read(effectiveAddress);
+        setArithmeticFlags(state.a);
+    }
+
+    /**
+     * LSR - Logical Shift Right - Absolute,X
+     */
+    private void opLSR_ABX() {
+        state.args[0] = fetch();
+        state.args[1] = fetch();
+        state.args[0] = (state.args[0] + state.x) & 0xff;
+        read(address(state.args[0], state.args[1]));
+
+        if (state.args[0] < state.x) {
+            state.args[1] = (state.args[1] + 1) & 0xff;
+        }
+
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        tmp = read(effectiveAddress);
+        write(effectiveAddress, tmp);
+        tmp = lsr(tmp);
+        checkInterrupts();
+        write(effectiveAddress, tmp);
+        setArithmeticFlags(tmp);
+    }
+
+    /**
+     * SRE - LSR + EOR - Absolute,X
+     */
+    private void opSRE_ABX() {
+        state.args[0] = fetch();
+        state.args[1] = fetch();
+        state.args[0] = (state.args[0] + state.x) & 0xff;
+        read(address(state.args[0], state.args[1]));
+
+        if (state.args[0] < state.x) {
+            state.args[1] = (state.args[1] + 1) & 0xff;
+        }
+
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        tmp = read(effectiveAddress);
+        write(effectiveAddress, tmp);
+        tmp = lsr(tmp);
+        checkInterrupts();
+        state.a ^= tmp;
+        write(effectiveAddress, tmp);
+        setArithmeticFlags(state.a);
+    }
+
+    /**
+     * RTS - ReTurn from Subroutine - Implied
+     */
+    private void opRTS() {
+        read(state.pc);
+
+        dispatch();
+        lo = stackPop();
+        hi = stackPop();
+        setProgramCounter(address(lo, hi) + 1);
+        checkInterrupts();
+        dispatch();
+    }
+
+    /**
+     * ADC - Add with Carry - (Zero Page,X)
+     */
+    private void opADC_INX() {
+        tmp = fetch();
+        tmp = (tmp + state.x) & 0xff;
+        dispatch();
+        state.args[0] = read(tmp);
+        tmp = (tmp + 1) & 0xff;
+        state.args[1] = read(tmp);
+        tmp = (tmp + 1) & 0xff;
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        state.a = adc(state.a, read(effectiveAddress));
+    }
+
+    /**
+     * RRA - ROR + ADC - (Zero Page,X)
+     */
+    private void opRRA_INX() {
+        tmp = fetch();
+        tmp = (tmp + state.x) & 0xff;
+        dispatch();
+        state.args[0] = read(tmp);
+        tmp = (tmp + 1) & 0xff;
+        state.args[1] = read(tmp);
+        tmp = (tmp + 1) & 0xff;
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        tmp = read(effectiveAddress);
+        write(effectiveAddress, tmp);
+        tmp = ror(tmp);
+        checkInterrupts();
+        write(effectiveAddress, tmp);
+        state.a = adc(state.a, tmp);
+    }
+
+    /**
+     * ADC - Add with Carry - Zero Page
+     */
+    private void opADC_ZPG() {
+        effectiveAddress = fetch();
+
+        state.a = adc(state.a, read(effectiveAddress));
+    }
+
+    /**
+     * ROR - Rotate Right - Zero Page
+     */
+    private void opROR_ZPG() {
+        effectiveAddress = fetch();
+
+        tmp = read(effectiveAddress);
+        write(effectiveAddress, tmp);
+        tmp = ror(tmp);
+        checkInterrupts();
+        write(effectiveAddress, tmp);
+        setArithmeticFlags(tmp);
+    }
+
+    /**
+     * RRA - ROR + ADC - Zero Page
+     */
+    private void opRRA_ZPG() {
+        effectiveAddress = fetch();
+
+        tmp = read(effectiveAddress);
+        write(effectiveAddress, tmp);
+        tmp = ror(tmp);
+        checkInterrupts();
+        write(effectiveAddress, tmp);
+        state.a = adc(state.a, tmp);
+    }
+
+    /**
+     * PLA - PuLl Accumulator - Implied
+     */
+    private void opPLA() {
+        read(state.pc);
+
+        dispatch();
+        checkInterrupts();
+        state.a = stackPop();
+        setArithmeticFlags(state.a);
+    }
+
+    /**
+     * ADC - Add with Carry - #Immediate
+     */
+    private void opADCImm() {
+        state.args[0] = fetch();
+
+        state.a = adc(state.a, state.args[0]);
+    }
+
+    /**
+     * ROR - Rotate Right - Accumulator
+     */
+    private void opRORAcc() {
+        checkInterrupts();
+        read(state.pc);
+
+        state.a = ror(state.a);
+        setArithmeticFlags(state.a);
+    }
+
+    /**
+     * ARR - AND + LSR - #Immediate
+     */
+    private void opARRImm() {
+        state.args[0] = fetch();
+
+        checkInterrupts();
+        state.a &= state.args[0];
+        final boolean carryTemp = Tools.getbit(state.a, 0);
+        state.a = ((state.a >> 1) | (getCarryFlag() ? 0x80 : 0x00));
+        setCarryFlag(carryTemp);
+
+        if (Tools.getbit(state.a, 5)) {
+            if (Tools.getbit(state.a, 6)) {
+                setCarryFlag();
+                clearOverflowFlag();
+            } else {
+                clearCarryFlag();
+                setOverflowFlag();
+            }
+        } else if (Tools.getbit(state.a, 6)) {
+            setCarryFlag();
+            setOverflowFlag();
+        } else {
+            clearCarryFlag();
+            clearOverflowFlag();
+        }
+
+        setArithmeticFlags(state.a);
+    }
+
+    /**
+     * JMP - JuMP - Indirect
+     */
+    private void opJMPInd() {
+        state.args[0] = fetch();
+        state.args[1] = fetch();
+        checkInterrupts();
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        lo = address(state.args[0], state.args[1]); // Address of low byte
+
+        //Indirect adressing modes are not able to fetch
+        //an adress which crosses the page boundary
+        if (state.args[0] == 0xff) {
+            hi = address(0x00, state.args[1]);
+        } else {
+            hi = lo + 1;
+        }
+
+        state.pc = address(read(lo), read(hi));
+    }
+
+    /**
+     * ADC - Add with Carry - Absolute
+     */
+    private void opADC_ABS() {
+        state.args[0] = fetch();
+        state.args[1] = fetch();
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        state.a = adc(state.a, read(effectiveAddress));
+    }
+
+    /**
+     * ROR - Rotate Right - Absolute
+     */
+    private void opROR_ABS() {
+        state.args[0] = fetch();
+        state.args[1] = fetch();
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        tmp = read(effectiveAddress);
+        write(effectiveAddress, tmp);
+        tmp = ror(tmp);
+        checkInterrupts();
+        write(effectiveAddress, tmp);
+        setArithmeticFlags(tmp);
+    }
+
+    /**
+     * RRA - ROR + ADC - Absolute
+     */
+    private void opRRA_ABS() {
+        state.args[0] = fetch();
+        state.args[1] = fetch();
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        tmp = read(effectiveAddress);
+        write(effectiveAddress, tmp);
+        tmp = ror(tmp);
+        checkInterrupts();
+        write(effectiveAddress, tmp);
+        state.a = adc(state.a, tmp);
+    }
+
+    /**
+     * BVS - Branch on oVerflow Set - Relative
+     */
+    private void opBVS() {
+        state.args[0] = fetch();
+
+        branch(getOverflowFlag());
+    }
+
+    /**
+     * ADC - Add with Carry - (Zero Page),Y
+     */
+    private void opADC_INY() {
+        tmp = fetch();
+        state.args[0] = read(tmp);
+        tmp = (tmp + 1) & 0xff;
+        state.args[1] = read(tmp);
+        tmp = (tmp + 1) & 0xff;
+        state.args[0] = (state.args[0] + state.y) & 0xff;
+
+        if (state.args[0] < state.y) {
+            read(address(state.args[0], state.args[1]));
+            state.args[1] = (state.args[1] + 1) & 0xff;
+        }
+
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        state.a = adc(state.a, read(effectiveAddress));
+    }
+
+    /**
+     * RRA - ROR + ADC - (Zero Page),Y
+     */
+    private void opRRA_INY() {
+        tmp = fetch();
+        state.args[0] = read(tmp);
+        tmp = (tmp + 1) & 0xff;
+        state.args[1] = read(tmp);
+        tmp = (tmp + 1) & 0xff;
+        state.args[0] = (state.args[0] + state.y) & 0xff;
+        read(address(state.args[0], state.args[1]));
+
+        if (state.args[0] < state.y) {
+            state.args[1] = (state.args[1] + 1) & 0xff;
+        }
+
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        tmp = read(effectiveAddress);
+        write(effectiveAddress, tmp);
+        tmp = ror(tmp);
+        checkInterrupts();
+        write(effectiveAddress, tmp);
+        state.a = adc(state.a, tmp);
+    }
+
+    /**
+     * ADC - Add with Carry - Zero Page,X
+     */
+    private void opADC_ZPX() {
+        effectiveAddress = fetch();
+        read(effectiveAddress);
+        effectiveAddress = (effectiveAddress + state.x) & 0xff;
+
+        state.a = adc(state.a, read(effectiveAddress));
+    }
+
+    /**
+     * ROR - Rotate Right - Zero Page,X
+     */
+    private void opROR_ZPX() {
+        effectiveAddress = fetch();
+        read(effectiveAddress);
+        effectiveAddress = (effectiveAddress + state.x) & 0xff;
+
+        tmp = read(effectiveAddress);
+        write(effectiveAddress, tmp);
+        tmp = ror(tmp);
+        checkInterrupts();
+        write(effectiveAddress, tmp);
+        setArithmeticFlags(tmp);
+    }
+
+    /**
+     * RRA - ROR + ADC - Zero Page,X
+     */
+    private void opRRA_ZPX() {
+        effectiveAddress = fetch();
+        read(effectiveAddress);
+        effectiveAddress = (effectiveAddress + state.x) & 0xff;
+
+        tmp = read(effectiveAddress);
+        write(effectiveAddress, tmp);
+        tmp = ror(tmp);
+        checkInterrupts();
+        write(effectiveAddress, tmp);
+        state.a = adc(state.a, tmp);
+    }
+
+    /**
+     * SEI - Set Interrupt - Implied
+     */
+    private void opSEI() {
+        checkInterrupts();
+        read(state.pc);
+
+        setIrqDisableFlag();
+    }
+
+    /**
+     * ADC - Add with Carry - Absolute,Y
+     */
+    private void opADC_ABY() {
+        state.args[0] = fetch();
+        state.args[1] = fetch();
+        state.args[0] = (state.args[0] + state.y) & 0xff;
+
+        if (state.args[0] < state.y) {
+            read(address(state.args[0], state.args[1]));
+            state.args[1] = (state.args[1] + 1) & 0xff;
+        }
+
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        state.a = adc(state.a, read(effectiveAddress));
+    }
+
+    /**
+     * RRA - ROR + ADC - Absolute,Y
+     */
+    private void opRRA_ABY() {
+        state.args[0] = fetch();
+        state.args[1] = fetch();
+        state.args[0] = (state.args[0] + state.y) & 0xff;
+        read(address(state.args[0], state.args[1]));
+
+        if (state.args[0] < state.y) {
+            state.args[1] = (state.args[1] + 1) & 0xff;
+        }
+
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        tmp = read(effectiveAddress);
+        write(effectiveAddress, tmp);
+        tmp = ror(tmp);
+        checkInterrupts();
+        write(effectiveAddress, tmp);
+        state.a = adc(state.a, tmp);
+    }
+
+    /**
+     * ADC - Add with Carry - Absolute,X
+     */
+    private void opADC_ABX() {
+        state.args[0] = fetch();
+        state.args[1] = fetch();
+        state.args[0] = (state.args[0] + state.x) & 0xff;
+
+        if (state.args[0] < state.x) {
+            read(address(state.args[0], state.args[1]));
+            state.args[1] = (state.args[1] + 1) & 0xff;
+        }
+
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        state.a = adc(state.a, read(effectiveAddress));
+    }
+
+    /**
+     * ROR - Rotate Right - Absolute,X
+     */
+    private void opROR_ABX() {
+        state.args[0] = fetch();
+        state.args[1] = fetch();
+        state.args[0] = (state.args[0] + state.x) & 0xff;
+        read(address(state.args[0], state.args[1]));
+
+        if (state.args[0] < state.x) {
+            state.args[1] = (state.args[1] + 1) & 0xff;
+        }
+
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        tmp = read(effectiveAddress);
+        write(effectiveAddress, tmp);
+        tmp = ror(tmp);
+        checkInterrupts();
+        write(effectiveAddress, tmp);
+        setArithmeticFlags(tmp);
+    }
+
+    /**
+     * RRA - ROR + ADC - Absolute,X
+     */
+    private void opRRA_ABX() {
+        state.args[0] = fetch();
+        state.args[1] = fetch();
+        state.args[0] = (state.args[0] + state.x) & 0xff;
+        read(address(state.args[0], state.args[1]));
+
+        if (state.args[0] < state.x) {
+            state.args[1] = (state.args[1] + 1) & 0xff;
+        }
+
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        tmp = read(effectiveAddress);
+        write(effectiveAddress, tmp);
+        tmp = ror(tmp);
+        checkInterrupts();
+        write(effectiveAddress, tmp);
+        state.a = adc(state.a, tmp);
+    }
+
+    /**
+     * DOP - #Immediate
+     */
+    private void opDOP_IMM() {
+        state.args[0] = fetch();
+
+        checkInterrupts();
+        dispatch();
+    }
+
+    /**
+     * STA - Store Accumulator - (Zero Page,X)
+     */
+    private void opSTA_INX() {
+        tmp = fetch();
+        tmp = (tmp + state.x) & 0xff;
+        dispatch();
+        state.args[0] = read(tmp);
+        tmp = (tmp + 1) & 0xff;
+        state.args[1] = read(tmp);
+        tmp = (tmp + 1) & 0xff;
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        checkInterrupts();
+        write(effectiveAddress, state.a);
+    }
+
+    /**
+     * SAX - Store A & X - (Zero Page,X)
+     */
+    private void opSAX_INX() {
+        tmp = fetch();
+        tmp = (tmp + state.x) & 0xff;
+        dispatch();
+        state.args[0] = read(tmp);
+        tmp = (tmp + 1) & 0xff;
+        state.args[1] = read(tmp);
+        tmp = (tmp + 1) & 0xff;
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        checkInterrupts();
+        write(effectiveAddress, state.a & state.x);
+    }
+
+    /**
+     * STY - Store Y Register - Zero Page
+     */
+    private void opSTY_ZPG() {
+        effectiveAddress = fetch();
+
+        checkInterrupts();
+        write(effectiveAddress, state.y);
+    }
+
+    /**
+     * STA - Store Accumulator - Zero Page
+     */
+    private void opSTA_ZPG() {
+        effectiveAddress = fetch();
+
+        checkInterrupts();
+        write(effectiveAddress, state.a);
+    }
+
+    /**
+     * STX - Store X Register - Zero Page
+     */
+    private void opSTX_ZPG() {
+        effectiveAddress = fetch();
+
+        checkInterrupts();
+        write(effectiveAddress, state.x);
+    }
+
+    /**
+     * SAX - Store A & X - Zero Page
+     */
+    private void opSAX_ZPG() {
+        effectiveAddress = fetch();
+
+        checkInterrupts();
+        write(effectiveAddress, state.a & state.x);
+    }
+
+    /**
+     * DEY - DEcrement Y - Implied
+     */
+    private void opDEY() {
+        checkInterrupts();
+        read(state.pc);
+
+        state.y = (state.y - 1) & 0xff;
+        setArithmeticFlags(state.y);
+    }
+
+    /**
+     * TXA - Transfer X to A - Implied
+     */
+    private void opTXA() {
+        checkInterrupts();
+        read(state.pc);
+
+        state.a = state.x;
+        setArithmeticFlags(state.a);
+    }
+
+    /**
+     * XAA - TXA + AND - #Immediate
+     */
+    private void opXAAImm() {
+        state.args[0] = fetch();
+
+        checkInterrupts();
+        state.a = state.x;
+        state.a &= state.args[0];
+        setArithmeticFlags(state.a);
+    }
+
+    /**
+     * STY - Store Y Register - Absolute
+     */
+    private void opSTY_ABS() {
+        state.args[0] = fetch();
+        state.args[1] = fetch();
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        checkInterrupts();
+        write(effectiveAddress, state.y);
+    }
+
+    /**
+     * STA - Store Accumulator - Absolute
+     */
+    private void opSTA_ABS() {
+        state.args[0] = fetch();
+        state.args[1] = fetch();
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        checkInterrupts();
+        write(effectiveAddress, state.a);
+    }
+
+    /**
+     * STX - Store X Register - Absolute
+     */
+    private void opSTX_ABS() {
+        state.args[0] = fetch();
+        state.args[1] = fetch();
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        checkInterrupts();
+        write(effectiveAddress, state.x);
+    }
+
+    /**
+     * SAX - Store A & X - Absolute
+     */
+    private void opSAX_ABS() {
+        state.args[0] = fetch();
+        state.args[1] = fetch();
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        checkInterrupts();
+        write(effectiveAddress, state.a & state.x);
+    }
+
+    /**
+     * BCC - Branch on Carry Clear - Relative
+     */
+    private void opBCC() {
+        state.args[0] = fetch();
+
+        branch(!getCarryFlag());
+    }
+
+    /**
+     * STA - Store Accumulator - (Zero Page),Y
+     */
+    private void opSTA_INY() {
+        tmp = fetch();
+        state.args[0] = read(tmp);
+        tmp = (tmp + 1) & 0xff;
+        state.args[1] = read(tmp);
+        tmp = (tmp + 1) & 0xff;
+        state.args[0] = (state.args[0] + state.y) & 0xff;
+        read(address(state.args[0], state.args[1]));
+
+        if (state.args[0] < state.y) {
+            state.args[1] = (state.args[1] + 1) & 0xff;
+        }
+
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        checkInterrupts();
+        write(effectiveAddress, state.a);
+    }
+
+    /**
+     * AHX - Store A & X & high byte of the address in memory - (Zero Page),Y
+     */
+    private void opAHX_INY() {
+        tmp = fetch();
+        state.args[0] = read(tmp);
+        tmp = (tmp + 1) & 0xff;
+        state.args[1] = read(tmp);
+        tmp = (tmp + 1) & 0xff;
+        state.args[0] = (state.args[0] + state.y) & 0xff;
+        read(address(state.args[0], state.args[1]));
+
+        if (state.args[0] < state.y) {
+            state.args[1] = (state.args[1] + 1) & 0xff;
+        }
+
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        lo = effectiveAddress & 0xFF;
+        hi = (effectiveAddress >> 8) & 0xFF;
+        tmp = (state.a & state.x & (hi + 1)) & 0xFF;
+
+        read(effectiveAddress);
+        lo = (lo + state.y) & 0xFF;
+
+        if (lo < state.y) {
+            hi = tmp;
+        }
+
+        checkInterrupts();
+        write(address(lo, hi), tmp);
+    }
+
+    /**
+     * STY - Store Y Register - Zero Page,X
+     */
+    private void opSTY_ZPX() {
+        effectiveAddress = fetch();
+        read(effectiveAddress);
+        effectiveAddress = (effectiveAddress + state.x) & 0xff;
+
+        checkInterrupts();
+        write(effectiveAddress, state.y);
+    }
+
+    /**
+     * STA - Store Accumulator - Zero Page,X
+     */
+    private void opSTA_ZPX() {
+        effectiveAddress = fetch();
+        read(effectiveAddress);
+        effectiveAddress = (effectiveAddress + state.x) & 0xff;
+
+        checkInterrupts();
+        write(effectiveAddress, state.a);
+    }
+
+    /**
+     * STX - Store X Register - Zero Page,Y
+     */
+    private void opSTX_ZPY() {
+        effectiveAddress = fetch();
+        read(effectiveAddress);
+        effectiveAddress = (effectiveAddress + state.y) & 0xff;
+
+        checkInterrupts();
+        write(effectiveAddress, state.x);
+    }
+
+    /**
+     * SAX - Store A & X - Zero Page,Y
+     */
+    private void opSAX_ZPY() {
+        effectiveAddress = fetch();
+        read(effectiveAddress);
+        effectiveAddress = (effectiveAddress + state.y) & 0xff;
+
+        checkInterrupts();
+        write(effectiveAddress, state.a & state.x);
+    }
+
+    /**
+     * TYA - Transfer Y to A - Implied
+     */
+    private void opTYA() {
+        checkInterrupts();
+        read(state.pc);
+
+        state.a = state.y;
+        setArithmeticFlags(state.a);
+    }
+
+    /**
+     * STA - Store Accumulator - Absolute,Y
+     */
+    private void opSTA_ABY() {
+        state.args[0] = fetch();
+        state.args[1] = fetch();
+        state.args[0] = (state.args[0] + state.y) & 0xff;
+        read(address(state.args[0], state.args[1]));
+
+        if (state.args[0] < state.y) {
+            state.args[1] = (state.args[1] + 1) & 0xff;
+        }
+
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        checkInterrupts();
+        write(effectiveAddress, state.a);
+    }
+
+    /**
+     * TXS - Transfer X to Stack pointer - Implied
+     */
+    private void opTXS() {
+        checkInterrupts();
+        read(state.pc);
+
+        setStackPointer(state.x);
+    }
+
+    /**
+     * TAS - Store A & X & high byte of the address in SP - Absolute,Y
+     */
+    private void opTAS() {
+        state.args[0] = fetch();
+        state.args[1] = fetch();
+        state.args[0] = (state.args[0] + state.y) & 0xff;
+        read(address(state.args[0], state.args[1]));
+
+        if (state.args[0] < state.y) {
+            state.args[1] = (state.args[1] + 1) & 0xff;
+        }
+
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        state.sp = state.a & state.x;
+        lo = effectiveAddress & 0xFF;
+        hi = (effectiveAddress >> 8) & 0xFF;
+        tmp = (state.sp & (hi + 1)) & 0xFF;
+
+        read(effectiveAddress);
+        lo = (lo + state.y) & 0xFF;
+
+        if (lo < state.y) {
+            hi = tmp;
+        }
+
+        checkInterrupts();
+        write(address(lo, hi), tmp);
+    }
+
+    /**
+     * SHY - Store Y & high byte of the address in memory - Absolute,X
+     */
+    private void opSHY() {
+        state.args[0] = fetch();
+        state.args[1] = fetch();
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        lo = effectiveAddress & 0xFF;
+        hi = (effectiveAddress >> 8) & 0xFF;
+        tmp = (state.y & (hi + 1)) & 0xFF;
+
+        read(effectiveAddress);
+        lo = (lo + state.x) & 0xFF;
+
+        if (lo < state.x) {
+            hi = tmp;
+        }
+
+        checkInterrupts();
+        write(address(lo, hi), tmp);
+    }
+
+    /**
+     * STA - Store Accumulator - Absolute,X
+     */
+    private void opSTA_ABX() {
+        state.args[0] = fetch();
+        state.args[1] = fetch();
+        state.args[0] = (state.args[0] + state.x) & 0xff;
+        read(address(state.args[0], state.args[1]));
+
+        if (state.args[0] < state.x) {
+            state.args[1] = (state.args[1] + 1) & 0xff;
+        }
+
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        checkInterrupts();
+        write(effectiveAddress, state.a);
+    }
+
+    /**
+     * SHX - Store X & high byte of the address in memory - Absolute,Y
+     */
+    private void opSHX() {
+        state.args[0] = fetch();
+        state.args[1] = fetch();
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        lo = effectiveAddress & 0xFF;
+        hi = (effectiveAddress >> 8) & 0xFF;
+        tmp = (state.x & (hi + 1)) & 0xFF;
+
+        read(effectiveAddress);
+        lo = (lo + state.y) & 0xFF;
+
+        if (lo < state.y) {
+            hi = tmp;
+        }
+
+        checkInterrupts();
+        write(address(lo, hi), tmp);
+    }
+
+    /**
+     * AHX - Store A & X & high byte of the address in memory - Absolute,Y
+     */
+    private void opAHX_ABY() {
+        state.args[0] = fetch();
+        state.args[1] = fetch();
+        state.args[0] = (state.args[0] + state.y) & 0xff;
+        read(address(state.args[0], state.args[1]));
+
+        if (state.args[0] < state.y) {
+            state.args[1] = (state.args[1] + 1) & 0xff;
+        }
+
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        lo = effectiveAddress & 0xFF;
+        hi = (effectiveAddress >> 8) & 0xFF;
+        tmp = (state.a & state.x & (hi + 1)) & 0xFF;
+
+        read(effectiveAddress);
+        lo = (lo + state.y) & 0xFF;
+
+        if (lo < state.y) {
+            hi = tmp;
+        }
+
+        checkInterrupts();
+        write(address(lo, hi), tmp);
+    }
+
+    /**
+     * LDY - Load Y Register - #Immediate
+     */
+    private void opLDYImm() {
+        state.args[0] = fetch();
+
+        checkInterrupts();
+        state.y = state.args[0];
+        setArithmeticFlags(state.y);
+    }
+
+    /**
+     * LDA - Load Accumulator - (Zero Page,X)
+     */
+    private void opLDA_INX() {
+        tmp = fetch();
+        tmp = (tmp + state.x) & 0xff;
+        dispatch();
+        state.args[0] = read(tmp);
+        tmp = (tmp + 1) & 0xff;
+        state.args[1] = read(tmp);
+        tmp = (tmp + 1) & 0xff;
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        checkInterrupts();
+        state.a = read(effectiveAddress);
+        setArithmeticFlags(state.a);
+    }
+
+    /**
+     * LDX - Load X Register - #Immediate
+     */
+    private void opLDXImm() {
+        state.args[0] = fetch();
+
+        state.x = state.args[0];
+        setArithmeticFlags(state.x);
+    }
+
+    /**
+     * LAX - Load Accumulator and X - (Zero Page,X)
+     */
+    private void opLAX_INX() {
+        tmp = fetch();
+        tmp = (tmp + state.x) & 0xff;
+        dispatch();
+        state.args[0] = read(tmp);
+        tmp = (tmp + 1) & 0xff;
+        state.args[1] = read(tmp);
+        tmp = (tmp + 1) & 0xff;
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        checkInterrupts();
+        state.a = state.x = read(effectiveAddress);
+        setArithmeticFlags(state.a);
+    }
+
+    /**
+     * LDY - Load Y Register - Zero Page
+     */
+    private void opLDY_ZPG() {
+        effectiveAddress = fetch();
+
+        checkInterrupts();
+        state.y = read(effectiveAddress);
+        setArithmeticFlags(state.y);
+    }
+
+    /**
+     * LDA - Load Accumulator - Zero Page
+     */
+    private void opLDA_ZPG() {
+        effectiveAddress = fetch();
+
+        checkInterrupts();
+        state.a = read(effectiveAddress);
+        setArithmeticFlags(state.a);
+    }
+
+    /**
+     * LDX - Load X Register - Zero Page
+     */
+    private void opLDX_ZPG() {
+        effectiveAddress = fetch();
+
+        checkInterrupts();
+        state.x = read(effectiveAddress);
+        setArithmeticFlags(state.x);
+    }
+
+    /**
+     * LAX - Load Accumulator and X - Zero Page
+     */
+    private void opLAX_ZPG() {
+        effectiveAddress = fetch();
+
+        checkInterrupts();
+        state.a = state.x = read(effectiveAddress);
+        setArithmeticFlags(state.a);
+    }
+
+    /**
+     * TAY - Transfer A to Y - Implied
+     */
+    private void opTAY() {
+        checkInterrupts();
+        read(state.pc);
+
+        state.y = state.a;
+        setArithmeticFlags(state.y);
+    }
+
+    /**
+     * LDA - Load Accumulator - #Immediate
+     */
+    private void opLDAImm() {
+        state.args[0] = fetch();
+
+        checkInterrupts();
+        state.a = state.args[0];
+        setArithmeticFlags(state.a);
+    }
+
+    /**
+     * TAX - Transfer A to X - Implied
+     */
+    private void opTAX() {
+        checkInterrupts();
+        read(state.pc);
+
+        state.x = state.a;
+        setArithmeticFlags(state.x);
+    }
+
+    /**
+     * LAX - Load Accumulator and X - #Immediate
+     */
+    private void opLAXImm() {
+        state.args[0] = fetch();
+
+        checkInterrupts();
+        state.a = state.x = state.args[0];
+        setArithmeticFlags(state.a);
+    }
+
+    /**
+     * LDY - Load Y Register - Absolute
+     */
+    private void opLDY_ABS() {
+        state.args[0] = fetch();
+        state.args[1] = fetch();
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        checkInterrupts();
+        state.y = read(effectiveAddress);
+        setArithmeticFlags(state.y);
+    }
+
+    /**
+     * LDA - Load Accumulator - Absolute
+     */
+    private void opLDA_ABS() {
+        state.args[0] = fetch();
+        state.args[1] = fetch();
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        checkInterrupts();
+        state.a = read(effectiveAddress);
+        setArithmeticFlags(state.a);
+    }
+
+    /**
+     * LDX - Load X Register - Absolute
+     */
+    private void opLDX_ABS() {
+        state.args[0] = fetch();
+        state.args[1] = fetch();
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        checkInterrupts();
+        state.x = read(effectiveAddress);
+        setArithmeticFlags(state.x);
+    }
+
+    /**
+     * LAX - Load Accumulator and X - Absolute
+     */
+    private void opLAX_ABS() {
+        state.args[0] = fetch();
+        state.args[1] = fetch();
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        checkInterrupts();
+        state.a = state.x = read(effectiveAddress);
+        setArithmeticFlags(state.a);
+    }
+
+    /**
+     * BCS - Branch on Carry Set - Relative
+     */
+    private void opBCS() {
+        state.args[0] = fetch();
+
+        branch(getCarryFlag());
+    }
+
+    /**
+     * LDA - Load Accumulator - (Zero Page),Y
+     */
+    private void opLDA_INY() {
+        tmp = fetch();
+        state.args[0] = read(tmp);
+        tmp = (tmp + 1) & 0xff;
+        state.args[1] = read(tmp);
+        tmp = (tmp + 1) & 0xff;
+        state.args[0] = (state.args[0] + state.y) & 0xff;
+
+        if (state.args[0] < state.y) {
+            read(address(state.args[0], state.args[1]));
+            state.args[1] = (state.args[1] + 1) & 0xff;
+        }
+
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        checkInterrupts();
+        state.a = read(effectiveAddress);
+        setArithmeticFlags(state.a);
+    }
+
+    /**
+     * LAX - Load Accumulator and X - (Zero Page),Y
+     */
+    private void opLAX_INY() {
+        tmp = fetch();
+        state.args[0] = read(tmp);
+        tmp = (tmp + 1) & 0xff;
+        state.args[1] = read(tmp);
+        tmp = (tmp + 1) & 0xff;
+        state.args[0] = (state.args[0] + state.y) & 0xff;
+
+        if (state.args[0] < state.y) {
+            read(address(state.args[0], state.args[1]));
+            state.args[1] = (state.args[1] + 1) & 0xff;
+        }
+
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        checkInterrupts();
+        state.a = state.x = read(effectiveAddress);
+        setArithmeticFlags(state.a);
+    }
+
+    /**
+     * LDY - Load Y Register - Zero Page,X
+     */
+    private void opLDY_ZPX() {
+        effectiveAddress = fetch();
+        read(effectiveAddress);
+        effectiveAddress = (effectiveAddress + state.x) & 0xff;
+
+        checkInterrupts();
+        state.y = read(effectiveAddress);
+        setArithmeticFlags(state.y);
+    }
+
+    /**
+     * LDA - Load Accumulator - Zero Page,X
+     */
+    private void opLDA_ZPX() {
+        effectiveAddress = fetch();
+        read(effectiveAddress);
+        effectiveAddress = (effectiveAddress + state.x) & 0xff;
+
+        checkInterrupts();
+        state.a = read(effectiveAddress);
+        setArithmeticFlags(state.a);
+    }
+
+    /**
+     * LDX - Load X Register - Zero Page,Y
+     */
+    private void opLDX_ZPY() {
+        effectiveAddress = fetch();
+        read(effectiveAddress);
+        effectiveAddress = (effectiveAddress + state.y) & 0xff;
+
+        checkInterrupts();
+        state.x = read(effectiveAddress);
+        setArithmeticFlags(state.x);
+    }
+
+    /**
+     * LAX - Load Accumulator and X - Zero Page,Y
+     */
+    private void opLAX_ZPY() {
+        effectiveAddress = fetch();
+        read(effectiveAddress);
+        effectiveAddress = (effectiveAddress + state.y) & 0xff;
+
+        checkInterrupts();
+        state.a = state.x = read(effectiveAddress);
+        setArithmeticFlags(state.a);
+    }
+
+    /**
+     * CLV - CLear oVerflow - Implied
+     */
+    private void opCLV() {
+        checkInterrupts();
+        read(state.pc);
+
+        clearOverflowFlag();
+    }
+
+    /**
+     * LDA - Load Accumulator - Absolute,Y
+     */
+    private void opLDA_ABY() {
+        state.args[0] = fetch();
+        state.args[1] = fetch();
+        state.args[0] = (state.args[0] + state.y) & 0xff;
+
+        if (state.args[0] < state.y) {
+            read(address(state.args[0], state.args[1]));
+            state.args[1] = (state.args[1] + 1) & 0xff;
+        }
+
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        checkInterrupts();
+        state.a = read(effectiveAddress);
+        setArithmeticFlags(state.a);
+    }
+
+    /**
+     * TSX - Transfer Stack pointer to X - Implied
+     */
+    private void opTSX() {
+        checkInterrupts();
+        read(state.pc);
+
+        state.x = getStackPointer();
+        setArithmeticFlags(state.x);
+    }
+
+    /**
+     * LAS - Load Accumulator, X and ANDed SP - Absolute,Y
+     */
+    private void opLAS() {
+        state.args[0] = fetch();
+        state.args[1] = fetch();
+        state.args[0] = (state.args[0] + state.y) & 0xff;
+
+        if (state.args[0] < state.y) {
+            read(address(state.args[0], state.args[1]));
+            state.args[1] = (state.args[1] + 1) & 0xff;
+        }
+
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        checkInterrupts();
+        state.sp &= read(effectiveAddress);
+        state.a = state.x = state.sp;
+        setArithmeticFlags(state.sp);
+    }
+
+    /**
+     * LDY - Load Y Register - Absolute,X
+     */
+    private void opLDY_ABX() {
+        state.args[0] = fetch();
+        state.args[1] = fetch();
+        state.args[0] = (state.args[0] + state.x) & 0xff;
+
+        if (state.args[0] < state.x) {
+            read(address(state.args[0], state.args[1]));
+            state.args[1] = (state.args[1] + 1) & 0xff;
+        }
+
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        checkInterrupts();
+        state.y = read(effectiveAddress);
+        setArithmeticFlags(state.y);
+    }
+
+    /**
+     * LDA - Load Accumulator - Absolute,X
+     */
+    private void opLDA_ABX() {
+        state.args[0] = fetch();
+        state.args[1] = fetch();
+        state.args[0] = (state.args[0] + state.x) & 0xff;
+
+        if (state.args[0] < state.x) {
+            read(address(state.args[0], state.args[1]));
+            state.args[1] = (state.args[1] + 1) & 0xff;
+        }
+
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        checkInterrupts();
+        state.a = read(effectiveAddress);
+        setArithmeticFlags(state.a);
+    }
+
+    /**
+     * LDX - Load X Register - Absolute,Y
+     */
+    private void opLDX_ABY() {
+        state.args[0] = fetch();
+        state.args[1] = fetch();
+        state.args[0] = (state.args[0] + state.y) & 0xff;
+
+        if (state.args[0] < state.y) {
+            read(address(state.args[0], state.args[1]));
+            state.args[1] = (state.args[1] + 1) & 0xff;
+        }
+
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        checkInterrupts();
+        state.x = read(effectiveAddress);
+        setArithmeticFlags(state.x);
+    }
+
+    /**
+     * LAX - Load Accumulator and X - Absolute,Y
+     */
+    private void opLAX_ABY() {
+        state.args[0] = fetch();
+        state.args[1] = fetch();
+        state.args[0] = (state.args[0] + state.y) & 0xff;
+
+        if (state.args[0] < state.y) {
+            read(address(state.args[0], state.args[1]));
+            state.args[1] = (state.args[1] + 1) & 0xff;
+        }
+
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        checkInterrupts();
+        state.a = state.x = read(effectiveAddress);
+        setArithmeticFlags(state.a);
+    }
+
+    /**
+     * CPY - Compare Y Register - #Immediate
+     */
+    private void opCPYImm() {
+        state.args[0] = fetch();
+
+        cmp(state.y, state.args[0]);
+    }
+
+    /**
+     * CMP - Compare Accumulator - (Zero Page,X)
+     */
+    private void opCMP_INX() {
+        tmp = fetch();
+        tmp = (tmp + state.x) & 0xff;
+        dispatch();
+        state.args[0] = read(tmp);
+        tmp = (tmp + 1) & 0xff;
+        state.args[1] = read(tmp);
+        tmp = (tmp + 1) & 0xff;
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        cmp(state.a, read(effectiveAddress));
+    }
+
+    /**
+     * DCP - DEC + CMP - (Zero Page,X)
+     */
+    private void opDCP_INX() {
+        tmp = fetch();
+        tmp = (tmp + state.x) & 0xff;
+        dispatch();
+        state.args[0] = read(tmp);
+        tmp = (tmp + 1) & 0xff;
+        state.args[1] = read(tmp);
+        tmp = (tmp + 1) & 0xff;
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        tmp = read(effectiveAddress);
+        write(effectiveAddress, tmp);
+        tmp = (tmp - 1) & 0xff;
+        checkInterrupts();
+        cmp(state.a, tmp);
+        write(effectiveAddress, tmp);
+    }
+
+    /**
+     * CPY - Compare Y Register - Zero Page
+     */
+    private void opCPY_ZPG() {
+        effectiveAddress = fetch();
+
+        cmp(state.y, read(effectiveAddress));
+    }
+
+    /**
+     * CMP - Compare Accumulator - Zero Page
+     */
+    private void opCMP_ZPG() {
+        effectiveAddress = fetch();
+
+        cmp(state.a, read(effectiveAddress));
+    }
+
+    /**
+     * DEC - Decrement Memory - Zero Page
+     */
+    private void opDEC_ZPG() {
+        effectiveAddress = fetch();
+
+        tmp = read(effectiveAddress);
+        write(effectiveAddress, tmp);
+        tmp = (tmp - 1) & 0xff;
+        checkInterrupts();
+        write(effectiveAddress, tmp);
+        setArithmeticFlags(tmp);
+    }
+
+    /**
+     * DCP - DEC + CMP - Zero Page
+     */
+    private void opDCP_ZPG() {
+        effectiveAddress = fetch();
+
+        tmp = read(effectiveAddress);
+        write(effectiveAddress, tmp);
+        tmp = (tmp - 1) & 0xff;
+        checkInterrupts();
+        cmp(state.a, tmp);
+        write(effectiveAddress, tmp);
+    }
+
+    /**
+     * INY - INcrement Y - Implied
+     */
+    private void opINY() {
+        checkInterrupts();
+        read(state.pc);
+
+        state.y = (state.y + 1) & 0xff;
+        setArithmeticFlags(state.y);
+    }
+
+    /**
+     * CMP - Compare Accumulator - #Immediate
+     */
+    private void opCMPImm() {
+        state.args[0] = fetch();
+
+        cmp(state.a, state.args[0]);
+    }
+
+    /**
+     * DEX - DEcrement X - Implied
+     */
+    private void opDEX() {
+        checkInterrupts();
+        read(state.pc);
+
+        state.x = (state.x - 1) & 0xff;
+        setArithmeticFlags(state.x);
+    }
+
+    /**
+     * AXS - Stores (A & X - #imm) into X - #Immediate
+     */
+    private void opAXSImm() {
+        state.args[0] = fetch();
+
+        checkInterrupts();
+        state.x = (state.a & state.x) - state.args[0];
+        setArithmeticFlags(state.x);
+        setCarryFlag(state.x >= 0);
+    }
+
+    /**
+     * CPY - Compare Y Register - Absolute
+     */
+    private void opCPY_ABS() {
+        state.args[0] = fetch();
+        state.args[1] = fetch();
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        cmp(state.y, read(effectiveAddress));
+    }
+
+    /**
+     * CMP - Compare Accumulator - Absolute
+     */
+    private void opCMP_ABS() {
+        state.args[0] = fetch();
+        state.args[1] = fetch();
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        cmp(state.a, read(effectiveAddress));
+    }
+
+    /**
+     * DEC - Decrement Memory - Absolute
+     */
+    private void opDEC_ABS() {
+        state.args[0] = fetch();
+        state.args[1] = fetch();
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        tmp = read(effectiveAddress);
+        write(effectiveAddress, tmp);
+        tmp = (tmp - 1) & 0xff;
+        checkInterrupts();
+        write(effectiveAddress, tmp);
+        setArithmeticFlags(tmp);
+    }
+
+    /**
+     * DCP - DEC + CMP - Absolute
+     */
+    private void opDCP_ABS() {
+        state.args[0] = fetch();
+        state.args[1] = fetch();
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        tmp = read(effectiveAddress);
+        write(effectiveAddress, tmp);
+        tmp = (tmp - 1) & 0xff;
+        checkInterrupts();
+        cmp(state.a, tmp);
+        write(effectiveAddress, tmp);
+    }
+
+    /**
+     * BNE - Branch on Not Equal - Relative
+     */
+    private void opBNE() {
+        state.args[0] = fetch();
+
+        branch(!getZeroFlag());
+    }
+
+    /**
+     * CMP - Compare Accumulator - (Zero Page),Y
+     */
+    private void opCMP_INY() {
+        tmp = fetch();
+        state.args[0] = read(tmp);
+        tmp = (tmp + 1) & 0xff;
+        state.args[1] = read(tmp);
+        tmp = (tmp + 1) & 0xff;
+        state.args[0] = (state.args[0] + state.y) & 0xff;
+
+        if (state.args[0] < state.y) {
+            read(address(state.args[0], state.args[1]));
+            state.args[1] = (state.args[1] + 1) & 0xff;
+        }
+
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        cmp(state.a, read(effectiveAddress));
+    }
+
+    /**
+     * DCP - DEC + CMP - (Zero Page),Y
+     */
+    private void opDCP_INY() {
+        tmp = fetch();
+        state.args[0] = read(tmp);
+        tmp = (tmp + 1) & 0xff;
+        state.args[1] = read(tmp);
+        tmp = (tmp + 1) & 0xff;
+        state.args[0] = (state.args[0] + state.y) & 0xff;
+        read(address(state.args[0], state.args[1]));
+
+        if (state.args[0] < state.y) {
+            state.args[1] = (state.args[1] + 1) & 0xff;
+        }
+
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        tmp = read(effectiveAddress);
+        write(effectiveAddress, tmp);
+        tmp = (tmp - 1) & 0xff;
+        checkInterrupts();
+        cmp(state.a, tmp);
+        write(effectiveAddress, tmp);
+    }
+
+    /**
+     * CMP - Compare Accumulator - Zero Page,X
+     */
+    private void opCMP_ZPX() {
+        effectiveAddress = fetch();
+        read(effectiveAddress);
+        effectiveAddress = (effectiveAddress + state.x) & 0xff;
+
+        cmp(state.a, read(effectiveAddress));
+    }
+
+    /**
+     * DEC - Decrement Memory - Zero Page,X
+     */
+    private void opDEC_ZPX() {
+        effectiveAddress = fetch();
+        read(effectiveAddress);
+        effectiveAddress = (effectiveAddress + state.x) & 0xff;
+
+        tmp = read(effectiveAddress);
+        write(effectiveAddress, tmp);
+        tmp = (tmp - 1) & 0xff;
+        checkInterrupts();
+        write(effectiveAddress, tmp);
+        setArithmeticFlags(tmp);
+    }
+
+    /**
+     * DCP - DEC + CMP - Zero Page,X
+     */
+    private void opDCP_ZPX() {
+        effectiveAddress = fetch();
+        read(effectiveAddress);
+        effectiveAddress = (effectiveAddress + state.x) & 0xff;
+
+        tmp = read(effectiveAddress);
+        write(effectiveAddress, tmp);
+        tmp = (tmp - 1) & 0xff;
+        checkInterrupts();
+        cmp(state.a, tmp);
+        write(effectiveAddress, tmp);
+    }
+
+    /**
+     * CLD - CLear Decimal - Implied
+     */
+    private void opCLD() {
+        checkInterrupts();
+        read(state.pc);
+
+        clearDecimalModeFlag();
+    }
+
+    /**
+     * CMP - Compare Accumulator - Absolute,Y
+     */
+    private void opCMP_ABY() {
+        state.args[0] = fetch();
+        state.args[1] = fetch();
+        state.args[0] = (state.args[0] + state.y) & 0xff;
+
+        if (state.args[0] < state.y) {
+            read(address(state.args[0], state.args[1]));
+            state.args[1] = (state.args[1] + 1) & 0xff;
+        }
+
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        cmp(state.a, read(effectiveAddress));
+    }
+
+    /**
+     * DCP - DEC + CMP - Absolute,Y
+     */
+    private void opDCP_ABY() {
+        state.args[0] = fetch();
+        state.args[1] = fetch();
+        state.args[0] = (state.args[0] + state.y) & 0xff;
+        read(address(state.args[0], state.args[1]));
+
+        if (state.args[0] < state.y) {
+            state.args[1] = (state.args[1] + 1) & 0xff;
+        }
+
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        tmp = read(effectiveAddress);
+        write(effectiveAddress, tmp);
+        tmp = (tmp - 1) & 0xff;
+        checkInterrupts();
+        cmp(state.a, tmp);
+        write(effectiveAddress, tmp);
+    }
+
+    /**
+     * CMP - Compare Accumulator - Absolute,X
+     */
+    private void opCMP_ABX() {
+        state.args[0] = fetch();
+        state.args[1] = fetch();
+        state.args[0] = (state.args[0] + state.x) & 0xff;
+
+        if (state.args[0] < state.x) {
+            read(address(state.args[0], state.args[1]));
+            state.args[1] = (state.args[1] + 1) & 0xff;
+        }
+
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        cmp(state.a, read(effectiveAddress));
+    }
+
+    /**
+     * DEC - Decrement Memory - Absolute,X
+     */
+    private void opDEC_ABX() {
+        state.args[0] = fetch();
+        state.args[1] = fetch();
+        state.args[0] = (state.args[0] + state.x) & 0xff;
+        read(address(state.args[0], state.args[1]));
+
+        if (state.args[0] < state.x) {
+            state.args[1] = (state.args[1] + 1) & 0xff;
+        }
+
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        tmp = read(effectiveAddress);
+        write(effectiveAddress, tmp);
+        tmp = (tmp - 1) & 0xff;
+        checkInterrupts();
+        write(effectiveAddress, tmp);
+        setArithmeticFlags(tmp);
+    }
+
+    /**
+     * DCP - DEC + CMP - Absolute,X
+     */
+    private void opDCP_ABX() {
+        state.args[0] = fetch();
+        state.args[1] = fetch();
+        state.args[0] = (state.args[0] + state.x) & 0xff;
+        read(address(state.args[0], state.args[1]));
+
+        if (state.args[0] < state.x) {
+            state.args[1] = (state.args[1] + 1) & 0xff;
+        }
+
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        tmp = read(effectiveAddress);
+        write(effectiveAddress, tmp);
+        tmp = (tmp - 1) & 0xff;
+        checkInterrupts();
+        cmp(state.a, tmp);
+        write(effectiveAddress, tmp);
+    }
+
+    /**
+     * CPX - Compare X Register - #Immediate
+     */
+    private void opCPXImm() {
+        state.args[0] = fetch();
+
+        cmp(state.x, state.args[0]);
+    }
+
+    /**
+     * SBC - Subtract with Carry (Borrow) - (Zero Page,X)
+     */
+    private void opSBC_INX() {
+        tmp = fetch();
+        tmp = (tmp + state.x) & 0xff;
+        dispatch();
+        state.args[0] = read(tmp);
+        tmp = (tmp + 1) & 0xff;
+        state.args[1] = read(tmp);
+        tmp = (tmp + 1) & 0xff;
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        state.a = sbc(state.a, read(effectiveAddress));
+    }
+
+    /**
+     * ISC - INC + SBC - (Zero Page,X)
+     */
+    private void opISC_INX() {
+        tmp = fetch();
+        tmp = (tmp + state.x) & 0xff;
+        dispatch();
+        state.args[0] = read(tmp);
+        tmp = (tmp + 1) & 0xff;
+        state.args[1] = read(tmp);
+        tmp = (tmp + 1) & 0xff;
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        tmp = read(effectiveAddress);
+        write(effectiveAddress, tmp);
+        tmp = (tmp + 1) & 0xff;
+        checkInterrupts();
+        state.a = sbc(state.a, tmp);
+        write(effectiveAddress, tmp);
+    }
+
+    /**
+     * CPX - Compare X Register - Zero Page
+     */
+    private void opCPX_ZPG() {
+        effectiveAddress = fetch();
+
+        cmp(state.x, read(effectiveAddress));
+    }
+
+    /**
+     * SBC - Subtract with Carry (Borrow) - Zero Page
+     */
+    private void opSBC_ZPG() {
+        effectiveAddress = fetch();
+
+        state.a = sbc(state.a, read(effectiveAddress));
+    }
+
+    /**
+     * INC - Increment Memory - Zero Page
+     */
+    private void opINC_ZPG() {
+        effectiveAddress = fetch();
+
+        tmp = read(effectiveAddress);
+        write(effectiveAddress, tmp);
+        tmp = (tmp + 1) & 0xff;
+        checkInterrupts();
+        write(effectiveAddress, tmp);
+        setArithmeticFlags(tmp);
+    }
+
+    /**
+     * ISC - INC + SBC - Zero Page
+     */
+    private void opISC_ZPG() {
+        effectiveAddress = fetch();
+
+        tmp = read(effectiveAddress);
+        write(effectiveAddress, tmp);
+        tmp = (tmp + 1) & 0xff;
+        checkInterrupts();
+        state.a = sbc(state.a, tmp);
+        write(effectiveAddress, tmp);
+    }
+
+    /**
+     * INX - INcrement X - Implied
+     */
+    private void opINX() {
+        checkInterrupts();
+        read(state.pc);
+
+        state.x = (state.x + 1) & 0xff;
+        setArithmeticFlags(state.x);
+    }
+
+    /**
+     * SBC - Subtract with Carry (Borrow) - #Immediate
+     */
+    private void opSBCImm() {
+        state.args[0] = fetch();
+
+        state.a = sbc(state.a, state.args[0]);
+    }
+
+    /**
+     * CPX - Compare X Register - Absolute
+     */
+    private void opCPX_ABS() {
+        state.args[0] = fetch();
+        state.args[1] = fetch();
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        cmp(state.x, read(effectiveAddress));
+    }
+
+    /**
+     * SBC - Subtract with Carry (Borrow) - Absolute
+     */
+    private void opSBC_ABS() {
+        state.args[0] = fetch();
+        state.args[1] = fetch();
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        state.a = sbc(state.a, read(effectiveAddress));
+    }
+
+    /**
+     * INC - Increment Memory - Absolute
+     */
+    private void opINC_ABS() {
+        state.args[0] = fetch();
+        state.args[1] = fetch();
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        tmp = read(effectiveAddress);
+        write(effectiveAddress, tmp);
+        tmp = (tmp + 1) & 0xff;
+        checkInterrupts();
+        write(effectiveAddress, tmp);
+        setArithmeticFlags(tmp);
+    }
+
+    /**
+     * ISC - INC + SBC - Absolute
+     */
+    private void opISC_ABS() {
+        state.args[0] = fetch();
+        state.args[1] = fetch();
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        tmp = read(effectiveAddress);
+        write(effectiveAddress, tmp);
+        tmp = (tmp + 1) & 0xff;
+        checkInterrupts();
+        state.a = sbc(state.a, tmp);
+        write(effectiveAddress, tmp);
+    }
+
+    /**
+     * BEQ - Branch on EQual - Relative
+     */
+    private void opBEQ() {
+        state.args[0] = fetch();
+
+        branch(getZeroFlag());
+    }
 
+    /**
+     * SBC - Subtract with Carry (Borrow) - (Zero Page),Y
+     */
+    private void opSBC_INY() {
+        tmp = fetch();
+        state.args[0] = read(tmp);
+        tmp = (tmp + 1) & 0xff;
+        state.args[1] = read(tmp);
+        tmp = (tmp + 1) & 0xff;
+        state.args[0] = (state.args[0] + state.y) & 0xff;
 
-            /** AND - Logical AND ***************************************************/
-            case 0x29: // #Immediate
-                checkInterrupts();
-                state.a &= state.args[0];
-                setArithmeticFlags(state.a);
-                break;
-            case 0x21: // (Zero Page,X)
-            case 0x25: // Zero Page
-            case 0x2d: // Absolute
-            case 0x31: // (Zero Page),Y
-            case 0x35: // Zero Page,X
-            case 0x39: // Absolute,Y
-            case 0x3d: // Absolute,X
-                checkInterrupts();
-                state.a &= read(effectiveAddress);
-                setArithmeticFlags(state.a);
-                break;
-
+        if (state.args[0] < state.y) {
+            read(address(state.args[0], state.args[1]));
+            state.args[1] = (state.args[1] + 1) & 0xff;
+        }
 
-            /** ROL - Rotate Left ***************************************************/
-            case 0x2a: // Accumulator
-                state.a = rol(state.a);
-                setArithmeticFlags(state.a);
-                break;
-            case 0x26: // Zero Page
-            case 0x2e: // Absolute
-            case 0x36: // Zero Page,X
-            case 0x3e: // Absolute,X
-                tmp = read(effectiveAddress);
-                write(effectiveAddress, tmp);
-                tmp = rol(tmp);
-                checkInterrupts();
-                write(effectiveAddress, tmp);
-                setArithmeticFlags(tmp);
-                break;
+        effectiveAddress = address(state.args[0], state.args[1]);
 
+        state.a = sbc(state.a, read(effectiveAddress));
+    }
 
-            /** EOR - Exclusive OR **************************************************/
-            case 0x49: // #Immediate
-                checkInterrupts();
-                state.a ^= state.args[0];
-                setArithmeticFlags(state.a);
-                break;
-            case 0x41: // (Zero Page,X)
-            case 0x45: // Zero Page
-            case 0x4d: // Absolute
-            case 0x51: // (Zero Page,Y)
-            case 0x55: // Zero Page,X
-            case 0x59: // Absolute,Y
-            case 0x5d: // Absolute,X
-                checkInterrupts();
-                state.a ^= read(effectiveAddress);
-                setArithmeticFlags(state.a);
-                break; 
-
-
-            /** LSR - Logical Shift Right *******************************************/
-            case 0x4a: // Accumulator
-                state.a = lsr(state.a);
-                setArithmeticFlags(state.a);
-                break;
-            case 0x46: // Zero Page
-            case 0x4e: // Absolute
-            case 0x56: // Zero Page,X
-            case 0x5e: // Absolute,X
-                tmp = read(effectiveAddress);
-                write(effectiveAddress, tmp);
-                tmp = lsr(tmp);
-                checkInterrupts();
-                write(effectiveAddress, tmp);
-                setArithmeticFlags(tmp);
-                break;
+    /**
+     * ISC - INC + SBC - (Zero Page),Y
+     */
+    private void opISC_INY() {
+        tmp = fetch();
+        state.args[0] = read(tmp);
+        tmp = (tmp + 1) & 0xff;
+        state.args[1] = read(tmp);
+        tmp = (tmp + 1) & 0xff;
+        state.args[0] = (state.args[0] + state.y) & 0xff;
+        read(address(state.args[0], state.args[1]));
 
+        if (state.args[0] < state.y) {
+            state.args[1] = (state.args[1] + 1) & 0xff;
+        }
 
-            /** ADC - Add with Carry ************************************************/
-            case 0x69: // #Immediate
-                state.a = adc(state.a, state.args[0]);
-                break;
-            case 0x61: // (Zero Page,X)
-            case 0x65: // Zero Page
-            case 0x6d: // Absolute
-            case 0x71: // (Zero Page),Y
-            case 0x75: // Zero Page,X
-            case 0x79: // Absolute,Y
-            case 0x7d: // Absolute,X
-                state.a = adc(state.a, read(effectiveAddress));
-                break;
+        effectiveAddress = address(state.args[0], state.args[1]);
 
+        tmp = read(effectiveAddress);
+        write(effectiveAddress, tmp);
+        tmp = (tmp + 1) & 0xff;
+        checkInterrupts();
+        state.a = sbc(state.a, tmp);
+        write(effectiveAddress, tmp);
+    }
 
-            /** ROR - Rotate Right **************************************************/
-            case 0x6a: // Accumulator
-                state.a = ror(state.a);
-                setArithmeticFlags(state.a);
-                break;
-            case 0x66: // Zero Page
-            case 0x6e: // Absolute
-            case 0x76: // Zero Page,X
-            case 0x7e: // Absolute,X
-                tmp = read(effectiveAddress);
-                write(effectiveAddress, tmp);
-                tmp = ror(tmp);
-                checkInterrupts();
-                write(effectiveAddress, tmp);
-                setArithmeticFlags(tmp);
-                break;
+    /**
+     * SBC - Subtract with Carry (Borrow) - Zero Page,X
+     */
+    private void opSBC_ZPX() {
+        effectiveAddress = fetch();
+        read(effectiveAddress);
+        effectiveAddress = (effectiveAddress + state.x) & 0xff;
 
+        state.a = sbc(state.a, read(effectiveAddress));
+    }
 
-            /** STA - Store Accumulator *********************************************/
-            case 0x81: // (Zero Page,X)
-            case 0x85: // Zero Page
-            case 0x8d: // Absolute
-            case 0x91: // (Zero Page),Y
-            case 0x95: // Zero Page,X
-            case 0x99: // Absolute,Y
-            case 0x9d: // Absolute,X
-                checkInterrupts();
-                write(effectiveAddress, state.a);
-                break;
+    /**
+     * INC - Increment Memory - Zero Page,X
+     */
+    private void opINC_ZPX() {
+        effectiveAddress = fetch();
+        read(effectiveAddress);
+        effectiveAddress = (effectiveAddress + state.x) & 0xff;
 
+        tmp = read(effectiveAddress);
+        write(effectiveAddress, tmp);
+        tmp = (tmp + 1) & 0xff;
+        checkInterrupts();
+        write(effectiveAddress, tmp);
+        setArithmeticFlags(tmp);
+    }
 
-            /** STY - Store Y Register **********************************************/
-            case 0x84: // Zero Page
-            case 0x8c: // Absolute
-            case 0x94: // Zero Page,X
-                checkInterrupts();
-                write(effectiveAddress, state.y);
-                break;
+    /**
+     * ISC - INC + SBC - Zero Page,X
+     */
+    private void opISC_ZPX() {
+        effectiveAddress = fetch();
+        read(effectiveAddress);
+        effectiveAddress = (effectiveAddress + state.x) & 0xff;
 
+        tmp = read(effectiveAddress);
+        write(effectiveAddress, tmp);
+        tmp = (tmp + 1) & 0xff;
+        checkInterrupts();
+        state.a = sbc(state.a, tmp);
+        write(effectiveAddress, tmp);
+    }
 
-            /** STX - Store X Register **********************************************/
-            case 0x86: // Zero Page
-            case 0x8e: // Absolute
-            case 0x96: // Zero Page,Y
-                checkInterrupts();
-                write(effectiveAddress, state.x);
-                break;
+    /**
+     * SED - SEt Decimal - Implied
+     */
+    private void opSED() {
+        checkInterrupts();
+        read(state.pc);
 
+        setDecimalModeFlag();
+    }
 
-            /** LDY - Load Y Register ***********************************************/
-            case 0xa0: // #Immediate
-                checkInterrupts();
-                state.y = state.args[0];
-                setArithmeticFlags(state.y);
-                break;
-            case 0xa4: // Zero Page
-            case 0xac: // Absolute
-            case 0xb4: // Zero Page,X
-            case 0xbc: // Absolute,X
-                checkInterrupts();
-                state.y = read(effectiveAddress);
-                setArithmeticFlags(state.y);
-                break;
+    /**
+     * SBC - Subtract with Carry (Borrow) - Absolute,Y
+     */
+    private void opSBC_ABY() {
+        state.args[0] = fetch();
+        state.args[1] = fetch();
+        state.args[0] = (state.args[0] + state.y) & 0xff;
 
+        if (state.args[0] < state.y) {
+            read(address(state.args[0], state.args[1]));
+            state.args[1] = (state.args[1] + 1) & 0xff;
+        }
 
-            /** LDX - Load X Register ***********************************************/
-            case 0xa2: // #Immediate
-                state.x = state.args[0];
-                setArithmeticFlags(state.x);
-                break;
-            case 0xa6: // Zero Page
-            case 0xae: // Absolute
-            case 0xb6: // Zero Page,Y
-            case 0xbe: // Absolute,Y
-                checkInterrupts();
-                state.x = read(effectiveAddress);
-                setArithmeticFlags(state.x);
-                break;
+        effectiveAddress = address(state.args[0], state.args[1]);
 
+        state.a = sbc(state.a, read(effectiveAddress));
+    }
 
-            /** LDA - Load Accumulator **********************************************/
-            case 0xa9: // #Immediate
-                checkInterrupts();
-                state.a = state.args[0];
-                setArithmeticFlags(state.a);
-                break;
-            case 0xa1: // (Zero Page,X)
-            case 0xa5: // Zero Page
-            case 0xad: // Absolute
-            case 0xb1: // (Zero Page),Y
-            case 0xb5: // Zero Page,X
-            case 0xb9: // Absolute,Y
-            case 0xbd: // Absolute,X
-                checkInterrupts();
-                state.a = read(effectiveAddress);
-                setArithmeticFlags(state.a);
-                break;
+    /**
+     * ISC - INC + SBC - Absolute,Y
+     */
+    private void opISC_ABY() {
+        state.args[0] = fetch();
+        state.args[1] = fetch();
+        state.args[0] = (state.args[0] + state.y) & 0xff;
+        read(address(state.args[0], state.args[1]));
 
+        if (state.args[0] < state.y) {
+            state.args[1] = (state.args[1] + 1) & 0xff;
+        }
 
-            /** CPY - Compare Y Register ********************************************/
-            case 0xc0: // #Immediate
-                cmp(state.y, state.args[0]);
-                break;
-            case 0xc4: // Zero Page
-            case 0xcc: // Absolute
-                cmp(state.y, read(effectiveAddress));
-                break;
+        effectiveAddress = address(state.args[0], state.args[1]);
 
+        tmp = read(effectiveAddress);
+        write(effectiveAddress, tmp);
+        tmp = (tmp + 1) & 0xff;
+        checkInterrupts();
+        state.a = sbc(state.a, tmp);
+        write(effectiveAddress, tmp);
+    }
 
-            /** CMP - Compare Accumulator *******************************************/
-            case 0xc9: // #Immediate
-                cmp(state.a, state.args[0]);
-                break;
-            case 0xc1: // (Zero Page,X)
-            case 0xc5: // Zero Page
-            case 0xcd: // Absolute
-            case 0xd1: // (Zero Page),Y
-            case 0xd5: // Zero Page,X
-            case 0xd9: // Absolute,Y
-            case 0xdd: // Absolute,X
-                cmp(state.a, read(effectiveAddress));
-                break;
+    /**
+     * SBC - Subtract with Carry (Borrow) - Absolute,X
+     */
+    private void opSBC_ABX() {
+        state.args[0] = fetch();
+        state.args[1] = fetch();
+        state.args[0] = (state.args[0] + state.x) & 0xff;
 
+        if (state.args[0] < state.x) {
+            read(address(state.args[0], state.args[1]));
+            state.args[1] = (state.args[1] + 1) & 0xff;
+        }
 
-            /** DEC - Decrement Memory **********************************************/
-            case 0xc6: // Zero Page
-            case 0xce: // Absolute
-            case 0xd6: // Zero Page,X
-            case 0xde: // Absolute,X
-                tmp = read(effectiveAddress);
-                write(effectiveAddress, tmp);
-                tmp = (tmp - 1) & 0xff;
-                checkInterrupts();
-                write(effectiveAddress, tmp);
-                setArithmeticFlags(tmp);
-                break;
+        effectiveAddress = address(state.args[0], state.args[1]);
 
+        state.a = sbc(state.a, read(effectiveAddress));
+    }
 
-            /** CPX - Compare X Register ********************************************/
-            case 0xe0: // #Immediate
-                cmp(state.x, state.args[0]);
-                break;
-            case 0xe4: // Zero Page
-            case 0xec: // Absolute
-                cmp(state.x, read(effectiveAddress));
-                break;
+    /**
+     * INC - Increment Memory - Absolute,X
+     */
+    private void opINC_ABX() {
+        state.args[0] = fetch();
+        state.args[1] = fetch();
+        state.args[0] = (state.args[0] + state.x) & 0xff;
+        read(address(state.args[0], state.args[1]));
 
+        if (state.args[0] < state.x) {
+            state.args[1] = (state.args[1] + 1) & 0xff;
+        }
 
-            /** SBC - Subtract with Carry (Borrow) **********************************/
-            case 0xe9: // #Immediate
-            case 0xeb: // #Immediate
-                state.a = sbc(state.a, state.args[0]);
-                break;
-            case 0xe1: // (Zero Page,X)
-            case 0xe5: // Zero Page
-            case 0xed: // Absolute
-            case 0xf1: // (Zero Page),Y
-            case 0xf5: // Zero Page,X
-            case 0xf9: // Absolute,Y
-            case 0xfd: // Absolute,X
-                state.a = sbc(state.a, read(effectiveAddress));
-                break;
+        effectiveAddress = address(state.args[0], state.args[1]);
 
+        tmp = read(effectiveAddress);
+        write(effectiveAddress, tmp);
+        tmp = (tmp + 1) & 0xff;
+        checkInterrupts();
+        write(effectiveAddress, tmp);
+        setArithmeticFlags(tmp);
+    }
 
-            /** INC - Increment Memory **********************************************/
-            case 0xe6: // Zero Page
-            case 0xee: // Absolute
-            case 0xf6: // Zero Page,X
-            case 0xfe: // Absolute,X
-                tmp = read(effectiveAddress);
-                write(effectiveAddress, tmp);
-                tmp = (tmp + 1) & 0xff;
-                checkInterrupts();
-                write(effectiveAddress, tmp);
-                setArithmeticFlags(tmp);
-                break;
-                
-            /** SLO - ASL + ORA **********************************************/
-            case 0x03: // (Zero Page,X)
-            case 0x07: // Zero Page
-            case 0x0F: // Absolute
-            case 0x13: // (Zero Page),Y
-            case 0x17: // Zero Page,X
-            case 0x1B: // Absolute,Y
-            case 0x1F: // Absolute,X
-                tmp = read(effectiveAddress);
-                write(effectiveAddress, tmp);
-                setCarryFlag(Tools.getbit(tmp, 7));
-                tmp = asl(tmp);
-                checkInterrupts();
-                state.a |= tmp;
-                setArithmeticFlags(state.a);
-                write(effectiveAddress, tmp);
-                break;
-                
-            /** ANC - AND byte and set carry***********************************/
-            case 0x0B: // #Immediate
-            case 0x2B: // #Immediate
-                checkInterrupts();
-                state.a &= state.args[0];
-                setCarryFlag(Tools.getbit(state.a, 7));
-                setArithmeticFlags(state.a);
-                break;
-           
-            /** RLA - AND + ROL **********************************************/
-            case 0x23: // (Zero Page,X)
-            case 0x27: // Zero Page
-            case 0x2F: // Absolute
-            case 0x33: // (Zero Page),Y
-            case 0x37: // Zero Page,X
-            case 0x3B: // Absolute,Y
-            case 0x3F: // Absolute,X
-                tmp = read(effectiveAddress);
-                write(effectiveAddress, tmp);
-                final boolean carry = Tools.getbit(tmp, 7);
-                tmp = rol(tmp);
-                setCarryFlag(carry);
-                checkInterrupts();
-                state.a &= tmp;
-                setArithmeticFlags(state.a);
-                write(effectiveAddress, tmp);
-                break;
-                
-             /** SRE - LSR + EOR **********************************************/
-            case 0x43: // (Zero Page,X)
-            case 0x47: // Zero Page
-            case 0x4F: // Absolute
-            case 0x53: // (Zero Page),Y
-            case 0x57: // Zero Page,X
-            case 0x5B: // Absolute,Y
-            case 0x5F: // Absolute,X
-                tmp = read(effectiveAddress);
-                write(effectiveAddress, tmp);
-                tmp = lsr(tmp);
-                checkInterrupts();
-                state.a ^= tmp;
-                write(effectiveAddress, tmp);
-                setArithmeticFlags(state.a);
-                break;
-                
-             /** ALR - AND + LSR **********************************************/
-            case 0x4B: // #Immediate
-                checkInterrupts();
-                state.a &= state.args[0];
-                state.a = lsr(state.a);
-                setArithmeticFlags(state.a);
-                break;
-                
-             /** RRA - ROR + ADC **********************************************/
-            case 0x63: // (Zero Page,X)
-            case 0x67: // Zero Page
-            case 0x6F: // Absolute
-            case 0x73: // (Zero Page),Y
-            case 0x77: // Zero Page,X
-            case 0x7B: // Absolute,Y
-            case 0x7F: // Absolute,X
-                tmp = read(effectiveAddress);
-                write(effectiveAddress, tmp);
-                tmp = ror(tmp);
-                checkInterrupts();
-                write(effectiveAddress, tmp);
-                state.a = adc(state.a, tmp);
-                break;
-            
-            /** ARR - AND + LSR **********************************************/
-            case 0x6B: // #Immediate
-                checkInterrupts();
-                state.a &= state.args[0];
-                final boolean carryTemp = Tools.getbit(state.a, 0);
-                state.a = ((state.a >> 1) | (getCarryFlag() ? 0x80 : 0x00));
-                setCarryFlag(carryTemp);
-                
-                if (Tools.getbit(state.a, 5)) {
-                    if (Tools.getbit(state.a, 6)) {
-                        setCarryFlag();
-                        clearOverflowFlag();
-                    } else {
-                        clearCarryFlag();
-                        setOverflowFlag();
-                    }
-                } else if (Tools.getbit(state.a, 6)) {
-                    setCarryFlag();
-                    setOverflowFlag();
-                } else {
-                    clearCarryFlag();
-                    clearOverflowFlag();
-                }
+    /**
+     * ISC - INC + SBC - Absolute,X
+     */
+    private void opISC_ABX() {
+        state.args[0] = fetch();
+        state.args[1] = fetch();
+        state.args[0] = (state.args[0] + state.x) & 0xff;
+        read(address(state.args[0], state.args[1]));
 
-                setArithmeticFlags(state.a);
-                break;
-                
-            /** SAX - Store A & X *********************************************/
-            case 0x83: // (Zero Page,X)
-            case 0x87: // Zero Page
-            case 0x8F: // Absolute
-            case 0x97: // Zero Page,Y
-                checkInterrupts();
-                write(effectiveAddress, state.a & state.x);
-                break;
-                
-           /** XAA - TXA + AND ************************************************/
-            case 0x8B: // #Immediate
-                checkInterrupts();
-                state.a = state.x;
-                state.a &= state.args[0];
-                setArithmeticFlags(state.a);
-                break;
-                
-            /** AHX - Store A & X & high byte of the address in memory*********/    
-            case 0x93: // (Zero Page),Y
-            case 0x9F: // Absolute,Y
-                lo = effectiveAddress & 0xFF;
-                hi = (effectiveAddress >> 8) & 0xFF;
-                tmp = (state.a & state.x & (hi + 1)) & 0xFF;
-                
-                read(effectiveAddress);
-                lo = (lo + state.y) & 0xFF;
-                
-                if (lo < state.y) {
-                    hi = tmp;
-                }
-                
-                checkInterrupts();
-                write(address(lo, hi), tmp);
-                break;
-                
-             /** TAS - Store A & X & high byte of the address in SP ***********/    
-            case 0x9B: // Absolute,Y
-                state.sp = state.a & state.x;                
-                lo = effectiveAddress & 0xFF;
-                hi = (effectiveAddress >> 8) & 0xFF;
-                tmp = (state.sp & (hi + 1)) & 0xFF;
-                
-                read(effectiveAddress);
-                lo = (lo + state.y) & 0xFF;
-                
-                if (lo < state.y) {
-                    hi = tmp;
-                }
-                
-                checkInterrupts();
-                write(address(lo, hi), tmp);
-                break;
-                
-             /** SHY - Store Y & high byte of the address in memory ***********/    
-            case 0x9C: // Absolute,X
-                lo = effectiveAddress & 0xFF;
-                hi = (effectiveAddress >> 8) & 0xFF;
-                tmp = (state.y & (hi + 1)) & 0xFF;
-                
-                read(effectiveAddress);
-                lo = (lo + state.x) & 0xFF;
-                
-                if (lo < state.x) {
-                    hi = tmp;
-                }
-                
-                checkInterrupts();
-                write(address(lo, hi), tmp);
-                break;
-                
-             /** SHX - Store X & high byte of the address in memory ***********/    
-            case 0x9E: // Absolute,Y
-                lo = effectiveAddress & 0xFF;
-                hi = (effectiveAddress >> 8) & 0xFF;
-                tmp = (state.x & (hi + 1)) & 0xFF;
-                
-                read(effectiveAddress);
-                lo = (lo + state.y) & 0xFF;
-                
-                if (lo < state.y) {
-                    hi = tmp;
-                }
-                
-                checkInterrupts();
-                write(address(lo, hi), tmp);
-                break;
-            
-             /** LAX - Load Accumulator and X *********************************/ 
-            case 0xAB: // #Immediate
-                checkInterrupts();
-                state.a = state.x = state.args[0];
-                setArithmeticFlags(state.a);
-                break;
-            case 0xA3: // (Zero Page,X)
-            case 0xA7: // Zero Page
-            case 0xAF: // Absolute
-            case 0xB3: // (Zero Page),Y
-            case 0xB7: // Zero Page,Y
-            case 0xBF: // Absolute,Y
-                checkInterrupts();
-                state.a = state.x = read(effectiveAddress);
-                setArithmeticFlags(state.a);
-                break;    
-           
-            /** LAS - Load Accumulator, X and ANDed SP ******************************/    
-            case 0xBB: // Absolute,Y
-                checkInterrupts();
-                state.sp &= read(effectiveAddress);
-                state.a = state.x = state.sp;
-                setArithmeticFlags(state.sp);
-                break;
-                
-            /** DCP - DEC + CMP **********************************************/
-            case 0xC3: // (Zero Page,X)
-            case 0xC7: // Zero Page
-            case 0xCF: // Absolute
-            case 0xD3: // (Zero Page),Y
-            case 0xD7: // Zero Page,X
-            case 0xDB: // Absolute,Y
-            case 0xDF: // Absolute,X
-                tmp = read(effectiveAddress);
-                write(effectiveAddress, tmp);
-                tmp = (tmp - 1) & 0xff;
-                checkInterrupts();
-                cmp(state.a, tmp);
-                write(effectiveAddress, tmp);
-                break;
-            
-             /** AXS - Stores (A & X - #imm) into X **************************/    
-            case 0xCB: // #Immediate
-                checkInterrupts();
-                state.x = (state.a & state.x) - state.args[0];
-                setArithmeticFlags(state.x);
-                setCarryFlag(state.x >= 0);
-                break;
-            
-            /** ISC - INC + SBC **********************************************/
-            case 0xE3: // (Zero Page,X)
-            case 0xE7: // Zero Page
-            case 0xEF: // Absolute
-            case 0xF3: // (Zero Page),Y
-            case 0xF7: // Zero Page,X
-            case 0xFB: // Absolute,Y
-            case 0xFF: // Absolute,X
-                tmp = read(effectiveAddress);
-                write(effectiveAddress, tmp);
-                tmp = (tmp + 1) & 0xff;
-                checkInterrupts();
-                state.a = sbc(state.a, tmp);
-                write(effectiveAddress, tmp);
-                break;
-           
-            /** KIL - Jams the CPU - Implied *********************************/
-            case 0x02: case 0x12: case 0x22: case 0x32: case 0x42: case 0x52:
-            case 0x62: case 0x72: case 0x92: case 0xB2: case 0xD2: case 0xF2:
-                checkInterrupts();
-                dispatch();
-                state.pc--;
-                break;
-              
-            default:
-                break;
-        }
-        
-        //Interrupts stuff
-        if (interruptRequest) {
-            final boolean oldNMI = nmi;
-            read(state.pc);
-            read(state.pc);
-            stackPush((state.pc >> 8) & 0xff); // PC high byte
-            stackPush(state.pc & 0xff);        // PC low byte
-            stackPush(state.getStatusFlag());      // Status register
-            setIrqDisableFlag();
-            
-            if (NES.LOGGING) {
-                try {
-                    fw.write("**INTERRUPT: ");
-                } catch (IOException ioe) {
-                    nes.messageBox("Cannot write to debug log: " + ioe.getMessage());
-                }
-            }
-            
-            if (oldNMI) {
-                //Disable NMI only if it occured before the 4th cycle
-                nmi = false;
-            
-                //If NMI is requested, hijack the IRQ request
-                state.pc = address(read(NMI_VECTOR_L), read(NMI_VECTOR_H));
-                
-                if (NES.LOGGING) {
-                    try {
-                        fw.write("NMI**\n");
-                    } catch (IOException ioe) {
-                        nes.messageBox("Cannot write to debug log: " + ioe.getMessage());
-                    }
-                }
-            } else {
-                state.pc = address(read(IRQ_VECTOR_L), read(IRQ_VECTOR_H));
-                
-                if (NES.LOGGING) {
-                    try {
-                        fw.write("IRQ**\n");
-                    } catch (IOException ioe) {
-                        nes.messageBox("Cannot write to debug log: " + ioe.getMessage());
-                    }
-                }
-            }
+        if (state.args[0] < state.x) {
+            state.args[1] = (state.args[1] + 1) & 0xff;
         }
+
+        effectiveAddress = address(state.args[0], state.args[1]);
+
+        tmp = read(effectiveAddress);
+        write(effectiveAddress, tmp);
+        tmp = (tmp + 1) & 0xff;
+        checkInterrupts();
+        state.a = sbc(state.a, tmp);
+        write(effectiveAddress, tmp);
     }
+    // </editor-fold>
 
     /**
      * 
@@ -1423,7 +4894,27 @@ public class CPU extends ProcessorBase implements Opcodes {
      * Checks if there is an interrupt request from either IRQ or NMI.
      */
     private void checkInterrupts() {
-        interruptRequest = (!state.irqDisableFlag && (irqRequestFlags != 0)) | nmi;
+        if (idleLoop.recording) {
+            idleLoop.recordPoll();
+        }
+        
+        interruptRequest = interruptPending;
+    }
+    
+    /**
+     * Updates a flag indicating whether the next polling will see an interrupt request.
+     * Called only when interrupt lines or the interrupt disable flag change.
+     */
+    private void updateInterruptPending() {
+        interruptPending = (interruptLines & (state.irqDisableFlag ? NMI_LINE : NMI_LINE | IRQ_LINES)) != 0;
+    }
+    
+    /**
+     * Clears a pending NMI once it has been serviced.
+     */
+    private void acknowledgeNMI() {
+        interruptLines &= ~NMI_LINE;
+        updateInterruptPending();
     }
     
     /**
@@ -1432,20 +4923,11 @@ public class CPU extends ProcessorBase implements Opcodes {
      * @param asserted      Indicates whether an interrupt request was asserted or not
      */
     public void interrupt(final InterruptTypes type, final boolean asserted) {
-        switch (type) {
-            case PPU:
-                nmi = asserted;
-                break;
-            case APU:
-            case DMC:
-            case BOARD:
-                if (asserted) {
-                    irqRequestFlags |= (int)type.irq;
-                } else { 
-                   irqRequestFlags &= ~(int)type.irq;
-                }
-            default:
-                break;
+        final int lines = asserted ? (interruptLines | type.line) : (interruptLines & ~type.line);
+        
+        if (lines != interruptLines) {
+            interruptLines = lines;
+            updateInterruptPending();
         }
     } 
     
@@ -1513,6 +4995,96 @@ public class CPU extends ProcessorBase implements Opcodes {
     public CPUState getCPUState() {
         return state;
     }
+    
+    /**
+     * @return The value of the Process Status Register, as a byte.
+     */
+    public int getStatusFlag() {
+        return state.getStatusFlag();
+    }
+    
+    /**
+     * @return Effective address of the last executed instruction
+     */
+    public int getEffectiveAddress() {
+        return effectiveAddress;
+    }
+    
+    /**
+     * Returns an operand byte of the last executed instruction, as it was fetched.
+     * 
+     * @param index     Index of an operand byte (0 or 1)
+     * @return          Operand byte, or 0 if the instruction has fewer operand bytes
+     */
+    public int getOperand(final int index) {
+        final int operands = Disassembler.size(state.ir) - 1;
+        
+        return index < operands ? (fetched >> ((operands - 1 - index) << 3)) & 0xFF : 0;
+    }
+    
+    /**
+     * @return Data written by the last write
+     */
+    public int getLastWrite() {
+        return lastWrite;
+    }
+    
+    /**
+     * Returns a number of cycles executed since power-up (profiling only).
+     * 
+     * @return      Number of CPU cycles
+     */
+    public long getCycles() {
+        return cycles;
+    }
+    
+    /**
+     * Returns a number of cycles, in which CPU was stalled by DMC or OAM DMA (profiling only).
+     * 
+     * @return      Number of DMA cycles
+     */
+    public long getDMACycles() {
+        return dmaCycles;
+    }
+    
+    /**
+     * Returns a number of serviced IRQs and NMIs (profiling only).
+     * 
+     * @return      Number of interrupts
+     */
+    public long getInterruptCount() {
+        return interrupts;
+    }
+    
+    /**
+     * Returns a number of serviced NMIs (profiling only).
+     * 
+     * @return      Number of NMIs
+     */
+    public long getNMICount() {
+        return nmis;
+    }
+    
+    /**
+     * Returns a number of cycles taken by the last serviced interrupt, including DMA (profiling only).
+     * 
+     * @return      Number of cycles
+     */
+    public int getInterruptCycles() {
+        return interruptCycles;
+    }
+    
+    /**
+     * Returns and clears a type of an interrupt serviced since the last call (debugging only).
+     * 
+     * @return      One of TraceLogger.NONE, IRQ, NMI or BRK
+     */
+    public int takeTracedInterrupt() {
+        final int interrupt = tracedInterrupt;
+        tracedInterrupt = TraceLogger.NONE;
+        
+        return interrupt;
+    }
 
     /**
      * @return the negative flag
@@ -1582,6 +5154,7 @@ public class CPU extends ProcessorBase implements Opcodes {
      */
     private void setIrqDisableFlag() {
         state.irqDisableFlag = true;
+        updateInterruptPending();
     }
     
     /**
@@ -1589,6 +5162,7 @@ public class CPU extends ProcessorBase implements Opcodes {
      */
     private void setIrqDisableFlag(boolean irqDisableFlag) {
         state.irqDisableFlag = irqDisableFlag;
+        updateInterruptPending();
     }
 
     /**
@@ -1596,6 +5170,7 @@ public class CPU extends ProcessorBase implements Opcodes {
      */
     private void clearIrqDisableFlag() {
         state.irqDisableFlag = false;
+        updateInterruptPending();
     }
 
     /**
@@ -1713,6 +5288,19 @@ public class CPU extends ProcessorBase implements Opcodes {
         return read(0x100 + state.sp);
     }
 
+    /**
+     * Reads a byte at the PC and increments it.
+     * 
+     * @return      Read byte
+     */
+    private int fetch() {
+        final int data = read(state.pc);
+        fetched = (fetched << 8) | data;
+        incrementPC();
+        
+        return data;
+    }
+
     /*
     * Increment the PC, rolling over if necessary.
     */
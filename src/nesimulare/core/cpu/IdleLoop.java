@@ -0,0 +1,251 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2013-2014 Parseus.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package nesimulare.core.cpu;
+
+import nesimulare.core.cpu.CPU.CPUState;
+
+/**
+ * Class recording a wait loop executed by the CPU.
+ * 
+ * A loop is recorded bus cycle by bus cycle starting at the target of a backward jump.
+ * It is considered idle if it only reads from WRAM and PRG-ROM and comes back
+ * to its first instruction with exactly the same registers it started with.
+ * Such a loop will behave the same way until an interrupt occurs, 
+ * so CPU can replay recorded bus cycles instead of executing instructions,
+ * or skip whole iterations while no interrupt or DMA can be requested.
+ *
+ * @author Parseus
+ */
+final class IdleLoop {
+    static final int READ = 0x10000;
+    static final int POLL = 0x20000;
+    static final int MAX_INSTRUCTIONS = 16;
+    static final int MAX_EVENTS = 128;
+    static final int MAX_ATTEMPTS = 3;
+    
+    boolean recording;
+    boolean replaying;
+    
+    int target = -1;            //Address of the first instruction of a loop
+    int rejectedTarget = -1;    //Last address which didn't turn out to be an idle loop
+    int attempts;
+    
+    int instructions;
+    int cycles;                 //Number of CPU cycles in a single iteration
+    int position;
+    int eventCount;
+    
+    final int[] events = new int[MAX_EVENTS];
+    final int[] values = new int[MAX_EVENTS];
+    final int[] firstEvent = new int[MAX_INSTRUCTIONS + 1];
+    final CPUState[] states = new CPUState[MAX_INSTRUCTIONS];
+    final int[][] temporaries = new int[MAX_INSTRUCTIONS][5];
+    final CPUState entry = new CPUState();
+    
+    /**
+     * Constructor for this class.
+     */
+    IdleLoop() {
+        for (int i = 0; i < MAX_INSTRUCTIONS; i++) {
+            states[i] = new CPUState();
+        }
+    }
+    
+    /**
+     * Starts recording a loop.
+     * 
+     * @param state         CPU state at the beginning of a loop
+     */
+    void start(final CPUState state) {
+        if (target != state.pc) {
+            target = state.pc;
+            attempts = 0;
+        }
+        
+        copy(state, entry);
+        instructions = 0;
+        eventCount = 0;
+        firstEvent[0] = 0;
+        recording = true;
+    }
+    
+    /**
+     * Stops recording or replaying a loop.
+     */
+    void stop() {
+        recording = false;
+        replaying = false;
+    }
+    
+    /**
+     * Stops recording or replaying a loop, because an interrupt occured.
+     * Previously rejected loop may be tried once again, as it could have been
+     * rejected because of DMA or an interrupt occuring while recording it.
+     */
+    void interrupt() {
+        rejectedTarget = -1;
+        stop();
+    }
+    
+    /**
+     * Stops recording a loop, which turned out not to be idle.
+     */
+    void reject() {
+        rejectedTarget = target;
+        target = -1;
+        stop();
+    }
+    
+    /**
+     * Records a single CPU cycle.
+     */
+    void recordCycle() {
+        if (eventCount == MAX_EVENTS) {
+            reject();
+        } else {
+            events[eventCount++] = 0;
+        }
+    }
+    
+    /**
+     * Marks the last recorded CPU cycle as a read.
+     * 
+     * @param address       Address data was read from
+     * @param data          Read data
+     */
+    void recordRead(final int address, final int data) {
+        if (address >= 0x2000 && address < 0x8000) {
+            reject();
+        } else {
+            events[eventCount - 1] = READ | address;
+            values[eventCount - 1] = data;
+        }
+    }
+    
+    /**
+     * Records a check for interrupts.
+     */
+    void recordPoll() {
+        if (eventCount == MAX_EVENTS) {
+            reject();
+        } else {
+            events[eventCount++] = POLL;
+        }
+    }
+    
+    /**
+     * Records a state of the CPU after executing an instruction.
+     * 
+     * @param state             CPU state
+     * @param effectiveAddress  Effective address of the instruction
+     * @param tmp               Temporary storage
+     * @param lo                Low byte used in address calculation
+     * @param hi                High byte used in address calculation
+     * @param fetched           Bytes fetched at the PC
+     * @return                  True if a loop is still being recorded
+     */
+    boolean recordInstruction(final CPUState state, final int effectiveAddress, final int tmp, final int lo, final int hi,
+            final int fetched) {
+        if (instructions == MAX_INSTRUCTIONS) {
+            reject();
+            return false;
+        }
+        
+        copy(state, states[instructions]);
+        temporaries[instructions][0] = effectiveAddress;
+        temporaries[instructions][1] = tmp;
+        temporaries[instructions][2] = lo;
+        temporaries[instructions][3] = hi;
+        temporaries[instructions][4] = fetched;
+        firstEvent[++instructions] = eventCount;
+        
+        return true;
+    }
+    
+    /**
+     * Called when a recorded loop returns to its first instruction.
+     * If registers are the same as at the beginning of the loop, it starts replaying it.
+     * Otherwise it records the loop once again, as registers may settle after the first iteration.
+     * 
+     * @param state         CPU state
+     */
+    void close(final CPUState state) {
+        if (sameRegisters(state, entry)) {
+            recording = false;
+            replaying = true;
+            position = 0;
+            cycles = 0;
+            
+            for (int i = 0; i < eventCount; i++) {
+                if (events[i] != POLL) {
+                    cycles++;
+                }
+            }
+        } else if (++attempts < MAX_ATTEMPTS) {
+            start(state);
+        } else {
+            reject();
+        }
+    }
+    
+    /**
+     * Copies a CPU state without its step counter.
+     * 
+     * @param from      Source state
+     * @param to        Destination state
+     */
+    static void copy(final CPUState from, final CPUState to) {
+        to.a = from.a;
+        to.x = from.x;
+        to.y = from.y;
+        to.sp = from.sp;
+        to.pc = from.pc;
+        to.ir = from.ir;
+        to.lastPc = from.lastPc;
+        to.args[0] = from.args[0];
+        to.args[1] = from.args[1];
+        to.instSize = from.instSize;
+        to.carryFlag = from.carryFlag;
+        to.negativeFlag = from.negativeFlag;
+        to.zeroFlag = from.zeroFlag;
+        to.irqDisableFlag = from.irqDisableFlag;
+        to.decimalModeFlag = from.decimalModeFlag;
+        to.overflowFlag = from.overflowFlag;
+    }
+    
+    /**
+     * Compares registers of two CPU states.
+     * 
+     * @param a         First state
+     * @param b         Second state
+     * @return          True if all registers and flags are the same
+     */
+    static boolean sameRegisters(final CPUState a, final CPUState b) {
+        return a.a == b.a && a.x == b.x && a.y == b.y && a.sp == b.sp && a.pc == b.pc
+                && a.carryFlag == b.carryFlag && a.negativeFlag == b.negativeFlag
+                && a.zeroFlag == b.zeroFlag && a.irqDisableFlag == b.irqDisableFlag
+                && a.decimalModeFlag == b.decimalModeFlag && a.overflowFlag == b.overflowFlag;
+    }
+}
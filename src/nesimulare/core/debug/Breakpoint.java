@@ -0,0 +1,192 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2013-2014 Parseus.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package nesimulare.core.debug;
+
+import nesimulare.core.NES;
+import nesimulare.core.cpu.CPU.CPUState;
+
+/**
+ * Class representing a breakpoint or a watchpoint on a range of CPU or PPU addresses.
+ * 
+ * @author Parseus
+ */
+public class Breakpoint {
+    public static final int EXECUTE = 0x1;
+    public static final int READ = 0x2;
+    public static final int WRITE = 0x4;
+    
+    public enum Space {
+        CPU(0xFFFF), PPU(0x3FFF);
+        
+        public final int mask;
+        
+        Space(final int mask) {
+            this.mask = mask;
+        }
+    }
+    
+    public final int type;
+    public final Space space;
+    public final int from;
+    public final int to;
+    public final boolean watch;     //Only logs accesses instead of pausing emulation
+    public final Condition condition;
+    private final String text;
+    
+    /**
+     * Constructor for this class.
+     * 
+     * @param type          Types of accesses (EXECUTE, READ and WRITE)
+     * @param space         Address space
+     * @param from          First address of a range
+     * @param to            Last address of a range
+     * @param watch         True if accesses should only be logged
+     * @param condition     Condition, which must hold for a breakpoint to be hit (or null)
+     * @param text          Textual form of a breakpoint
+     */
+    public Breakpoint(final int type, final Space space, final int from, final int to, final boolean watch, final Condition condition, final String text) {
+        this.type = type;
+        this.space = space;
+        this.from = from & space.mask;
+        this.to = to & space.mask;
+        this.watch = watch;
+        this.condition = condition;
+        this.text = text;
+    }
+    
+    /**
+     * Creates a breakpoint from its textual form:
+     * <pre>
+     * (exec | read | write | rw | watch) [cpu | ppu] address[-address] [if condition]
+     * </pre>
+     * For example "write ppu $3F00-$3F1F" or "exec $C000 if A == $10 &amp;&amp; X &lt; 5".
+     * Watchpoints cover reads and writes. Syntax of conditions is described in ConditionParser.
+     * 
+     * @param nes           Emulation core
+     * @param text          Textual form of a breakpoint
+     * @return              Created breakpoint
+     * @throws IllegalArgumentException     If breakpoint is malformed
+     */
+    public static Breakpoint parse(final NES nes, final String text) {
+        String spec = text.trim();
+        Condition condition = null;
+        final int conditionStart = spec.toLowerCase().indexOf(" if ");
+        
+        if (conditionStart >= 0) {
+            condition = ConditionParser.parse(nes, spec.substring(conditionStart + 4));
+            spec = spec.substring(0, conditionStart).trim();
+        }
+        
+        final String[] words = spec.split("\\s+");
+        
+        if (words.length < 2 || words.length > 3) {
+            throw new IllegalArgumentException("Malformed breakpoint: " + text);
+        }
+        
+        final int type;
+        boolean watch = false;
+        
+        switch (words[0].toLowerCase()) {
+            case "exec":
+                type = EXECUTE;
+                break;
+            case "read":
+                type = READ;
+                break;
+            case "write":
+                type = WRITE;
+                break;
+            case "rw":
+                type = READ | WRITE;
+                break;
+            case "watch":
+                type = READ | WRITE;
+                watch = true;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown breakpoint type: " + words[0]);
+        }
+        
+        Space space = Space.CPU;
+        
+        if (words.length == 3) {
+            try {
+                space = Space.valueOf(words[1].toUpperCase());
+            } catch (IllegalArgumentException iae) {
+                throw new IllegalArgumentException("Unknown address space: " + words[1]);
+            }
+        }
+        
+        if (space == Space.PPU && type == EXECUTE) {
+            throw new IllegalArgumentException("Execute breakpoints are only available for CPU");
+        }
+        
+        final String range = words[words.length - 1];
+        final int dash = range.indexOf('-');
+        final int from = parseAddress(dash < 0 ? range : range.substring(0, dash));
+        final int to = dash < 0 ? from : parseAddress(range.substring(dash + 1));
+        
+        if (to < from) {
+            throw new IllegalArgumentException("Malformed address range: " + range);
+        }
+        
+        return new Breakpoint(type, space, from, to, watch, condition, text.trim());
+    }
+    
+    private static int parseAddress(final String address) {
+        String digits = address;
+        
+        if (digits.startsWith("$")) {
+            digits = digits.substring(1);
+        } else if (digits.toLowerCase().startsWith("0x")) {
+            digits = digits.substring(2);
+        }
+        
+        try {
+            return Integer.parseInt(digits, 16);
+        } catch (NumberFormatException nfe) {
+            throw new IllegalArgumentException("Malformed address: " + address);
+        }
+    }
+    
+    /**
+     * Checks whether an access hits this breakpoint.
+     * 
+     * @param access        Type of access
+     * @param address       Accessed address
+     * @param value         Value read or written
+     * @param state         Current state of CPU
+     * @return              True if breakpoint is hit
+     */
+    public boolean matches(final int access, final int address, final int value, final CPUState state) {
+        return (type & access) != 0 && address >= from && address <= to
+                && (condition == null || condition.test(state, address, value));
+    }
+    
+    @Override
+    public String toString() {
+        return text;
+    }
+}
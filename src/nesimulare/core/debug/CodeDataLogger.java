@@ -0,0 +1,300 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2013-2014 Parseus.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package nesimulare.core.debug;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import javax.imageio.ImageIO;
+import nesimulare.core.boards.Board;
+
+/**
+ * Code/Data Logger marking every byte of PRG-ROM and CHR memory with the way it has been accessed.
+ * 
+ * Bytes are tracked by their physical offsets, resolved through bank mapping of the board,
+ * so each bank is logged separately. Logs are saved in the usual .cdl layout: one byte of flags
+ * for every byte of PRG-ROM, followed by one byte for every byte of CHR memory.
+ * 
+ * PRG flags: bit 0 - code, bit 1 - data, bits 2-3 - 8 KB bank of $8000-$FFFF the byte was accessed through,
+ * bit 6 - DMC sample. CHR flags: bit 0 - fetched by PPU while rendering, bit 1 - read through $2007.
+ * 
+ * Additionally, all accesses are counted to produce a heatmap.
+ *
+ * @author Parseus
+ */
+public class CodeDataLogger {
+    public static final int CODE = 0x01;
+    public static final int DATA = 0x02;
+    public static final int PCM = 0x40;
+    public static final int RENDERED = 0x01;
+    public static final int READ = 0x02;
+    
+    final Board board;
+    private final byte[] prgFlags;
+    private final byte[] chrFlags;
+    private final int[] prgHeat;
+    private final int[] chrHeat;
+    boolean readingPPUData = false;     //Set while CPU reads $2007
+    
+    /**
+     * Constructor for this class.
+     * 
+     * @param board     Board, which memory will be logged
+     */
+    public CodeDataLogger(final Board board) {
+        this.board = board;
+        prgFlags = new byte[board.getPRGSize()];
+        chrFlags = new byte[board.getCHRSize()];
+        prgHeat = new int[prgFlags.length];
+        chrHeat = new int[chrFlags.length];
+    }
+    
+    /**
+     * Returns an offset within PRG-ROM mapped at a given CPU address.
+     * It has to be resolved before the access, as reading may switch banks.
+     * 
+     * @param address       Address to read data from
+     * @return              Offset within PRG-ROM or -1 if PRG-ROM is not mapped at the address
+     */
+    int resolvePRG(final int address) {
+        return address >= 0x8000 ? board.getPRGOffset(address) : -1;
+    }
+    
+    /**
+     * Returns an offset within CHR memory mapped at a given PPU address.
+     * It has to be resolved before the access, as reading may switch banks (e.g. latches of MMC2 and MMC4).
+     * 
+     * @param address       Address to read data from
+     * @return              Offset within CHR memory or -1 if CHR memory is not mapped at the address
+     */
+    int resolveCHR(final int address) {
+        return (address & 0x3FFF) < 0x2000 ? board.getCHROffset(address & 0x1FFF) : -1;
+    }
+    
+    /**
+     * Logs a CPU read.
+     * 
+     * @param address       Address to read data from
+     * @param offset        Offset within PRG-ROM resolved before the read
+     * @param data          Read data
+     * @param opcode        True if an opcode is fetched
+     * @param operand       True if an operand is fetched (or a dummy read of the next instruction is performed)
+     * @param dmc           True if a DMC sample is fetched
+     */
+    void readCPU(final int address, final int offset, final int data, final boolean opcode, final boolean operand, 
+            final boolean dmc) {
+        if (offset < 0) {
+            return;
+        }
+        
+        if (dmc) {
+            mark(address, offset, PCM);
+        } else if (opcode) {
+            mark(address, offset, CODE);
+            
+            //Operands are marked together with an opcode, because dummy reads can't be told apart from them.
+            //They are fetched from banks mapped after the opcode is read.
+            final int end = Math.min(address + Disassembler.size(data), 0x10000);
+            
+            for (int addr = address + 1; addr < end; addr++) {
+                mark(addr, board.getPRGOffset(addr), CODE);
+            }
+        } else if (!operand) {
+            mark(address, offset, DATA);
+        }
+    }
+    
+    private void mark(final int address, final int offset, final int flag) {
+        prgFlags[offset] |= flag | ((address >> 13 & 0x3) << 2);
+        
+        if (prgHeat[offset] != Integer.MAX_VALUE) {
+            prgHeat[offset]++;
+        }
+    }
+    
+    /**
+     * Logs a PPU read.
+     * 
+     * @param offset        Offset within CHR memory resolved before the read
+     */
+    void readPPU(final int offset) {
+        if (offset >= 0) {
+            chrFlags[offset] |= readingPPUData ? READ : RENDERED;
+            
+            if (chrHeat[offset] != Integer.MAX_VALUE) {
+                chrHeat[offset]++;
+            }
+        }
+    }
+    
+    /**
+     * Returns flags of a byte of PRG-ROM.
+     * 
+     * @param offset        Offset within PRG-ROM
+     * @return              Logged flags
+     */
+    public int getPRGFlags(final int offset) {
+        return prgFlags[offset] & 0xFF;
+    }
+    
+    /**
+     * Returns flags of a byte of CHR memory.
+     * 
+     * @param offset        Offset within CHR memory
+     * @return              Logged flags
+     */
+    public int getCHRFlags(final int offset) {
+        return chrFlags[offset] & 0xFF;
+    }
+    
+    /**
+     * Returns a number of bytes of PRG-ROM marked with given flags.
+     * 
+     * @param flags         Flags to look for
+     * @return              Number of marked bytes
+     */
+    public int countPRG(final int flags) {
+        int count = 0;
+        
+        for (byte flag : prgFlags) {
+            if ((flag & flags) != 0) {
+                count++;
+            }
+        }
+        
+        return count;
+    }
+    
+    /**
+     * Merges a previously saved .cdl file into this log, so logging can continue over many sessions.
+     * 
+     * @param filename      Name of a .cdl file
+     * @throws IOException  If file can't be read or doesn't match the ROM
+     */
+    public void load(final String filename) throws IOException {
+        final File file = new File(filename);
+        
+        if (file.length() != prgFlags.length + chrFlags.length) {
+            throw new IOException("File " + filename + " doesn't match the size of loaded ROM.");
+        }
+        
+        final byte[] bytes = new byte[(int)file.length()];
+        
+        try (InputStream in = new FileInputStream(file)) {
+            int read = 0;
+            
+            while (read < bytes.length) {
+                final int count = in.read(bytes, read, bytes.length - read);
+                
+                if (count < 0) {
+                    throw new IOException("Unexpected end of file " + filename);
+                }
+                
+                read += count;
+            }
+        }
+        
+        for (int i = 0; i < prgFlags.length; i++) {
+            prgFlags[i] |= bytes[i];
+        }
+        
+        for (int i = 0; i < chrFlags.length; i++) {
+            chrFlags[i] |= bytes[prgFlags.length + i];
+        }
+    }
+    
+    /**
+     * Saves the log as a .cdl file.
+     * 
+     * @param filename      Name of a .cdl file
+     * @throws IOException  If file can't be written
+     */
+    public void save(final String filename) throws IOException {
+        try (OutputStream out = new FileOutputStream(filename)) {
+            out.write(prgFlags);
+            out.write(chrFlags);
+        }
+    }
+    
+    /**
+     * Saves a heatmap of access frequency as a PNG image. Every row shows 256 bytes: PRG-ROM comes first,
+     * followed by a separator and CHR memory. Colors go from black (never accessed) through blue, red and yellow
+     * to white (most frequently accessed) on a logarithmic scale.
+     * 
+     * @param filename      Name of an image file
+     * @throws IOException  If file can't be written
+     */
+    public void saveHeatmap(final String filename) throws IOException {
+        final int prgRows = (prgHeat.length + 255) / 256;
+        final int chrRows = (chrHeat.length + 255) / 256;
+        final BufferedImage image = new BufferedImage(256, prgRows + 1 + chrRows, BufferedImage.TYPE_INT_RGB);
+        
+        drawHeatmap(image, prgHeat, 0);
+        
+        for (int x = 0; x < 256; x++) {
+            image.setRGB(x, prgRows, 0x404040);
+        }
+        
+        drawHeatmap(image, chrHeat, prgRows + 1);
+        
+        ImageIO.write(image, "png", new File(filename));
+    }
+    
+    private static void drawHeatmap(final BufferedImage image, final int[] heat, final int top) {
+        int max = 1;
+        
+        for (int count : heat) {
+            max = Math.max(max, count);
+        }
+        
+        final double scale = 1.0 / Math.log(max + 1.0);
+        
+        for (int i = 0; i < heat.length; i++) {
+            image.setRGB(i & 0xFF, top + (i >> 8), heat[i] == 0 ? 0 : heatColor(Math.log(heat[i] + 1.0) * scale));
+        }
+    }
+    
+    private static int heatColor(final double level) {
+        //Black -> blue -> red -> yellow -> white
+        final double t = Math.min(Math.max(level, 0.0), 1.0) * 4.0;
+        final int segment = Math.min((int)t, 3);
+        final int f = (int)((t - segment) * 255);
+        
+        switch (segment) {
+            case 0:
+                return f;
+            case 1:
+                return (f << 16) | (255 - f);
+            case 2:
+                return 0xFF0000 | (f << 8);
+            default:
+                return 0xFFFF00 | f;
+        }
+    }
+}
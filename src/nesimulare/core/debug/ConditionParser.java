@@ -0,0 +1,379 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2013-2014 Parseus.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package nesimulare.core.debug;
+
+import nesimulare.core.NES;
+import nesimulare.core.cpu.CPU.CPUState;
+
+/**
+ * Compiles breakpoint conditions into a tree of predicates, so a condition
+ * is parsed once and later evaluated without looking at its text.
+ * 
+ * Grammar:
+ * <pre>
+ * condition  := comparison { ("&&" | "||") comparison }   ("&&" binds tighter)
+ * comparison := "(" condition ")" | operand ("==" | "!=" | "&lt;" | "&lt;=" | "&gt;" | "&gt;=") operand
+ * operand    := term { "&amp;" term }
+ * term       := A | X | Y | SP | P | PC | ADDR | VALUE | SL | DOT | FRAME | "[" number "]" | number
+ * number     := $hex | 0xhex | %binary | decimal
+ * </pre>
+ * ADDR and VALUE are the accessed address and the value read or written,
+ * SL and DOT are the current scanline and dot, [address] peeks CPU memory.
+ * 
+ * @author Parseus
+ */
+public class ConditionParser {
+    private final NES nes;
+    private final String text;
+    private int position;
+    
+    /**
+     * Value used in a comparison.
+     */
+    private interface Operand {
+        int get(final CPUState state, final int address, final int value);
+    }
+    
+    private ConditionParser(final NES nes, final String text) {
+        this.nes = nes;
+        this.text = text;
+    }
+    
+    /**
+     * Compiles a condition.
+     * 
+     * @param nes           Emulation core
+     * @param text          Condition to be compiled
+     * @return              Compiled condition
+     * @throws IllegalArgumentException     If condition is malformed
+     */
+    public static Condition parse(final NES nes, final String text) {
+        final ConditionParser parser = new ConditionParser(nes, text);
+        final Condition condition = parser.parseOr();
+        
+        parser.skipSpaces();
+        
+        if (parser.position < text.length()) {
+            throw parser.error("Unexpected '" + text.charAt(parser.position) + "'");
+        }
+        
+        return condition;
+    }
+    
+    private Condition parseOr() {
+        Condition condition = parseAnd();
+        
+        while (accept("||")) {
+            final Condition left = condition;
+            final Condition right = parseAnd();
+            
+            condition = new Condition() {
+                @Override
+                public boolean test(final CPUState state, final int address, final int value) {
+                    return left.test(state, address, value) || right.test(state, address, value);
+                }
+            };
+        }
+        
+        return condition;
+    }
+    
+    private Condition parseAnd() {
+        Condition condition = parseComparison();
+        
+        while (accept("&&")) {
+            final Condition left = condition;
+            final Condition right = parseComparison();
+            
+            condition = new Condition() {
+                @Override
+                public boolean test(final CPUState state, final int address, final int value) {
+                    return left.test(state, address, value) && right.test(state, address, value);
+                }
+            };
+        }
+        
+        return condition;
+    }
+    
+    private Condition parseComparison() {
+        if (accept("(")) {
+            final Condition condition = parseOr();
+            
+            if (!accept(")")) {
+                throw error("Missing ')'");
+            }
+            
+            return condition;
+        }
+        
+        final Operand left = parseOperand();
+        final Operand right;
+        
+        if (accept("==")) {
+            right = parseOperand();
+            return new Condition() {
+                @Override
+                public boolean test(final CPUState state, final int address, final int value) {
+                    return left.get(state, address, value) == right.get(state, address, value);
+                }
+            };
+        } else if (accept("!=")) {
+            right = parseOperand();
+            return new Condition() {
+                @Override
+                public boolean test(final CPUState state, final int address, final int value) {
+                    return left.get(state, address, value) != right.get(state, address, value);
+                }
+            };
+        } else if (accept("<=")) {
+            right = parseOperand();
+            return new Condition() {
+                @Override
+                public boolean test(final CPUState state, final int address, final int value) {
+                    return left.get(state, address, value) <= right.get(state, address, value);
+                }
+            };
+        } else if (accept(">=")) {
+            right = parseOperand();
+            return new Condition() {
+                @Override
+                public boolean test(final CPUState state, final int address, final int value) {
+                    return left.get(state, address, value) >= right.get(state, address, value);
+                }
+            };
+        } else if (accept("<")) {
+            right = parseOperand();
+            return new Condition() {
+                @Override
+                public boolean test(final CPUState state, final int address, final int value) {
+                    return left.get(state, address, value) < right.get(state, address, value);
+                }
+            };
+        } else if (accept(">")) {
+            right = parseOperand();
+            return new Condition() {
+                @Override
+                public boolean test(final CPUState state, final int address, final int value) {
+                    return left.get(state, address, value) > right.get(state, address, value);
+                }
+            };
+        }
+        
+        throw error("Expected comparison");
+    }
+    
+    private Operand parseOperand() {
+        Operand operand = parseTerm();
+        
+        //"&&" is a logical operator, so it is left for parseAnd()
+        while (!peek("&&") && accept("&")) {
+            final Operand left = operand;
+            final Operand right = parseTerm();
+            
+            operand = new Operand() {
+                @Override
+                public int get(final CPUState state, final int address, final int value) {
+                    return left.get(state, address, value) & right.get(state, address, value);
+                }
+            };
+        }
+        
+        return operand;
+    }
+    
+    private Operand parseTerm() {
+        skipSpaces();
+        
+        if (accept("[")) {
+            final int address = parseNumber() & 0xFFFF;
+            
+            if (!accept("]")) {
+                throw error("Missing ']'");
+            }
+            
+            return new Operand() {
+                @Override
+                public int get(final CPUState state, final int addr, final int value) {
+                    return nes.cpuram.peek(address);
+                }
+            };
+        }
+        
+        if (position < text.length() && Character.isLetter(text.charAt(position))) {
+            final int start = position;
+            
+            while (position < text.length() && Character.isLetter(text.charAt(position))) {
+                position++;
+            }
+            
+            switch (text.substring(start, position).toUpperCase()) {
+                case "A":
+                    return new Operand() {
+                        @Override
+                        public int get(final CPUState state, final int address, final int value) {
+                            return state.a;
+                        }
+                    };
+                case "X":
+                    return new Operand() {
+                        @Override
+                        public int get(final CPUState state, final int address, final int value) {
+                            return state.x;
+                        }
+                    };
+                case "Y":
+                    return new Operand() {
+                        @Override
+                        public int get(final CPUState state, final int address, final int value) {
+                            return state.y;
+                        }
+                    };
+                case "SP":
+                    return new Operand() {
+                        @Override
+                        public int get(final CPUState state, final int address, final int value) {
+                            return state.sp;
+                        }
+                    };
+                case "P":
+                    return new Operand() {
+                        @Override
+                        public int get(final CPUState state, final int address, final int value) {
+                            return nes.cpu.getStatusFlag();
+                        }
+                    };
+                case "PC":
+                    return new Operand() {
+                        @Override
+                        public int get(final CPUState state, final int address, final int value) {
+                            return state.pc;
+                        }
+                    };
+                case "ADDR":
+                    return new Operand() {
+                        @Override
+                        public int get(final CPUState state, final int address, final int value) {
+                            return address;
+                        }
+                    };
+                case "VALUE":
+                    return new Operand() {
+                        @Override
+                        public int get(final CPUState state, final int address, final int value) {
+                            return value;
+                        }
+                    };
+                case "SL":
+                    return new Operand() {
+                        @Override
+                        public int get(final CPUState state, final int address, final int value) {
+                            nes.ppu.synchronize();
+                            return nes.ppu.vclock;
+                        }
+                    };
+                case "DOT":
+                    return new Operand() {
+                        @Override
+                        public int get(final CPUState state, final int address, final int value) {
+                            nes.ppu.synchronize();
+                            return nes.ppu.hclock;
+                        }
+                    };
+                case "FRAME":
+                    return new Operand() {
+                        @Override
+                        public int get(final CPUState state, final int address, final int value) {
+                            nes.ppu.synchronize();
+                            return (int)nes.framecount;
+                        }
+                    };
+                default:
+                    position = start;
+                    throw error("Unknown operand '" + text.substring(start).split("[^A-Za-z]")[0] + "'");
+            }
+        }
+        
+        final int constant = parseNumber();
+        
+        return new Operand() {
+            @Override
+            public int get(final CPUState state, final int address, final int value) {
+                return constant;
+            }
+        };
+    }
+    
+    private int parseNumber() {
+        skipSpaces();
+        
+        int radix = 10;
+        
+        if (accept("$")) {
+            radix = 16;
+        } else if (accept("0x") || accept("0X")) {
+            radix = 16;
+        } else if (accept("%")) {
+            radix = 2;
+        }
+        
+        final int start = position;
+        
+        while (position < text.length() && Character.digit(text.charAt(position), radix) >= 0) {
+            position++;
+        }
+        
+        if (start == position) {
+            throw error("Expected number");
+        }
+        
+        return Integer.parseInt(text.substring(start, position), radix);
+    }
+    
+    private void skipSpaces() {
+        while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+            position++;
+        }
+    }
+    
+    private boolean peek(final String token) {
+        skipSpaces();
+        
+        return text.startsWith(token, position);
+    }
+    
+    private boolean accept(final String token) {
+        if (peek(token)) {
+            position += token.length();
+            return true;
+        }
+        
+        return false;
+    }
+    
+    private IllegalArgumentException error(final String message) {
+        return new IllegalArgumentException(message + " at position " + (position + 1) + " in condition: " + text);
+    }
+}
@@ -0,0 +1,393 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2013-2014 Parseus.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package nesimulare.core.debug;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import nesimulare.core.NES;
+import nesimulare.core.boards.Board;
+import nesimulare.core.cpu.CPU;
+import nesimulare.core.cpu.CPU.CPUState;
+
+/**
+ * Exact cycle profiler attributing every CPU cycle to the routine, which executed it.
+ * 
+ * After every instruction, cycles elapsed since the previous one (including DMA stalls)
+ * are added to the routine containing the instruction. Cycles of servicing an interrupt
+ * are added to its handler. Routines come from loaded symbols; addresses without symbols
+ * are grouped into 256-byte pages. At the end of every frame, per-frame counts are added
+ * to totals and compared with the worst frame so far.
+ * 
+ * NMI handlers, which haven't returned before rendering starts or before the next NMI,
+ * are reported as overruns.
+ *
+ * @author Parseus
+ */
+public class CycleProfiler {
+    private static final int MAX_WARNINGS = 100;
+    
+    /**
+     * Routines and statistics. Replaced as a whole when symbols are loaded.
+     */
+    private static final class Profile {
+        final int[] ramRoutine = new int[0x8000];
+        final int[] romRoutine;
+        final String[] names;
+        final long[] frameCycles;
+        final long[] frameDMA;
+        final long[] totalCycles;
+        final long[] totalDMA;
+        final long[] worstCycles;
+        final long[] worstFrame;
+        
+        Profile(final Board board, final SymbolTable symbols) {
+            final List<String> routines = new ArrayList<>();
+            romRoutine = new int[board.getPRGSize()];
+            
+            for (int i = 0; i < ramRoutine.length; i++) {
+                if ((i & 0xFF) == 0) {
+                    routines.add(String.format("RAM $%04X", i));
+                }
+                
+                ramRoutine[i] = i >> 8;
+            }
+            
+            for (int i = 0; i < romRoutine.length; i++) {
+                if ((i & 0xFF) == 0) {
+                    routines.add(String.format("PRG $%05X", i));
+                }
+                
+                romRoutine[i] = (ramRoutine.length >> 8) + (i >> 8);
+            }
+            
+            if (symbols != null) {
+                addSymbols(symbols.getSymbols(), routines);
+            }
+            
+            names = routines.toArray(new String[routines.size()]);
+            frameCycles = new long[names.length];
+            frameDMA = new long[names.length];
+            totalCycles = new long[names.length];
+            totalDMA = new long[names.length];
+            worstCycles = new long[names.length];
+            worstFrame = new long[names.length];
+        }
+        
+        private void addSymbols(final List<SymbolTable.Symbol> symbols, final List<String> routines) {
+            final List<SymbolTable.Symbol> sorted = new ArrayList<>(symbols);
+            
+            //RAM symbols first, then by their position
+            Collections.sort(sorted, new Comparator<SymbolTable.Symbol>() {
+                @Override
+                public int compare(final SymbolTable.Symbol s1, final SymbolTable.Symbol s2) {
+                    if ((s1.prgOffset < 0) != (s2.prgOffset < 0)) {
+                        return s1.prgOffset < 0 ? -1 : 1;
+                    }
+                    
+                    return Integer.compare(position(s1), position(s2));
+                }
+            });
+            
+            for (int i = 0; i < sorted.size(); i++) {
+                final SymbolTable.Symbol symbol = sorted.get(i);
+                final boolean ram = symbol.prgOffset < 0;
+                final int[] table = ram ? ramRoutine : romRoutine;
+                final int start = position(symbol);
+                int end = table.length;
+                
+                if (symbol.size > 0) {
+                    end = Math.min(start + symbol.size, end);
+                } else if (i + 1 < sorted.size() && (sorted.get(i + 1).prgOffset < 0) == ram) {
+                    end = position(sorted.get(i + 1));
+                }
+                
+                if (start < table.length) {
+                    Arrays.fill(table, start, Math.max(start, end), routines.size());
+                    routines.add(symbol.name);
+                }
+            }
+        }
+        
+        private static int position(final SymbolTable.Symbol symbol) {
+            return symbol.prgOffset < 0 ? symbol.address : symbol.prgOffset;
+        }
+    }
+    
+    private final NES nes;
+    private final CPU cpu;
+    private final CPUState state;
+    final Board board;
+    private SymbolTable symbols;
+    private volatile Profile profile;
+    private volatile boolean resetPending = false;
+    
+    private long lastCycles, lastDMA, lastInterrupts, lastNMIs;
+    private long frames, frameStart, totalFrameCycles, worstFrameCycles, worstFrame;
+    private long frameDMATotal, totalDMACycles, worstDMACycles;
+    
+    private boolean inNMI = false;
+    private long nmiStart, nmiCount, nmiTotalCycles, nmiWorstCycles;
+    private int overruns;
+    private final List<String> warnings = new CopyOnWriteArrayList<>();
+    
+    /**
+     * Constructor for this class.
+     * 
+     * @param nes       Emulation core
+     */
+    public CycleProfiler(final NES nes) {
+        this.nes = nes;
+        this.cpu = nes.cpu;
+        this.state = cpu.getCPUState();
+        this.board = nes.board;
+        clear();
+    }
+    
+    /**
+     * Loads symbols from a .nl or .dbg file. Statistics gathered so far are cleared,
+     * once emulation thread picks up the new symbols.
+     * 
+     * @param filename          Name of a symbol file
+     * @throws java.io.IOException      If file can't be read
+     */
+    public synchronized void loadSymbols(final String filename) throws java.io.IOException {
+        if (symbols == null) {
+            symbols = new SymbolTable(board);
+        }
+        
+        symbols.load(filename);
+        reset();
+    }
+    
+    /**
+     * Requests clearing all statistics. Emulation thread clears them before recording 
+     * the next instruction, so record() never sees them half-cleared.
+     */
+    public void reset() {
+        resetPending = true;
+    }
+    
+    /**
+     * Checks if clearing statistics has been requested.
+     * 
+     * @return      True if statistics have to be cleared
+     */
+    public boolean isResetPending() {
+        return resetPending;
+    }
+    
+    /**
+     * Clears statistics after reset() has been requested. Called from emulation thread.
+     */
+    public synchronized void applyReset() {
+        resetPending = false;
+        clear();
+    }
+    
+    /**
+     * Clears all statistics.
+     */
+    private void clear() {
+        profile = new Profile(board, symbols);
+        lastCycles = cpu.getCycles();
+        lastDMA = cpu.getDMACycles();
+        lastInterrupts = cpu.getInterruptCount();
+        lastNMIs = cpu.getNMICount();
+        frameStart = lastCycles;
+        frameDMATotal = 0;
+        frames = totalFrameCycles = worstFrameCycles = worstFrame = 0;
+        totalDMACycles = worstDMACycles = 0;
+        inNMI = false;
+        nmiCount = nmiTotalCycles = nmiWorstCycles = 0;
+        overruns = 0;
+        warnings.clear();
+    }
+    
+    private int routineOf(final Profile p, final int address) {
+        return address >= 0x8000 ? p.romRoutine[board.getPRGOffset(address)] : p.ramRoutine[address];
+    }
+    
+    /**
+     * Attributes cycles of the last executed instruction. Called from emulation thread after every instruction.
+     */
+    public void record() {
+        final Profile p = profile;
+        final long cycles = cpu.getCycles();
+        final long dma = cpu.getDMACycles();
+        long elapsed = cycles - lastCycles;
+        final long stalled = dma - lastDMA;
+        lastCycles = cycles;
+        lastDMA = dma;
+        
+        final long interrupts = cpu.getInterruptCount();
+        
+        if (interrupts != lastInterrupts) {
+            //Cycles of servicing an interrupt belong to its handler
+            final int serviced = cpu.getInterruptCycles();
+            p.frameCycles[routineOf(p, state.pc)] += serviced;
+            elapsed -= serviced;
+            lastInterrupts = interrupts;
+            
+            final long nmis = cpu.getNMICount();
+            
+            if (nmis != lastNMIs) {
+                lastNMIs = nmis;
+                
+                if (inNMI) {
+                    warn("NMI handler from cycle " + nmiStart + " interrupted by the next NMI");
+                }
+                
+                inNMI = true;
+                nmiStart = cycles - serviced;
+            }
+        }
+        
+        final int routine = routineOf(p, state.lastPc);
+        p.frameCycles[routine] += elapsed;
+        p.frameDMA[routine] += stalled;
+        frameDMATotal += stalled;
+        
+        if (inNMI && state.ir == 0x40) {
+            inNMI = false;
+            final long length = cycles - nmiStart;
+            nmiCount++;
+            nmiTotalCycles += length;
+            nmiWorstCycles = Math.max(nmiWorstCycles, length);
+            
+            //PPU may be catching up lazily while rendering is disabled
+            nes.ppu.synchronize();
+            
+            if (nes.ppu.vclock < 240) {
+                warn("NMI handler took " + length + " cycles and returned on scanline " + nes.ppu.vclock);
+            }
+        }
+    }
+    
+    private void warn(final String warning) {
+        overruns++;
+        
+        if (warnings.size() < MAX_WARNINGS) {
+            warnings.add("Frame " + nes.framecount + ": " + warning);
+        }
+    }
+    
+    /**
+     * Adds per-frame counts to totals. Called from emulation thread at the end of every frame.
+     */
+    public synchronized void endFrame() {
+        final Profile p = profile;
+        final long cycles = cpu.getCycles();
+        final long frameCycles = cycles - frameStart;
+        frameStart = cycles;
+        frames++;
+        totalFrameCycles += frameCycles;
+        totalDMACycles += frameDMATotal;
+        worstDMACycles = Math.max(worstDMACycles, frameDMATotal);
+        frameDMATotal = 0;
+        
+        if (frameCycles > worstFrameCycles) {
+            worstFrameCycles = frameCycles;
+            worstFrame = nes.framecount;
+        }
+        
+        for (int i = 0; i < p.names.length; i++) {
+            final long count = p.frameCycles[i];
+            
+            if (count != 0) {
+                p.totalCycles[i] += count;
+                p.totalDMA[i] += p.frameDMA[i];
+                
+                if (count > p.worstCycles[i]) {
+                    p.worstCycles[i] = count;
+                    p.worstFrame[i] = nes.framecount;
+                }
+                
+                p.frameCycles[i] = 0;
+                p.frameDMA[i] = 0;
+            }
+        }
+    }
+    
+    /**
+     * Returns a report with per-routine cycles per frame, worst frames and NMI handler overruns.
+     * 
+     * @return      Text of a report
+     */
+    public synchronized String report() {
+        final Profile p = profile;
+        final long frameCount = Math.max(frames, 1);
+        final double average = totalFrameCycles / (double)frameCount;
+        final StringBuilder sb = new StringBuilder();
+        
+        sb.append(String.format("Frames: %d, CPU cycles per frame: %.1f (worst: %d in frame %d)%n",
+                frames, average, worstFrameCycles, worstFrame));
+        sb.append(String.format("DMA cycles per frame: %.1f (worst: %d)%n",
+                totalDMACycles / (double)frameCount, worstDMACycles));
+        sb.append(String.format("NMI handlers: %d, cycles per handler: %.1f (worst: %d), overruns: %d%n%n",
+                nmiCount, nmiTotalCycles / (double)Math.max(nmiCount, 1), nmiWorstCycles, overruns));
+        
+        final List<Integer> order = new ArrayList<>();
+        
+        for (int i = 0; i < p.names.length; i++) {
+            if (p.totalCycles[i] != 0) {
+                order.add(i);
+            }
+        }
+        
+        Collections.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(final Integer r1, final Integer r2) {
+                return Long.compare(p.totalCycles[r2], p.totalCycles[r1]);
+            }
+        });
+        
+        sb.append(String.format("%-32s %12s %7s %10s %10s %10s%n", "Routine", "Cycles/frame", "%", "Worst", "In frame", "DMA/frame"));
+        
+        for (int routine : order) {
+            final double perFrame = p.totalCycles[routine] / (double)frameCount;
+            sb.append(String.format("%-32s %12.1f %6.2f%% %10d %10d %10.1f%n", p.names[routine], perFrame,
+                    average > 0 ? perFrame * 100.0 / average : 0.0, p.worstCycles[routine], p.worstFrame[routine],
+                    p.totalDMA[routine] / (double)frameCount));
+        }
+        
+        if (!warnings.isEmpty()) {
+            sb.append(String.format("%nNMI overruns:%n"));
+            
+            for (String warning : warnings) {
+                sb.append(warning).append(String.format("%n"));
+            }
+            
+            if (overruns > warnings.size()) {
+                sb.append(String.format("...and %d more%n", overruns - warnings.size()));
+            }
+        }
+        
+        return sb.toString();
+    }
+}
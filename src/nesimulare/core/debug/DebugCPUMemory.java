@@ -0,0 +1,96 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2013-2014 Parseus.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package nesimulare.core.debug;
+
+import nesimulare.core.NES;
+import nesimulare.core.cpu.CPU;
+import nesimulare.core.cpu.CPU.CPUState;
+import nesimulare.core.memory.CPUMemory;
+
+/**
+ * CPU memory checking every access against breakpoints and logging it before passing it on to the original memory.
+ * Used only while breakpoints exist or the Code/Data Logger is running.
+ *
+ * @author Parseus
+ */
+public class DebugCPUMemory extends CPUMemory {
+    private final CPUMemory memory;
+    private final Debugger debugger;
+    private final CPU cpu;
+    private final CPUState state;
+    
+    /**
+     * Constructor for this class.
+     * 
+     * @param nes           Emulation core
+     * @param memory        Original CPU memory
+     * @param debugger      Debugger checking accesses
+     */
+    public DebugCPUMemory(final NES nes, final CPUMemory memory, final Debugger debugger) {
+        super(nes);
+        this.memory = memory;
+        this.debugger = debugger;
+        this.cpu = nes.cpu;
+        this.state = nes.cpu.getCPUState();
+    }
+    
+    @Override
+    public int read(final int address) {
+        final CodeDataLogger logger = debugger.activeLogger;
+        final int offset = (logger != null) ? logger.resolvePRG(address) : -1;
+        final int data;
+        
+        if (logger != null && (address & 0xE007) == 0x2007) {
+            //CHR read through PPUDATA
+            logger.readingPPUData = true;
+            data = memory.read(address);
+            logger.readingPPUData = false;
+        } else {
+            data = memory.read(address);
+        }
+        
+        //Opcode is fetched right after the address of an instruction is stored
+        final boolean opcode = (address == state.pc && address == state.lastPc);
+        
+        if (logger != null) {
+            logger.readCPU(address, offset, data, opcode, address == state.pc, cpu.isFetchingDMC());
+        }
+        
+        debugger.checkCPU(opcode ? Breakpoint.EXECUTE | Breakpoint.READ : Breakpoint.READ, address, data);
+        
+        return data;
+    }
+    
+    @Override
+    public void write(final int address, final int data) {
+        debugger.checkCPU(Breakpoint.WRITE, address, data);
+        memory.write(address, data);
+    }
+    
+    @Override
+    public int peek(final int address) {
+        return memory.peek(address);
+    }
+}
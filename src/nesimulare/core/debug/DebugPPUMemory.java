@@ -0,0 +1,84 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2013-2014 Parseus.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package nesimulare.core.debug;
+
+import nesimulare.core.NES;
+import nesimulare.core.memory.PPUMemory;
+
+/**
+ * PPU memory checking every access against breakpoints and logging it before passing it on to the original memory.
+ * Used only while breakpoints exist or the Code/Data Logger is running.
+ *
+ * @author Parseus
+ */
+public class DebugPPUMemory extends PPUMemory {
+    private final PPUMemory memory;
+    private final Debugger debugger;
+    
+    /**
+     * Constructor for this class.
+     * 
+     * @param nes           Emulation core
+     * @param memory        Original PPU memory
+     * @param debugger      Debugger checking accesses
+     */
+    public DebugPPUMemory(final NES nes, final PPUMemory memory, final Debugger debugger) {
+        super(nes);
+        this.memory = memory;
+        this.debugger = debugger;
+    }
+    
+    @Override
+    public boolean isClockedPerDot() {
+        return memory.isClockedPerDot();
+    }
+    
+    @Override
+    public boolean canRenderAhead() {
+        //Rendering fetches have to be checked as they happen
+        return false;
+    }
+    
+    @Override
+    public int read(final int address) {
+        final CodeDataLogger logger = debugger.activeLogger;
+        final int offset = (logger != null) ? logger.resolveCHR(address) : -1;
+        final int data = memory.read(address);
+        
+        if (logger != null) {
+            logger.readPPU(offset);
+        }
+        
+        debugger.checkPPU(Breakpoint.READ, address, data);
+        
+        return data;
+    }
+    
+    @Override
+    public void write(final int address, final int data) {
+        debugger.checkPPU(Breakpoint.WRITE, address, data);
+        memory.write(address, data);
+    }
+}
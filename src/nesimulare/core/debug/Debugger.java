@@ -0,0 +1,305 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2013-2014 Parseus.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package nesimulare.core.debug;
+
+import java.util.ArrayList;
+import java.util.List;
+import nesimulare.core.NES;
+import nesimulare.core.cpu.CPU.CPUState;
+import nesimulare.core.memory.CPUMemory;
+import nesimulare.core.memory.PPUMemory;
+
+/**
+ * Breakpoint and watchpoint debugger, which also drives the Code/Data Logger.
+ * 
+ * While no breakpoints exist and the logger is stopped, CPU and PPU use their usual
+ * memory and the debugger costs nothing. Adding the first breakpoint or starting
+ * the logger swaps in instrumented memories (DebugCPUMemory and DebugPPUMemory),
+ * which check every access against a table of armed addresses before passing it on.
+ * Once neither is needed, the original memories are swapped back.
+ * Memories are only swapped by the emulation thread between two instructions.
+ * 
+ * A hit breakpoint pauses emulation once the instruction accessing the address completes.
+ * A hit watchpoint only records an access in a bounded watch log.
+ *
+ * @author Parseus
+ */
+public class Debugger {
+    /**
+     * Receives notifications about hit breakpoints. Called from emulation thread.
+     */
+    public interface Listener {
+        void breakpointHit(final Breakpoint breakpoint, final int address, final int value);
+    }
+    
+    /**
+     * Immutable lookup table of breakpoints for one address space.
+     */
+    static final class Table {
+        final byte[] types;             //Access types armed for each address
+        final Breakpoint[] breakpoints;
+        
+        Table(final List<Breakpoint> list, final Breakpoint.Space space) {
+            final List<Breakpoint> matching = new ArrayList<>();
+            types = new byte[space.mask + 1];
+            
+            for (Breakpoint breakpoint : list) {
+                if (breakpoint.space == space) {
+                    matching.add(breakpoint);
+                    
+                    for (int address = breakpoint.from; address <= breakpoint.to; address++) {
+                        types[address] |= breakpoint.type;
+                    }
+                }
+            }
+            
+            breakpoints = matching.toArray(new Breakpoint[matching.size()]);
+        }
+    }
+    
+    private final NES nes;
+    private final List<Breakpoint> breakpoints = new ArrayList<>();
+    private volatile Table cpuTable;
+    private volatile Table ppuTable;
+    private Listener listener;
+    private CodeDataLogger codeDataLogger;
+    volatile CodeDataLogger activeLogger;   //Null while logger is stopped
+    private final WatchLog watchLog = new WatchLog();
+    private CPUMemory cpuMemory;
+    private PPUMemory ppuMemory;
+    private volatile boolean swapPending;
+    
+    /**
+     * Constructor for this class.
+     * 
+     * @param nes       Emulation core
+     */
+    public Debugger(final NES nes) {
+        this.nes = nes;
+    }
+    
+    /**
+     * Sets a listener notified about hit breakpoints.
+     * 
+     * @param listener      Listener of breakpoints (or null)
+     */
+    public void setListener(final Listener listener) {
+        this.listener = listener;
+    }
+    
+    /**
+     * Adds a breakpoint.
+     * 
+     * @param breakpoint    Breakpoint to be added
+     */
+    public synchronized void add(final Breakpoint breakpoint) {
+        breakpoints.add(breakpoint);
+        attach();
+    }
+    
+    /**
+     * Removes a breakpoint.
+     * 
+     * @param breakpoint    Breakpoint to be removed
+     */
+    public synchronized void remove(final Breakpoint breakpoint) {
+        breakpoints.remove(breakpoint);
+        attach();
+    }
+    
+    /**
+     * Removes all breakpoints.
+     */
+    public synchronized void clear() {
+        breakpoints.clear();
+        attach();
+    }
+    
+    /**
+     * Returns all breakpoints.
+     * 
+     * @return          Copy of a list of breakpoints
+     */
+    public synchronized List<Breakpoint> getBreakpoints() {
+        return new ArrayList<>(breakpoints);
+    }
+    
+    /**
+     * Starts the Code/Data Logger. Logging continues where it was stopped, unless another ROM has been loaded since.
+     */
+    public synchronized void startCodeDataLogger() {
+        if (nes.board == null) {
+            return;
+        }
+        
+        if (codeDataLogger == null || codeDataLogger.board != nes.board) {
+            codeDataLogger = new CodeDataLogger(nes.board);
+        }
+        
+        activeLogger = codeDataLogger;
+        attach();
+    }
+    
+    /**
+     * Stops the Code/Data Logger. Its log is kept until another ROM is logged.
+     */
+    public synchronized void stopCodeDataLogger() {
+        activeLogger = null;
+        attach();
+    }
+    
+    /**
+     * Returns the Code/Data Logger.
+     * 
+     * @return          The last started logger or null if logger has never been started
+     */
+    public synchronized CodeDataLogger getCodeDataLogger() {
+        return codeDataLogger;
+    }
+    
+    /**
+     * Checks whether memory accesses are instrumented.
+     * 
+     * @return          True if any breakpoints exist or the logger is running
+     */
+    public synchronized boolean isArmed() {
+        return !breakpoints.isEmpty() || activeLogger != null;
+    }
+    
+    /**
+     * Returns the log of watchpoint hits.
+     * 
+     * @return          Watch log
+     */
+    public WatchLog getWatchLog() {
+        return watchLog;
+    }
+    
+    /**
+     * Chooses instrumented memories for CPU and PPU if any breakpoints exist or the logger is running,
+     * or the original ones otherwise. Has to be called after CPU and PPU are recreated.
+     * Chosen memories are swapped in by the emulation thread with {@link #swapMemories()}.
+     */
+    public synchronized void attach() {
+        if (nes.cpu == null || nes.ppu == null) {
+            return;
+        }
+        
+        if (activeLogger != null && activeLogger.board != nes.board) {
+            codeDataLogger = new CodeDataLogger(nes.board);
+            activeLogger = codeDataLogger;
+        }
+        
+        cpuTable = breakpoints.isEmpty() ? null : new Table(breakpoints, Breakpoint.Space.CPU);
+        ppuTable = breakpoints.isEmpty() ? null : new Table(breakpoints, Breakpoint.Space.PPU);
+        
+        if (isArmed()) {
+            cpuMemory = new DebugCPUMemory(nes, nes.cpuram, this);
+            ppuMemory = new DebugPPUMemory(nes, nes.ppuram, this);
+        } else {
+            cpuMemory = nes.cpuram;
+            ppuMemory = nes.ppuram;
+        }
+        
+        swapPending = true;
+    }
+    
+    /**
+     * Checks if memories chosen by {@link #attach()} wait to be swapped in.
+     * 
+     * @return          True if memories have to be swapped
+     */
+    public boolean isSwapPending() {
+        return swapPending;
+    }
+    
+    /**
+     * Swaps in memories chosen by {@link #attach()}. Called only from emulation thread between two instructions.
+     */
+    public synchronized void swapMemories() {
+        swapPending = false;
+        nes.cpu.setMemory(cpuMemory);
+        nes.ppu.setMemory(ppuMemory);
+    }
+    
+    /**
+     * Resumes emulation paused by a breakpoint.
+     */
+    public void resume() {
+        nes.runEmulation = true;
+        nes.frameLimiter.wake();
+    }
+    
+    /**
+     * Checks an access to CPU memory.
+     * 
+     * @param access        Type of access
+     * @param address       Accessed address
+     * @param value         Value read or written
+     */
+    void checkCPU(final int access, final int address, final int value) {
+        final Table table = cpuTable;
+        
+        if (table != null && (table.types[address & 0xFFFF] & access) != 0) {
+            check(table, access, address & 0xFFFF, value);
+        }
+    }
+    
+    /**
+     * Checks an access to PPU memory.
+     * 
+     * @param access        Type of access
+     * @param address       Accessed address
+     * @param value         Value read or written
+     */
+    void checkPPU(final int access, final int address, final int value) {
+        final Table table = ppuTable;
+        
+        if (table != null && (table.types[address & 0x3FFF] & access) != 0) {
+            check(table, access, address & 0x3FFF, value);
+        }
+    }
+    
+    private void check(final Table table, final int access, final int address, final int value) {
+        final CPUState state = nes.cpu.getCPUState();
+        
+        for (Breakpoint breakpoint : table.breakpoints) {
+            if (breakpoint.matches(access, address, value, state)) {
+                if (breakpoint.watch) {
+                    //PPU catches up with CPU lazily, so its position has to be brought up to date
+                    nes.ppu.synchronize();
+                    watchLog.add(breakpoint, access, address, value, state.lastPc, nes.ppu.vclock, nes.ppu.hclock, nes.framecount);
+                } else if (nes.runEmulation) {
+                    //Only the first hit within an instruction is reported
+                    nes.runEmulation = false;
+                    
+                    if (listener != null) {
+                        listener.breakpointHit(breakpoint, address, value);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2013-2014 Parseus.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package nesimulare.core.debug;
+
+import nesimulare.core.cpu.Opcodes;
+import nesimulare.gui.Tools;
+
+/**
+ * Class turning CPU instructions into their textual representation.
+ *
+ * @author Parseus
+ */
+public class Disassembler implements Opcodes {
+    
+    /**
+     * Constructor for this class.
+     */
+    protected Disassembler() {
+        //Nothing to see here, move along
+    }
+    
+    /**
+     * Returns a size of an instruction in bytes.
+     * RTI and RTS are listed with operands in instructionSizes, but they have none.
+     * 
+     * @param opcode        Opcode of an instruction
+     * @return              Size of an instruction in bytes
+     */
+    public static int size(final int opcode) {
+        return (opcode == 0x40 || opcode == 0x60) ? 1 : instructionSizes[opcode];
+    }
+    
+    /**
+     * Checks whether an instruction writes to its effective address.
+     * 
+     * @param opcode        Opcode of an instruction
+     * @return              True if an instruction stores or modifies memory
+     */
+    public static boolean writesMemory(final int opcode) {
+        final String mnemonic = opcodeNames[opcode];
+        
+        switch (mnemonic) {
+            case "STA": case "STX": case "STY": case "SAX": case "AHX": case "TAS": case "SHX": case "SHY":
+            case "ASL": case "LSR": case "ROL": case "ROR": case "INC": case "DEC":
+            case "SLO": case "SRE": case "RLA": case "RRA": case "DCP": case "ISC":
+                return instructionModes[opcode] != AddressMode.IMP_LC;
+            default:
+                return false;
+        }
+    }
+    
+    /**
+     * Disassembles a single instruction.
+     * 
+     * @param pc            Address of an instruction
+     * @param opcode        Opcode of an instruction
+     * @param arg0          First operand byte
+     * @param arg1          Second operand byte
+     * @return              Mnemonic with its operands, e.g. "LDA $0200,X"
+     */
+    public static String disassemble(final int pc, final int opcode, final int arg0, final int arg1) {
+        final StringBuilder sb = new StringBuilder(opcodeNames[opcode]);
+        final int word = (arg1 << 8) | arg0;
+        
+        switch (instructionModes[opcode]) {
+            case ABS_A:
+            case ABS_LC:
+                sb.append(" $").append(Tools.wordToHex(word));
+                break;
+            case ABX_R:
+            case ABX_W:
+                sb.append(" $").append(Tools.wordToHex(word)).append(",X");
+                break;
+            case ABY_R:
+            case ABY_W:
+                sb.append(" $").append(Tools.wordToHex(word)).append(",Y");
+                break;
+            case IMM_A:
+                sb.append(" #$").append(Tools.byteToHex(arg0));
+                break;
+            case IND_A:
+                sb.append(" ($").append(Tools.wordToHex(word)).append(")");
+                break;
+            case INX_A:
+                sb.append(" ($").append(Tools.byteToHex(arg0)).append(",X)");
+                break;
+            case INY_R:
+            case INY_W:
+                sb.append(" ($").append(Tools.byteToHex(arg0)).append("),Y");
+                break;
+            case IMP_LC:
+                if (opcode == 0x0a || opcode == 0x2a || opcode == 0x4a || opcode == 0x6a) {
+                    sb.append(" A");
+                }
+                break;
+            case REL_A:
+                sb.append(" $").append(Tools.wordToHex((pc + 2 + (byte)arg0) & 0xFFFF));
+                break;
+            case ZPG_A:
+                sb.append(" $").append(Tools.byteToHex(arg0));
+                break;
+            case ZPX_A:
+                sb.append(" $").append(Tools.byteToHex(arg0)).append(",X");
+                break;
+            case ZPY_A:
+                sb.append(" $").append(Tools.byteToHex(arg0)).append(",Y");
+                break;
+            default:
+                break;
+        }
+        
+        return sb.toString();
+    }
+    
+    /**
+     * Checks whether an instruction accesses memory through an effective address.
+     * 
+     * @param opcode        Opcode of an instruction
+     * @return              True if an instruction has an effective address worth showing
+     */
+    public static boolean hasEffectiveAddress(final int opcode) {
+        switch (instructionModes[opcode]) {
+            case ABS_A:
+            case ABX_R:
+            case ABX_W:
+            case ABY_R:
+            case ABY_W:
+            case INX_A:
+            case INY_R:
+            case INY_W:
+            case ZPG_A:
+            case ZPX_A:
+            case ZPY_A:
+                return opcode != 0x20 && opcode != 0x4c;
+            default:
+                return false;
+        }
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2013-2014 Parseus.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package nesimulare.core.debug;
+
+import nesimulare.core.NES;
+import nesimulare.core.boards.Board;
+import nesimulare.gui.Tools;
+
+/**
+ * Class caching disassembled instructions.
+ * 
+ * Every slot holds one instruction together with its address and bytes.
+ * A cached line is reused only if both of them match, so switching banks
+ * or writing to code in RAM simply causes the line to be disassembled again.
+ * 
+ * When bound to the emulation core, PRG-ROM is cached by its physical offset,
+ * so each bank keeps its own lines, and RAM is cached by its address.
+ *
+ * @author Parseus
+ */
+public class DisassemblyCache {
+    private final NES nes;
+    private final Board board;
+    private final int prgSize;
+    private final long[] keys;
+    private final String[] lines;
+    private final String[] formatted;   //Lines with an address and instruction bytes
+    
+    /**
+     * Creates a cache for instructions read from the emulation core.
+     * 
+     * @param nes       Emulation core
+     */
+    public DisassemblyCache(final NES nes) {
+        this.nes = nes;
+        this.board = nes.board;
+        this.prgSize = nes.board.getPRGSize();
+        this.keys = new long[prgSize + 0x8000];
+        this.lines = new String[prgSize + 0x8000];
+        this.formatted = new String[prgSize + 0x8000];
+    }
+    
+    /**
+     * Creates a cache for instructions given directly, with one slot per address.
+     * Used for disassembling recorded traces.
+     */
+    public DisassemblyCache() {
+        this.nes = null;
+        this.board = null;
+        this.prgSize = 0;
+        this.keys = new long[0x10000];
+        this.lines = new String[0x10000];
+        this.formatted = new String[0x10000];
+    }
+    
+    /**
+     * Returns a disassembled instruction.
+     * 
+     * @param slot          Slot of the cache
+     * @param pc            Address of an instruction
+     * @param opcode        Opcode of an instruction
+     * @param arg0          First operand byte
+     * @param arg1          Second operand byte
+     * @return              Mnemonic with its operands
+     */
+    public String get(final int slot, final int pc, final int opcode, final int arg0, final int arg1) {
+        //Bit 40 marks used slots
+        final long key = (1L << 40) | ((long)pc << 24) | (arg1 << 16) | (arg0 << 8) | opcode;
+        
+        if (keys[slot] != key) {
+            keys[slot] = key;
+            lines[slot] = Disassembler.disassemble(pc, opcode, arg0, arg1);
+            formatted[slot] = null;
+        }
+        
+        return lines[slot];
+    }
+    
+    /**
+     * Checks if the cache reads instructions from a given board.
+     * A cache cannot be reused for another board, as its slots follow the size of PRG-ROM.
+     *
+     * @param board     Board of the emulation core
+     * @return          True if the cache was created for the board
+     */
+    public boolean isFor(final Board board) {
+        return nes != null && this.board == board;
+    }
+    
+    /**
+     * Returns a disassembled instruction for an address used by the instruction in a recorded trace.
+     * 
+     * @param pc            Address of an instruction
+     * @param opcode        Opcode of an instruction
+     * @param arg0          First operand byte
+     * @param arg1          Second operand byte
+     * @return              Mnemonic with its operands
+     */
+    public String get(final int pc, final int opcode, final int arg0, final int arg1) {
+        return get(pc, pc, opcode, arg0, arg1);
+    }
+    
+    /**
+     * Returns a disassembled instruction currently mapped at a given address.
+     * 
+     * @param address       Address of an instruction
+     * @return              Mnemonic with its operands
+     */
+    public String disassemble(final int address) {
+        final int opcode = nes.cpuram.peek(address);
+        final int size = Disassembler.size(opcode);
+        final int arg0 = size > 1 ? nes.cpuram.peek((address + 1) & 0xFFFF) : 0;
+        final int arg1 = size > 2 ? nes.cpuram.peek((address + 2) & 0xFFFF) : 0;
+        
+        return get(slotOf(address), address, opcode, arg0, arg1);
+    }
+    
+    /**
+     * Lists instructions around a given address, e.g. for a debugger view.
+     * As instructions cannot be reliably decoded backwards, decoding starts 
+     * at the earliest address which lines up with the given one.
+     * 
+     * @param address       Address of the current instruction
+     * @param before        Number of instructions before the current one
+     * @param after         Number of instructions after the current one
+     * @return              Lines with an address, instruction bytes and disassembly
+     */
+    public String[] listing(final int address, final int before, final int after) {
+        final int[] addresses = new int[before + after + 1];
+        final int[] window = new int[Math.max(before, 1)];
+        int first = 0;
+        
+        for (int start = Math.max(0, address - before * 3); before > 0 && start < address; start++) {
+            int count = 0;
+            int pc = start;
+            
+            while (pc < address) {
+                window[count++ % before] = pc;
+                pc += Disassembler.size(nes.cpuram.peek(pc));
+            }
+            
+            if (pc == address) {
+                first = Math.min(count, before);
+                
+                for (int i = 0; i < first; i++) {
+                    addresses[i] = window[(count - first + i) % before];
+                }
+                
+                break;
+            }
+        }
+        
+        final String[] listing = new String[first + after + 1];
+        int pc = address;
+        
+        for (int i = first; i < listing.length; i++) {
+            addresses[i] = pc;
+            pc = (pc + Disassembler.size(nes.cpuram.peek(pc))) & 0xFFFF;
+        }
+        
+        for (int i = 0; i < listing.length; i++) {
+            listing[i] = formatLine(addresses[i]);
+        }
+        
+        return listing;
+    }
+    
+    /**
+     * Formats a line with an address, instruction bytes and disassembly.
+     * 
+     * @param address       Address of an instruction
+     * @return              Formatted line
+     */
+    private String formatLine(final int address) {
+        final String line = disassemble(address);
+        final int slot = slotOf(address);
+        
+        if (formatted[slot] == null) {
+            final int key = (int)keys[slot];
+            final int size = Disassembler.size(key & 0xFF);
+            final StringBuilder sb = new StringBuilder(Tools.wordToHex(address)).append(' ');
+
+            for (int i = 0; i < 3; i++) {
+                sb.append(i < size ? " " + Tools.byteToHex((key >> (i * 8)) & 0xFF) : "   ");
+            }
+
+            formatted[slot] = sb.append("  ").append(line).toString();
+        }
+        
+        return formatted[slot];
+    }
+    
+    /**
+     * Returns a slot for an address: physical offset for PRG-ROM, address for the rest.
+     * 
+     * @param address       Address of an instruction
+     * @return              Slot of the cache
+     */
+    private int slotOf(final int address) {
+        return address >= 0x8000 ? nes.board.getPRGOffset(address) : prgSize + address;
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2013-2014 Parseus.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package nesimulare.core.debug;
+
+import java.util.Arrays;
+
+/**
+ * Host-side profiler showing how long each subsystem of the emulator takes per frame.
+ * 
+ * A single CPU cycle takes a few nanoseconds, which is below what System.nanoTime()
+ * can measure, so nothing is timed per cycle. The profiler keeps track of the subsystem
+ * running at the moment and reads the time only when a whole batch of work starts or ends:
+ * <ul>
+ * <li>a scanline on the emulation thread,</li>
+ * <li>PPU catching up with cycles counted in bulk,</li>
+ * <li>APU, PPU and CPU hooks of the board advanced over skipped idle loops,</li>
+ * <li>expansion audio rendered over a span of cycles,</li>
+ * <li>presentation and frame limiting at the end of a frame.</li>
+ * </ul>
+ * Time outside of these batches is attributed to CPU, including APU, PPU and board hooks
+ * clocked after every CPU cycle. Scanlines interrupted by the host (garbage collection, 
+ * compilation, preemption) are reported as host stalls, because a single one would 
+ * otherwise dominate its frame.
+ * 
+ * Everything except report() is called from the emulation thread.
+ *
+ * @author Parseus
+ */
+public class HostProfiler {
+    public enum Subsystem {
+        CPU("CPU"), PPU("PPU (catch-up)"), APU("APU (idle loops)"), EXPANSION_AUDIO("Expansion audio"),
+        MAPPER_CPU("Mapper (idle loops)"), PRESENTATION("Presentation"), FRAME_LIMITER("Frame limiter"), 
+        STALLS("Host stalls");
+        
+        public final String name;
+        
+        Subsystem(final String name) {
+            this.name = name;
+        }
+    }
+    
+    private static final Subsystem[] SUBSYSTEMS = Subsystem.values();
+    private static final int HISTORY = 1024;    //Frames kept for percentiles
+    private static final long STALL = 1000000;  //A scanline taking longer than 1 ms was interrupted
+    
+    private final long[] line = new long[SUBSYSTEMS.length];
+    private final long[] frame = new long[SUBSYSTEMS.length];
+    private final long[][] history = new long[SUBSYSTEMS.length][HISTORY];
+    private final long[] totals = new long[SUBSYSTEMS.length];
+    private long frames = 0;
+    private Subsystem current = Subsystem.CPU;
+    private long mark;
+    
+    /**
+     * Creates a profiler. It has to be passed to CPU, PPU and APU to gather data.
+     */
+    public HostProfiler() {
+        mark = System.nanoTime();
+    }
+    
+    /**
+     * Starts timing from now. Time since the last batch (e.g. while emulation was paused) is left out.
+     */
+    public void start() {
+        mark = System.nanoTime();
+    }
+    
+    /**
+     * Starts a batch of work of a subsystem. Expected usage:
+     * <pre>
+     * final HostProfiler.Subsystem previous = profiler.enter(HostProfiler.Subsystem.PPU);
+     * advance(dots);
+     * profiler.leave(previous);
+     * </pre>
+     * 
+     * @param subsystem     Subsystem, which will be running
+     * @return              Subsystem, which has been running so far
+     */
+    public Subsystem enter(final Subsystem subsystem) {
+        final Subsystem previous = current;
+        split();
+        current = subsystem;
+        
+        return previous;
+    }
+    
+    /**
+     * Ends a batch of work started by enter().
+     * 
+     * @param previous      Subsystem returned by enter()
+     */
+    public void leave(final Subsystem previous) {
+        split();
+        current = previous;
+    }
+    
+    /**
+     * Adds time since the last split to the running subsystem.
+     */
+    private void split() {
+        final long now = System.nanoTime();
+        line[current.ordinal()] += now - mark;
+        mark = now;
+    }
+    
+    /**
+     * Closes a scanline and adds its times to the current frame.
+     */
+    public void endLine() {
+        split();
+        
+        long emulation = 0;
+        
+        for (Subsystem subsystem : SUBSYSTEMS) {
+            if (!isPerFrame(subsystem)) {
+                emulation += line[subsystem.ordinal()];
+            }
+        }
+        
+        final boolean stalled = emulation > STALL;
+        
+        for (Subsystem subsystem : SUBSYSTEMS) {
+            final int i = subsystem.ordinal();
+            
+            if (stalled && !isPerFrame(subsystem)) {
+                frame[Subsystem.STALLS.ordinal()] += line[i];
+            } else {
+                frame[i] += line[i];
+            }
+            
+            line[i] = 0;
+        }
+    }
+    
+    /**
+     * Checks if a subsystem is timed once per frame, outside of scanlines.
+     * 
+     * @param subsystem     Subsystem
+     * @return              True for presentation and frame limiting
+     */
+    private static boolean isPerFrame(final Subsystem subsystem) {
+        return subsystem == Subsystem.PRESENTATION || subsystem == Subsystem.FRAME_LIMITER;
+    }
+    
+    /**
+     * Closes the last scanline of a frame and stores times of the frame in history.
+     */
+    public synchronized void endFrame() {
+        endLine();
+        
+        final int slot = (int)(frames % HISTORY);
+        
+        for (Subsystem subsystem : SUBSYSTEMS) {
+            final int i = subsystem.ordinal();
+            history[i][slot] = frame[i];
+            totals[i] += frame[i];
+            frame[i] = 0;
+        }
+        
+        frames++;
+    }
+    
+    /**
+     * Returns a per-frame breakdown with average times and percentiles of recent frames.
+     * 
+     * @return      Text of a report
+     */
+    public synchronized String report() {
+        final StringBuilder sb = new StringBuilder();
+        final int count = (int)Math.min(frames, HISTORY);
+        long total = 0;
+        
+        for (long time : totals) {
+            total += time;
+        }
+        
+        sb.append(String.format("Frames: %d, percentiles of the last %d frames%n", frames, count));
+        sb.append(String.format("CPU includes APU, PPU and mapper hooks clocked after every CPU cycle%n%n"));
+        sb.append(String.format("%-20s %9s %7s %9s %9s %9s %9s%n", "Subsystem", "Avg ms", "%", "p50 ms", "p95 ms", "p99 ms", "Max ms"));
+        
+        for (Subsystem subsystem : SUBSYSTEMS) {
+            final int i = subsystem.ordinal();
+            final long[] recent = Arrays.copyOf(history[i], count);
+            Arrays.sort(recent);
+            
+            sb.append(String.format("%-20s %9.3f %6.2f%% %9.3f %9.3f %9.3f %9.3f%n", subsystem.name,
+                    totals[i] / 1e6 / Math.max(frames, 1), total > 0 ? totals[i] * 100.0 / total : 0.0,
+                    percentile(recent, 50), percentile(recent, 95), percentile(recent, 99),
+                    count > 0 ? recent[count - 1] / 1e6 : 0.0));
+        }
+        
+        return sb.toString();
+    }
+    
+    private static double percentile(final long[] sorted, final int percent) {
+        if (sorted.length == 0) {
+            return 0.0;
+        }
+        
+        return sorted[Math.min(sorted.length - 1, sorted.length * percent / 100)] / 1e6;
+    }
+}
@@ -0,0 +1,272 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2013-2014 Parseus.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package nesimulare.core.debug;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import nesimulare.core.boards.Board;
+
+/**
+ * Symbols loaded from FCEUX .nl files or ca65 .dbg files.
+ * 
+ * Symbols in PRG-ROM are kept with their physical offsets, so routines in different
+ * banks mapped at the same address are told apart. Offsets are taken from bank numbers
+ * of .nl files (name.nes.N.nl) or from segment offsets of .dbg files. Symbols without
+ * them are resolved through banks mapped when loading.
+ *
+ * @author Parseus
+ */
+public class SymbolTable {
+    /**
+     * Named range of addresses.
+     */
+    public static class Symbol {
+        public final String name;
+        public final int address;       //CPU address
+        public final int prgOffset;     //Offset within PRG-ROM or -1 for RAM
+        public final int size;          //Size in bytes or -1 if symbol ends at the next one
+        
+        public Symbol(final String name, final int address, final int prgOffset, final int size) {
+            this.name = name;
+            this.address = address;
+            this.prgOffset = prgOffset;
+            this.size = size;
+        }
+    }
+    
+    private final Board board;
+    private final List<Symbol> symbols = new ArrayList<>();
+    
+    /**
+     * Constructor for this class.
+     * 
+     * @param board     Board, which PRG-ROM symbols refer to
+     */
+    public SymbolTable(final Board board) {
+        this.board = board;
+    }
+    
+    /**
+     * Returns all loaded symbols.
+     * 
+     * @return      List of symbols
+     */
+    public List<Symbol> getSymbols() {
+        return symbols;
+    }
+    
+    /**
+     * Loads symbols from a .nl or .dbg file and adds them to the table.
+     * 
+     * @param filename          Name of a symbol file
+     * @throws IOException      If file can't be read
+     */
+    public void load(final String filename) throws IOException {
+        if (filename.toLowerCase().endsWith(".dbg")) {
+            loadDBG(filename);
+        } else {
+            loadNL(filename);
+        }
+    }
+    
+    private int resolve(final int address, final int bankOffset) {
+        if (address < 0x8000) {
+            return -1;
+        } else if (bankOffset >= 0) {
+            return (bankOffset + (address & 0x3FFF)) % board.getPRGSize();
+        } else {
+            return board.getPRGOffset(address);
+        }
+    }
+    
+    /**
+     * Loads a FCEUX .nl file with lines of form "$C000#Name#Comment".
+     * Bank of 16 KB is taken from a filename (name.nes.N.nl), "ram" marks RAM symbols.
+     */
+    private void loadNL(final String filename) throws IOException {
+        final String[] parts = new File(filename).getName().split("\\.");
+        int bankOffset = -1;
+        
+        if (parts.length >= 3) {
+            try {
+                bankOffset = Integer.parseInt(parts[parts.length - 2], 16) * 0x4000;
+            } catch (NumberFormatException nfe) {
+                //RAM or unbanked symbols
+            }
+        }
+        
+        try (BufferedReader reader = new BufferedReader(new FileReader(filename))) {
+            String line;
+            
+            while ((line = reader.readLine()) != null) {
+                final String[] fields = line.split("#", 3);
+                
+                if (fields.length < 2 || !fields[0].startsWith("$") || fields[1].isEmpty()) {
+                    continue;
+                }
+                
+                try {
+                    final int address = Integer.parseInt(fields[0].substring(1).trim(), 16);
+                    symbols.add(new Symbol(fields[1].trim(), address, resolve(address, bankOffset), -1));
+                } catch (NumberFormatException nfe) {
+                    System.err.println("Skipping malformed symbol: " + line);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Loads a ca65 debug information file. Scopes (.proc) are used as routines if there are any,
+     * otherwise labels are used, except for cheap local ones.
+     */
+    private void loadDBG(final String filename) throws IOException {
+        final Map<String, Map<String, String>> syms = new HashMap<>();
+        final Map<String, Map<String, String>> segs = new HashMap<>();
+        final List<Map<String, String>> scopes = new ArrayList<>();
+        
+        try (BufferedReader reader = new BufferedReader(new FileReader(filename))) {
+            String line;
+            
+            while ((line = reader.readLine()) != null) {
+                final String[] kind = line.trim().split("\\s+", 2);
+                
+                if (kind.length < 2) {
+                    continue;
+                }
+                
+                switch (kind[0]) {
+                    case "sym":
+                        final Map<String, String> sym = parseAttributes(kind[1]);
+                        syms.put(sym.get("id"), sym);
+                        break;
+                    case "seg":
+                        final Map<String, String> seg = parseAttributes(kind[1]);
+                        segs.put(seg.get("id"), seg);
+                        break;
+                    case "scope":
+                        scopes.add(parseAttributes(kind[1]));
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+        
+        boolean hasScopes = false;
+        
+        for (Map<String, String> scope : scopes) {
+            final Map<String, String> sym = syms.get(scope.get("sym"));
+            
+            if (sym != null && sym.containsKey("val") && scope.containsKey("size") && !scope.get("name").isEmpty()) {
+                try {
+                    addDBGSymbol(scope.get("name"), sym, segs, parseNumber(scope.get("size")));
+                    hasScopes = true;
+                } catch (NumberFormatException nfe) {
+                    System.err.println("Skipping malformed scope: " + scope.get("name"));
+                }
+            }
+        }
+        
+        if (!hasScopes) {
+            for (Map<String, String> sym : syms.values()) {
+                final String name = sym.get("name");
+                
+                if ("lab".equals(sym.get("type")) && sym.containsKey("val") && name != null && !name.startsWith("@")) {
+                    try {
+                        addDBGSymbol(name, sym, segs, -1);
+                    } catch (NumberFormatException nfe) {
+                        System.err.println("Skipping malformed symbol: " + name);
+                    }
+                }
+            }
+        }
+    }
+    
+    private void addDBGSymbol(final String name, final Map<String, String> sym, final Map<String, Map<String, String>> segs, final int size) {
+        final int address = parseNumber(sym.get("val"));
+        final Map<String, String> seg = segs.get(sym.get("seg"));
+        int prgOffset = resolve(address, -1);
+        
+        if (prgOffset >= 0 && seg != null && seg.containsKey("ooffs") && seg.containsKey("start")) {
+            //Output offset includes 16-byte iNES header
+            prgOffset = (parseNumber(seg.get("ooffs")) - 16 + address - parseNumber(seg.get("start"))) % board.getPRGSize();
+        }
+        
+        symbols.add(new Symbol(name, address & 0xFFFF, prgOffset, size));
+    }
+    
+    /**
+     * Parses a comma-separated list of key=value pairs, where values may be quoted.
+     */
+    private static Map<String, String> parseAttributes(final String text) {
+        final Map<String, String> attributes = new HashMap<>();
+        int position = 0;
+        
+        while (position < text.length()) {
+            final int equals = text.indexOf('=', position);
+            
+            if (equals < 0) {
+                break;
+            }
+            
+            final String key = text.substring(position, equals).trim();
+            int end;
+            String value;
+            
+            if (equals + 1 < text.length() && text.charAt(equals + 1) == '"') {
+                end = text.indexOf('"', equals + 2);
+                
+                if (end < 0) {
+                    end = text.length();
+                }
+                
+                value = text.substring(equals + 2, end);
+                end = text.indexOf(',', end);
+            } else {
+                end = text.indexOf(',', equals);
+                value = text.substring(equals + 1, end < 0 ? text.length() : end);
+            }
+            
+            attributes.put(key, value);
+            position = (end < 0) ? text.length() : end + 1;
+        }
+        
+        return attributes;
+    }
+    
+    private static int parseNumber(final String number) {
+        if (number.startsWith("0x") || number.startsWith("0X")) {
+            return Integer.parseInt(number.substring(2), 16);
+        }
+        
+        return Integer.parseInt(number);
+    }
+}
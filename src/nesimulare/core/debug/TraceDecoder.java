@@ -0,0 +1,164 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2013-2014 Parseus.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package nesimulare.core.debug;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import nesimulare.core.cpu.Opcodes;
+import nesimulare.gui.Tools;
+
+/**
+ * Class turning binary traces recorded by TraceLogger into a text log.
+ * 
+ * Usage: TraceDecoder trace.bin [output.txt]
+ *
+ * @author Parseus
+ */
+public class TraceDecoder implements Opcodes {
+    private static final String[] INTERRUPTS = { null, "**IRQ**", "**NMI**", "**BREAK INTERRUPT**" };
+    private static final int CHUNK_RECORDS = 1 << 19;
+    
+    /**
+     * Constructor for this class.
+     */
+    protected TraceDecoder() {
+        //Nothing to see here, move along
+    }
+    
+    /**
+     * Decodes a trace file.
+     * 
+     * @param args      Trace file and optionally an output file
+     */
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.err.println("Usage: TraceDecoder trace.bin [output.txt]");
+            return;
+        }
+        
+        try (Writer out = new BufferedWriter(args.length > 1 ? new FileWriter(args[1]) : new OutputStreamWriter(System.out))) {
+            decode(args[0], out);
+        } catch (IOException ioe) {
+            System.err.println("Cannot decode trace: " + ioe.getMessage());
+        }
+    }
+    
+    /**
+     * Decodes a trace file.
+     * 
+     * @param filename          Filename of a trace file
+     * @param out               Writer receiving decoded lines
+     * @throws IOException      If the trace cannot be read or is not a valid trace
+     */
+    public static void decode(final String filename, final Writer out) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(filename, "r")) {
+            final FileChannel channel = file.getChannel();
+            final MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, TraceLogger.HEADER_SIZE);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            
+            if (header.getInt(0) != TraceLogger.MAGIC || header.getInt(4) != TraceLogger.VERSION 
+                    || header.getInt(8) != TraceLogger.RECORD_SIZE) {
+                throw new IOException(filename + " is not a valid trace file");
+            }
+            
+            final long count = Math.min(header.getLong(12), (file.length() - TraceLogger.HEADER_SIZE) / TraceLogger.RECORD_SIZE);
+            final StringBuilder sb = new StringBuilder(128);
+            final DisassemblyCache cache = new DisassemblyCache();
+            
+            for (long first = 0; first < count; first += CHUNK_RECORDS) {
+                final int records = (int)Math.min(CHUNK_RECORDS, count - first);
+                final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 
+                        TraceLogger.HEADER_SIZE + first * TraceLogger.RECORD_SIZE, (long)records * TraceLogger.RECORD_SIZE);
+                buffer.order(ByteOrder.LITTLE_ENDIAN);
+                
+                for (int i = 0; i < records; i++) {
+                    sb.setLength(0);
+                    format(buffer, i * TraceLogger.RECORD_SIZE, cache, sb);
+                    out.write(sb.toString());
+                }
+            }
+        }
+    }
+    
+    /**
+     * Formats a single record.
+     * 
+     * @param buffer        Buffer with records
+     * @param offset        Offset of a record
+     * @param cache         Cache of disassembled instructions
+     * @param sb            Builder receiving a formatted line
+     */
+    static void format(final MappedByteBuffer buffer, final int offset, final DisassemblyCache cache, final StringBuilder sb) {
+        final int pc = buffer.getShort(offset + 16) & 0xFFFF;
+        final int opcode = buffer.get(offset + 18) & 0xFF;
+        final int arg0 = buffer.get(offset + 19) & 0xFF;
+        final int arg1 = buffer.get(offset + 20) & 0xFF;
+        final int size = Disassembler.size(opcode);
+        final int interrupt = buffer.get(offset + 30);
+        
+        sb.append(Tools.wordToHex(pc)).append("  ").append(Tools.byteToHex(opcode));
+        sb.append(size > 1 ? " " + Tools.byteToHex(arg0) : "   ");
+        sb.append(size > 2 ? " " + Tools.byteToHex(arg1) : "   ");
+        sb.append("  ");
+        
+        final int start = sb.length();
+        sb.append(cache.get(pc, opcode, arg0, arg1));
+        
+        if (Disassembler.hasEffectiveAddress(opcode)) {
+            final int value = buffer.get(offset + (Disassembler.writesMemory(opcode) ? 29 : 28)) & 0xFF;
+            
+            if (instructionModes[opcode] != AddressMode.ABS_A && instructionModes[opcode] != AddressMode.ZPG_A) {
+                sb.append(" @ ").append(Tools.wordToHex(buffer.getShort(offset + 26) & 0xFFFF));
+            }
+            
+            sb.append(" = ").append(Tools.byteToHex(value));
+        }
+        
+        while (sb.length() < start + 32) {
+            sb.append(' ');
+        }
+        
+        sb.append("A:").append(Tools.byteToHex(buffer.get(offset + 21) & 0xFF));
+        sb.append(" X:").append(Tools.byteToHex(buffer.get(offset + 22) & 0xFF));
+        sb.append(" Y:").append(Tools.byteToHex(buffer.get(offset + 23) & 0xFF));
+        sb.append(" P:").append(Tools.byteToHex(buffer.get(offset + 24) & 0xFF));
+        sb.append(" SP:").append(Tools.byteToHex(buffer.get(offset + 25) & 0xFF));
+        sb.append(" CYC:").append(buffer.getShort(offset + 14));
+        sb.append(" SL:").append(buffer.getShort(offset + 12));
+        sb.append(" FR:").append(buffer.getInt(offset + 8));
+        sb.append('\n');
+        
+        if (interrupt > 0 && interrupt < INTERRUPTS.length) {
+            sb.append(INTERRUPTS[interrupt]).append('\n');
+        }
+    }
+}
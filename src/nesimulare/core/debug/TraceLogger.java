@@ -0,0 +1,338 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2013-2014 Parseus.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package nesimulare.core.debug;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import nesimulare.core.cpu.CPU;
+import nesimulare.core.cpu.CPU.CPUState;
+
+/**
+ * Class recording executed CPU instructions as fixed-size binary records.
+ * 
+ * Records are kept in an off-heap ring buffer, so only the most recent ones are kept,
+ * or spilled into a memory-mapped file, so the entire trace is kept.
+ * Nothing is formatted while recording, traces are turned into text by TraceDecoder.
+ * 
+ * Record layout (little-endian, 32 bytes):
+ *   0  step counter (long)     8  frame (int)          12 scanline (short)
+ *   14 dot (short)             16 PC (short)           18 opcode, operands (3 bytes)
+ *   21 A, X, Y, P, SP (bytes)  26 effective address    28 last read, last write
+ *   30 interrupt serviced after the instruction        31 unused
+ *
+ * @author Parseus
+ */
+public class TraceLogger {
+    public static final int RECORD_SIZE = 32;
+    public static final int HEADER_SIZE = 32;
+    public static final int MAGIC = 0x5254534E;     //"NSTR"
+    public static final int VERSION = 1;
+    
+    /* Interrupts serviced after an instruction */
+    public static final int NONE = 0;
+    public static final int IRQ = 1;
+    public static final int NMI = 2;
+    public static final int BRK = 3;
+    
+    private static final int SPILL_RECORDS = 1 << 19;   //16 MB per mapped chunk
+    
+    private final int capacity;
+    private ByteBuffer buffer;
+    private int limit;          //Number of records fitting in the buffer
+    private int index;
+    private long count;
+    
+    private RandomAccessFile spillFile;
+    private FileChannel spill;
+    private long spilled;
+    
+    private int pcMin = 0x0000, pcMax = 0xFFFF;
+    private int scanlineMin = -1, scanlineMax = 0x7FFF;
+    private long frameMin = 0, frameMax = Long.MAX_VALUE;
+    
+    /**
+     * Constructor for this class.
+     * 
+     * @param capacity      Number of records kept in a ring buffer
+     */
+    public TraceLogger(final int capacity) {
+        this.capacity = capacity;
+    }
+    
+    /**
+     * Records only instructions within a given address range.
+     * 
+     * @param min       Lowest address
+     * @param max       Highest address
+     */
+    public void setPCRange(final int min, final int max) {
+        pcMin = min;
+        pcMax = max;
+    }
+    
+    /**
+     * Records only instructions executed within a given range of scanlines.
+     * 
+     * @param min       First scanline
+     * @param max       Last scanline
+     */
+    public void setScanlineRange(final int min, final int max) {
+        scanlineMin = min;
+        scanlineMax = max;
+    }
+    
+    /**
+     * Records only instructions executed within a given range of frames.
+     * 
+     * @param min       First frame
+     * @param max       Last frame
+     */
+    public void setFrameRange(final long min, final long max) {
+        frameMin = min;
+        frameMax = max;
+    }
+    
+    /**
+     * Spills every record into a memory-mapped file instead of the ring buffer.
+     * 
+     * @param filename          Filename of a trace file
+     * @throws IOException      If the file cannot be created
+     */
+    public void setSpillFile(final String filename) throws IOException {
+        spillFile = new RandomAccessFile(filename, "rw");
+        spillFile.setLength(0);
+        spill = spillFile.getChannel();
+        spilled = 0;
+        count = 0;
+        index = 0;
+        writeHeader(spill, 0);
+        limit = 0;
+    }
+    
+    /**
+     * Records the last executed instruction.
+     * 
+     * @param cpu           CPU
+     * @param frame         Current frame
+     * @param scanline      Current scanline
+     * @param dot           Current dot
+     */
+    public void record(final CPU cpu, final long frame, final int scanline, final int dot) {
+        final int interrupt = cpu.takeTracedInterrupt();
+        final CPUState state = cpu.getCPUState();
+        
+        if (state.lastPc < pcMin || state.lastPc > pcMax || scanline < scanlineMin || scanline > scanlineMax
+                || frame < frameMin || frame > frameMax) {
+            return;
+        }
+        
+        if (index == limit) {
+            nextBuffer();
+        }
+        
+        final int offset = index * RECORD_SIZE;
+        buffer.putLong(offset, state.stepCounter);
+        buffer.putInt(offset + 8, (int)frame);
+        buffer.putShort(offset + 12, (short)scanline);
+        buffer.putShort(offset + 14, (short)dot);
+        buffer.putShort(offset + 16, (short)state.lastPc);
+        buffer.put(offset + 18, (byte)state.ir);
+        buffer.put(offset + 19, (byte)cpu.getOperand(0));
+        buffer.put(offset + 20, (byte)cpu.getOperand(1));
+        buffer.put(offset + 21, (byte)state.a);
+        buffer.put(offset + 22, (byte)state.x);
+        buffer.put(offset + 23, (byte)state.y);
+        buffer.put(offset + 24, (byte)cpu.getStatusFlag());
+        buffer.put(offset + 25, (byte)state.sp);
+        buffer.putShort(offset + 26, (short)cpu.getEffectiveAddress());
+        buffer.put(offset + 28, (byte)CPU.lastRead);
+        buffer.put(offset + 29, (byte)cpu.getLastWrite());
+        buffer.put(offset + 30, (byte)interrupt);
+        
+        index++;
+        count++;
+    }
+    
+    /**
+     * Returns a number of records written so far.
+     * 
+     * @return      Number of records
+     */
+    public long getCount() {
+        return count;
+    }
+    
+    /**
+     * Saves records kept in the ring buffer to a file, oldest first.
+     * 
+     * @param filename          Filename of a trace file
+     * @throws IOException      If the file cannot be written
+     */
+    public void save(final String filename) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(filename, "rw")) {
+            final FileChannel channel = file.getChannel();
+            final int records = (int)Math.min(count, capacity);
+            file.setLength(0);
+            writeHeader(channel, records);
+            channel.position(HEADER_SIZE);
+            
+            if (buffer != null) {
+                if (count > capacity) {
+                    writeRecords(channel, index, capacity);
+                }
+
+                writeRecords(channel, 0, index);
+            }
+        }
+    }
+    
+    /**
+     * Finishes recording. Spilled trace gets its final header.
+     * 
+     * @throws IOException      If the trace file cannot be updated
+     */
+    public void close() throws IOException {
+        if (spill != null) {
+            finishSpill();
+        }
+        
+        buffer = null;
+    }
+    
+    /**
+     * Checks if records are spilled into a file.
+     * 
+     * @return      True if records are spilled into a file
+     */
+    public boolean isSpilling() {
+        return spill != null;
+    }
+    
+    /**
+     * Checks if spilling was given up after an error. The trace file is complete
+     * up to that point and later records are kept in the ring buffer.
+     * 
+     * @return      True if records were spilled into a file before an error
+     */
+    public boolean hasSpilled() {
+        return spilled > 0 && spill == null;
+    }
+    
+    private void writeRecords(final FileChannel channel, final int from, final int to) throws IOException {
+        final ByteBuffer slice = buffer.duplicate();
+        slice.limit(to * RECORD_SIZE);
+        slice.position(from * RECORD_SIZE);
+        
+        while (slice.hasRemaining()) {
+            channel.write(slice);
+        }
+    }
+    
+    private void writeHeader(final FileChannel channel, final long records) throws IOException {
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION).putInt(RECORD_SIZE).putLong(records);
+        header.position(0);
+        
+        while (header.hasRemaining()) {
+            channel.write(header, header.position());
+        }
+    }
+    
+    /**
+     * Moves to the next mapped chunk of a trace file or wraps around the ring buffer.
+     */
+    private void nextBuffer() {
+        if (spill != null) {
+            try {
+                mapChunk();
+                return;
+            } catch (IOException ioe) {
+                System.err.println("Cannot spill trace: " + ioe.getMessage());
+                
+                try {
+                    finishSpill();
+                } catch (IOException e) {
+                    System.err.println("Cannot finish trace file: " + e.getMessage());
+                    closeSpill();
+                }
+                
+                //Records already in the trace file don't belong to the ring buffer
+                count = 0;
+                buffer = null;
+            }
+        }
+        
+        if (buffer == null || limit != capacity) {
+            allocateRing();
+        } else {
+            index = 0;
+        }
+    }
+    
+    private void mapChunk() throws IOException {
+        buffer = spill.map(FileChannel.MapMode.READ_WRITE, HEADER_SIZE + spilled * RECORD_SIZE, (long)SPILL_RECORDS * RECORD_SIZE)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        spilled += SPILL_RECORDS;
+        limit = SPILL_RECORDS;
+        index = 0;
+    }
+    
+    private void allocateRing() {
+        buffer = ByteBuffer.allocateDirect(capacity * RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        limit = capacity;
+        index = 0;
+    }
+    
+    /**
+     * Writes the final header of a spilled trace and closes the file.
+     * 
+     * @throws IOException      If the trace file cannot be updated
+     */
+    private void finishSpill() throws IOException {
+        writeHeader(spill, count);
+        
+        try {
+            spill.truncate(HEADER_SIZE + count * RECORD_SIZE);
+        } catch (IOException ioe) {
+            //Some systems don't allow truncating a mapped file, header still has the right count
+        }
+        
+        closeSpill();
+    }
+    
+    private void closeSpill() {
+        try {
+            spillFile.close();
+        } catch (IOException ioe) {
+            System.err.println("Cannot close trace file: " + ioe.getMessage());
+        }
+        
+        spill = null;
+        spillFile = null;
+    }
+}
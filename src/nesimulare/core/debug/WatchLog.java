@@ -0,0 +1,118 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2013-2014 Parseus.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package nesimulare.core.debug;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bounded log of watchpoint hits, oldest hits are dropped once it's full.
+ * 
+ * Hits are stored unformatted while emulation runs and turned into text
+ * only when the log is shown.
+ *
+ * @author Parseus
+ */
+public class WatchLog {
+    public static final int CAPACITY = 4096;
+    
+    private final Breakpoint[] breakpoints = new Breakpoint[CAPACITY];
+    private final int[] accesses = new int[CAPACITY];
+    private final int[] addresses = new int[CAPACITY];
+    private final int[] values = new int[CAPACITY];
+    private final int[] pcs = new int[CAPACITY];
+    private final int[] scanlines = new int[CAPACITY];
+    private final int[] dots = new int[CAPACITY];
+    private final long[] frames = new long[CAPACITY];
+    private int index;
+    private long count;
+    
+    /**
+     * Records a watchpoint hit.
+     * 
+     * @param breakpoint    Hit watchpoint
+     * @param access        Type of access
+     * @param address       Accessed address
+     * @param value         Value read or written
+     * @param pc            Address of the instruction
+     * @param scanline      Current scanline
+     * @param dot           Current dot
+     * @param frame         Current frame
+     */
+    synchronized void add(final Breakpoint breakpoint, final int access, final int address, final int value,
+            final int pc, final int scanline, final int dot, final long frame) {
+        breakpoints[index] = breakpoint;
+        accesses[index] = access;
+        addresses[index] = address;
+        values[index] = value;
+        pcs[index] = pc;
+        scanlines[index] = scanline;
+        dots[index] = dot;
+        frames[index] = frame;
+        
+        index = (index + 1) % CAPACITY;
+        count++;
+    }
+    
+    /**
+     * Returns a number of hits recorded so far, including dropped ones.
+     * 
+     * @return      Number of hits
+     */
+    public synchronized long getCount() {
+        return count;
+    }
+    
+    /**
+     * Removes all hits.
+     */
+    public synchronized void clear() {
+        index = 0;
+        count = 0;
+        
+        for (int i = 0; i < CAPACITY; i++) {
+            breakpoints[i] = null;
+        }
+    }
+    
+    /**
+     * Returns kept hits as text, oldest first.
+     * 
+     * @return      List of lines
+     */
+    public synchronized List<String> lines() {
+        final int kept = (int)Math.min(count, CAPACITY);
+        final List<String> lines = new ArrayList<>(kept);
+        
+        for (int i = 0; i < kept; i++) {
+            final int n = (index - kept + i + CAPACITY) % CAPACITY;
+            
+            lines.add(String.format("Watch %s: %s $%04X = $%02X at PC $%04X, SL %d, DOT %d, FRAME %d",
+                    breakpoints[n], accesses[n] == Breakpoint.WRITE ? "write" : "read", addresses[n], values[n],
+                    pcs[n], scanlines[n], dots[n], frames[n]));
+        }
+        
+        return lines;
+    }
+}
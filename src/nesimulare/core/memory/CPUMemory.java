@@ -82,6 +82,25 @@ public class CPUMemory extends Memory  {
         }
     }
     
+    /**
+     * Reads data without any side effects, e.g. for debugging tools.
+     * Registers of the PPU, APU and expansion area are not read, an open bus is returned instead.
+     * 
+     * @param address       Address to read data from
+     * @return              Read data
+     */
+    public int peek(final int address) {
+        if (address >= 0x8000) {
+            return nes.board.peekPRG(address);
+        } else if (address < 0x2000) {
+            return wram[address & 0x7FF];
+        } else if (address >= 0x6000) {
+            return nes.board.readSRAM(address);
+        } else {
+            return (address >> 8 & 0xe0);        //Open bus
+        }
+    }
+    
     /**
      * Writes data to an internal WRAM or other components of the NES.
      * 
@@ -98,12 +117,16 @@ public class CPUMemory extends Memory  {
             nes.ppu.write(address, data);
         } else if (address < 0x4020) {
             nes.apu.write(address, data);
-        } else if (address < 0x6000) {
-            nes.board.writeEXP(address, data);
-        } else if (address < 0x8000) {
-            nes.board.writeSRAM(address, data);
         } else {
-            nes.board.writePRG(address, data);
+            if (address < 0x6000) {
+                nes.board.writeEXP(address, data);
+            } else if (address < 0x8000) {
+                nes.board.writeSRAM(address, data);
+            } else {
+                nes.board.writePRG(address, data);
+            }
+            
+            nes.ppu.mapperWritten();
         }
     }
     
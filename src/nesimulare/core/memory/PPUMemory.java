@@ -26,7 +26,7 @@ package nesimulare.core.memory;
 
 import nesimulare.core.NES;
 
-public final class PPUMemory extends Memory {
+public class PPUMemory extends Memory {
     public NES nes;
     
     public enum Mirroring {
@@ -40,6 +40,7 @@ public final class PPUMemory extends Memory {
     }
     
     private boolean board = false;
+    private boolean clockedPerDot = false;
     private int[] paletteRAM;
     public int[][] nmt;
     public int[] nmtBank;
@@ -49,6 +50,25 @@ public final class PPUMemory extends Memory {
         this.nes = nes;
     }
     
+    /**
+     * Creates a copy of a given memory with its own nametables and palette.
+     * 
+     * @param memory    Memory to copy
+     */
+    protected PPUMemory(final PPUMemory memory) {
+        super(0x4000);
+        this.nes = memory.nes;
+        this.board = memory.board;
+        this.clockedPerDot = memory.clockedPerDot;
+        this.paletteRAM = memory.paletteRAM.clone();
+        this.nmtBank = memory.nmtBank.clone();
+        this.nmt = new int[4][];
+        
+        for (int i = 0; i < 4; i++) {
+            this.nmt[i] = memory.nmt[i].clone();
+        }
+    }
+    
     @Override
     public void initialize() {
         super.initialize();
@@ -56,6 +76,20 @@ public final class PPUMemory extends Memory {
         hardReset();
         final int mapper = nes.loader.mapperNumber;
         board = (mapper == 5 || mapper == 19 || mapper == 68 || mapper == 90 || mapper == 95 || mapper == 118 || mapper == 207);
+        clockedPerDot = nes.board.isClockedPerDot();
+    }
+    
+    public boolean isClockedPerDot() {
+        return clockedPerDot;
+    }
+    
+    /**
+     * Checks if frames can be drawn ahead on another thread from a copy of this memory.
+     * 
+     * @return      True: Nametables and pattern tables can be copied
+     */
+    public boolean canRenderAhead() {
+        return !board && !clockedPerDot && nes.board.canRenderAhead();
     }
     
     @Override
@@ -23,10 +23,12 @@
  */
 package nesimulare.core.ppu;
 
+import java.util.Arrays;
 import nesimulare.core.NES;
 import nesimulare.core.ProcessorBase;
 import nesimulare.gui.Tools;
 import nesimulare.core.cpu.CPU;
+import nesimulare.core.debug.HostProfiler;
 import nesimulare.core.memory.PPUMemory;
 import nesimulare.core.ppu.PPUTypes.*;
 
@@ -87,9 +89,10 @@ public class PPU extends ProcessorBase {
     private int grayScale;
     private int emphasis;
     private int[] colors;
-    public int[][] screen;
+    public short[] screen = new short[256 * 240]; //9-bit pixels: color in bits 0-5, emphasis in bits 6-8
     private boolean oddSwap;
     private boolean sprite0hit, spriteOverflow;
+    private int sprite0Position, overflowPosition;  //Dots, at which status flags were set, or -1
     private boolean spriteReset;
 
     /* NMI and VBlank */
@@ -112,6 +115,31 @@ public class PPU extends ProcessorBase {
     private int oamCount = 0;
     private int oamSlot = 0;
 
+    /* Sprite evaluation fast path */
+    private boolean spriteFastPath; //OAM has not been touched while rendering this frame
+    private boolean spriteListsValid;
+    private boolean fastEvaluation; //Evaluation of the current scanline is deferred
+    private final int[][] lineSprites = new int[240][8];
+    private final int[] lineSpriteCount = new int[240];
+    private final int[] lineOverflowDot = new int[240];
+    private final int[] lineOAMData = new int[240];
+
+    /* Bulk advance while rendering is disabled */
+    private boolean idle;
+    private int pendingCycles;
+    private int deadline;
+
+    /* Drawing frames on another thread */
+    private PipelinedRenderer pipeline;
+    private boolean timing;         //Emulation thread keeps only timing, scrolling and sprite evaluation
+    private boolean shadow;         //Frames are drawn for the emulation thread from logged events
+    private boolean pipelineFailed; //Predicted status flags didn't match drawn frames
+    private int zeroX;              //Position of sprite 0 on the current scanline
+    private int zeroRow;            //Opaque pixels of sprite 0 on the current scanline
+
+    /* Host profiling */
+    private HostProfiler hostProfiler;
+
     /**
      * Constructor for this class.
      * 
@@ -129,6 +157,100 @@ public class PPU extends ProcessorBase {
         this.nes = nes;
     }
 
+    /**
+     * Creates a PPU drawing frames of a given PPU on another thread.
+     * Copies the whole state of the given PPU.
+     * 
+     * @param ppu           PPU running on emulation thread
+     * @param pipeline      Log of events replayed by the new PPU
+     * @param ppuram        Copy of internal PPU memory
+     */
+    PPU(final PPU ppu, final PipelinedRenderer pipeline, final PPUMemory ppuram) {
+        super(ppu.system);
+        region.singleCycle = system.ppu;
+
+        this.nes = ppu.nes;
+        this.ppuram = ppuram;
+        this.pipeline = pipeline;
+        this.shadow = true;
+
+        setRegion();
+
+        fetch = ppu.fetch.copy();
+        spriteFetch = ppu.spriteFetch.copy();
+        scroll = ppu.scroll.copy();
+        for (int i = 0; i < 8; i++) {
+            buffer[i] = ppu.buffer[i].copy();
+        }
+        background = ppu.background.copy();
+        sprites = ppu.sprites.copy();
+        spriteState = ppu.spriteState;
+        oddFrame = ppu.oddFrame;
+        toggle = ppu.toggle;
+
+        latch = ppu.latch;
+        chr = ppu.chr;
+        grayScale = ppu.grayScale;
+        emphasis = ppu.emphasis;
+        colors = ppu.colors;
+        screen = ppu.screen.clone();
+        oddSwap = ppu.oddSwap;
+        sprite0hit = ppu.sprite0hit;
+        spriteOverflow = ppu.spriteOverflow;
+        sprite0Position = ppu.sprite0Position;
+        overflowPosition = ppu.overflowPosition;
+        spriteReset = ppu.spriteReset;
+
+        nmiOutput = ppu.nmiOutput;
+        nmiRequest = ppu.nmiRequest;
+        suppressVBlank = ppu.suppressVBlank;
+
+        hclock = ppu.hclock;
+        vclock = ppu.vclock;
+
+        oamAddress = ppu.oamAddress;
+        oam = ppu.oam.clone();
+        oamDMAAddress = ppu.oamDMAAddress;
+        oamData = ppu.oamData;
+        oamCount = ppu.oamCount;
+        oamSlot = ppu.oamSlot;
+
+        spriteFastPath = ppu.spriteFastPath;
+        spriteListsValid = ppu.spriteListsValid;
+        fastEvaluation = ppu.fastEvaluation;
+        for (int line = 0; line < 240; line++) {
+            System.arraycopy(ppu.lineSprites[line], 0, lineSprites[line], 0, 8);
+        }
+        System.arraycopy(ppu.lineSpriteCount, 0, lineSpriteCount, 0, 240);
+        System.arraycopy(ppu.lineOverflowDot, 0, lineOverflowDot, 0, 240);
+        System.arraycopy(ppu.lineOAMData, 0, lineOAMData, 0, 240);
+    }
+
+    /**
+     * Set the memory reference for this PPU.
+     * @param ppuram    Memory reference for PPU
+     */
+    public void setMemory(PPUMemory ppuram) {
+        this.ppuram = ppuram;
+    }
+
+    /**
+     * Sets a host profiler timing scanlines and bulk advance. Called only from emulation thread.
+     * 
+     * @param profiler      Host profiler or null to stop profiling
+     */
+    public void setHostProfiler(final HostProfiler profiler) {
+        hostProfiler = profiler;
+    }
+
+    /**
+     * Return the Memory that this PPU is associated with.
+     * @return ppuram   Returned memory
+     */
+    public PPUMemory getMemory() {
+        return ppuram;
+    }
+
     /**
      * Initializes PPU.
      */
@@ -145,10 +267,7 @@ public class PPU extends ProcessorBase {
         setRegion();
 
         oddFrame = (system.serial == 0);
-        screen = new int[240][];
-        for (int i = 0; i < 240; i++) {
-            screen[i] = new int[256];
-        }
+        screen = new short[256 * 240];
 
         resetEvaluation();
 
@@ -167,6 +286,7 @@ public class PPU extends ProcessorBase {
         emphasis = 0;
         oddSwap = false;
         sprite0hit = spriteOverflow = false;
+        sprite0Position = overflowPosition = -1;
         nmiOutput = false;
         nmiRequest = false;
         suppressVBlank = false;
@@ -180,6 +300,12 @@ public class PPU extends ProcessorBase {
         oamData = 0;
         oamCount = 0;
         oamSlot = 0;
+
+        spriteFastPath = true;
+        spriteListsValid = false;
+
+        pendingCycles = 0;
+        updateIdle();
     }
 
     /**
@@ -328,6 +454,13 @@ public class PPU extends ProcessorBase {
      * @return              Read data
      */
     public final int read(final int address) {
+        synchronize();
+
+        if (timing && ((address & 7) == 2 || (address & 7) == 4 || (address & 7) == 7)) {
+            //Reads changing the state of PPU are replayed as well
+            pipeline.log(PipelinedRenderer.READ, address & 7);
+        }
+
         switch (address & 7) {
 
             /**
@@ -356,8 +489,9 @@ public class PPU extends ProcessorBase {
                 if (vclock == startNMI) {
                     if (hclock == 0) {
                         suppressVBlank = true;
-                        cpu.interrupt(CPU.InterruptTypes.PPU, false);
-                    } else if (hclock < 3) {
+                    }
+
+                    if (hclock < 3 && !shadow) {
                         cpu.interrupt(CPU.InterruptTypes.PPU, false);
                     }
                 }
@@ -383,6 +517,10 @@ public class PPU extends ProcessorBase {
              * $2004: OAMDATA
              */
             case 4:
+                if (fastEvaluation) {
+                    catchUpEvaluation();
+                }
+
                 return latch = oam[oamAddress & 0xFF];
 
             /**
@@ -417,6 +555,12 @@ public class PPU extends ProcessorBase {
      * @param data          Written data
      */ 
     public final void write(final int address, final int data) {
+        synchronize();
+
+        if (timing && address != 0x4014) {
+            pipeline.log(PipelinedRenderer.WRITE, (address & 7) << 8 | data);
+        }
+
         /**
          * $4014: OAM DMA
          */
@@ -449,11 +593,25 @@ public class PPU extends ProcessorBase {
                     scroll.step = Tools.getbit(data, 2) ? 0x20 : 0x1;
                     sprites.address = Tools.getbit(data, 3) ? 0x1000 : 0x0000;
                     background.address = Tools.getbit(data, 4) ? 0x1000 : 0x0000;
-                    sprites.rasters = Tools.getbit(data, 5) ? 0x10 : 0x8;
+
+                    final int rasters = Tools.getbit(data, 5) ? 0x10 : 0x8;
+
+                    if (rasters != sprites.rasters) {
+                        if (fastEvaluation) {
+                            catchUpEvaluation();
+                        }
+
+                        spriteListsValid = false;
+                        sprites.rasters = rasters;
+                    }
 
                     final boolean oldNMI = nmiOutput;
                     nmiOutput = Tools.getbit(data, 7);
 
+                    if (shadow) {
+                        break;
+                    }
+
                     if (vclock == startNMI && hclock < 3) {
                         cpu.interrupt(CPU.InterruptTypes.PPU, nmiOutput && nmiRequest);
                     }
@@ -479,18 +637,25 @@ public class PPU extends ProcessorBase {
                  */
                 case 1:
                     grayScale = Tools.getbit(data, 0) ? 0x30 : 0x3F;
-                    emphasis = ((data & 0xE0) << 1) & 0xFF;
+                    emphasis = (data & 0xE0) << 1;
 
                     background.clipped = !Tools.getbit(data, 1);
                     sprites.clipped = !Tools.getbit(data, 2);
                     background.enabled = Tools.getbit(data, 3);
                     sprites.enabled = Tools.getbit(data, 4);
+
+                    if (fastEvaluation && !isRendering()) {
+                        catchUpEvaluation();
+                    }
+
+                    updateIdle();
                     break;
 
                 /**
                  * $2003: OAMADDR
                  */
                 case 3:
+                    touchOAM();
                     oamAddress = data;
                     break;
 
@@ -498,6 +663,9 @@ public class PPU extends ProcessorBase {
                  * $2004: OAMDATA
                  */
                 case 4:
+                    touchOAM();
+                    spriteListsValid = false;
+
                     if ((oamAddress & 0x03) == 0x02) {
                         oam[oamAddress++] = (data & 0xE3);
                     } else {
@@ -626,6 +794,14 @@ public class PPU extends ProcessorBase {
         spriteState = 1;
         oamSlot = 0;
         oamCount = 0;
+
+        if (spriteFastPath && vclock < 240 && oamAddress == 0) {
+            if (!spriteListsValid) {
+                buildSpriteLists();
+            }
+
+            fastEvaluation = true;
+        }
     }
 
     /**
@@ -637,8 +813,152 @@ public class PPU extends ProcessorBase {
         oamSlot = 0;
         oamAddress = 0;
         oamCount = 0;
+        fastEvaluation = false;
 
         sprites.pixels = new int[256];
+        zeroRow = 0;
+    }
+
+    /**
+     * Fills secondary OAM with a sprite list built in advance for the current scanline.
+     * Leaves the evaluator in the same state as if it had gone through all dots.
+     */
+    private void finishEvaluation() {
+        final int[] list = lineSprites[vclock];
+        final int count = Math.min(lineSpriteCount[vclock], 8);
+
+        for (int slot = 0; slot < count; slot++) {
+            final int address = list[slot] << 2;
+
+            buffer[slot].y = oam[address];
+            buffer[slot].nametable = oam[address + 1];
+            buffer[slot].attribute = oam[address + 2];
+            buffer[slot].x = oam[address + 3];
+            buffer[slot].zero = (address == 0);
+        }
+
+        oamData = lineOAMData[vclock];
+    }
+
+    /**
+     * Replays deferred sprite evaluation up to the current dot, so the rest 
+     * of the scanline can continue with the cycle-accurate evaluator.
+     */
+    private void catchUpEvaluation() {
+        fastEvaluation = false;
+
+        for (int dot = 64; dot < hclock; dot++) {
+            if (Tools.getbit(dot, 0)) {
+                evaluateSprites();
+            } else {
+                oamFetch();
+            }
+        }
+    }
+
+    /**
+     * Handles CPU access to OAM. Changing OAM while rendering makes the rest 
+     * of the frame use the cycle-accurate evaluator.
+     */
+    private void touchOAM() {
+        if (fastEvaluation) {
+            catchUpEvaluation();
+        }
+
+        if (isRendering() && (vclock < 240 || vclock == endNMI)) {
+            spriteFastPath = false;
+        }
+    }
+
+    /**
+     * Builds sprite lists for every visible scanline in one pass over OAM.
+     * Lines with eight sprites also get the exact dot at which the buggy 
+     * overflow search sets the sprite overflow flag, if it does at all.
+     */
+    private void buildSpriteLists() {
+        Arrays.fill(lineSpriteCount, 0);
+
+        for (int index = 0; index < 64; index++) {
+            final int y = oam[index << 2];
+            final int last = Math.min(y + sprites.rasters, 240);
+
+            for (int line = y; line < last; line++) {
+                if (lineSpriteCount[line] < 8) {
+                    lineSprites[line][lineSpriteCount[line]++] = index;
+                }
+            }
+        }
+
+        for (int line = 0; line < 240; line++) {
+            final int count = lineSpriteCount[line];
+            lineOverflowDot[line] = -1;
+
+            if (count < 8 || lineSprites[line][7] == 63) {
+                //Every sprite takes one step, an in-range one three more; then OAM address is cleared and advanced by 4
+                lineOAMData[line] = oam[(4 * (94 - (63 + 3 * count))) & 0xFF];
+            } else {
+                evaluateOverflow(line);
+            }
+        }
+
+        spriteListsValid = true;
+    }
+
+    /**
+     * Emulates sprite overflow search (including its hardware bug) for a scanline
+     * with eight sprites already found.
+     * 
+     * @param line      Scanline to evaluate
+     */
+    private void evaluateOverflow(final int line) {
+        //Eight sprites found take 32 steps, every other one checked before takes a single step
+        final int last = lineSprites[line][7];
+        int address = (last + 1) << 2;
+        int state = 5;
+
+        for (int step = last + 25; step < 96; step++) {
+            if (step == 95) {
+                lineOAMData[line] = oam[address];
+            }
+
+            switch (state) {
+                case 5:
+                    if (((line - oam[address]) & Integer.MAX_VALUE) < sprites.rasters) {
+                        lineOverflowDot[line] = 65 + (step << 1);
+                        address = (address + 1) & 0xFF;
+                        state = 6;
+                    } else {
+                        address = (((address + 4) & 0xFC) + ((address + 1) & 0x3)) & 0xFF;
+
+                        if (address <= 5) {
+                            state = 9;
+                            address &= 0xFC;
+                        }
+                    }
+                    break;
+
+                case 6:
+                case 7:
+                    address = (address + 1) & 0xFF;
+                    state++;
+                    break;
+
+                case 8:
+                    address++;
+
+                    if ((address & 0x3) == 0x3) {
+                        address++;
+                    }
+
+                    address &= 0xFC;
+                    state = 9;
+                    break;
+
+                default:
+                    address = (address + 4) & 0xFF;
+                    break;
+            }
+        }
     }
 
     /**
@@ -741,7 +1061,7 @@ public class PPU extends ProcessorBase {
                 } else {
                     spriteState = 6;
                     oamAddress = (oamAddress + 1) & 0xFF;
-                    spriteOverflow = true;
+                    setSpriteOverflow();
                 }
                 break;
 
@@ -775,12 +1095,44 @@ public class PPU extends ProcessorBase {
         }
     }
 
+    /**
+     * Sets sprite overflow flag.
+     */
+    private void setSpriteOverflow() {
+        if (!spriteOverflow) {
+            spriteOverflow = true;
+            overflowPosition = vclock * 341 + hclock;
+        }
+    }
+
+    /**
+     * Performs a step of sprite evaluation on a visible or pre-render scanline.
+     */
+    private void clockEvaluation() {
+        if (fastEvaluation) {
+            if (hclock == lineOverflowDot[vclock]) {
+                setSpriteOverflow();
+            }
+        } else if (Tools.getbit(hclock, 0)) {
+            evaluateSprites();
+        } else {
+            oamFetch();
+        }
+    }
+
     /**
      * Performs an individual machine cycle.
      */
     @Override
     public void cycle() {
-        nes.board.clockPPUCycle();
+        if (timing) {
+            cycleTiming();
+            return;
+        }
+
+        if (!shadow) {
+            nes.board.clockPPUCycle();
+        }
 
         if (vclock < 240 || vclock == endNMI) {
             if (isRendering()) {
@@ -830,11 +1182,7 @@ public class PPU extends ProcessorBase {
                             break;
                     }
 
-                    if (Tools.getbit(hclock, 0)) {
-                        evaluateSprites();
-                    } else {
-                        oamFetch();
-                    }
+                    clockEvaluation();
 
                     if (vclock < 240) {
                         renderPixel();
@@ -845,6 +1193,10 @@ public class PPU extends ProcessorBase {
                     }
 
                     if (hclock == 255) {
+                        if (fastEvaluation) {
+                            finishEvaluation();
+                        }
+
                         resetEvaluation();
                     }
                 } else if (hclock < 320) {
@@ -952,19 +1304,111 @@ public class PPU extends ProcessorBase {
             } else {
                 //Rendering is off, draw color at VRAM address if it's in range 0x3F00 - 0x3FFF
                 if (hclock < 255 && vclock < 240) {
-                    int pixel;
+                    screen[vclock << 8 | hclock] = backdropPixel();
+                }
+            }
+        }
+
+        nextDot();
+    }
 
-                    if ((scroll.address & 0x3F00) == 0x3F00) {
-                        pixel = colors[paletteIndexes[ppuram.read(scroll.address & 0x3FFF) & grayScale | emphasis & 0x7F]];
+    /**
+     * Performs an individual machine cycle while frames are drawn on another thread.
+     * Only scrolling, sprite evaluation and sprite 0 hit prediction are kept.
+     */
+    private void cycleTiming() {
+        if ((vclock < 240 || vclock == endNMI) && isRendering()) {
+            if (hclock < 256) {
+                if ((hclock & 7) == 3) {
+                    if (hclock == 251) {
+                        scroll.clockY();
                     } else {
-                        pixel = colors[paletteIndexes[ppuram.read(0x3F00) & grayScale | emphasis & 0x7F]];
+                        scroll.clockX();
+                    }
+                }
+
+                clockEvaluation();
+
+                if (zeroRow != 0 && vclock < 240) {
+                    predictSprite0Hit();
+                }
+
+                if (hclock == 63) {
+                    beginEvaluation();
+                }
+
+                if (hclock == 255) {
+                    if (fastEvaluation) {
+                        finishEvaluation();
                     }
 
-                    screen[vclock][hclock] = pixel;
+                    resetEvaluation();
+                }
+            } else if (hclock < 320) {
+                if (hclock == 256) {
+                    scroll.resetX();
+                }
+
+                if (hclock == 304 && vclock == endNMI) {
+                    scroll.resetY();
+                }
+
+                if (hclock == 263) {
+                    predictSprite0Row();
                 }
+            } else if (hclock < 336 && (hclock & 7) == 3) {
+                scroll.clockX();
             }
         }
 
+        nextDot();
+    }
+
+    /**
+     * Finds opaque pixels of sprite 0 for the next scanline, as they are synthesized
+     * after fetching the first sprite.
+     */
+    private void predictSprite0Row() {
+        final Sprite sprite = buffer[0];
+
+        if (!sprite.zero || sprite.x == 255) {
+            return;
+        }
+
+        final int comparator = (vclock - sprite.y) ^ (Tools.getbit(sprite.attribute, 7) ? 0x0F : 0x00);
+        final int address;
+
+        if (sprites.rasters == 0x10) {
+            address = (sprite.nametable << 0x0C & 0x1000) | (sprite.nametable << 0x04 & 0x0FE0)
+                    | (comparator << 0x01 & 0x0010) | (comparator & 0x7);
+        } else {
+            address = sprites.address | (sprite.nametable << 0x4) | (comparator & 0x7);
+        }
+
+        final int opaque = ppuram.read(address) | ppuram.read(address | 0x8);
+
+        zeroX = sprite.x;
+        zeroRow = Tools.getbit(sprite.attribute, 6) ? reverseCHRLookup[opaque] : opaque;
+    }
+
+    /**
+     * Sets sprite 0 hit, if renderPixel() would do so at the current dot.
+     * Like there, only an opaque pixel of sprite 0 is needed.
+     */
+    private void predictSprite0Hit() {
+        final int offset = hclock - zeroX;
+
+        if ((offset & ~7) == 0 && (zeroRow << offset & 0x80) != 0 && hclock < 255 && !sprite0hit
+                && sprites.enabled && !(sprites.clipped && hclock < 8)) {
+            sprite0hit = true;
+            sprite0Position = vclock * 341 + hclock;
+        }
+    }
+
+    /**
+     * Moves to the next dot and handles VBlank, NMI and the end of a frame.
+     */
+    private void nextDot() {
         hclock++;
 
         //Odd frame
@@ -993,9 +1437,15 @@ public class PPU extends ProcessorBase {
 
             //Clear VBlank
             if (vclock == endNMI) {
+                if (pipeline != null) {
+                    pipeline.recordStatus(this, sprite0Position, overflowPosition);
+                }
+
                 sprite0hit = false;
                 spriteOverflow = false;
+                sprite0Position = overflowPosition = -1;
                 nmiRequest = false;
+                spriteFastPath = true;
             }
         }
 
@@ -1003,6 +1453,16 @@ public class PPU extends ProcessorBase {
         if (hclock == 341) {
             hclock = 0;
             vclock++;
+
+            if (shadow) {
+                if (vclock == endFrame) {
+                    vclock = 0;
+                    pipeline.frameRendered();
+                }
+
+                return;
+            }
+
             nes.board.scanlineTick();
 
             //Trigger NMI
@@ -1014,11 +1474,258 @@ public class PPU extends ProcessorBase {
 
             if (vclock == endFrame) {
                 vclock = 0;
+
+                if (timing && !pipeline.endFrame()) {
+                    pipelineFailed = true;
+                }
+
                 nes.finishFrame(nes.gui);
+                updatePipeline();
+            } else {
+                if (timing) {
+                    pipeline.endLine();
+                }
+
+                if (hostProfiler != null) {
+                    hostProfiler.endLine();
+                }
+            }
+        }
+    }
+
+    /**
+     * Performs a given number of machine cycles. While rendering is disabled
+     * and the board doesn't need per-dot callbacks, cycles are only counted 
+     * until the next event or register access.
+     * 
+     * @param cycles        Number of machine cycles.
+     */
+    @Override
+    public void cycle(int cycles) {
+        if (idle && !NES.LOGGING) {
+            pendingCycles += cycles;
+
+            if (pendingCycles > deadline) {
+                synchronize();
+            }
+        } else {
+            if (idle) {
+                synchronize();
+            }
+
+            super.cycle(cycles);
+        }
+    }
+
+    /**
+     * Catches up with cycles counted while PPU was advancing in bulk.
+     */
+    public final void synchronize() {
+        if (pendingCycles != 0) {
+            int dots = 0;
+
+            if (pendingCycles > region.cycles) {
+                dots = (pendingCycles - region.cycles + region.singleCycle - 1) / region.singleCycle;
+            }
+
+            region.cycles += dots * region.singleCycle - pendingCycles;
+            pendingCycles = 0;
+
+            if (hostProfiler != null) {
+                final HostProfiler.Subsystem previous = hostProfiler.enter(HostProfiler.Subsystem.PPU);
+                advance(dots);
+                hostProfiler.leave(previous);
+            } else {
+                advance(dots);
+            }
+
+            updateIdle();
+        }
+    }
+
+    /**
+     * Returns a number of CPU cycles, which can be performed before
+     * NMI at the start of VBlank or the end of a frame.
+     *
+     * @param cycles    Number of machine cycles in a CPU cycle
+     * @return          Number of CPU cycles
+     */
+    public int cyclesBeforeEvent(final int cycles) {
+        if (ppuram.isClockedPerDot()) {
+            return 0;
+        }
+
+        synchronize();
+
+        final int line = (vclock < startNMI) ? startNMI - 1 : endFrame - 1;
+        final int dots = (line - vclock) * 341 + 341 - hclock;
+
+        //One dot less, as the pre-render line may be one dot shorter
+        return (dots < 2) ? 0 : ((dots - 2) * region.singleCycle + region.cycles) / cycles;
+    }
+
+    /**
+     * Checks if PPU can advance in bulk and sets a deadline for the next event,
+     * which is either NMI at the start of VBlank or the end of a frame.
+     */
+    private void updateIdle() {
+        idle = !isRendering() && !ppuram.isClockedPerDot() && !NES.LOGGING;
+
+        if (idle) {
+            final int line = (vclock < startNMI) ? startNMI - 1 : endFrame - 1;
+            final int dots = (line - vclock) * 341 + 341 - hclock;
+
+            deadline = region.cycles + (dots - 1) * region.singleCycle;
+        }
+    }
+
+    /**
+     * Advances a given number of dots with rendering disabled. Only dots, 
+     * which do more than drawing a backdrop, go through an individual machine cycle.
+     * 
+     * @param dots      Number of dots to advance
+     */
+    private void advance(int dots) {
+        while (dots > 0) {
+            if (hclock == 0 || hclock == 327 || hclock == 340) {
+                cycle();
+                dots--;
+            } else {
+                final int count = Math.min(dots, (hclock < 327 ? 327 : 340) - hclock);
+
+                if (vclock < 240 && hclock < 255 && !timing) {
+                    Arrays.fill(screen, vclock << 8 | hclock, vclock << 8 | Math.min(hclock + count, 255), backdropPixel());
+                }
+
+                hclock += count;
+                dots -= count;
+            }
+        }
+    }
+
+    /**
+     * Runs a PPU drawing frames on another thread up to a given dot or the end of the current frame.
+     * 
+     * @param position      Dot within a frame (scanline * 341 + dot)
+     */
+    final void renderUntil(final int position) {
+        do {
+            if (isRendering() || hclock == 0 || hclock >= 327) {
+                cycle();
+            } else {
+                advance(Math.min(327, position - vclock * 341) - hclock);
+            }
+        } while (vclock * 341 + hclock < position && (vclock | hclock) != 0);
+    }
+
+    /**
+     * Starts or stops drawing frames on another thread at the start of a frame.
+     * Frames are drawn ahead only if it is enabled, the board allows it 
+     * and no light gun needs to see the frame as it is drawn.
+     */
+    private void updatePipeline() {
+        final boolean enabled = nes.isPipelinedRendering() && !pipelineFailed 
+                && ppuram.canRenderAhead() && !nes.controllers.zapperConnected;
+
+        if (enabled && pipeline == null) {
+            findSprite0Row();
+            pipeline = new PipelinedRenderer(this);
+            timing = true;
+        } else if (!enabled && pipeline != null) {
+            stopPipeline();
+        }
+    }
+
+    /**
+     * Stops drawing frames on another thread and takes over the state of rendering.
+     * Can be called at any dot from emulation thread.
+     */
+    public final void stopPipeline() {
+        if (pipeline == null) {
+            return;
+        }
+
+        final PPU renderer = pipeline.stop();
+
+        if (renderer != null) {
+            fetch = renderer.fetch;
+            spriteFetch = renderer.spriteFetch;
+            background.pixels = renderer.background.pixels;
+            sprites.pixels = renderer.sprites.pixels;
+            screen = renderer.screen;
+        } else {
+            pipelineFailed = true;
+        }
+
+        pipeline = null;
+        timing = false;
+    }
+
+    /**
+     * Checks if frames are drawn on another thread.
+     * 
+     * @return      True: Frames are presented by the rendering thread
+     *              False: Frames are drawn by this PPU
+     */
+    public final boolean isPipelined() {
+        return timing;
+    }
+
+    /**
+     * Records CHR bank switches and mirroring changes after the CPU writes to the board,
+     * if frames are drawn on another thread.
+     */
+    public final void mapperWritten() {
+        if (timing) {
+            synchronize();
+
+            if (timing) {
+                pipeline.updateBoard();
             }
         }
     }
 
+    /**
+     * Finds opaque pixels of sprite 0 among sprite pixels synthesized for the current scanline.
+     */
+    private void findSprite0Row() {
+        zeroRow = 0;
+
+        for (int x = 0; x < 256; x++) {
+            if ((sprites.pixels[x] & 0x4000) != 0) {
+                if (zeroRow == 0) {
+                    zeroX = x;
+                }
+
+                zeroRow |= 0x80 >> (x - zeroX);
+            }
+        }
+    }
+
+    /**
+     * Returns a backdrop pixel drawn while rendering is disabled.
+     * 
+     * @return      Color at VRAM address if it's in range 0x3F00 - 0x3FFF,
+     *              otherwise universal background color
+     */
+    private short backdropPixel() {
+        if ((scroll.address & 0x3F00) == 0x3F00) {
+            return outputPixel(scroll.address & 0x3FFF);
+        } else {
+            return outputPixel(0x3F00);
+        }
+    }
+
+    /**
+     * Converts a palette entry to a 9-bit pixel with current grayscale and emphasis applied.
+     * 
+     * @param address       Palette address
+     * @return              9-bit pixel
+     */
+    private short outputPixel(final int address) {
+        return (short) (paletteIndexes[ppuram.read(address) & grayScale] | emphasis);
+    }
+
     /**
      * Checks if PPU is currently rendering.
      * 
@@ -1060,14 +1767,16 @@ public class PPU extends ProcessorBase {
     }
 
     /**
-     * Returns a pixel with (x, y) coordinations.
+     * Returns a color of a pixel with (x, y) coordinations.
      * 
      * @param x     Pixel on a X axis
      * @param y     Pixel on a Y axis
-     * @return      Pixel with (x, y) coorinations
+     * @return      Color of a pixel with (x, y) coorinations
      */
     public final int getPixel(int x, int y) {
-        return screen[y][x];
+        synchronize();
+
+        return colors[screen[y << 8 | x]];
     }
 
     /**
@@ -1087,41 +1796,24 @@ public class PPU extends ProcessorBase {
      * Renders a pixel.
      */
     private void renderPixel() {
-        final int bckgr = ppuram.read(0x3F00);
-        screen[vclock][hclock] = colors[paletteIndexes[bckgr & grayScale | emphasis & 0x7F]];
         final int backgroundPixel = 0x3F00 | background.getPixel(hclock, scroll.fine);
         final int spritePixel = 0x3F10 | sprites.getPixel(hclock, 0);
         int pixel;
 
-        if ((spritePixel & 0x8000) != 0) {
-            pixel = spritePixel;
-        } else {
-            pixel = backgroundPixel;
-        }
-
         if ((backgroundPixel & 0x3) == 0) {
             pixel = spritePixel;
-
-            if ((pixel & 0x3) != 0) {
-                screen[vclock][hclock] = colors[paletteIndexes[ppuram.read(pixel) & grayScale | emphasis & 0x7F]];
-            }
-        }
-
-        if ((spritePixel & 0x3) == 0) {
+        } else if ((spritePixel & 0x3) == 0) {
             pixel = backgroundPixel;
-
-            if ((pixel & 0x3) != 0) {
-                screen[vclock][hclock] = colors[paletteIndexes[ppuram.read(pixel) & grayScale | emphasis & 0x7F]];
-            }
+        } else {
+            pixel = ((spritePixel & 0x8000) != 0) ? spritePixel : backgroundPixel;
         }
 
-        if ((spritePixel & 0x4000) != 0 && hclock < 255) {
+        if ((spritePixel & 0x4000) != 0 && hclock < 255 && !sprite0hit) {
             sprite0hit = true;
+            sprite0Position = vclock * 341 + hclock;
         }
 
-        if ((pixel & 0x3) != 0) {
-            screen[vclock][hclock] = colors[paletteIndexes[ppuram.read(pixel) & grayScale | emphasis & 0x7F]];
-        }
+        screen[vclock << 8 | hclock] = outputPixel(((pixel & 0x3) != 0) ? pixel : 0x3F00);
     }
 
     /**
@@ -1132,4 +1824,13 @@ public class PPU extends ProcessorBase {
     public void setupPalette(int[] colors) {
         this.colors = colors.clone();
     }
+
+    /**
+     * Returns an internal color palette used to convert 9-bit pixels to colors.
+     * 
+     * @return      An array with a color palette
+     */
+    public int[] getPalette() {
+        return colors;
+    }
 }
\ No newline at end of file
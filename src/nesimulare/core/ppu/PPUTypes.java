@@ -31,6 +31,16 @@ public class PPUTypes {
         public int bit0;
         public int bit1;
         public int nametable;
+        
+        public Fetch copy() {
+            final Fetch fetch = new Fetch();
+            fetch.address = address;
+            fetch.attribute = attribute;
+            fetch.bit0 = bit0;
+            fetch.bit1 = bit1;
+            fetch.nametable = nametable;
+            return fetch;
+        }
     }
     
     public static class Scroll {
@@ -75,6 +85,16 @@ public class PPUTypes {
         public void resetY() {
             address = temp;
         }
+        
+        public Scroll copy() {
+            final Scroll scroll = new Scroll();
+            scroll.swap = swap;
+            scroll.address = address;
+            scroll.fine = fine;
+            scroll.step = step;
+            scroll.temp = temp;
+            return scroll;
+        }
     }
     
     public static class Sprite {
@@ -83,6 +103,16 @@ public class PPUTypes {
         public int attribute;
         public int x;
         public boolean zero;
+        
+        public Sprite copy() {
+            final Sprite sprite = new Sprite();
+            sprite.y = y;
+            sprite.nametable = nametable;
+            sprite.attribute = attribute;
+            sprite.x = x;
+            sprite.zero = zero;
+            return sprite;
+        }
     }
     
     public static class Unit {
@@ -103,5 +133,15 @@ public class PPUTypes {
             
             return pixels[hclock + offset];
         }
+        
+        public Unit copy() {
+            final Unit unit = new Unit(0);
+            unit.clipped = clipped;
+            unit.enabled = enabled;
+            unit.address = address;
+            unit.rasters = rasters;
+            unit.pixels = pixels.clone();
+            return unit;
+        }
     }
 }
\ No newline at end of file
@@ -24,6 +24,13 @@
  
 package nesimulare.core.ppu;
  
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.Map;
 import nesimulare.gui.Tools;
  
 /**
@@ -45,6 +52,8 @@ public class PaletteGenerator {
     static final double PI = Math.PI / 6.0;
     static float bright;
 
+    static final Map<String, int[]> cache = new HashMap<>();
+
     static float cos[] = new float[12];
     static float sin[] = new float[12];
    
@@ -126,23 +135,124 @@ public class PaletteGenerator {
    
     /**
      * Generates the entire color palette.
+     * Palettes are generated only once per set of parameters, 
+     * every subsequent call returns a cached copy.
      * 
      * @return      An array with a color palette.
      */
-    public static int[] generattePalette() {
-        int palette[] = new int[512];
-        
-        bright = brightness / 12.0f;
+    public static synchronized int[] generattePalette() {
+        final String key = saturation + ";" + hueTweak + ";" + contrast + ";" + brightness + ";" + gamma;
+        int palette[] = cache.get(key);
         
-        for (int p = 0; p < 12; p++) {
-            cos[p] = (float) Math.cos(PI * (p + hueTweak));
-            sin[p] = (float) Math.sin(PI * (p + hueTweak));
+        if (palette == null) {
+            palette = new int[512];
+            bright = brightness / 12.0f;
+
+            for (int p = 0; p < 12; p++) {
+                cos[p] = (float) Math.cos(PI * (p + hueTweak));
+                sin[p] = (float) Math.sin(PI * (p + hueTweak));
+            }
+
+            for (int i = 0; i < 512; i++) {
+                palette[i] = generateRGBColor(i) | (0xFF << 24);
+            }
+            
+            cache.put(key, palette);
         }
        
-        for (int i = 0; i < 512; i++) {
-            palette[i] = generateRGBColor(i) | (0xFF << 24);
+        return palette.clone();
+    }
+    
+    /**
+     * Loads a color palette from a .pal file.
+     * Both 64-color (192 bytes) and 512-color (1536 bytes) files are supported.
+     * For 64-color files, colors with emphasis bits are derived from the base colors.
+     * Loaded files are cached until they are modified.
+     * 
+     * @param filename      Filename of a palette file
+     * @return              An array with a color palette
+     * @throws IOException  If the file cannot be read or has an invalid size
+     */
+    public static synchronized int[] loadPalette(final String filename) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(filename, "r")) {
+            final long size = file.length();
+            final String key = filename + ";" + size + ";" + new File(filename).lastModified();
+            int palette[] = cache.get(key);
+            
+            if (palette == null) {
+                if (size != 64 * 3 && size != 512 * 3) {
+                    throw new IOException("Invalid palette size: " + size + " bytes");
+                }
+                
+                final MappedByteBuffer buffer = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, size);
+                final int colors = (int)size / 3;
+                palette = new int[512];
+                
+                for (int i = 0; i < colors; i++) {
+                    palette[i] = (0xFF << 24) | (buffer.get() & 0xFF) << 16 | (buffer.get() & 0xFF) << 8 | (buffer.get() & 0xFF);
+                }
+                
+                for (int i = colors; i < 512; i++) {
+                    palette[i] = emphasize(palette[i & 0x3F], i >> 6);
+                }
+                
+                cache.put(key, palette);
+            }
+            
+            return palette.clone();
         }
-       
-        return palette;
+    }
+    
+    /**
+     * Saves a color palette as a 512-color .pal file.
+     * 
+     * @param filename      Filename of a palette file
+     * @param palette       An array with a color palette
+     * @throws IOException  If the file cannot be written
+     */
+    public static void savePalette(final String filename, final int[] palette) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(filename, "rw")) {
+            file.setLength(512 * 3);
+            final MappedByteBuffer buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, 512 * 3);
+            
+            for (int i = 0; i < 512; i++) {
+                buffer.put((byte)(palette[i] >> 16));
+                buffer.put((byte)(palette[i] >> 8));
+                buffer.put((byte)palette[i]);
+            }
+            
+            buffer.force();
+        }
+    }
+    
+    /**
+     * Applies color emphasis to an RGB color.
+     * Every emphasis bit attenuates the two remaining color channels.
+     * 
+     * @param color         RGB color
+     * @param emphasis      Emphasis bits (red, green, blue)
+     * @return              Emphasized RGB color
+     */
+    private static int emphasize(final int color, final int emphasis) {
+        float r = (color >> 16) & 0xFF;
+        float g = (color >> 8) & 0xFF;
+        float b = color & 0xFF;
+        
+        if (Tools.getbit(emphasis, 0)) {
+            g *= ATTENTUATION;
+            b *= ATTENTUATION;
+        }
+        
+        if (Tools.getbit(emphasis, 1)) {
+            r *= ATTENTUATION;
+            b *= ATTENTUATION;
+        }
+        
+        if (Tools.getbit(emphasis, 2)) {
+            r *= ATTENTUATION;
+            g *= ATTENTUATION;
+        }
+        
+        return (0xFF << 24) | clamp(r) << 16 | clamp(g) << 8 | clamp(b);
     }
 }
\ No newline at end of file
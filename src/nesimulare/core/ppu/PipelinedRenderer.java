@@ -0,0 +1,392 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2013-2014 Parseus.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package nesimulare.core.ppu;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import nesimulare.core.boards.Board;
+
+/**
+ * Draws frames on a separate thread. The emulation thread keeps only PPU timing,
+ * scrolling and sprite evaluation, and records register accesses, CHR bank switches 
+ * and mirroring changes together with the dot they happened at. A second PPU on the 
+ * rendering thread replays the log dot by dot against its own copy of PPU memory.
+ * 
+ * Status flags read by the CPU cannot wait for the rendering thread: sprite overflow
+ * comes from the sprite evaluation kept on the emulation thread and sprite 0 hit is 
+ * predicted from the pattern of sprite 0. Both are checked against the rendering 
+ * thread frame by frame. Once they disagree, the PPU goes back to drawing on 
+ * the emulation thread.
+ * 
+ * The log is a single-producer, single-consumer ring. Entries are only published
+ * at the end of a scanline, so the rendering thread never waits for a half-filled line.
+ *
+ * @author Parseus
+ */
+final class PipelinedRenderer implements Runnable {
+    private static final int CAPACITY = 1 << 16;
+    private static final int MASK = CAPACITY - 1;
+    private static final int MAX_LAG = 2;   //Frames the emulation thread may run ahead
+    
+    /* Log entry: bits 39-63 frame and dot, bits 32-38 type, bits 0-31 payload */
+    static final int LINE = 0;
+    static final int WRITE = 1;
+    static final int READ = 2;
+    static final int CHR_PAGE = 3;
+    static final int MIRRORING = 4;
+    static final int STOP = 5;
+    
+    private final PPU ppu;
+    private final PPU shadow;
+    private final ShadowPPUMemory memory;
+    private final Board board;
+    private final long[] events = new long[CAPACITY];
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong consumed = new AtomicLong();
+    private final Thread producer;
+    private final Thread thread;
+    private volatile boolean producerWaiting;
+    private volatile boolean consumerWaiting;
+    private volatile boolean failed;
+    
+    /* Owned by emulation thread */
+    private long writeIndex;
+    private long readLimit;
+    private int frame;
+    private int checkedFrames;
+    private final int[] chrPages = new int[8];
+    private int mirroring;
+    private final long[] predicted = new long[256];
+    
+    /* Owned by rendering thread */
+    private int renderFrame;
+    private final long[] rendered = new long[256];
+    private volatile int renderedFrames;
+    
+    /**
+     * Starts drawing frames of a given PPU on a separate thread. 
+     * Called from emulation thread at the start of a frame.
+     * 
+     * @param ppu       PPU running on emulation thread
+     */
+    PipelinedRenderer(final PPU ppu) {
+        this.ppu = ppu;
+        this.board = ppu.nes.board;
+        this.memory = new ShadowPPUMemory(ppu.ppuram, board);
+        this.shadow = new PPU(ppu, this, memory);
+        this.producer = Thread.currentThread();
+        
+        for (int i = 0; i < 8; i++) {
+            chrPages[i] = board.getCHROffset(i << 10);
+        }
+        
+        mirroring = packMirroring(ppu.ppuram.nmtBank);
+        
+        thread = new Thread(this, "PPU rendering");
+        thread.setDaemon(true);
+        thread.start();
+    }
+    
+    /**
+     * Records an event at the current dot of the emulation thread PPU.
+     * 
+     * @param type          Type of the event
+     * @param payload       Data of the event
+     */
+    void log(final int type, final int payload) {
+        if (writeIndex - readLimit == CAPACITY) {
+            waitForSpace();
+        }
+        
+        final long stamp = (frame & 0xFF) << 17 | (ppu.vclock * 341 + ppu.hclock);
+        events[(int) writeIndex & MASK] = stamp << 39 | (long) type << 32 | (payload & 0xFFFFFFFFL);
+        writeIndex++;
+    }
+    
+    /**
+     * Records CHR bank switches and mirroring changes made by the board.
+     * Called after the CPU writes to a board.
+     */
+    void updateBoard() {
+        for (int i = 0; i < 8; i++) {
+            final int offset = board.getCHROffset(i << 10);
+            
+            if (chrPages[i] != offset) {
+                chrPages[i] = offset;
+                log(CHR_PAGE, i << 28 | offset);
+            }
+        }
+        
+        final int data = packMirroring(ppu.ppuram.nmtBank);
+        
+        if (mirroring != data) {
+            mirroring = data;
+            log(MIRRORING, data);
+        }
+    }
+    
+    /**
+     * Publishes events of a finished scanline to the rendering thread.
+     */
+    void endLine() {
+        log(LINE, 0);
+        publish();
+    }
+    
+    /**
+     * Publishes a finished frame to the rendering thread and checks status flags 
+     * of frames drawn so far. Waits if the rendering thread falls too far behind.
+     * 
+     * @return      True: Status flags seen by the CPU match drawn frames
+     */
+    boolean endFrame() {
+        frame++;
+        endLine();
+        
+        while (frame - renderedFrames > MAX_LAG && !failed) {
+            producerWaiting = true;
+            
+            if (frame - renderedFrames > MAX_LAG && !failed) {
+                LockSupport.park(this);
+            }
+            
+            producerWaiting = false;
+        }
+        
+        final int count = renderedFrames;
+        
+        for (; checkedFrames < count; checkedFrames++) {
+            if (predicted[checkedFrames & 0xFF] != rendered[checkedFrames & 0xFF]) {
+                return false;
+            }
+        }
+        
+        return !failed;
+    }
+    
+    /**
+     * Stores positions of status flags set by one of the PPUs in the current frame.
+     * 
+     * @param source            PPU setting the flags
+     * @param sprite0hit        Dot at which sprite 0 hit was set or -1
+     * @param spriteOverflow    Dot at which sprite overflow was set or -1
+     */
+    void recordStatus(final PPU source, final int sprite0hit, final int spriteOverflow) {
+        final long status = (long) sprite0hit << 32 | (spriteOverflow & 0xFFFFFFFFL);
+        
+        if (source == shadow) {
+            rendered[renderFrame & 0xFF] = status;
+        } else {
+            predicted[frame & 0xFF] = status;
+        }
+    }
+    
+    /**
+     * Stops the rendering thread after it catches up with the emulation thread.
+     * 
+     * @return      PPU, which has drawn the current frame up to the current dot 
+     *              or null if the rendering thread has failed
+     */
+    PPU stop() {
+        log(STOP, 0);
+        publish();
+        
+        boolean interrupted = false;
+        
+        while (thread.isAlive()) {
+            try {
+                thread.join();
+            } catch (InterruptedException ie) {
+                interrupted = true;
+            }
+        }
+        
+        if (interrupted) {
+            producer.interrupt();
+        }
+        
+        return failed ? null : shadow;
+    }
+    
+    /**
+     * Hands over a frame drawn by the rendering thread.
+     * Called from rendering thread at the end of a frame.
+     */
+    void frameRendered() {
+        ppu.nes.presentFrame(shadow.screen);
+        renderedFrames = ++renderFrame;
+        
+        if (producerWaiting) {
+            LockSupport.unpark(producer);
+        }
+    }
+    
+    /**
+     * Replays logged events as they are published.
+     */
+    @Override
+    public void run() {
+        long index = 0;
+        boolean stopped = false;
+        
+        try {
+            while (true) {
+                final long available = written.get();
+                
+                if (index == available) {
+                    consumerWaiting = true;
+                    
+                    if (written.get() == index) {
+                        LockSupport.park(this);
+                    }
+                    
+                    consumerWaiting = false;
+                    continue;
+                }
+                
+                while (index < available) {
+                    final long entry = events[(int) index & MASK];
+                    final int payload = (int) entry;
+                    index++;
+                    
+                    runTo((int) (entry >>> 39));
+                    
+                    switch ((int) (entry >>> 32) & 0x7F) {
+                        case WRITE:
+                            shadow.write(0x2000 | payload >> 8, payload & 0xFF);
+                            break;
+                            
+                        case READ:
+                            shadow.read(0x2000 | payload);
+                            break;
+                            
+                        case CHR_PAGE:
+                            memory.setCHRPage(payload >>> 28, payload & 0x0FFFFFFF);
+                            break;
+                            
+                        case MIRRORING:
+                            memory.setMirroring(payload);
+                            break;
+                            
+                        case STOP:
+                            stopped = true;
+                            return;
+                            
+                        default:
+                            break;
+                    }
+                    
+                    if ((index & 0x3FF) == 0) {
+                        release(index);
+                    }
+                }
+                
+                release(index);
+            }
+        } catch (RuntimeException re) {
+            System.err.println("Rendering thread failed: " + re);
+        } finally {
+            failed = !stopped;
+            
+            if (producerWaiting) {
+                LockSupport.unpark(producer);
+            }
+        }
+    }
+    
+    /**
+     * Runs the rendering thread PPU up to a logged dot.
+     * 
+     * @param stamp     Frame and dot of a logged event
+     */
+    private void runTo(final int stamp) {
+        final int target = stamp & 0x1FFFF;
+        
+        while (((stamp >>> 17) - renderFrame & 0xFF) != 0) {
+            shadow.renderUntil(Integer.MAX_VALUE);
+        }
+        
+        if (shadow.vclock * 341 + shadow.hclock < target) {
+            shadow.renderUntil(target);
+        }
+    }
+    
+    /**
+     * Makes events written so far visible to the rendering thread.
+     */
+    private void publish() {
+        written.set(writeIndex);
+        
+        if (consumerWaiting) {
+            LockSupport.unpark(thread);
+        }
+    }
+    
+    /**
+     * Frees replayed entries for the emulation thread.
+     * 
+     * @param index     Index of the first entry, which has not been replayed
+     */
+    private void release(final long index) {
+        consumed.set(index);
+        
+        if (producerWaiting) {
+            LockSupport.unpark(producer);
+        }
+    }
+    
+    /**
+     * Waits until the rendering thread frees an entry of a full log.
+     */
+    private void waitForSpace() {
+        publish();
+        readLimit = consumed.get();
+        
+        while (writeIndex - readLimit == CAPACITY) {
+            producerWaiting = true;
+            readLimit = consumed.get();
+            
+            if (writeIndex - readLimit == CAPACITY) {
+                if (failed || !thread.isAlive()) {
+                    //Entries will never be replayed
+                    readLimit = writeIndex;
+                } else {
+                    LockSupport.park(this);
+                }
+            }
+            
+            producerWaiting = false;
+        }
+    }
+    
+    /**
+     * Packs nametable banks in the order used by PPUMemory.setMirroring().
+     * 
+     * @param nmtBank       Nametable banks
+     * @return              Packed banks
+     */
+    private static int packMirroring(final int[] nmtBank) {
+        return nmtBank[0] << 6 | nmtBank[1] << 4 | nmtBank[2] << 2 | nmtBank[3];
+    }
+}
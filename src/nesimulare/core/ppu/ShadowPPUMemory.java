@@ -0,0 +1,90 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2013-2014 Parseus.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package nesimulare.core.ppu;
+
+import nesimulare.core.boards.Board;
+import nesimulare.core.memory.PPUMemory;
+
+/**
+ * Copy of PPU memory used by a PPU drawing frames ahead on another thread.
+ * Pattern tables are read through a copy of CHR banks, which is kept 
+ * up to date by bank switches recorded on the emulation thread.
+ *
+ * @author Parseus
+ */
+final class ShadowPPUMemory extends PPUMemory {
+    private final int[] chr;
+    private final int[] chrpage = new int[8];
+    private final boolean haschrram;
+    
+    /**
+     * Constructor for this class.
+     * 
+     * @param memory        Memory to copy
+     * @param board         Board with CHR memory and banks to copy
+     */
+    ShadowPPUMemory(final PPUMemory memory, final Board board) {
+        super(memory);
+        this.chr = board.getCHR();
+        this.haschrram = board.hasCHRRAM();
+        
+        for (int i = 0; i < 8; i++) {
+            chrpage[i] = board.getCHROffset(i << 10);
+        }
+    }
+    
+    @Override
+    public int read(final int address) {
+        final int addr = address & 0x3FFF;
+        
+        if (addr <= 0x1FFF) {
+            return chr[chrpage[addr >> 10] | (addr & 0x03FF)];
+        }
+        
+        return super.read(addr);
+    }
+    
+    @Override
+    public void write(final int address, final int data) {
+        final int addr = address & 0x3FFF;
+        
+        if (addr <= 0x1FFF) {
+            if (haschrram) {
+                chr[chrpage[addr >> 10] | (addr & 0x03FF)] = data;
+            }
+        } else {
+            super.write(addr, data);
+        }
+    }
+    
+    /**
+     * Switches a 1 KB CHR bank.
+     * 
+     * @param area          Area of pattern tables (0-7)
+     * @param offset        Offset within CHR memory
+     */
+    void setCHRPage(final int area, final int offset) {
+        chrpage[area] = offset;
+    }
+}
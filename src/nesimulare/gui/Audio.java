@@ -24,28 +24,46 @@
 
 package nesimulare.gui;
 
+import java.util.concurrent.locks.LockSupport;
 import nesimulare.core.NES;
 import javax.sound.sampled.*;
 import nesimulare.core.Region;
+import nesimulare.core.audio.OutputFilter;
 
 /**
+ * Plays audio samples through Java Sound.
+ *
+ * Samples are handed over from emulation thread to a dedicated output thread
+ * through a lock-free ring buffer, so emulation never waits for the sound card.
+ * If the ring buffer is full, new samples are dropped and counted as an overrun.
+ * Output filters, volume and clipping are applied on the output thread as well.
  *
  * @author Parseus
  */
-public class Audio implements AudioInterface {
+public class Audio implements AudioInterface, Runnable {
+    private static final int CHUNK = 512;
+    
     public boolean soundEnable;
     public SourceDataLine sdl;
-    private byte[] audiobuf;
-    private int bufptr = 0;
+    private SampleRing ring;
+    private final int samplerate;
     private final float outputvol;
+    private volatile boolean running;
+    private volatile boolean paused;
+    private volatile OutputFilter.Preset filterPreset;
+    private volatile int underruns = 0;
+    private volatile int overruns = 0;
+    private Thread thread;
 
     public Audio(final NES nes, final int samplerate) {
         soundEnable = PrefsSingleton.get().getBoolean("soundEnable", true);
         outputvol = (float) (PrefsSingleton.get().getInt("outputvol", 13107) / 16384.);
+        this.samplerate = samplerate;
+        filterPreset = OutputFilter.Preset.select(nes.region);
         
         if (soundEnable) {
             final int samplesperframe = (int) Math.ceil((samplerate * 2) / (nes.region == Region.NTSC ? 60. : 50.));
-            audiobuf = new byte[samplesperframe * 2];
+            ring = new SampleRing(samplesperframe * 4);
             
             try {
                 AudioFormat af = new AudioFormat(
@@ -60,6 +78,12 @@ public class Audio implements AudioInterface {
                 sdl = AudioSystem.getSourceDataLine(af);
                 sdl.open(af, samplesperframe * 8); //create 4 frame audio buffer
                 sdl.start();
+                
+                running = true;
+                thread = new Thread(this, "Audio output");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MAX_PRIORITY);
+                thread.start();
             } catch (LineUnavailableException | IllegalArgumentException a) {
                 nes.messageBox("Unable to inintialize sound: " + a.getMessage());
                 soundEnable = false;
@@ -67,68 +91,158 @@ public class Audio implements AudioInterface {
         }
     }
     
+    /**
+     * Makes samples of a finished frame available to audio output thread.
+     * Never blocks, even if audio output falls behind.
+     * 
+     * @param waitIfBufferFull      Unused, samples which don't fit are dropped
+     */
     @Override
     public final void flushFrame(final boolean waitIfBufferFull) {
         if (soundEnable) {
-            if (sdl.available() < bufptr) {
-                if (waitIfBufferFull) {
-                    //write to audio buffer and don't worry if it blocks
-                    sdl.write(audiobuf, 0, bufptr);
-                }
-                //else don't bother to write if the buffer is full
-            } else {
-                sdl.write(audiobuf, 0, bufptr);
-            }
+            ring.publish();
+            LockSupport.unpark(thread);
         }
-        
-        bufptr = 0;
     }
 
     @Override
     public final void outputSample(int sample) {
-        if (soundEnable) {
-            sample *= outputvol;
+        if (soundEnable && !ring.offer(sample)) {
+            overruns++;
+        }
+    }
+    
+    @Override
+    public void setFilter(OutputFilter.Preset preset) {
+        filterPreset = preset;
+    }
+
+    /**
+     * Writes samples to the audio line as they arrive.
+     */
+    @Override
+    public void run() {
+        final int[] samples = new int[CHUNK];
+        final byte[] bytes = new byte[CHUNK * 2];
+        OutputFilter filter = new OutputFilter(filterPreset, samplerate);
+        boolean playing = false;
+        
+        while (running) {
+            if (paused) {
+                if (sdl.isRunning()) {
+                    sdl.stop();
+                    sdl.flush();
+                }
+                
+                ring.discard();
+                filter.reset();
+                playing = false;
+                LockSupport.park(this);
+                continue;
+            }
+            
+            if (!sdl.isRunning()) {
+                sdl.start();
+            }
             
-            if (sample < -32768) {
-                sample = -32768;
-                //System.err.println("clip");
+            //Only write as much as fits, so pausing and stopping are never held up by the line
+            final int count = ring.poll(samples, sdl.available() / 2);
+            
+            if (count == 0) {
+                if (playing && sdl.available() >= sdl.getBufferSize()) {
+                    //Line ran dry before the next frame arrived
+                    underruns++;
+                    playing = false;
+                }
+                
+                LockSupport.parkNanos(this, 1000000L);
+                continue;
             }
             
-            if (sample > 32767) {
-                sample = 32767;
-                //System.err.println("clop");
+            if (filter.preset != filterPreset) {
+                filter = new OutputFilter(filterPreset, samplerate);
             }
             
-            audiobuf[bufptr] = (byte) (sample & 0xff);
-            audiobuf[bufptr + 1] = (byte) ((sample >> 8) & 0xff);
-            bufptr += 2;
+            filter.process(samples, count);
+            
+            for (int i = 0; i < count; i++) {
+                int sample = (int) (samples[i] * outputvol);
+                
+                if (sample < -32768) {
+                    sample = -32768;
+                    //System.err.println("clip");
+                }
+
+                if (sample > 32767) {
+                    sample = 32767;
+                    //System.err.println("clop");
+                }
+                
+                bytes[i * 2] = (byte) (sample & 0xff);
+                bytes[i * 2 + 1] = (byte) ((sample >> 8) & 0xff);
+            }
+            
+            sdl.write(bytes, 0, count * 2);
+            playing = true;
         }
     }
 
     @Override
     public void pause() {
-        if (soundEnable) {
-            if (sdl.isRunning()) {
-                sdl.flush();
-                sdl.stop();
-            }   
+        if (soundEnable && !paused) {
+            paused = true;
+            LockSupport.unpark(thread);
         }
     }
 
     @Override
     public void resume() {
-        if (soundEnable) {
-            if (!sdl.isRunning()) {
-                sdl.start();
-            }
+        if (soundEnable && paused) {
+            paused = false;
+            LockSupport.unpark(thread);
         }
     }
 
     @Override
     public final void destroy() {
         if (soundEnable) {
+            running = false;
+            LockSupport.unpark(thread);
+            
+            try {
+                thread.join();
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+            
             sdl.stop();
             sdl.close();
         }
     }
-}
\ No newline at end of file
+
+    @Override
+    public boolean isEnabled() {
+        return soundEnable;
+    }
+
+    @Override
+    public int getUnderruns() {
+        return underruns;
+    }
+
+    @Override
+    public int getOverruns() {
+        return overruns;
+    }
+
+    @Override
+    public double getLatency() {
+        if (!soundEnable) {
+            return 0;
+        }
+        
+        final int queued = ring.size() + (sdl.getBufferSize() - sdl.available()) / 2;
+        
+        return queued * 1000.0 / samplerate;
+    }
+}
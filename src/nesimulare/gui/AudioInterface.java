@@ -24,13 +24,30 @@
 
 package nesimulare.gui;
 
+import nesimulare.core.audio.OutputFilter;
+
 /**
  *
  * @author Parseus
  */
 public interface AudioInterface {
 
+    public boolean isEnabled();
+
+    /**
+     * Queues a mixed audio sample for playback. Samples are not filtered yet,
+     * so they still contain the DC offset of the mixer.
+     *
+     * @param sample        Mixed audio sample
+     */
     public void outputSample(int sample);
+    
+    /**
+     * Selects filters applied to samples before playback.
+     *
+     * @param preset        Filter chain
+     */
+    public void setFilter(OutputFilter.Preset preset);
 
     public void flushFrame(boolean waitIfBufferFull);
 
@@ -39,4 +56,25 @@ public interface AudioInterface {
     public void resume();
 
     public void destroy();
+
+    /**
+     * Returns how many times audio output ran out of samples.
+     *
+     * @return      Number of underruns
+     */
+    public int getUnderruns();
+
+    /**
+     * Returns how many samples were dropped because audio output fell behind.
+     *
+     * @return      Number of dropped samples
+     */
+    public int getOverruns();
+
+    /**
+     * Returns the amount of audio queued for playback.
+     *
+     * @return      Latency in milliseconds
+     */
+    public double getLatency();
 }
\ No newline at end of file
@@ -24,28 +24,75 @@
 
 package nesimulare.gui;
 
+import java.util.Arrays;
+import java.util.concurrent.locks.LockSupport;
 import nesimulare.core.NES;
 import nesimulare.core.Region;
 
 /**
+ * Paces emulation to the frame rate of an emulated console.
+ *
+ * Frames are scheduled against absolute deadlines, so rounding errors and late
+ * wake-ups don't accumulate into drift. Most of the wait is spent parked,
+ * and the last stretch is spun, because the scheduler can't be trusted to
+ * wake a thread up on time.
  *
  * @author Parseus
  */
 
 public class FrameLimiter extends Thread {
+    /**
+     * Queued audio (in milliseconds) emulation waits for before starting a new frame.
+     * One more frame of audio is added on top of it, which keeps latency under 40 ms.
+     */
+    private static final double AUDIO_LOW_WATER = 20;
+    
+    /**
+     * Largest change of audio sampling ratio used to keep queued audio steady.
+     */
+    private static final double MAX_RATE_DELTA = 0.005;
+    
+    /**
+     * Part of the wait (in nanoseconds) spent spinning instead of parked.
+     */
+    private static final long SPIN_NANOS = 1000000L;
+    
+    /**
+     * Number of frames emulation may fall behind before the schedule is restarted.
+     */
+    private static final int MAX_LAG = 3;
+    
+    /**
+     * Resolution (in nanoseconds) and number of bins of frame time histogram.
+     */
+    private static final long BIN_NANOS = 100000L;
+    private static final int BINS = 500;
+    
     NES nes;
     public double frameTime;
-    private double elapsedTime;
     private double fps;
     private double framePeriod;
-    private double lastFrameTime;
-    private double sleepTime;
+    private long periodNanos;
+    private long deadline = 0;
+    private long lastFrameNanos = 0;
     public boolean enabled;
+    public volatile boolean audioSync;
+    private double latencyError = 0;
+    private boolean rateAdjusted = false;
+    private volatile Thread emulationThread;
+    
+    private final Object statsLock = new Object();     //Guards statistics, which are read by event dispatch thread
+    private final int[] histogram = new int[BINS + 1];
+    private long frames = 0;
+    private long totalNanos = 0;
+    private long maxNanos = 0;
+    private long lateFrames = 0;
 
     public FrameLimiter(NES nes) {
         super();
         this.nes = nes;
         this.enabled = true;
+        this.audioSync = PrefsSingleton.get().getBoolean("audioSync", false);
         
         hardReset();
     }
@@ -53,38 +100,235 @@ public class FrameLimiter extends Thread {
     public final void hardReset() {
         fps = (nes.region == Region.NTSC) ? 60.098813897440515532 : 50.006977968268290849;
         framePeriod = 1000 / fps;
+        periodNanos = Math.round(1000000000.0 / fps);
+        deadline = 0;
+        lastFrameNanos = 0;
+        resetStatistics();
     }
 
+    /**
+     * Waits until it's time to start the next frame.
+     */
     public void sleep() {
-        //Frame Limiter
-        elapsedTime = (System.nanoTime() / 1000000.0) - lastFrameTime;
-        sleepTime = (framePeriod - elapsedTime);
-        
-        frameTime = enabled ? fps - elapsedTime : 1000 / elapsedTime;
-        
-        if (enabled) {
-            if (sleepTime > 0) {
-                try {
-                    Thread.sleep((int)sleepTime);
-                } catch (InterruptedException ie) {
-                    nes.messageBox(ie.getMessage());
+        if (emulationThread == null) {
+            emulationThread = Thread.currentThread();
+        }
+        
+        if (enabled && audioSync && nes.audio != null && nes.audio.isEnabled()) {
+            syncToAudio();
+            deadline = 0;
+        } else {
+            if (rateAdjusted) {
+                rateAdjusted = false;
+                latencyError = 0;
+                nes.apu.setPlaybackRate(1.0);
+            }
+
+            if (enabled) {
+                waitForDeadline();
+            } else {
+                deadline = 0;
+            }
+        }
+        
+        final long now = System.nanoTime();
+        
+        if (lastFrameNanos != 0) {
+            record(now - lastFrameNanos);
+        }
+        
+        lastFrameNanos = now;
+    }
+    
+    /**
+     * Waits until the deadline of the current frame and schedules the next one.
+     */
+    private void waitForDeadline() {
+        long now = System.nanoTime();
+        
+        if (deadline == 0 || now - deadline > MAX_LAG * periodNanos) {
+            //First frame or emulation fell far behind, e.g. after loading a state or a GC pause
+            deadline = now + periodNanos;
+            return;
+        }
+        
+        if (now > deadline) {
+            synchronized (statsLock) {
+                lateFrames++;
+            }
+        }
+        
+        long remaining = deadline - now;
+        
+        while (remaining > SPIN_NANOS) {
+            LockSupport.parkNanos(this, remaining - SPIN_NANOS);
+            remaining = deadline - System.nanoTime();
+        }
+        
+        while (deadline - System.nanoTime() > 0) {
+            //Spin for the last stretch
+        }
+        
+        deadline += periodNanos;
+    }
+
+    /**
+     * Adds a time between two consecutive frames to frame time histogram.
+     * 
+     * @param nanos     Time between frames in nanoseconds
+     */
+    private void record(final long nanos) {
+        frameTime = 1000000000.0 / nanos;
+        
+        synchronized (statsLock) {
+            histogram[(int) Math.min(nanos / BIN_NANOS, BINS)]++;
+            frames++;
+            totalNanos += nanos;
+            maxNanos = Math.max(maxNanos, nanos);
+        }
+    }
+    
+    /**
+     * Clears frame time histogram.
+     */
+    public void resetStatistics() {
+        synchronized (statsLock) {
+            Arrays.fill(histogram, 0);
+            frames = 0;
+            totalNanos = 0;
+            maxNanos = 0;
+            lateFrames = 0;
+        }
+    }
+    
+    /**
+     * Returns a value below which a given fraction of frame times falls.
+     * 
+     * @param histogram     Frame time histogram
+     * @param frames        Number of recorded frames
+     * @param maxNanos      Longest frame time in nanoseconds
+     * @param fraction      Fraction of frame times (0.0 - 1.0)
+     * @return              Frame time in milliseconds
+     */
+    private static double percentile(final int[] histogram, final long frames, final long maxNanos, final double fraction) {
+        final long target = (long) Math.ceil(frames * fraction);
+        long count = 0;
+        
+        for (int i = 0; i < BINS; i++) {
+            count += histogram[i];
+            
+            if (count >= target) {
+                return (i + 0.5) * BIN_NANOS / 1000000.0;
+            }
+        }
+        
+        return maxNanos / 1000000.0;
+    }
+    
+    /**
+     * Generates a report of frame pacing from a snapshot of statistics,
+     * so it can be called from any thread while emulation runs.
+     * 
+     * @return      Frame time statistics together with a histogram
+     */
+    public String report() {
+        final StringBuilder sb = new StringBuilder();
+        final int[] histogram;
+        final long frames, totalNanos, maxNanos, lateFrames;
+        
+        synchronized (statsLock) {
+            histogram = this.histogram.clone();
+            frames = this.frames;
+            totalNanos = this.totalNanos;
+            maxNanos = this.maxNanos;
+            lateFrames = this.lateFrames;
+        }
+        
+        if (frames == 0) {
+            return "No frames recorded.";
+        }
+        
+        final double mean = totalNanos / (double) frames / 1000000.0;
+        
+        sb.append(String.format("Target:   %.4f fps (%.4f ms)%n", fps, framePeriod));
+        sb.append(String.format("Measured: %.4f fps (%.4f ms) over %d frames%n", 1000 / mean, mean, frames));
+        sb.append(String.format("p1 %.1f ms, p50 %.1f ms, p99 %.1f ms, max %.1f ms, late %d%n%n",
+                percentile(histogram, frames, maxNanos, 0.01), percentile(histogram, frames, maxNanos, 0.5),
+                percentile(histogram, frames, maxNanos, 0.99), maxNanos / 1000000.0, lateFrames));
+        
+        int peak = 1;
+        
+        for (int count : histogram) {
+            peak = Math.max(peak, count);
+        }
+        
+        for (int i = 0; i <= BINS; i++) {
+            if (histogram[i] != 0) {
+                final int bar = (int) Math.ceil(histogram[i] * 50.0 / peak);
+                final String label = (i == BINS) ? String.format(">%5.1f", BINS * BIN_NANOS / 1000000.0) : String.format("%6.1f", i * BIN_NANOS / 1000000.0);
+                
+                sb.append(String.format("%s ms %7d ", label, histogram[i]));
+                
+                for (int j = 0; j < bar; j++) {
+                    sb.append('#');
                 }
+                
+                sb.append(String.format("%n"));
             }
         }
         
-        lastFrameTime = (System.nanoTime() / 1000000.0);
+        return sb.toString();
     }
 
-    public void sleepFixed() {
-        elapsedTime = (System.nanoTime() / 1000000.0) - lastFrameTime;
-        sleepTime = framePeriod - elapsedTime;
+    /**
+     * Paces emulation by the clock of the audio device instead of the system timer.
+     * Emulation waits until queued audio drops to the low water mark, and the
+     * sampling ratio is adjusted by up to 0.5% to keep the amount of audio
+     * queued at the end of each frame steady. This way the buffer neither
+     * runs dry nor grows, and the pitch change is too small to hear.
+     */
+    private void syncToAudio() {
+        double latency = nes.audio.getLatency();
+        
+        //After a frame there should be exactly one frame of audio above the low water mark
+        final double error = (latency - AUDIO_LOW_WATER - framePeriod) / AUDIO_LOW_WATER;
+        latencyError += (Math.max(-1, Math.min(1, error)) - latencyError) * 0.05;
+        nes.apu.setPlaybackRate(1 - MAX_RATE_DELTA * latencyError);
+        rateAdjusted = true;
         
-        try {
-            Thread.sleep(100);
-        } catch (InterruptedException ie) {
-            nes.messageBox(ie.getMessage());
+        //Never wait for longer than a few frames, in case audio output got stuck
+        final long giveUp = System.nanoTime() + MAX_LAG * periodNanos;
+        
+        while (latency > AUDIO_LOW_WATER && System.nanoTime() < giveUp) {
+            LockSupport.parkNanos(this, (long) ((latency - AUDIO_LOW_WATER) * 1000000));
+            latency = nes.audio.getLatency();
+        }
+    }
+    
+    /**
+     * Waits while emulation is paused, until woken up by {@link #wake()}.
+     */
+    public void sleepFixed() {
+        if (emulationThread == null) {
+            emulationThread = Thread.currentThread();
         }
         
-        lastFrameTime = (System.nanoTime() / 1000000.0);
+        //Timeout is only a safety net, emulation thread is woken up whenever it has something to do
+        LockSupport.parkNanos(this, 1000000000L);
+        
+        deadline = 0;
+        lastFrameNanos = 0;
+    }
+    
+    /**
+     * Wakes up emulation thread waiting in {@link #sleepFixed()}.
+     * If it isn't waiting yet, the next wait returns immediately.
+     */
+    public void wake() {
+        final Thread thread = emulationThread;
+        
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
     }
-}
\ No newline at end of file
+}
@@ -32,16 +32,29 @@ import java.awt.event.*;
 import java.awt.image.BufferStrategy;
 import java.awt.image.BufferedImage;
 import java.io.File;
+import java.io.FileWriter;
 import java.io.FilenameFilter;
 import java.io.IOException;
+import java.io.Writer;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.List;
 import javax.swing.*;
 import static javax.swing.WindowConstants.DISPOSE_ON_CLOSE;
 import nesimulare.core.NES;
 import nesimulare.core.Region;
+import nesimulare.core.audio.OutputFilter;
+import nesimulare.core.audio.WavRecorder;
+import nesimulare.core.debug.Breakpoint;
+import nesimulare.core.debug.CodeDataLogger;
+import nesimulare.core.debug.CycleProfiler;
+import nesimulare.core.debug.Debugger;
+import nesimulare.core.debug.DisassemblyCache;
+import nesimulare.core.debug.WatchLog;
+import nesimulare.core.debug.HostProfiler;
 import nesimulare.core.input.Joypad;
+import nesimulare.core.ppu.PaletteGenerator;
 
 /**
  * Main GUI class.
@@ -59,6 +72,7 @@ public class GUIImpl extends JFrame implements GUIInterface {
     private Canvas canvas;
     private BufferStrategy buffer;
     private Renderer renderer;
+    private DisassemblyCache disassembly;     //Used only on the event dispatch thread
     private BufferedImage screen;
     private GraphicsDevice gd;
     private int screenScaleFactor;
@@ -76,6 +90,12 @@ public class GUIImpl extends JFrame implements GUIInterface {
         nes.setControllers(joypad1, joypad2);
         joypad1.startEventQueue();
         joypad2.startEventQueue();
+        nes.debugger.setListener(new Debugger.Listener() {
+            @Override
+            public void breakpointHit(final Breakpoint breakpoint, final int address, final int value) {
+                showBreakpoint(breakpoint, address, value);
+            }
+        });
     }
     
     public synchronized void setRenderOptions() {
@@ -100,13 +120,16 @@ public class GUIImpl extends JFrame implements GUIInterface {
     }
     
     @Override
-    public final synchronized void setFrame(int[][] frame) {
+    public final synchronized void setFrame(short[] frame, int[] palette) {
+        updateTitle();
+        screen = renderer.render(frame, palette);
+        render();
+    }
+    
+    private void updateTitle() {
         final double fps = nes.frameLimiter.frameTime;
         this.setTitle(String.format("NESimulare (%s) - %s, %2.2f fps",
             dateFormat.format(date), nes.getCurrentRomName(), fps));
-        
-        screen = renderer.render(frame);
-        render();
     }
 
     @Override
@@ -122,6 +145,8 @@ public class GUIImpl extends JFrame implements GUIInterface {
         
         buildMenus();
         setRenderOptions();
+        nes.setPipelinedRendering(PrefsSingleton.get().getBoolean("pipelinedRendering", false));
+        nes.setNamco163Mixing(PrefsSingleton.get().getBoolean("namco163Mixing", false));
         addMouseListener(listener);
         
         this.getRootPane().registerKeyboardAction(listener, "Escape",
@@ -205,6 +230,366 @@ public class GUIImpl extends JFrame implements GUIInterface {
         }
     }
     
+    /**
+     * Chooses a .pal file, which will be used instead of a generated palette.
+     */
+    private void loadPalette() {
+        final String filename = chooseFile(FileDialog.LOAD, "Select a palette to load", ".pal");
+        
+        if (filename != null) {
+            PrefsSingleton.get().put("paletteFile", filename);
+            
+            if (nes.ppu != null) {
+                nes.generatePalette();
+            }
+        }
+    }
+    
+    /**
+     * Saves a palette currently in use as a .pal file.
+     */
+    private void savePalette() {
+        final String filename = chooseFile(FileDialog.SAVE, "Save palette as", ".pal");
+        
+        if (filename != null) {
+            try {
+                PaletteGenerator.savePalette(filename, nes.ppu != null ? nes.ppu.getPalette() : PaletteGenerator.generattePalette());
+            } catch (IOException ioe) {
+                messageBox("Could not save palette: " + ioe.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Asks for a breakpoint and adds it to the debugger.
+     */
+    private void addBreakpoint() {
+        final String text = JOptionPane.showInputDialog(this,
+                "(exec | read | write | rw | watch) [cpu | ppu] address[-address] [if condition]\n"
+                + "e.g. \"write ppu $3F00-$3F1F\" or \"exec $C000 if A == $10 && X < 5\"",
+                "Add breakpoint", JOptionPane.PLAIN_MESSAGE);
+        
+        if (text == null || text.trim().isEmpty()) {
+            return;
+        }
+        
+        try {
+            nes.debugger.add(Breakpoint.parse(nes, text));
+        } catch (IllegalArgumentException iae) {
+            messageBox(iae.getMessage());
+        }
+    }
+    
+    /**
+     * Asks for a breakpoint and removes it from the debugger.
+     */
+    private void removeBreakpoint() {
+        final List<Breakpoint> breakpoints = nes.debugger.getBreakpoints();
+        
+        if (breakpoints.isEmpty()) {
+            messageBox("There are no breakpoints.");
+            return;
+        }
+        
+        final Object breakpoint = JOptionPane.showInputDialog(this, "Breakpoint to remove:", "Remove breakpoint",
+                JOptionPane.PLAIN_MESSAGE, null, breakpoints.toArray(), breakpoints.get(0));
+        
+        if (breakpoint != null) {
+            nes.debugger.remove((Breakpoint)breakpoint);
+        }
+    }
+    
+    /**
+     * Merges a previously saved .cdl file into the Code/Data Logger.
+     */
+    private void loadCodeDataLog() {
+        final CodeDataLogger logger = nes.debugger.getCodeDataLogger();
+        
+        if (logger == null) {
+            messageBox("Code/Data Logger has to be started first.");
+            return;
+        }
+        
+        final String filename = chooseFile(FileDialog.LOAD, "Select a code/data log to load", ".cdl");
+        
+        if (filename != null) {
+            try {
+                logger.load(filename);
+            } catch (IOException ioe) {
+                messageBox("Could not load code/data log: " + ioe.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Saves a log of the Code/Data Logger either as a .cdl file or as a heatmap image.
+     * 
+     * @param heatmap       True if a heatmap should be saved
+     */
+    private void saveCodeDataLog(final boolean heatmap) {
+        final CodeDataLogger logger = nes.debugger.getCodeDataLogger();
+        
+        if (logger == null) {
+            messageBox("Code/Data Logger hasn't been started.");
+            return;
+        }
+        
+        final String filename = heatmap ? chooseFile(FileDialog.SAVE, "Save heatmap as", ".png")
+                : chooseFile(FileDialog.SAVE, "Save code/data log as", ".cdl");
+        
+        if (filename != null) {
+            try {
+                if (heatmap) {
+                    logger.saveHeatmap(filename);
+                } else {
+                    logger.save(filename);
+                }
+            } catch (IOException ioe) {
+                messageBox("Could not save code/data log: " + ioe.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Loads symbols (FCEUX .nl or ca65 .dbg) used by the cycle profiler.
+     */
+    private void loadSymbols() {
+        final CycleProfiler profiler = nes.getProfiler();
+        
+        if (profiler == null) {
+            messageBox("A ROM has to be loaded first.");
+            return;
+        }
+        
+        final String filename = chooseFile(FileDialog.LOAD, "Select a symbol file (.nl or .dbg)", "");
+        
+        if (filename != null) {
+            try {
+                profiler.loadSymbols(filename);
+            } catch (IOException ioe) {
+                messageBox("Could not load symbols: " + ioe.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Saves a report of the cycle profiler as a text file.
+     */
+    private void saveProfile() {
+        final CycleProfiler profiler = nes.getProfiler();
+        
+        if (profiler == null) {
+            messageBox("A ROM has to be loaded first.");
+            return;
+        }
+        
+        final String filename = chooseFile(FileDialog.SAVE, "Save profile as", ".txt");
+        
+        if (filename != null) {
+            try (Writer writer = new FileWriter(filename)) {
+                writer.write(profiler.report());
+            } catch (IOException ioe) {
+                messageBox("Could not save profile: " + ioe.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Shows a per-frame breakdown of time taken by subsystems of the emulator.
+     */
+    private void showHostProfile() {
+        final HostProfiler profiler = nes.getHostProfiler();
+        
+        if (profiler == null) {
+            messageBox("Host profiler hasn't been started.");
+            return;
+        }
+        
+        final JTextArea text = new JTextArea(profiler.report());
+        text.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        text.setEditable(false);
+        JOptionPane.showMessageDialog(this, text, "Host profile", JOptionPane.PLAIN_MESSAGE);
+    }
+    
+    /**
+     * Shows underrun, overrun and latency counters of audio output.
+     */
+    private void showAudioStatistics() {
+        final AudioInterface audio = nes.audio;
+        
+        if (audio == null) {
+            messageBox("Audio hasn't been started.");
+            return;
+        }
+        
+        String text = String.format("Underruns: %d%nDropped samples: %d%nLatency: %.1f ms",
+                audio.getUnderruns(), audio.getOverruns(), audio.getLatency());
+        
+        final WavRecorder recorder = nes.recorder;
+        
+        if (recorder != null) {
+            text += String.format("%n%nRecording: %.1f s%nDropped samples: %d",
+                    recorder.getSeconds(), recorder.getDroppedSamples());
+        }
+        
+        messageBox(text);
+    }
+    
+    /**
+     * Starts recording audio into a WAV file.
+     */
+    private void startAudioRecording() {
+        if (nes.apu == null) {
+            messageBox("A ROM has to be loaded first.");
+            return;
+        }
+        
+        final String filename = chooseFile(FileDialog.SAVE, "Record audio as", ".wav");
+        
+        if (filename != null) {
+            try {
+                nes.startRecording(filename);
+            } catch (IOException ioe) {
+                messageBox("Could not start audio recording: " + ioe.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Stops recording audio and completes the WAV file.
+     * 
+     * @param report        True: Shows length of the recording and dropped samples
+     *                      False: Shows only errors
+     */
+    private void stopAudioRecording(final boolean report) {
+        try {
+            final WavRecorder recorder = nes.stopRecording();
+            
+            if (!report) {
+                return;
+            }
+            
+            if (recorder == null) {
+                messageBox("Audio isn't being recorded.");
+            } else {
+                messageBox(String.format("Recorded %.1f s of audio to %s%nDropped samples: %d",
+                        recorder.getSeconds(), recorder.filename, recorder.getDroppedSamples()));
+            }
+        } catch (IOException ioe) {
+            messageBox("Could not write audio recording: " + ioe.getMessage());
+        }
+    }
+    
+    /**
+     * Shows frame time statistics and histogram of the frame limiter.
+     */
+    private void showFramePacing() {
+        final JTextArea text = new JTextArea(nes.frameLimiter.report());
+        text.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        text.setEditable(false);
+        
+        final JScrollPane scroll = new JScrollPane(text);
+        scroll.setPreferredSize(new Dimension(640, 400));
+        JOptionPane.showMessageDialog(this, scroll, "Frame pacing", JOptionPane.PLAIN_MESSAGE);
+    }
+    
+    /**
+     * Shows logged watchpoint hits.
+     */
+    private void showWatchLog() {
+        final WatchLog log = nes.debugger.getWatchLog();
+        final StringBuilder sb = new StringBuilder();
+        final List<String> lines = log.lines();
+        sb.append(String.format("%d hits, last %d shown%n%n", log.getCount(), lines.size()));
+        
+        for (String line : lines) {
+            sb.append(line).append('\n');
+        }
+        
+        final JTextArea text = new JTextArea(sb.toString());
+        text.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        text.setEditable(false);
+        
+        final JScrollPane scroll = new JScrollPane(text);
+        scroll.setPreferredSize(new Dimension(640, 400));
+        JOptionPane.showMessageDialog(this, scroll, "Watch log", JOptionPane.PLAIN_MESSAGE);
+    }
+    
+    /**
+     * Shows a hit breakpoint together with code around the current instruction.
+     * Called from emulation thread, the code is disassembled on the event dispatch thread
+     * while emulation is paused.
+     * 
+     * @param breakpoint    Hit breakpoint
+     * @param address       Accessed address
+     * @param value         Value read or written
+     */
+    private void showBreakpoint(final Breakpoint breakpoint, final int address, final int value) {
+        final int pc = nes.cpu.getCPUState().lastPc;
+        
+        SwingUtilities.invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                final StringBuilder sb = new StringBuilder();
+                sb.append(String.format("Breakpoint hit: %s%nAddress: $%04X, value: $%02X%n%n", breakpoint, address, value));
+                
+                if (disassembly == null || !disassembly.isFor(nes.board)) {
+                    disassembly = new DisassemblyCache(nes);
+                }
+                
+                for (String line : disassembly.listing(pc, 5, 5)) {
+                    sb.append(line).append('\n');
+                }
+                
+                messageBox(sb.toString());
+            }
+        });
+    }
+    
+    /**
+     * Shows a file dialog for files with a given extension.
+     * 
+     * @param mode          FileDialog.LOAD or FileDialog.SAVE
+     * @param title         Title of the dialog
+     * @param extension     Extension of files, including a dot
+     * @return              Chosen filename or null if the dialog was cancelled
+     */
+    private String chooseFile(final int mode, final String title, final String extension) {
+        final FileDialog fileDialog = new FileDialog(this);
+        fileDialog.setMode(mode);
+        fileDialog.setTitle(title);
+        fileDialog.setFilenameFilter(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.toLowerCase().endsWith(extension);   
+            }
+        });
+        
+        final boolean wasInFullScreen = inFullScreen;
+        
+        if (wasInFullScreen) {
+            toggleFullScreen();
+        }
+        
+        fileDialog.setVisible(true);
+        
+        if (wasInFullScreen) {
+            toggleFullScreen();
+        }
+        
+        if (fileDialog.getFile() == null) {
+            return null;
+        }
+        
+        String filename = fileDialog.getDirectory() + fileDialog.getFile();
+        
+        if (mode == FileDialog.SAVE && !filename.toLowerCase().endsWith(extension)) {
+            filename += extension;
+        }
+        
+        return filename;
+    }
+    
     public void buildMenus() {
         menus = new JMenuBar();
         JMenu file = new JMenu("File");
@@ -220,6 +605,16 @@ public class GUIImpl extends JFrame implements GUIInterface {
         item.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_F11, 0));
         item.addActionListener(listener);
         menus.add(file);
+        
+        file.addSeparator();
+        
+        file.add(item = new JMenuItem("Start audio recording..."));
+        item.addActionListener(listener);
+        
+        file.add(item = new JMenuItem("Stop audio recording"));
+        item.addActionListener(listener);
+        
+        file.addSeparator();
 
         file.add(item = new JMenuItem("Quit"));
         item.addActionListener(listener);
@@ -259,6 +654,9 @@ public class GUIImpl extends JFrame implements GUIInterface {
         nesmenu.add(item = new JCheckBoxMenuItem("Toggle frame limiter", true));
         item.addItemListener(listener);
         
+        nesmenu.add(item = new JCheckBoxMenuItem("Sync to audio", PrefsSingleton.get().getBoolean("audioSync", false)));
+        item.addItemListener(listener);
+        
         nesmenu.addSeparator();
         
         nesmenu.add(item = new JMenuItem("ROM info..."));
@@ -278,11 +676,99 @@ public class GUIImpl extends JFrame implements GUIInterface {
         options.add(item = new JMenuItem("Controllers..."));
         item.addActionListener(listener);
         
+        options.addSeparator();
+        
+        options.add(item = new JCheckBoxMenuItem("Pipelined rendering", PrefsSingleton.get().getBoolean("pipelinedRendering", false)));
+        item.addItemListener(listener);
+        
+        options.add(item = new JCheckBoxMenuItem("Mix Namco 163 channels", PrefsSingleton.get().getBoolean("namco163Mixing", false)));
+        item.addItemListener(listener);
+        
+        JMenu filter = new JMenu("Audio filter");
+        ButtonGroup filterGroup = new ButtonGroup();
+        final String selectedFilter = PrefsSingleton.get().get("audioFilter", "Automatic");
+        
+        for (String name : new String[] { "Automatic", "NES", "Famicom", "None" }) {
+            filter.add(item = new JRadioButtonMenuItem(name, name.equals(selectedFilter)));
+            item.addItemListener(listener);
+            filterGroup.add(item);
+        }
+        
+        options.add(filter);
+        
+        options.addSeparator();
+        
+        options.add(item = new JMenuItem("Load palette..."));
+        item.addActionListener(listener);
+        
+        options.add(item = new JMenuItem("Save palette..."));
+        item.addActionListener(listener);
+        
+        options.add(item = new JMenuItem("Default palette"));
+        item.addActionListener(listener);
+        
         menus.add(options);
 
         JMenu debug = new JMenu("Debug");
         debug.add(item = new JCheckBoxMenuItem("Enable logging", false));
         item.addItemListener(listener);
+        
+        debug.addSeparator();
+        
+        debug.add(item = new JMenuItem("Add breakpoint..."));
+        item.addActionListener(listener);
+        
+        debug.add(item = new JMenuItem("Remove breakpoint..."));
+        item.addActionListener(listener);
+        
+        debug.add(item = new JMenuItem("Clear breakpoints"));
+        item.addActionListener(listener);
+        
+        debug.add(item = new JMenuItem("Resume"));
+        item.addActionListener(listener);
+        item.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_F5, 0));
+        
+        debug.add(item = new JMenuItem("Watch log..."));
+        item.addActionListener(listener);
+        
+        debug.addSeparator();
+        
+        debug.add(item = new JCheckBoxMenuItem("Code/Data Logger", false));
+        item.addItemListener(listener);
+        
+        debug.add(item = new JMenuItem("Load code/data log..."));
+        item.addActionListener(listener);
+        
+        debug.add(item = new JMenuItem("Save code/data log..."));
+        item.addActionListener(listener);
+        
+        debug.add(item = new JMenuItem("Save heatmap..."));
+        item.addActionListener(listener);
+        
+        debug.addSeparator();
+        
+        debug.add(item = new JCheckBoxMenuItem("Cycle profiler", false));
+        item.addItemListener(listener);
+        
+        debug.add(item = new JMenuItem("Load symbols..."));
+        item.addActionListener(listener);
+        
+        debug.add(item = new JMenuItem("Save profile..."));
+        item.addActionListener(listener);
+        
+        debug.addSeparator();
+        
+        debug.add(item = new JCheckBoxMenuItem("Host profiler", false));
+        item.addItemListener(listener);
+        
+        debug.add(item = new JMenuItem("Show host profile..."));
+        item.addActionListener(listener);
+        
+        debug.add(item = new JMenuItem("Audio statistics..."));
+        item.addActionListener(listener);
+        
+        debug.add(item = new JMenuItem("Frame pacing statistics..."));
+        item.addActionListener(listener);
         menus.add(debug);
 
         JMenu help = new JMenu("Help");
@@ -410,6 +896,7 @@ public class GUIImpl extends JFrame implements GUIInterface {
             // placeholder for more robust handler
             switch (arg0.getActionCommand()) {
                 case "Quit":
+                    stopAudioRecording(false);
                     nes.saveSRAM(false);
                     System.exit(0);
                     break;
@@ -432,6 +919,7 @@ public class GUIImpl extends JFrame implements GUIInterface {
                     if (inFullScreen) {
                         toggleFullScreen();
                     } else {
+                        stopAudioRecording(false);
                         nes.saveSRAM(false);
                         System.exit(0);
                     }   break;
@@ -441,6 +929,64 @@ public class GUIImpl extends JFrame implements GUIInterface {
                 case "General...":
                     showGeneralOptions();
                     break;
+                case "Load palette...":
+                    loadPalette();
+                    break;
+                case "Save palette...":
+                    savePalette();
+                    break;
+                case "Add breakpoint...":
+                    addBreakpoint();
+                    break;
+                case "Remove breakpoint...":
+                    removeBreakpoint();
+                    break;
+                case "Clear breakpoints":
+                    nes.debugger.clear();
+                    break;
+                case "Resume":
+                    nes.debugger.resume();
+                    break;
+                case "Watch log...":
+                    showWatchLog();
+                    break;
+                case "Load code/data log...":
+                    loadCodeDataLog();
+                    break;
+                case "Save code/data log...":
+                    saveCodeDataLog(false);
+                    break;
+                case "Save heatmap...":
+                    saveCodeDataLog(true);
+                    break;
+                case "Load symbols...":
+                    loadSymbols();
+                    break;
+                case "Save profile...":
+                    saveProfile();
+                    break;
+                case "Show host profile...":
+                    showHostProfile();
+                    break;
+                case "Audio statistics...":
+                    showAudioStatistics();
+                    break;
+                case "Start audio recording...":
+                    startAudioRecording();
+                    break;
+                case "Stop audio recording":
+                    stopAudioRecording(true);
+                    break;
+                case "Frame pacing statistics...":
+                    showFramePacing();
+                    break;
+                case "Default palette":
+                    PrefsSingleton.get().put("paletteFile", "");
+                    
+                    if (nes.ppu != null) {
+                        nes.generatePalette();
+                    }
+                    break;
                 case "ROM info...":
                     String info = null;
                     
@@ -474,6 +1020,18 @@ public class GUIImpl extends JFrame implements GUIInterface {
                     case "Dendy":
                         nes.setRegion(Region.DENDY);
                         break;
+                    case "Automatic":
+                    case "NES":
+                    case "Famicom":
+                    case "None":
+                        if (ie.getStateChange() == ItemEvent.SELECTED) {
+                            PrefsSingleton.get().put("audioFilter", rb.getText());
+                            
+                            if (nes.audio != null) {
+                                nes.audio.setFilter(OutputFilter.Preset.select(nes.region));
+                            }
+                        }
+                        break;
                     default:
                         break;
                 }
@@ -484,9 +1042,34 @@ public class GUIImpl extends JFrame implements GUIInterface {
                     case "Enable logging":
                         NES.LOGGING = (ie.getStateChange() == ItemEvent.SELECTED);
                         break;
+                    case "Code/Data Logger":
+                        if (ie.getStateChange() == ItemEvent.SELECTED) {
+                            nes.debugger.startCodeDataLogger();
+                        } else {
+                            nes.debugger.stopCodeDataLogger();
+                        }
+                        break;
+                    case "Cycle profiler":
+                        nes.setProfiling(ie.getStateChange() == ItemEvent.SELECTED);
+                        break;
+                    case "Host profiler":
+                        nes.setHostProfiling(ie.getStateChange() == ItemEvent.SELECTED);
+                        break;
                     case "Toggle frame limiter":
                         nes.toggleFrameLimiter();
                         break;
+                    case "Sync to audio":
+                        PrefsSingleton.get().putBoolean("audioSync", ie.getStateChange() == ItemEvent.SELECTED);
+                        nes.frameLimiter.audioSync = (ie.getStateChange() == ItemEvent.SELECTED);
+                        break;
+                    case "Pipelined rendering":
+                        PrefsSingleton.get().putBoolean("pipelinedRendering", ie.getStateChange() == ItemEvent.SELECTED);
+                        nes.setPipelinedRendering(ie.getStateChange() == ItemEvent.SELECTED);
+                        break;
+                    case "Mix Namco 163 channels":
+                        PrefsSingleton.get().putBoolean("namco163Mixing", ie.getStateChange() == ItemEvent.SELECTED);
+                        nes.setNamco163Mixing(ie.getStateChange() == ItemEvent.SELECTED);
+                        break;
                     case "Connect Zapper":
                         nes.controllers.zapperConnected = (ie.getStateChange() == ItemEvent.SELECTED);
                     default:
@@ -504,6 +1087,7 @@ public class GUIImpl extends JFrame implements GUIInterface {
         public void windowClosing(WindowEvent e) {
             joypad1.stopEventQueue();
             joypad2.stopEventQueue();
+            stopAudioRecording(false);
             nes.saveSRAM(false);
             System.exit(0);
         }
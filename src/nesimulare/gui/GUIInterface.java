@@ -30,9 +30,10 @@ package nesimulare.gui;
  */
 public interface GUIInterface extends Runnable {
     
-    public void setFrame(int[][] frame);
+    public void setFrame(short[] frame, int[] palette);
     //Frame is now a 256x240 array with NES color numbers from 0-3F
-    //plus the state of the 3 color emphasis bits in bits 7,8,9
+    //plus the state of the 3 color emphasis bits in bits 6,7,8,
+    //which is also an index to the palette
 
     public void messageBox(String message);
 
@@ -35,34 +35,32 @@ import java.awt.image.WritableRaster;
 public class Renderer {
     /**
      * 
-     * @param nespixels
+     * @param nespixels     Frame with 256x240 9-bit pixels stored row after row
+     * @param palette       Color palette indexed by 9-bit pixels
      * @return 
      */
-    public BufferedImage render(int[][] nespixels) {
-        final int colors[] = new int[240 * 256];
-        
-        for (int y = 0; y < 240; y++) {
-            System.arraycopy(nespixels[y], 0, colors, y * 256, 256);
-        }
-        
-        return getImageFromArray(colors, 256 * 8, 256, 224);
+    public BufferedImage render(short[] nespixels, int[] palette) {
+        return getImageFromArray(nespixels, palette, 256 * 8, 256, 224);
     }
 
     /**
-     * Converts an array with pixel values to <code>BufferedImage</code>.
+     * Converts an array with 9-bit pixels to <code>BufferedImage</code>.
      * 
      * @param bitmap
+     * @param palette
      * @param offset
      * @param width
      * @param height
      * @return 
      */
-    private static BufferedImage getImageFromArray(final int[] bitmap, final int offset, final int width, final int height) {
+    private static BufferedImage getImageFromArray(final short[] bitmap, final int[] palette, final int offset, final int width, final int height) {
         final BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
         final WritableRaster raster = image.getRaster();
         final int[] pixels = ((DataBufferInt) raster.getDataBuffer()).getData();
         
-        System.arraycopy(bitmap, offset, pixels, 0, width * height);
+        for (int i = 0; i < width * height; i++) {
+            pixels[i] = palette[bitmap[offset + i]];
+        }
         
         return image;
     }
@@ -0,0 +1,136 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2013-2014 Parseus.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package nesimulare.gui;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free ring buffer of audio samples between exactly one producer
+ * (emulation thread) and one consumer (audio output thread).
+ *
+ * Producer writes samples ahead of the published position and makes them
+ * visible to the consumer in batches, so there is only one ordered write
+ * per batch instead of one per sample.
+ *
+ * @author Parseus
+ */
+public class SampleRing {
+    private final int[] buffer;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong();   //Next sample to read, written by consumer
+    private final AtomicLong tail = new AtomicLong();   //End of published samples, written by producer
+    private long pending = 0;                           //Owned by producer
+    private long cachedHead = 0;                        //Owned by producer
+
+    /**
+     * Constructor for this class.
+     *
+     * @param minimumCapacity       Minimum number of samples the buffer can hold
+     */
+    public SampleRing(final int minimumCapacity) {
+        int capacity = 1;
+
+        while (capacity < minimumCapacity) {
+            capacity <<= 1;
+        }
+
+        buffer = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Returns the number of samples the buffer can hold.
+     *
+     * @return      Number of samples the buffer can hold
+     */
+    public int getCapacity() {
+        return buffer.length;
+    }
+
+    /**
+     * Adds a sample without publishing it. Called from producer thread only.
+     *
+     * @param sample        Sample to add
+     * @return              True: Sample was added
+     *                      False: Buffer is full, sample was dropped
+     */
+    public boolean offer(final int sample) {
+        if (pending - cachedHead == buffer.length) {
+            cachedHead = head.get();
+
+            if (pending - cachedHead == buffer.length) {
+                return false;
+            }
+        }
+
+        buffer[(int) pending & mask] = sample;
+        pending++;
+
+        return true;
+    }
+
+    /**
+     * Makes all added samples visible to consumer. Called from producer thread only.
+     */
+    public void publish() {
+        tail.lazySet(pending);
+    }
+
+    /**
+     * Removes published samples. Called from consumer thread only.
+     *
+     * @param output        Array to store samples to
+     * @param max           Maximum number of samples to remove
+     * @return              Number of removed samples
+     */
+    public int poll(final int[] output, final int max) {
+        final long start = head.get();
+        final int count = (int) Math.min(tail.get() - start, Math.min(max, output.length));
+
+        for (int i = 0; i < count; i++) {
+            output[i] = buffer[(int) (start + i) & mask];
+        }
+
+        head.lazySet(start + count);
+
+        return count;
+    }
+
+    /**
+     * Drops all published samples. Called from consumer thread only.
+     */
+    public void discard() {
+        head.lazySet(tail.get());
+    }
+
+    /**
+     * Returns the number of published samples waiting to be read.
+     *
+     * @return      Number of published samples waiting to be read
+     */
+    public int size() {
+        return (int) (tail.get() - head.get());
+    }
+}
@@ -0,0 +1,324 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2013-2014 Parseus.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package nesimulare.tools;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import nesimulare.core.cpu.Opcodes;
+
+/**
+ * Generates opcode dispatch and opcode handlers of the CPU from a definition file.
+ *
+ * Usage: OpcodeGenerator &lt;opcodes.def&gt; &lt;CPU.java&gt;
+ *
+ * Code between the "Generated Code" folds of CPU.java is replaced,
+ * everything else is kept as it is. See tools/opcodes.def for the format.
+ *
+ * @author Parseus
+ */
+public class OpcodeGenerator {
+    private static final String DISPATCH_FOLD = "Generated Code: opcode dispatch";
+    private static final String HANDLERS_FOLD = "Generated Code: opcode handlers";
+    private static final String FOLD_END = "    // </editor-fold>\n";
+
+    /**
+     * Addressing mode: operand fetching code, suffix of handler names and title.
+     */
+    private static class Mode {
+        String suffix;
+        String title;
+        List<String> code = new ArrayList<>();
+    }
+
+    /**
+     * Group of opcodes sharing the same code.
+     */
+    private static class Group {
+        String name;
+        String title;
+        List<Integer> opcodes = new ArrayList<>();
+        List<String> code = new ArrayList<>();
+    }
+
+    private final Map<String, Mode> modes = new HashMap<>();
+    private final List<Group> groups = new ArrayList<>();
+    private final Group[] opcodeGroups = new Group[0x100];
+
+    /**
+     * Runs the generator.
+     *
+     * @param args      Path to the definition file and path to CPU.java
+     * @throws IOException
+     */
+    public static void main(final String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: OpcodeGenerator <opcodes.def> <CPU.java>");
+            System.exit(1);
+        }
+
+        final OpcodeGenerator generator = new OpcodeGenerator();
+        final Path cpu = Paths.get(args[1]);
+
+        generator.parse(Files.readAllLines(Paths.get(args[0]), StandardCharsets.UTF_8));
+
+        String source = new String(Files.readAllBytes(cpu), StandardCharsets.UTF_8);
+        source = replaceFold(source, DISPATCH_FOLD, generator.generateDispatch());
+        source = replaceFold(source, HANDLERS_FOLD, generator.generateHandlers());
+
+        Files.write(cpu, source.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Parses the definition file.
+     *
+     * @param lines     Lines of the definition file
+     */
+    private void parse(final List<String> lines) {
+        for (int i = 0; i < lines.size(); i++) {
+            final String line = lines.get(i);
+
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+
+            final String[] words = line.split(" ", 4);
+
+            if (words[0].equals("mode") && words.length == 4) {
+                final Mode mode = new Mode();
+                mode.suffix = words[2];
+                mode.title = words[3];
+                i = readCode(lines, i + 1, mode.code);
+
+                Opcodes.AddressMode.valueOf(words[1]);
+                modes.put(words[1], mode);
+            } else if (words[0].equals("group") && words.length >= 3) {
+                final Group group = new Group();
+                final String[] header = line.split(" ", 3);
+                group.name = header[1];
+                group.title = header[2];
+
+                if (i + 1 >= lines.size() || !lines.get(i + 1).startsWith("opcodes ")) {
+                    throw new IllegalArgumentException("Line " + (i + 2) + ": opcodes of " + group.name + " expected");
+                }
+
+                for (final String opcode : lines.get(++i).substring(8).trim().split(" +")) {
+                    final int value = Integer.parseInt(opcode, 16);
+
+                    if (opcodeGroups[value] != null) {
+                        throw new IllegalArgumentException("Opcode " + opcode + " is defined twice");
+                    }
+
+                    opcodeGroups[value] = group;
+                    group.opcodes.add(value);
+                }
+
+                i = readCode(lines, i + 1, group.code);
+                groups.add(group);
+            } else {
+                throw new IllegalArgumentException("Line " + (i + 1) + ": unexpected \"" + line + "\"");
+            }
+        }
+
+        for (int opcode = 0; opcode < 0x100; opcode++) {
+            if (opcodeGroups[opcode] == null) {
+                throw new IllegalArgumentException(String.format("Opcode %02X is not defined", opcode));
+            } else if (!modes.containsKey(modeOf(opcode))) {
+                throw new IllegalArgumentException("Addressing mode " + modeOf(opcode) + " is not defined");
+            }
+        }
+    }
+
+    /**
+     * Reads indented code of a block up to its "end" line.
+     *
+     * @param lines     Lines of the definition file
+     * @param start     First line of the block
+     * @param code      List receiving lines of code without block indentation
+     * @return          Index of the "end" line
+     */
+    private static int readCode(final List<String> lines, final int start, final List<String> code) {
+        for (int i = start; i < lines.size(); i++) {
+            final String line = lines.get(i);
+
+            if (line.equals("end")) {
+                return i;
+            } else if (!line.isEmpty() && !line.startsWith("    ")) {
+                throw new IllegalArgumentException("Line " + (i + 1) + ": code has to be indented");
+            }
+
+            code.add(line.isEmpty() ? line : line.substring(4));
+        }
+
+        throw new IllegalArgumentException("Line " + start + ": \"end\" expected");
+    }
+
+    /**
+     * Returns the name of an addressing mode of an opcode.
+     *
+     * @param opcode    Opcode
+     * @return          Name of the addressing mode
+     */
+    private static String modeOf(final int opcode) {
+        return Opcodes.instructionModes[opcode].name();
+    }
+
+    /**
+     * Returns a name of the handler of an opcode.
+     *
+     * @param opcode    Opcode
+     * @return          Name of the handler
+     */
+    private String handlerOf(final int opcode) {
+        final Group group = opcodeGroups[opcode];
+        return isSingleMode(group) ? group.name : group.name + "_" + modes.get(modeOf(opcode)).suffix;
+    }
+
+    /**
+     * Checks if all opcodes of a group use the same addressing mode.
+     *
+     * @param group     Group of opcodes
+     * @return          True: group has a single handler
+     *                  False: group has a handler per addressing mode
+     */
+    private static boolean isSingleMode(final Group group) {
+        for (final int opcode : group.opcodes) {
+            if (!modeOf(opcode).equals(modeOf(group.opcodes.get(0)))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Generates execute() with a case for every opcode.
+     *
+     * @return      Source code
+     */
+    private String generateDispatch() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("    private void execute() {\n");
+        sb.append("        switch (state.ir) {\n");
+
+        for (int opcode = 0; opcode < 0x100; opcode++) {
+            sb.append(String.format("            case 0x%02X:\n", opcode));
+            sb.append("                ").append(handlerOf(opcode)).append("();\n");
+            sb.append("                break;\n");
+        }
+
+        sb.append("            default:\n");
+        sb.append("                break;\n");
+        sb.append("        }\n");
+        sb.append("    }\n");
+
+        return sb.toString();
+    }
+
+    /**
+     * Generates handlers in the order of the first opcode using them.
+     *
+     * @return      Source code
+     */
+    private String generateHandlers() {
+        final Map<String, Integer> handlers = new LinkedHashMap<>();
+
+        for (int opcode = 0; opcode < 0x100; opcode++) {
+            if (!handlers.containsKey(handlerOf(opcode))) {
+                handlers.put(handlerOf(opcode), opcode);
+            }
+        }
+
+        final StringBuilder sb = new StringBuilder();
+
+        for (final Map.Entry<String, Integer> handler : handlers.entrySet()) {
+            final Group group = opcodeGroups[handler.getValue()];
+            final Mode mode = modes.get(modeOf(handler.getValue()));
+
+            if (sb.length() > 0) {
+                sb.append('\n');
+            }
+
+            sb.append("    /**\n");
+            sb.append("     * ").append(group.title);
+
+            if (!isSingleMode(group)) {
+                sb.append(" - ").append(mode.title);
+            }
+
+            sb.append("\n     */\n");
+            sb.append("    private void ").append(handler.getKey()).append("() {\n");
+            appendCode(sb, mode.code);
+            sb.append('\n');
+            appendCode(sb, group.code);
+            sb.append("    }\n");
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Appends lines of code indented as a method body.
+     *
+     * @param sb        Source code
+     * @param code      Lines of code
+     */
+    private static void appendCode(final StringBuilder sb, final List<String> code) {
+        for (final String line : code) {
+            if (!line.isEmpty()) {
+                sb.append("        ").append(line);
+            }
+
+            sb.append('\n');
+        }
+    }
+
+    /**
+     * Replaces contents of a fold.
+     *
+     * @param source        Source code
+     * @param description   Description of the fold
+     * @param contents      New contents of the fold
+     * @return              Source code with the fold replaced
+     */
+    private static String replaceFold(final String source, final String description, final String contents) {
+        final String begin = "    // <editor-fold defaultstate=\"collapsed\" desc=\"" + description + "\">\n";
+        final int start = source.indexOf(begin);
+        final int end = source.indexOf(FOLD_END, start);
+
+        if (start < 0 || end < 0) {
+            throw new IllegalArgumentException("Fold \"" + description + "\" not found");
+        }
+
+        return source.substring(0, start + begin.length()) + contents + source.substring(end);
+    }
+}